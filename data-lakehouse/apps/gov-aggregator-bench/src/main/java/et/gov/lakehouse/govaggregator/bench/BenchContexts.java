@@ -0,0 +1,17 @@
+package et.gov.lakehouse.govaggregator.bench;
+
+import et.gov.lakehouse.govaggregator.core.bronze.BronzeToSilverContext;
+
+/** App contexts wired to the mock registry through the same -D keys the services read. */
+final class BenchContexts {
+
+    private BenchContexts() {}
+
+    static BronzeToSilverContext bronzeToSilver(MockApicurioRegistry registry, String bronzeTopics) {
+        System.setProperty("apicurio.registry.url", registry.url());
+        System.setProperty("bronze.topics", bronzeTopics);
+        System.setProperty("silver.strip.prefix", "raw-");
+        System.setProperty("silver.topic.prefix", "silver.oracle_esw.");
+        return BronzeToSilverContext.fromEnv();
+    }
+}
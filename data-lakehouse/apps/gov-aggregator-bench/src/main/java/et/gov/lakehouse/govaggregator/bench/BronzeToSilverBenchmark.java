@@ -0,0 +1,115 @@
+package et.gov.lakehouse.govaggregator.bench;
+
+import et.gov.lakehouse.govaggregator.core.bronze.BronzeToSilverContext;
+import et.gov.lakehouse.govaggregator.core.bronze.BronzeToSilverPipeline;
+import et.gov.lakehouse.govaggregator.core.bronze.SilverRoute;
+import et.gov.lakehouse.govaggregator.core.bronze.SilverTranscoder;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debezium envelope -> silver record, step by step and end to end.
+ *
+ * decodePath is what the default topology does per record (Apicurio decode, extractAfter,
+ * silverSchemaFor, toSilver, Apicurio encode); transcode is the SILVER_TRANSCODE=true path on the
+ * same bytes. Both run against {@link MockApicurioRegistry}, so after warm-up no HTTP is involved.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BronzeToSilverBenchmark {
+
+    static final String TABLE = "TB_CB_LPCO";
+    static final String BRONZE_TOPIC = "raw-" + TABLE;
+
+    /** ESW tables range from a handful of columns to ~120. */
+    @Param({"24", "120"})
+    public int columns;
+
+    private MockApicurioRegistry registry;
+    private BronzeToSilverContext ctx;
+    private SilverRoute route;
+
+    private byte[] bronze;
+    private GenericRecord root;
+    private GenericRecord after;
+    private Schema silverSchema;
+
+    private Deserializer<GenericRecord> bronzeDeserializer;
+    private Serializer<GenericRecord> silverSerializer;
+    private SilverTranscoder transcoder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = MockApicurioRegistry.start();
+        ctx = BenchContexts.bronzeToSilver(registry, BRONZE_TOPIC);
+        route = ctx.manifest.resolve(BRONZE_TOPIC);
+
+        Schema envelope = DebeziumFixtures.envelopeSchema(DebeziumFixtures.valueSchema(TABLE, columns));
+        bronze = ctx.bronzeValueSerde.serializer().serialize(BRONZE_TOPIC, DebeziumFixtures.update(envelope, 42));
+
+        bronzeDeserializer = ctx.bronzeValueSerde.deserializer();
+        silverSerializer = ctx.silverValueSerde.serializer();
+        root = bronzeDeserializer.deserialize(BRONZE_TOPIC, bronze);
+        after = BronzeToSilverPipeline.extractAfter(root);
+        silverSchema = BronzeToSilverPipeline.silverSchemaFor(after, ctx.silverRecordNamespace, route.tableName);
+
+        transcoder = new SilverTranscoder(ctx, route, null);
+        if (transcoder.transcode(bronze, 0) == null) {
+            throw new IllegalStateException("Transcoder produced no output for the fixture");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.close();
+    }
+
+    @Benchmark
+    public GenericRecord extractAfter() {
+        return BronzeToSilverPipeline.extractAfter(root);
+    }
+
+    @Benchmark
+    public Schema silverSchemaFor() {
+        return BronzeToSilverPipeline.silverSchemaFor(after, ctx.silverRecordNamespace, route.tableName);
+    }
+
+    @Benchmark
+    public GenericRecord toSilver() {
+        return BronzeToSilverPipeline.toSilver(after, silverSchema, route.icebergTable);
+    }
+
+    @Benchmark
+    public byte[] decodePath() {
+        GenericRecord r = bronzeDeserializer.deserialize(BRONZE_TOPIC, bronze);
+        GenericRecord a = BronzeToSilverPipeline.extractAfter(r);
+        Schema s = BronzeToSilverPipeline.silverSchemaFor(a, ctx.silverRecordNamespace, route.tableName);
+        return silverSerializer.serialize(route.silverTopic, BronzeToSilverPipeline.toSilver(a, s, route.icebergTable));
+    }
+
+    @Benchmark
+    public byte[] transcode() {
+        return transcoder.transcode(bronze, 0);
+    }
+}
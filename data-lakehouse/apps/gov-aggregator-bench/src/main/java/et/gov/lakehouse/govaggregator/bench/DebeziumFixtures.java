@@ -0,0 +1,143 @@
+package et.gov.lakehouse.govaggregator.bench;
+
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Oracle-shaped Debezium envelopes for the benchmarks.
+ *
+ * Columns cycle through what the ESW tables actually carry: VARCHAR2 (string), NUMBER(p,s)
+ * (Connect Decimal bytes), NUMBER(19) (long), DATE (io.debezium.time.Timestamp), all optional
+ * like Debezium emits nullable columns. The source block mirrors the Oracle connector's.
+ */
+public final class DebeziumFixtures {
+
+    /** The Oracle ESW tables {@code EswBronzeToSilverTask} routes (bronze topic = "raw-" + table). */
+    public static final List<String> ESW_TABLES = List.of(
+            "TB_CB_LPCO", "TB_CB_LPCO_AMDT_ATTCH_DOC", "TB_CB_LPCO_ATTCH_DOC", "TB_CB_LPCO_CMDT",
+            "TB_CB_LPCO_CMNT", "TB_CB_LPCO_CNCL_ATTCH_DOC", "TB_CB_LPCO_CSTMS", "TB_CB_LPCO_MPNG");
+
+    private DebeziumFixtures() {}
+
+    public static Schema valueSchema(String table, int columns) {
+        SchemaBuilder.FieldAssembler<Schema> f = SchemaBuilder.record("Value").namespace("oracle_esw.ESW." + table).fields();
+        for (int i = 0; i < columns; i++) {
+            String name = columnName(i);
+            switch (i % 4) {
+                case 0 -> f = f.name(name).type().optional().stringType();
+                case 1 -> {
+                    Schema dec = LogicalTypes.decimal(18, 2).addToSchema(Schema.create(Schema.Type.BYTES));
+                    dec.addProp("connect.name", "org.apache.kafka.connect.data.Decimal");
+                    dec.addProp("connect.parameters", java.util.Map.of("scale", "2"));
+                    f = f.name(name).type(Schema.createUnion(Schema.create(Schema.Type.NULL), dec)).withDefault(null);
+                }
+                case 2 -> f = f.name(name).type().optional().longType();
+                default -> {
+                    Schema ts = Schema.create(Schema.Type.LONG);
+                    ts.addProp("connect.name", "io.debezium.time.Timestamp");
+                    ts.addProp("connect.version", 1);
+                    f = f.name(name).type(Schema.createUnion(Schema.create(Schema.Type.NULL), ts)).withDefault(null);
+                }
+            }
+        }
+        return f.endRecord();
+    }
+
+    public static Schema envelopeSchema(Schema value) {
+        Schema source = SchemaBuilder.record("Source").namespace("io.debezium.connector.oracle").fields()
+                .requiredString("version").requiredString("connector").requiredString("name").requiredLong("ts_ms")
+                .optionalString("snapshot").requiredString("db").optionalString("sequence").requiredString("schema")
+                .requiredString("table").optionalString("txId").optionalString("scn").optionalString("commit_scn")
+                .optionalString("lcr_position").optionalString("rs_id").optionalLong("ssn").optionalInt("redo_thread")
+                .optionalString("user_name")
+                .endRecord();
+        Schema tx = SchemaBuilder.record("block").namespace("event").fields()
+                .requiredString("id").requiredLong("total_order").requiredLong("data_collection_order")
+                .endRecord();
+        return SchemaBuilder.record("Envelope").namespace(value.getNamespace()).fields()
+                .name("before").type().optional().type(value)
+                .name("after").type().optional().type(value)
+                .name("source").type(source).noDefault()
+                .requiredString("op")
+                .optionalLong("ts_ms")
+                .name("transaction").type().optional().type(tx)
+                .endRecord();
+    }
+
+    /** An op=u envelope whose before and after differ in the first column only. */
+    public static GenericRecord update(Schema envelope, long seed) {
+        return change(envelope, 'u', seed);
+    }
+
+    /** op=c / op=r (no before; r is a snapshot read), op=u (as {@link #update}) or op=d (no after) envelope. */
+    public static GenericRecord change(Schema envelope, char op, long seed) {
+        Schema value = envelope.getField("after").schema().getTypes().get(1);
+        GenericRecord before = null;
+        GenericRecord after = null;
+        if (op == 'u' || op == 'd') {
+            before = row(value, seed);
+            if (op == 'u') before.put(0, "prev-" + seed);
+        }
+        if (op != 'd') {
+            after = row(value, seed);
+        }
+
+        GenericRecord e = new GenericData.Record(envelope);
+        e.put("before", before);
+        e.put("after", after);
+        GenericRecord source = source(envelope.getField("source").schema(), value.getNamespace(), seed);
+        if (op == 'r') source.put("snapshot", "true");
+        e.put("source", source);
+        e.put("op", String.valueOf(op));
+        e.put("ts_ms", 1_700_000_000_000L + seed);
+        return e;
+    }
+
+    public static GenericRecord row(Schema value, long seed) {
+        GenericRecord r = new GenericData.Record(value);
+        List<Schema.Field> fields = value.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            switch (i % 4) {
+                case 0 -> r.put(i, "V" + seed + "-" + i + "-ABCDEFGHIJ");
+                case 1 -> r.put(i, ByteBuffer.wrap(BigDecimal.valueOf(seed * 100 + i, 2).unscaledValue().toByteArray()));
+                case 2 -> r.put(i, seed * 31 + i);
+                default -> r.put(i, 1_700_000_000_000L + seed + i);
+            }
+        }
+        return r;
+    }
+
+    private static GenericRecord source(Schema schema, String namespace, long seed) {
+        GenericRecord s = new GenericData.Record(schema);
+        s.put("version", "2.7.0.Final");
+        s.put("connector", "oracle");
+        s.put("name", "oracle_esw");
+        s.put("ts_ms", 1_700_000_000_000L + seed);
+        s.put("snapshot", "false");
+        s.put("db", "ESWDB");
+        s.put("schema", "ESW");
+        s.put("table", namespace.substring(namespace.lastIndexOf('.') + 1));
+        s.put("txId", "0a001b00" + seed);
+        s.put("scn", String.valueOf(90_000_000L + seed));
+        s.put("commit_scn", String.valueOf(90_000_001L + seed));
+        s.put("user_name", "ESW");
+        return s;
+    }
+
+    private static String columnName(int i) {
+        return switch (i) {
+            case 0 -> "LPCO_NO";
+            case 1 -> "LPCO_AMT";
+            case 2 -> "LPCO_SN";
+            case 3 -> "RGST_DT";
+            default -> "COL_" + i;
+        };
+    }
+}
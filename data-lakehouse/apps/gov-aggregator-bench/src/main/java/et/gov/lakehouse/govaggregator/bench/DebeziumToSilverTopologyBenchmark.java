@@ -0,0 +1,143 @@
+package et.gov.lakehouse.govaggregator.bench;
+
+import et.gov.lakehouse.govaggregator.core.bronze.BronzeToSilverContext;
+import et.gov.lakehouse.govaggregator.core.bronze.EswBronzeToSilverTask;
+import et.gov.lakehouse.govaggregator.core.bronze.SilverRoute;
+import org.apache.avro.Schema;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One record through the real DebeziumToSilverApp topology (the eight ESW tables on one
+ * {@code EswBronzeToSilverTask} source node) in a {@link TopologyTestDriver}: bronze bytes in,
+ * decode / route / project / encode, silver bytes read back out. {@code throughput} is records/s,
+ * {@code latency} gives the p50 / p99 per record, and the GC profiler's gc.alloc.rate.norm is
+ * bytes allocated per record.
+ *
+ * The envelopes are serialized at setup (a pool cycling over the tables with the configured op mix),
+ * so the loop measures the app, plus the driver's own per-record bookkeeping, but no broker or
+ * network. Numbers are per thread: one stream thread's ceiling on this machine.
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DebeziumToSilverTopologyBenchmark {
+
+    private static final int POOL = 4096;
+
+    /** Columns per table row. */
+    @Param({"24", "120"})
+    public int columns;
+
+    /** Op weights: live changes, and an initial load (op=r). */
+    @Param({"c=10,u=80,d=10", "r=100"})
+    public String mix;
+
+    /** SILVER_TRANSCODE. */
+    @Param({"false", "true"})
+    public boolean transcode;
+
+    private MockApicurioRegistry registry;
+    private TopologyTestDriver driver;
+    private final List<TestInputTopic<byte[], byte[]>> inputs = new ArrayList<>();
+    private final List<TestOutputTopic<byte[], byte[]>> outputs = new ArrayList<>();
+
+    private final byte[][] keys = new byte[POOL][];
+    private final byte[][] values = new byte[POOL][];
+    private final int[] tables = new int[POOL];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = MockApicurioRegistry.start();
+        System.setProperty("silver.transcode", String.valueOf(transcode));
+        // A poison record is a fixture bug here; fail instead of opening a DLQ producer.
+        System.setProperty("deserialization.error.handler", "fail");
+        System.setProperty("processing.error.handler", "fail");
+        System.setProperty("production.error.handler", "fail");
+
+        List<String> tableNames = DebeziumFixtures.ESW_TABLES;
+        String[] topics = tableNames.stream().map(t -> "raw-" + t).toArray(String[]::new);
+        BronzeToSilverContext ctx = BenchContexts.bronzeToSilver(registry, String.join(",", topics));
+
+        StreamsBuilder b = new StreamsBuilder();
+        new EswBronzeToSilverTask().configure(b, ctx);
+        driver = new TopologyTestDriver(b.build(), ctx.streamsProps);
+
+        Schema[] envelopes = new Schema[topics.length];
+        for (int t = 0; t < topics.length; t++) {
+            SilverRoute route = ctx.manifest.resolve(topics[t]);
+            inputs.add(driver.createInputTopic(topics[t], new ByteArraySerializer(), new ByteArraySerializer()));
+            outputs.add(driver.createOutputTopic(route.silverTopic, new ByteArrayDeserializer(), new ByteArrayDeserializer()));
+            envelopes[t] = DebeziumFixtures.envelopeSchema(DebeziumFixtures.valueSchema(tableNames.get(t), columns));
+        }
+
+        Serializer<GenericRecord> bronze = ctx.bronzeValueSerde.serializer();
+        String[] ops = TrafficMix.schedule(mix, POOL);
+        for (int i = 0; i < POOL; i++) {
+            int t = i % topics.length;
+            tables[i] = t;
+            keys[i] = ("{\"LPCO_NO\":\"K" + i + "\"}").getBytes(StandardCharsets.UTF_8);
+            values[i] = bronze.serialize(topics[t], DebeziumFixtures.change(envelopes[t], ops[i].charAt(0), i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        driver.close();
+        registry.close();
+        System.clearProperty("silver.transcode");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int throughput() {
+        return pipeOne();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int latency() {
+        return pipeOne();
+    }
+
+    /** Pipes the next pooled envelope and drains its silver topic; returns the silver bytes produced. */
+    private int pipeOne() {
+        int i = next++ & (POOL - 1);
+        int t = tables[i];
+        inputs.get(t).pipeInput(keys[i], values[i]);
+        TestOutputTopic<byte[], byte[]> out = outputs.get(t);
+        int bytes = 0;
+        while (!out.isEmpty()) {
+            bytes += out.readValue().length;
+        }
+        return bytes;
+    }
+}
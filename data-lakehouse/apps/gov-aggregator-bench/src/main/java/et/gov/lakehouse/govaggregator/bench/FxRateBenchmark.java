@@ -0,0 +1,66 @@
+package et.gov.lakehouse.govaggregator.bench;
+
+import et.gov.lakehouse.govaggregator.source.nbe.FxRateTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ETB conversion lookup of the MoR / ECC enrichment: {@link FxRateTable} against the obvious
+ * ConcurrentHashMap of pair -> boxed rate. Cycles through currencies that are the base (ETB), known
+ * (USD, EUR, ...) and unknown, as a MoR stream does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FxRateBenchmark {
+
+    private static final String[] CURRENCIES = {"ETB", "USD", "EUR", "ETB", "GBP", "CNY", "ETB", "XYZ"};
+
+    private final FxRateTable table = new FxRateTable();
+    private final ConcurrentHashMap<String, Double> map = new ConcurrentHashMap<>();
+    private String[] currencies;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        String[] pairs = {"USD/ETB", "EUR/ETB", "GBP/ETB", "CNY/ETB", "AED/ETB", "SAR/ETB", "KES/ETB", "JPY/ETB"};
+        for (int k = 0; k < pairs.length; k++) {
+            double rate = 10.0 + k * 7.5;
+            table.update(pairs[k], rate, 1_700_000_000_000L);
+            map.put(pairs[k], rate);
+        }
+        // Fresh String instances, as the deserializer hands them over.
+        currencies = new String[CURRENCIES.length];
+        for (int k = 0; k < CURRENCIES.length; k++) {
+            currencies[k] = new String(CURRENCIES[k].toCharArray());
+        }
+    }
+
+    @Benchmark
+    public double table() {
+        String c = currencies[i++ & (currencies.length - 1)];
+        return table.toEtb(c, 1520.5);
+    }
+
+    @Benchmark
+    public double hashMap() {
+        String c = currencies[i++ & (currencies.length - 1)];
+        if ("ETB".equals(c)) return 1520.5;
+        Double rate = map.get(c + "/" + FxRateTable.BASE);
+        return rate != null ? 1520.5 * rate : Double.NaN;
+    }
+}
@@ -0,0 +1,208 @@
+package et.gov.lakehouse.govaggregator.bench;
+
+import et.gov.lakehouse.govaggregator.avro.EccTradePermit;
+import et.gov.lakehouse.govaggregator.avro.MoeEducationStat;
+import et.gov.lakehouse.govaggregator.avro.MorTaxPayment;
+import et.gov.lakehouse.govaggregator.avro.MotriTransportPermit;
+import et.gov.lakehouse.govaggregator.avro.NbeFxRate;
+import et.gov.lakehouse.govaggregator.common.SerdeFactory;
+import et.gov.lakehouse.govaggregator.common.Topics;
+import et.gov.lakehouse.govaggregator.core.App;
+import et.gov.lakehouse.govaggregator.core.gold.GoldAggregations;
+import et.gov.lakehouse.govaggregator.source.nbe.FxRateTable;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One ministry event through the real App topology ({@link App#buildTopology}) in a
+ * {@link TopologyTestDriver}: the five sources, the per-source mapping and union sink and, with
+ * {@code gold}, the windowed gold aggregates. Same outputs as {@link DebeziumToSilverTopologyBenchmark}:
+ * records/s, p50 / p99 per record and gc.alloc.rate.norm.
+ *
+ * Event times step 50 ms through a pool spanning ~3.5 minutes, inside the 10-minute grace, so
+ * records stay on time when the pool wraps; the windows never close, so GOLD_EMIT=final emits
+ * nothing here and the loop covers aggregation and store updates only.
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GovAggregatorTopologyBenchmark {
+
+    private static final int POOL = 4096;
+    private static final String GROUP = "gov-aggregator";
+    private static final long T0 = 1_700_000_000_000L;
+
+    private static final String[] CURRENCIES = {"ETB", "ETB", "ETB", "USD", "EUR"};
+    private static final String[] COMMODITIES = {"Coffee", "Sesame", "Flowers", "Khat", "Gold", "Leather"};
+    private static final String[] REGIONS = {"Addis Ababa", "Oromia", "Amhara", "Tigray", "Sidama", "Somali"};
+    private static final String[] PAIRS = {"USD/ETB", "EUR/ETB", "GBP/ETB", "CNY/ETB"};
+
+    /** AGGREGATE_PAYLOAD_FORMAT. */
+    @Param({"json", "typed"})
+    public String payloadFormat;
+
+    /** GOLD_AGGREGATES. */
+    @Param({"true", "false"})
+    public boolean gold;
+
+    /** Source weights. */
+    @Param({"mor=40,ecc=20,motri=15,nbe=5,moe=20"})
+    public String mix;
+
+    private MockApicurioRegistry registry;
+    private TopologyTestDriver driver;
+    private final Map<String, TestInputTopic<String, byte[]>> byTopic = new HashMap<>();
+    private final List<TestOutputTopic<byte[], byte[]>> outputs = new ArrayList<>();
+
+    private final String[] keys = new String[POOL];
+    private final byte[][] values = new byte[POOL][];
+    private final List<TestInputTopic<String, byte[]>> inputs = new ArrayList<>(POOL);
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = MockApicurioRegistry.start();
+        System.setProperty("gold.aggregates", String.valueOf(gold));
+
+        // What FxRateFeed has loaded by the time the first record arrives.
+        FxRateTable fx = new FxRateTable();
+        for (int k = 0; k < PAIRS.length; k++) {
+            fx.update(PAIRS[k], 56.8 + k * 9.5, T0);
+        }
+        GoldAggregations goldAggregations = GoldAggregations.fromEnv(registry.url(), GROUP);
+        boolean typed = payloadFormat.equals("typed");
+
+        Properties p = new Properties();
+        p.put(StreamsConfig.APPLICATION_ID_CONFIG, "gov-aggregator-bench");
+        p.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "bench:9092");
+        try {
+            p.put(StreamsConfig.STATE_DIR_CONFIG, Files.createTempDirectory("gov-aggregator-bench").toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // No dedup: the pool wraps, so every event after the first lap would be a duplicate.
+        driver = new TopologyTestDriver(App.buildTopology(registry.url(), GROUP, typed, fx, goldAggregations, null), p);
+
+        outputs.add(driver.createOutputTopic(typed ? Topics.OUT_V2 : Topics.OUT, new ByteArrayDeserializer(), new ByteArrayDeserializer()));
+        if (goldAggregations != null) {
+            for (String t : GoldAggregations.topics()) {
+                outputs.add(driver.createOutputTopic(t, new ByteArrayDeserializer(), new ByteArrayDeserializer()));
+            }
+        }
+
+        String url = registry.url();
+        Serializer<MorTaxPayment> mor = SerdeFactory.avroSerde(MorTaxPayment.class, url, GROUP).serializer();
+        Serializer<EccTradePermit> ecc = SerdeFactory.avroSerde(EccTradePermit.class, url, GROUP).serializer();
+        Serializer<MotriTransportPermit> motri = SerdeFactory.avroSerde(MotriTransportPermit.class, url, GROUP).serializer();
+        Serializer<NbeFxRate> nbe = SerdeFactory.avroSerde(NbeFxRate.class, url, GROUP).serializer();
+        Serializer<MoeEducationStat> moe = SerdeFactory.avroSerde(MoeEducationStat.class, url, GROUP).serializer();
+
+        String[] sources = TrafficMix.schedule(mix, POOL);
+        for (int i = 0; i < POOL; i++) {
+            Instant at = Instant.ofEpochMilli(T0 + i * 50L);
+            String topic;
+            byte[] value;
+            switch (sources[i]) {
+                case "mor" -> {
+                    topic = Topics.MOR;
+                    keys[i] = "PAY-" + i;
+                    value = mor.serialize(topic, new MorTaxPayment(keys[i], String.format("%010d", i % 500), 100.0 + i % 9000, CURRENCIES[i % CURRENCIES.length], at));
+                }
+                case "ecc" -> {
+                    topic = Topics.ECC;
+                    keys[i] = "ECC-" + i;
+                    value = ecc.serialize(topic, new EccTradePermit(keys[i], "Exporter " + i % 200 + " PLC", COMMODITIES[i % COMMODITIES.length], 5_000.0 + i * 13 % 250_000, at));
+                }
+                case "motri" -> {
+                    topic = Topics.MOTRI;
+                    keys[i] = "TP-" + i;
+                    value = motri.serialize(topic, new MotriTransportPermit(keys[i], "3-A" + (10_000 + i), "Addis Ababa - Djibouti", at));
+                }
+                case "nbe" -> {
+                    topic = Topics.NBE;
+                    keys[i] = PAIRS[i % PAIRS.length];
+                    value = nbe.serialize(topic, new NbeFxRate(at, keys[i], 56.8 + i % 100 / 100.0));
+                }
+                case "moe" -> {
+                    topic = Topics.MOE;
+                    keys[i] = "SCH-" + i % 300;
+                    value = moe.serialize(topic, new MoeEducationStat(keys[i], REGIONS[i % 300 % REGIONS.length], 400 + i % 1200, 10 + i % 40, at));
+                }
+                default -> throw new IllegalArgumentException("Unknown source '" + sources[i] + "' in mix " + mix);
+            }
+            values[i] = value;
+            inputs.add(input(topic));
+        }
+    }
+
+    private TestInputTopic<String, byte[]> input(String topic) {
+        return byTopic.computeIfAbsent(topic, t -> driver.createInputTopic(t, new StringSerializer(), new ByteArraySerializer()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        driver.close();
+        registry.close();
+        System.clearProperty("gold.aggregates");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int throughput() {
+        return pipeOne();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int latency() {
+        return pipeOne();
+    }
+
+    /** Pipes the next pooled event and drains every output topic; returns the output bytes. */
+    private int pipeOne() {
+        int i = next++ & (POOL - 1);
+        inputs.get(i).pipeInput(keys[i], values[i]);
+        int bytes = 0;
+        for (int o = 0; o < outputs.size(); o++) {
+            TestOutputTopic<byte[], byte[]> out = outputs.get(o);
+            while (!out.isEmpty()) {
+                byte[] v = out.readValue();
+                if (v != null) bytes += v.length;
+            }
+        }
+        return bytes;
+    }
+}
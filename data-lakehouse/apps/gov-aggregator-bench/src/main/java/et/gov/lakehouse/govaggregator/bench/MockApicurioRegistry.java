@@ -0,0 +1,173 @@
+package et.gov.lakehouse.govaggregator.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the Apicurio v2 REST API, enough for the Avro serdes used by SerdeFactory:
+ * artifact create (auto-register), artifact meta lookup and content fetch by contentId / globalId.
+ *
+ * Same content => same contentId, like the real registry, so serializer and deserializer caches
+ * behave as they do in the stack. Bound to 127.0.0.1 on an ephemeral port.
+ */
+public final class MockApicurioRegistry implements AutoCloseable {
+
+    private static final String BASE = "/apis/registry/v2/";
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpServer server;
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<String, Long> contentIds = new ConcurrentHashMap<>();
+    private final Map<Long, String> contentById = new ConcurrentHashMap<>();
+    private final Map<String, Long> latestByArtifact = new ConcurrentHashMap<>();
+    private final List<String> unhandled = new CopyOnWriteArrayList<>();
+    private final AtomicLong requests = new AtomicLong();
+
+    private MockApicurioRegistry(HttpServer server) {
+        this.server = server;
+    }
+
+    public static MockApicurioRegistry start() {
+        // Ids of a throwaway registry must not land in (or be served from) an on-disk schema snapshot.
+        System.setProperty("schema.cache.dir", "");
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            MockApicurioRegistry registry = new MockApicurioRegistry(server);
+            server.createContext("/", registry::handle);
+            server.start();
+            return registry;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot start mock registry", e);
+        }
+    }
+
+    /** Base URL to pass as APICURIO_URL / apicurio.registry.url. */
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/apis/registry/v2";
+    }
+
+    /** Registers content up front (e.g. a bronze writer schema) and returns its contentId. */
+    public long register(String groupId, String artifactId, String content) {
+        long id = contentIdFor(content);
+        latestByArtifact.put(groupId + "/" + artifactId, id);
+        return id;
+    }
+
+    /** HTTP calls served so far; a warmed-up serde should not add to this. */
+    public long requestCount() {
+        return requests.get();
+    }
+
+    public List<String> unhandledRequests() {
+        return unhandled;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private long contentIdFor(String content) {
+        return contentIds.computeIfAbsent(content, c -> {
+            long id = ids.incrementAndGet();
+            contentById.put(id, c);
+            return id;
+        });
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        requests.incrementAndGet();
+        try (ex) {
+            String path = ex.getRequestURI().getPath();
+            if (!path.startsWith(BASE)) {
+                reply(ex, 404, "{}");
+                return;
+            }
+            String[] parts = path.substring(BASE.length()).split("/");
+            String method = ex.getRequestMethod();
+
+            // ids/contentIds/{id}, ids/globalIds/{id} (+ /references)
+            if (parts.length >= 3 && parts[0].equals("ids")) {
+                if (parts.length == 4 && parts[3].equals("references")) {
+                    reply(ex, 200, "[]");
+                    return;
+                }
+                String content = contentById.get(Long.parseLong(parts[2]));
+                reply(ex, content == null ? 404 : 200, content == null ? "{}" : content);
+                return;
+            }
+
+            // groups/{g}/artifacts (create) and groups/{g}/artifacts/{a}/meta (lookup / search by content)
+            if (parts.length >= 3 && parts[0].equals("groups") && parts[2].equals("artifacts")) {
+                String group = parts[1];
+                if (parts.length == 3 && method.equals("POST")) {
+                    String artifact = ex.getRequestHeaders().getFirst("X-Registry-ArtifactId");
+                    long id = register(group, artifact, contentOf(ex));
+                    reply(ex, 200, metaData(group, artifact, id));
+                    return;
+                }
+                if (parts.length == 5 && parts[4].equals("meta")) {
+                    String artifact = parts[3];
+                    Long id = method.equals("POST") ? Long.valueOf(contentIdFor(contentOf(ex)))
+                            : latestByArtifact.get(group + "/" + artifact);
+                    reply(ex, id == null ? 404 : 200, id == null ? "{}" : metaData(group, artifact, id));
+                    return;
+                }
+                if (parts.length >= 6 && parts[4].equals("versions")) {
+                    Long id = latestByArtifact.get(group + "/" + parts[3]);
+                    reply(ex, id == null ? 404 : 200, id == null ? "{}" : contentById.get(id));
+                    return;
+                }
+            }
+
+            unhandled.add(method + " " + ex.getRequestURI());
+            reply(ex, 404, "{\"error_code\":404,\"message\":\"not mocked\"}");
+        }
+    }
+
+    private static String contentOf(HttpExchange ex) throws IOException {
+        String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String type = ex.getRequestHeaders().getFirst("Content-Type");
+        if (type != null && type.contains("create.extended")) {
+            JsonNode node = JSON.readTree(body);
+            return node.path("content").asText();
+        }
+        return body;
+    }
+
+    private static String metaData(String group, String artifact, long id) {
+        ObjectNode n = JSON.createObjectNode();
+        n.put("groupId", group);
+        n.put("id", artifact);
+        n.put("version", String.valueOf(id));
+        n.put("globalId", id);
+        n.put("contentId", id);
+        n.put("type", "AVRO");
+        n.put("state", "ENABLED");
+        n.put("createdOn", "2024-01-01T00:00:00Z");
+        n.put("modifiedOn", "2024-01-01T00:00:00Z");
+        return n.toString();
+    }
+
+    private static void reply(HttpExchange ex, int status, String body) throws IOException {
+        byte[] b = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, b.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(b);
+        }
+    }
+}
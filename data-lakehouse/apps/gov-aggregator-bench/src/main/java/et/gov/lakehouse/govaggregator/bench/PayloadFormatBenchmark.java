@@ -0,0 +1,135 @@
+package et.gov.lakehouse.govaggregator.bench;
+
+import et.gov.lakehouse.govaggregator.avro.AggregatedRecord;
+import et.gov.lakehouse.govaggregator.avro.AggregatedRecordV2;
+import et.gov.lakehouse.govaggregator.avro.EccTradePermit;
+import et.gov.lakehouse.govaggregator.avro.MoeEducationStat;
+import et.gov.lakehouse.govaggregator.avro.MorTaxPayment;
+import et.gov.lakehouse.govaggregator.avro.MotriTransportPermit;
+import et.gov.lakehouse.govaggregator.avro.NbeFxRate;
+import et.gov.lakehouse.govaggregator.source.ecc.EccTask;
+import et.gov.lakehouse.govaggregator.source.moe.MoeTask;
+import et.gov.lakehouse.govaggregator.source.mor.MorTask;
+import et.gov.lakehouse.govaggregator.source.motri.MotriTask;
+import et.gov.lakehouse.govaggregator.source.nbe.FxRateTable;
+import et.gov.lakehouse.govaggregator.source.nbe.NbeTask;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AggregatedRecord payload formats, mapping + Avro binary encoding of one record per source (5 per op):
+ * {@code legacy} is the pre-v2 string concatenation (kept here as the baseline), {@code json} is
+ * {@code toAggregated} (PayloadJson), {@code typed} is {@code toTyped} (AggregatedRecordV2).
+ * Encoded bytes per record for each format are printed once at setup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PayloadFormatBenchmark {
+
+    private MorTaxPayment mor;
+    private EccTradePermit ecc;
+    private MotriTransportPermit motri;
+    private NbeFxRate nbe;
+    private MoeEducationStat moe;
+    private final FxRateTable fx = new FxRateTable();
+
+    private final SpecificDatumWriter<AggregatedRecord> v1Writer = new SpecificDatumWriter<>(AggregatedRecord.class);
+    private final SpecificDatumWriter<AggregatedRecordV2> v2Writer = new SpecificDatumWriter<>(AggregatedRecordV2.class);
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+    private BinaryEncoder encoder;
+
+    @Setup
+    public void setUp() {
+        Instant t = Instant.ofEpochMilli(1_700_000_000_000L);
+        mor = new MorTaxPayment("PAY-000123", "0012345678", 1520.5, "ETB", t);
+        ecc = new EccTradePermit("ECC-2024-0042", "Abyssinia \"Blue Nile\" Coffee Exporters PLC", "Coffee", 250_000.0, t);
+        motri = new MotriTransportPermit("TP-77881", "3-A12345", "Addis Ababa - Djibouti", t);
+        nbe = new NbeFxRate(t, "USD/ETB", 56.8123);
+        fx.update(nbe.getPair(), nbe.getRate(), t.toEpochMilli());
+        moe = new MoeEducationStat("SCH-0091", "Oromia", 1240, 38, t);
+
+        System.out.printf("%nbytes/record (Avro binary, no wire header): legacy=%.1f json=%.1f typed=%.1f%n",
+                legacy() / 5.0, json() / 5.0, typed() / 5.0);
+    }
+
+    @Benchmark
+    public int legacy() {
+        begin();
+        write(v1Writer, new AggregatedRecord("MoR","tax_payment", mor.getPaidAt(), mor.getPaymentId(),
+                "{\"tin\":\""+mor.getTin()+"\",\"amount\":"+mor.getAmount()+",\"currency\":\""+mor.getCurrency()+"\"}"));
+        write(v1Writer, new AggregatedRecord("ECC","trade_permit", ecc.getIssuedAt(), ecc.getPermitId(),
+                "{\"company\":\""+ecc.getCompanyName()+"\",\"commodity\":\""+ecc.getCommodity()+"\",\"valueUsd\":"+ecc.getValueUsd()+"}"));
+        write(v1Writer, new AggregatedRecord("MoTRI","transport_permit", motri.getValidUntil(), motri.getPermitNo(),
+                "{\"plate\":\""+motri.getVehiclePlate()+"\",\"route\":\""+motri.getRoute()+"\"}"));
+        write(v1Writer, new AggregatedRecord("NBE","fx_rate", nbe.getAsOf(), nbe.getPair(),
+                "{\"rate\":"+nbe.getRate()+"}"));
+        write(v1Writer, new AggregatedRecord("MoE","education_stat", moe.getReportedAt(), moe.getSchoolId(),
+                "{\"region\":\""+moe.getRegion()+"\",\"students\":"+moe.getStudents()+",\"teachers\":"+moe.getTeachers()+"}"));
+        return flush();
+    }
+
+    @Benchmark
+    public int json() {
+        begin();
+        write(v1Writer, MorTask.toAggregated(mor, fx));
+        write(v1Writer, EccTask.toAggregated(ecc, fx));
+        write(v1Writer, MotriTask.toAggregated(motri));
+        write(v1Writer, NbeTask.toAggregated(nbe));
+        write(v1Writer, MoeTask.toAggregated(moe));
+        return flush();
+    }
+
+    @Benchmark
+    public int typed() {
+        begin();
+        write(v2Writer, MorTask.toTyped(mor, fx));
+        write(v2Writer, EccTask.toTyped(ecc, fx));
+        write(v2Writer, MotriTask.toTyped(motri));
+        write(v2Writer, NbeTask.toTyped(nbe));
+        write(v2Writer, MoeTask.toTyped(moe));
+        return flush();
+    }
+
+    private void begin() {
+        out.reset();
+        encoder = EncoderFactory.get().binaryEncoder(out, encoder);
+    }
+
+    private <T> void write(SpecificDatumWriter<T> writer, T record) {
+        try {
+            writer.write(record, encoder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int flush() {
+        try {
+            encoder.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,80 @@
+package et.gov.lakehouse.govaggregator.bench;
+
+import et.gov.lakehouse.govaggregator.avro.AggregatedRecord;
+import et.gov.lakehouse.govaggregator.common.SerdeFactory;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.serialization.Serde;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SerdeFactory Avro round-trips (serialize + deserialize) against {@link MockApicurioRegistry}:
+ * the gov-aggregator output record and a wide Debezium envelope in Confluent-compat framing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerdeBenchmark {
+
+    private static final String OUT_TOPIC = "gov.aggregates.enriched";
+    private static final String BRONZE_TOPIC = "raw-TB_CB_LPCO";
+
+    private MockApicurioRegistry registry;
+
+    private Serde<Object> aggregatedSerde;
+    private AggregatedRecord aggregated;
+
+    private Serde<GenericRecord> envelopeSerde;
+    private GenericRecord envelope;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = MockApicurioRegistry.start();
+
+        aggregatedSerde = SerdeFactory.avroSerde(registry.url(), "gov-aggregator");
+        aggregated = new AggregatedRecord("MoR", "tax_payment", Instant.ofEpochMilli(1_700_000_000_000L), "PAY-1",
+                "{\"tin\":\"0012345678\",\"amount\":1520.5,\"currency\":\"ETB\"}");
+
+        envelopeSerde = SerdeFactory.avroSerde(registry.url(), "oracle-esw", true);
+        Schema schema = DebeziumFixtures.envelopeSchema(DebeziumFixtures.valueSchema("TB_CB_LPCO", 60));
+        envelope = DebeziumFixtures.update(schema, 7);
+
+        // First calls register / fetch the schemas; the measured loop must be registry-free.
+        aggregatedRoundTrip();
+        envelopeRoundTrip();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.close();
+    }
+
+    @Benchmark
+    public Object aggregatedRoundTrip() {
+        byte[] b = aggregatedSerde.serializer().serialize(OUT_TOPIC, aggregated);
+        return aggregatedSerde.deserializer().deserialize(OUT_TOPIC, b);
+    }
+
+    @Benchmark
+    public GenericRecord envelopeRoundTrip() {
+        byte[] b = envelopeSerde.serializer().serialize(BRONZE_TOPIC, envelope);
+        return envelopeSerde.deserializer().deserialize(BRONZE_TOPIC, b);
+    }
+}
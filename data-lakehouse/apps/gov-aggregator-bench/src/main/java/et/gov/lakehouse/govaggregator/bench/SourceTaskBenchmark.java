@@ -0,0 +1,80 @@
+package et.gov.lakehouse.govaggregator.bench;
+
+import et.gov.lakehouse.govaggregator.avro.AggregatedRecord;
+import et.gov.lakehouse.govaggregator.avro.EccTradePermit;
+import et.gov.lakehouse.govaggregator.avro.MoeEducationStat;
+import et.gov.lakehouse.govaggregator.avro.MorTaxPayment;
+import et.gov.lakehouse.govaggregator.avro.MotriTransportPermit;
+import et.gov.lakehouse.govaggregator.avro.NbeFxRate;
+import et.gov.lakehouse.govaggregator.source.ecc.EccTask;
+import et.gov.lakehouse.govaggregator.source.moe.MoeTask;
+import et.gov.lakehouse.govaggregator.source.mor.MorTask;
+import et.gov.lakehouse.govaggregator.source.motri.MotriTask;
+import et.gov.lakehouse.govaggregator.source.nbe.FxRateTable;
+import et.gov.lakehouse.govaggregator.source.nbe.NbeTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/** The per-record mapping each source task's build() applies (toAggregated). */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SourceTaskBenchmark {
+
+    private MorTaxPayment mor;
+    private EccTradePermit ecc;
+    private MotriTransportPermit motri;
+    private NbeFxRate nbe;
+    private MoeEducationStat moe;
+    private final FxRateTable fx = new FxRateTable();
+
+    @Setup
+    public void setUp() {
+        Instant t = Instant.ofEpochMilli(1_700_000_000_000L);
+        mor = new MorTaxPayment("PAY-000123", "0012345678", 1520.5, "ETB", t);
+        ecc = new EccTradePermit("ECC-2024-0042", "Abyssinia Coffee Exporters PLC", "Coffee", 250_000.0, t);
+        motri = new MotriTransportPermit("TP-77881", "3-A12345", "Addis Ababa - Djibouti", t);
+        nbe = new NbeFxRate(t, "USD/ETB", 56.8123);
+        fx.update(nbe.getPair(), nbe.getRate(), t.toEpochMilli());
+        moe = new MoeEducationStat("SCH-0091", "Oromia", 1240, 38, t);
+    }
+
+    @Benchmark
+    public AggregatedRecord mor() {
+        return MorTask.toAggregated(mor, fx);
+    }
+
+    @Benchmark
+    public AggregatedRecord ecc() {
+        return EccTask.toAggregated(ecc, fx);
+    }
+
+    @Benchmark
+    public AggregatedRecord motri() {
+        return MotriTask.toAggregated(motri);
+    }
+
+    @Benchmark
+    public AggregatedRecord nbe() {
+        return NbeTask.toAggregated(nbe);
+    }
+
+    @Benchmark
+    public AggregatedRecord moe() {
+        return MoeTask.toAggregated(moe);
+    }
+}
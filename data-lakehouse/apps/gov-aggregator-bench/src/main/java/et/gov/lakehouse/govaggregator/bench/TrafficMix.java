@@ -0,0 +1,46 @@
+package et.gov.lakehouse.govaggregator.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Weighted event kinds such as "c=10,u=80,d=10", spread evenly over a fixture pool (smooth weighted
+ * round-robin), so any window of the pool carries roughly the configured mix.
+ */
+final class TrafficMix {
+
+    private TrafficMix() {}
+
+    /** Kind per pool slot, {@code n} slots. */
+    static String[] schedule(String mix, int n) {
+        List<String> kinds = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            int eq = part.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Bad mix entry '" + part + "' in '" + mix + "'; expected kind=weight");
+            }
+            int w = Integer.parseInt(part.substring(eq + 1).trim());
+            if (w <= 0) continue;
+            kinds.add(part.substring(0, eq).trim());
+            weights.add(w);
+        }
+        if (kinds.isEmpty()) {
+            throw new IllegalArgumentException("Mix '" + mix + "' has no positive weight");
+        }
+
+        int total = weights.stream().mapToInt(Integer::intValue).sum();
+        int[] current = new int[kinds.size()];
+        String[] out = new String[n];
+        for (int slot = 0; slot < n; slot++) {
+            int best = 0;
+            for (int k = 0; k < current.length; k++) {
+                current[k] += weights.get(k);
+                if (current[k] > current[best]) best = k;
+            }
+            current[best] -= total;
+            out[slot] = kinds.get(best);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,405 @@
+package et.gov.lakehouse.govaggregator.common;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.streams.KafkaClientSupplier;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.errors.DeserializationExceptionHandler;
+import org.apache.kafka.streams.errors.LogAndContinueExceptionHandler;
+import org.apache.kafka.streams.errors.LogAndFailExceptionHandler;
+import org.apache.kafka.streams.errors.ProductionExceptionHandler;
+import org.apache.kafka.streams.processor.ProcessorContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Poison records go to "&lt;DLQ_TOPIC_PREFIX&gt;&lt;source topic&gt;" instead of stopping the application.
+ *
+ * The original key and value bytes are kept; headers carry the failing stage (deserialization,
+ * processing, production), the error and the source topic / partition / offset (unknown, -1, for
+ * production errors: Streams does not expose the input record there). A record is only skipped once
+ * its dead letter is acknowledged. The production-stage handler runs in the output producer's send
+ * callback, where waiting would stall every other in-flight send, so it only hands its dead letter to
+ * the DLQ producer; the acknowledgement is awaited at the next commit instead: the Streams producers
+ * come from {@link #clientSupplier()}, whose flush (run before offsets are committed) also flushes the
+ * DLQ producer and fails the commit when a dead letter could not be written. Such a failure also fails
+ * the task on its next record ({@link #throwIfAsyncFailed}). More than DLQ_MAX_PER_MINUTE dead letters
+ * per minute means the
+ * cause is not a single bad event (registry down, incompatible schema rollout), so the handler fails
+ * and the uncaught exception handler takes over as before.
+ *
+ * {@link #configureStreams} selects the handlers per stage (DESERIALIZATION_ERROR_HANDLER,
+ * PRODUCTION_ERROR_HANDLER, PROCESSING_ERROR_HANDLER: dlq | log | fail).
+ */
+public final class DeadLetterQueue {
+
+    public static final String HEADER_STAGE = "dlq.stage";
+    public static final String HEADER_ERROR = "dlq.error";
+    public static final String HEADER_TOPIC = "dlq.source.topic";
+    public static final String HEADER_PARTITION = "dlq.source.partition";
+    public static final String HEADER_OFFSET = "dlq.source.offset";
+    public static final String HEADER_APP = "dlq.application.id";
+
+    private static final PipelineMetrics METRICS = PipelineMetrics.global();
+    private static final String PREFIX = sysOrEnv("dlq.topic.prefix", "DLQ_TOPIC_PREFIX", "dlq.");
+    private static final long MAX_PER_MINUTE = Long.parseLong(sysOrEnv("dlq.max.per.minute", "DLQ_MAX_PER_MINUTE", "100"));
+    private static final String PROCESSING = handlerMode("processing.error.handler", "PROCESSING_ERROR_HANDLER");
+    private static final String DESERIALIZATION = handlerMode("deserialization.error.handler", "DESERIALIZATION_ERROR_HANDLER");
+    private static final long SEND_TIMEOUT_MS = 30_000;
+    private static final int MAX_ERROR_CHARS = 2000;
+
+    private static volatile DeadLetterQueue instance;
+
+    private final Producer<byte[], byte[]> producer;
+    private final String applicationId;
+    /** First failed asynchronous dead letter; sticky, the application has lost a record. */
+    private final AtomicReference<Exception> asyncFailure = new AtomicReference<>();
+    private long windowStart;
+    private long windowCount;
+
+    private DeadLetterQueue(Map<?, ?> streamsConfig) {
+        this(new KafkaProducer<>(producerProps(streamsConfig), new ByteArraySerializer(), new ByteArraySerializer()),
+                String.valueOf(streamsConfig.get(StreamsConfig.APPLICATION_ID_CONFIG)));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> producer.close(Duration.ofSeconds(5))));
+    }
+
+    DeadLetterQueue(Producer<byte[], byte[]> producer, String applicationId) {
+        this.producer = producer;
+        this.applicationId = applicationId;
+    }
+
+    private static Properties producerProps(Map<?, ?> streamsConfig) {
+        Properties p = new Properties();
+        p.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, String.valueOf(streamsConfig.get(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG)));
+        p.put(ProducerConfig.CLIENT_ID_CONFIG, streamsConfig.get(StreamsConfig.APPLICATION_ID_CONFIG) + "-dlq");
+        p.put(ProducerConfig.ACKS_CONFIG, "all");
+        return p;
+    }
+
+    /** The process-wide queue; the first caller's bootstrap servers and application id win. */
+    public static DeadLetterQueue get(Map<?, ?> streamsConfig) {
+        DeadLetterQueue q = instance;
+        if (q == null) {
+            synchronized (DeadLetterQueue.class) {
+                q = instance;
+                if (q == null) {
+                    q = new DeadLetterQueue(streamsConfig);
+                    instance = q;
+                }
+            }
+        }
+        return q;
+    }
+
+    /** Sets the Streams deserialization and production handlers from the env. */
+    public static void configureStreams(Properties streamsProps) {
+        switch (handlerMode("deserialization.error.handler", "DESERIALIZATION_ERROR_HANDLER")) {
+            case "dlq" -> streamsProps.put(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG, DeserializationHandler.class.getName());
+            case "log" -> streamsProps.put(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG, LogAndContinueExceptionHandler.class.getName());
+            default -> streamsProps.put(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG, LogAndFailExceptionHandler.class.getName());
+        }
+        switch (handlerMode("production.error.handler", "PRODUCTION_ERROR_HANDLER")) {
+            case "dlq" -> streamsProps.put(StreamsConfig.DEFAULT_PRODUCTION_EXCEPTION_HANDLER_CLASS_CONFIG, ProductionHandler.class.getName());
+            case "log" -> streamsProps.put(StreamsConfig.DEFAULT_PRODUCTION_EXCEPTION_HANDLER_CLASS_CONFIG, LogAndContinueProductionHandler.class.getName());
+            default -> { /* Streams default: fail */ }
+        }
+    }
+
+    /**
+     * Handles a processing failure according to PROCESSING_ERROR_HANDLER; returns true when the record
+     * may be skipped, false when the caller should rethrow.
+     */
+    public static boolean onProcessingError(Map<?, ?> streamsConfig, String topic, int partition, long offset,
+                                            byte[] key, byte[] value, Throwable error) {
+        switch (PROCESSING) {
+            case "dlq":
+                return get(streamsConfig).send("processing", topic, partition, offset, key, value, null, error);
+            case "log":
+                System.out.println("[dlq] skipping record " + topic + "-" + partition + "@" + offset + " after processing error: " + error);
+                METRICS.recordDropped("dlq", topic, "processing");
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Handles a value a processor failed to decode itself according to DESERIALIZATION_ERROR_HANDLER,
+     * like the Streams deserialization handler; returns true when the record may be skipped, false when
+     * the caller should rethrow.
+     */
+    public static boolean onDeserializationError(Map<?, ?> streamsConfig, String topic, int partition, long offset,
+                                                 byte[] key, byte[] value, Headers headers, Throwable error) {
+        switch (DESERIALIZATION) {
+            case "dlq":
+                return get(streamsConfig).send("deserialization", topic, partition, offset, key, value, headers, error);
+            case "log":
+                System.out.println("[dlq] skipping record " + topic + "-" + partition + "@" + offset + " after deserialization error: " + error);
+                METRICS.recordDropped("dlq", topic, "deserialization");
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Kafka clients for {@code new KafkaStreams(topology, props, clientSupplier())}: the same clients
+     * Streams creates by default, except that a producer flush, which Streams runs before committing
+     * offsets, also waits for the production-stage dead letters handed off so far.
+     */
+    public static KafkaClientSupplier clientSupplier() {
+        return new FlushingClientSupplier();
+    }
+
+    /** Waits for the asynchronous dead letters sent so far; throws when one of them could not be written. */
+    static void awaitAsync() {
+        DeadLetterQueue q = instance;
+        if (q == null) return;
+        q.producer.flush();
+        throwIfAsyncFailed();
+    }
+
+    /**
+     * Throws when a production-stage dead letter could not be written; call it once per record from a
+     * processor so the task fails instead of carrying on past the lost record.
+     */
+    public static void throwIfAsyncFailed() {
+        DeadLetterQueue q = instance;
+        Exception failure = q != null ? q.asyncFailure.get() : null;
+        if (failure != null) {
+            throw new IllegalStateException("[dlq] a production dead letter could not be written", failure);
+        }
+    }
+
+    /**
+     * Writes one dead letter and waits for the ack. Returns false (escalate) when the per-minute budget
+     * is exhausted or the dead letter could not be written.
+     */
+    public boolean send(String stage, String topic, int partition, long offset,
+                        byte[] key, byte[] value, Headers original, Throwable error) {
+        if (!admit(stage, topic, partition, offset, error)) {
+            return false;
+        }
+        String dlqTopic = PREFIX + topic;
+        try {
+            producer.send(record(dlqTopic, stage, topic, partition, offset, key, value, original, error))
+                    .get(SEND_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            System.err.println("[dlq] could not write dead letter to " + dlqTopic + ": " + e);
+            return false;
+        }
+        sent(stage, topic, partition, offset, dlqTopic, error);
+        return true;
+    }
+
+    /**
+     * Hands one dead letter to the producer without waiting. Returns false (escalate) when the budget
+     * is exhausted or an earlier asynchronous dead letter failed; a failure of this one is remembered
+     * for {@link #throwIfAsyncFailed}.
+     */
+    public boolean sendAsync(String stage, String topic, int partition, long offset,
+                             byte[] key, byte[] value, Headers original, Throwable error) {
+        if (asyncFailure.get() != null || !admit(stage, topic, partition, offset, error)) {
+            return false;
+        }
+        String dlqTopic = PREFIX + topic;
+        try {
+            producer.send(record(dlqTopic, stage, topic, partition, offset, key, value, original, error), (md, e) -> {
+                if (e != null) {
+                    System.err.println("[dlq] could not write dead letter to " + dlqTopic + ": " + e);
+                    asyncFailure.compareAndSet(null, e);
+                } else {
+                    sent(stage, topic, partition, offset, dlqTopic, error);
+                }
+            });
+        } catch (RuntimeException e) {
+            System.err.println("[dlq] could not write dead letter to " + dlqTopic + ": " + e);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean admit(String stage, String topic, int partition, long offset, Throwable error) {
+        if (withinBudget()) {
+            return true;
+        }
+        System.err.println("[dlq] more than " + MAX_PER_MINUTE + " dead letters in a minute; failing on "
+                + topic + "-" + partition + "@" + offset + " (" + stage + "): " + error);
+        return false;
+    }
+
+    private ProducerRecord<byte[], byte[]> record(String dlqTopic, String stage, String topic, int partition, long offset,
+                                                  byte[] key, byte[] value, Headers original, Throwable error) {
+        Headers headers = new RecordHeaders();
+        if (original != null) {
+            for (Header h : original) headers.add(h);
+        }
+        headers.add(HEADER_STAGE, utf8(stage));
+        headers.add(HEADER_ERROR, utf8(describe(error)));
+        headers.add(HEADER_TOPIC, utf8(topic));
+        headers.add(HEADER_PARTITION, utf8(Integer.toString(partition)));
+        headers.add(HEADER_OFFSET, utf8(Long.toString(offset)));
+        headers.add(HEADER_APP, utf8(applicationId));
+        return new ProducerRecord<>(dlqTopic, null, key, value, headers);
+    }
+
+    private static void sent(String stage, String topic, int partition, long offset, String dlqTopic, Throwable error) {
+        METRICS.recordDropped("dlq", topic, stage);
+        System.out.println("[dlq] " + stage + " error on " + topic + "-" + partition + "@" + offset + " -> " + dlqTopic + ": " + error);
+    }
+
+    private synchronized boolean withinBudget() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= 60_000) {
+            windowStart = now;
+            windowCount = 0;
+        }
+        return ++windowCount <= MAX_PER_MINUTE;
+    }
+
+    private static String describe(Throwable error) {
+        StringBuilder sb = new StringBuilder(error.getClass().getName()).append(": ").append(error.getMessage());
+        for (Throwable c = error.getCause(); c != null && c != c.getCause(); c = c.getCause()) {
+            sb.append(" <- ").append(c.getClass().getName()).append(": ").append(c.getMessage());
+        }
+        return sb.length() > MAX_ERROR_CHARS ? sb.substring(0, MAX_ERROR_CHARS) : sb.toString();
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String handlerMode(String sysKey, String envKey) {
+        String mode = sysOrEnv(sysKey, envKey, "dlq").trim().toLowerCase();
+        if (!mode.equals("dlq") && !mode.equals("log") && !mode.equals("fail")) {
+            throw new IllegalStateException(envKey + " must be dlq, log or fail, got: " + mode);
+        }
+        return mode;
+    }
+
+    private static String sysOrEnv(String sysKey, String envKey, String defVal) {
+        String v = System.getProperty(sysKey);
+        if (v != null && !v.isBlank()) return v;
+        v = System.getenv(envKey);
+        return (v != null && !v.isBlank()) ? v : defVal;
+    }
+
+    /** DESERIALIZATION_ERROR_HANDLER=dlq: undecodable input (corrupt bytes, unknown schema id). */
+    public static final class DeserializationHandler implements DeserializationExceptionHandler {
+        private DeadLetterQueue dlq;
+
+        @Override
+        public void configure(Map<String, ?> configs) {
+            dlq = get(configs);
+        }
+
+        @Override
+        public DeserializationHandlerResponse handle(ProcessorContext context, ConsumerRecord<byte[], byte[]> record, Exception exception) {
+            return dlq.send("deserialization", record.topic(), record.partition(), record.offset(),
+                    record.key(), record.value(), record.headers(), exception)
+                    ? DeserializationHandlerResponse.CONTINUE
+                    : DeserializationHandlerResponse.FAIL;
+        }
+    }
+
+    /** PRODUCTION_ERROR_HANDLER=dlq: output the broker rejects (too large, invalid) or that cannot be serialized. */
+    public static final class ProductionHandler implements ProductionExceptionHandler {
+        private DeadLetterQueue dlq;
+
+        @Override
+        public void configure(Map<String, ?> configs) {
+            dlq = get(configs);
+        }
+
+        /** Runs in the output producer's send callback: must not block; the commit awaits the dead letter. */
+        @Override
+        public ProductionExceptionHandlerResponse handle(ProducerRecord<byte[], byte[]> record, Exception exception) {
+            return dlq.sendAsync("production", record.topic(), -1, -1L, record.key(), record.value(), record.headers(), exception)
+                    ? ProductionExceptionHandlerResponse.CONTINUE
+                    : ProductionExceptionHandlerResponse.FAIL;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public ProductionExceptionHandlerResponse handleSerializationException(ProducerRecord record, Exception exception) {
+            byte[] value = record.value() != null ? utf8(record.value().toString()) : null;
+            byte[] key = record.key() instanceof byte[] k ? k : record.key() != null ? utf8(record.key().toString()) : null;
+            return dlq.send("serialization", record.topic(), -1, -1L, key, value, record.headers(), exception)
+                    ? ProductionExceptionHandlerResponse.CONTINUE
+                    : ProductionExceptionHandlerResponse.FAIL;
+        }
+    }
+
+    /** Default Streams clients; producer flushes also await the asynchronous dead letters. */
+    private static final class FlushingClientSupplier implements KafkaClientSupplier {
+        @Override
+        public Admin getAdmin(Map<String, Object> config) {
+            return Admin.create(config);
+        }
+
+        @Override
+        public Producer<byte[], byte[]> getProducer(Map<String, Object> config) {
+            return new KafkaProducer<>(config, new ByteArraySerializer(), new ByteArraySerializer()) {
+                @Override
+                public void flush() {
+                    super.flush();
+                    awaitAsync();
+                }
+            };
+        }
+
+        @Override
+        public Consumer<byte[], byte[]> getConsumer(Map<String, Object> config) {
+            return new KafkaConsumer<>(config, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+        }
+
+        @Override
+        public Consumer<byte[], byte[]> getRestoreConsumer(Map<String, Object> config) {
+            return getConsumer(config);
+        }
+
+        @Override
+        public Consumer<byte[], byte[]> getGlobalConsumer(Map<String, Object> config) {
+            return getConsumer(config);
+        }
+    }
+
+    /** PRODUCTION_ERROR_HANDLER=log. */
+    public static final class LogAndContinueProductionHandler implements ProductionExceptionHandler {
+        @Override
+        public void configure(Map<String, ?> configs) {
+        }
+
+        @Override
+        public ProductionExceptionHandlerResponse handle(ProducerRecord<byte[], byte[]> record, Exception exception) {
+            System.out.println("[dlq] dropping output record for " + record.topic() + ": " + exception);
+            METRICS.recordDropped("dlq", record.topic(), "production");
+            return ProductionExceptionHandlerResponse.CONTINUE;
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public ProductionExceptionHandlerResponse handleSerializationException(ProducerRecord record, Exception exception) {
+            System.out.println("[dlq] dropping unserializable output record for " + record.topic() + ": " + exception);
+            METRICS.recordDropped("dlq", record.topic(), "serialization");
+            return ProductionExceptionHandlerResponse.CONTINUE;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package et.gov.lakehouse.govaggregator.common;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Named;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.processor.StateStore;
+import org.apache.kafka.streams.processor.StateStoreContext;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.processor.api.RecordMetadata;
+import org.apache.kafka.streams.query.Position;
+import org.apache.kafka.streams.state.KeyValueBytesStoreSupplier;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Drops records whose event id was already seen, mostly the replays after a restart or rebalance
+ * (everything since the last commit is read again under at_least_once). Ids go into a
+ * {@link RotatingBloomFilter} held in a state store: memory is fixed by DEDUP_EXPECTED_PER_WINDOW
+ * and DEDUP_FPP, and ids are remembered for DEDUP_SEGMENTS - 1 to DEDUP_SEGMENTS windows of
+ * DEDUP_WINDOW_MS (less when more than the expected count arrives per window).
+ *
+ * The store logs every new id with its wall-clock time to a delete-policy changelog retained for
+ * the whole span; a restore replays those inserts and rebuilds the filter before the first replayed
+ * record is processed. A false positive drops a genuine record, so DEDUP_FPP is kept small.
+ *
+ * Under at_least_once the id's changelog write and the record's output are separate sends: after a
+ * crash between the two, the restore (which reads the changelog to its end, past the last commit)
+ * marks the replayed record seen and drops it although its output never landed. That loses data, so
+ * the stage requires exactly_once_v2, where both sends commit together, unless
+ * DEDUP_ALLOW_AT_LEAST_ONCE=true accepts the loss window. Disabled unless DEDUP_ENABLED=true.
+ */
+public final class Deduplicator {
+
+    private static final PipelineMetrics METRICS = PipelineMetrics.global();
+    private static final byte[] SEEN = {1};
+
+    /** Event id of a record, or null to let it through unchecked. */
+    @FunctionalInterface
+    public interface EventId<K, V> {
+        byte[] of(String topic, K key, V value);
+    }
+
+    private final String app;
+    private final int segments;
+    private final long windowMs;
+    private final long expectedPerWindow;
+    private final double fpp;
+
+    Deduplicator(String app, int segments, long windowMs, long expectedPerWindow, double fpp) {
+        // Fails fast on bad sizing instead of on the first store init.
+        RotatingBloomFilter probe = new RotatingBloomFilter(1, windowMs, expectedPerWindow, fpp);
+        if (segments < 2) {
+            throw new IllegalStateException("DEDUP_SEGMENTS must be at least 2, got: " + segments);
+        }
+        this.app = app;
+        this.segments = segments;
+        this.windowMs = windowMs;
+        this.expectedPerWindow = expectedPerWindow;
+        this.fpp = fpp;
+        System.out.println("[" + app + "] dedup: " + segments + " x " + windowMs + " ms windows, "
+                + expectedPerWindow + " ids/window, fpp " + fpp + ", " + probe.hashes() + " hashes, "
+                + segments * probe.sizeInBytes() / 1024 + " KiB per store");
+    }
+
+    private static String sysOrEnv(String sysKey, String envKey, String defVal) {
+        String v = System.getProperty(sysKey);
+        if (v != null && !v.isBlank()) return v;
+        v = System.getenv(envKey);
+        return (v != null && !v.isBlank()) ? v : defVal;
+    }
+
+    /**
+     * From DEDUP_* settings; null unless DEDUP_ENABLED=true. Throws when {@code streamsProps} is not
+     * exactly_once_v2 and DEDUP_ALLOW_AT_LEAST_ONCE is not set (see the class doc).
+     */
+    public static Deduplicator fromEnv(String app, Properties streamsProps) {
+        if (!Boolean.parseBoolean(sysOrEnv("dedup.enabled", "DEDUP_ENABLED", "false"))) {
+            return null;
+        }
+        String guarantee = streamsProps.getProperty(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, StreamsConfig.AT_LEAST_ONCE);
+        if (!StreamsConfig.EXACTLY_ONCE_V2.equals(guarantee)) {
+            if (!Boolean.parseBoolean(sysOrEnv("dedup.allow.at.least.once", "DEDUP_ALLOW_AT_LEAST_ONCE", "false"))) {
+                throw new IllegalStateException("DEDUP_ENABLED needs PROCESSING_GUARANTEE=" + StreamsConfig.EXACTLY_ONCE_V2
+                        + " (got " + guarantee + "): under at-least-once a crash can drop records whose output"
+                        + " was never written; set DEDUP_ALLOW_AT_LEAST_ONCE=true to accept that");
+            }
+            System.out.println("[" + app + "] dedup under " + guarantee + " (DEDUP_ALLOW_AT_LEAST_ONCE): a crash"
+                    + " between an id's changelog write and the record's output drops that record");
+        }
+        return new Deduplicator(app,
+                Integer.parseInt(sysOrEnv("dedup.segments", "DEDUP_SEGMENTS", "2")),
+                Long.parseLong(sysOrEnv("dedup.window.ms", "DEDUP_WINDOW_MS", "3600000")),
+                Long.parseLong(sysOrEnv("dedup.expected.per.window", "DEDUP_EXPECTED_PER_WINDOW", "1000000")),
+                Double.parseDouble(sysOrEnv("dedup.fpp", "DEDUP_FPP", "0.0001")));
+    }
+
+    /**
+     * Adds store {@code name} and a processor that forwards the first record per event id and drops
+     * the rest (PipelineMetrics reason "duplicate" under {@code task}).
+     */
+    public <K, V> KStream<K, V> apply(StreamsBuilder builder, KStream<K, V> in, String name, String task, EventId<K, V> eventId) {
+        Map<String, String> changelog = Map.of(
+                "cleanup.policy", "delete",
+                "retention.ms", String.valueOf(segments * windowMs));
+        builder.addStateStore(Stores.keyValueStoreBuilder(new BloomStoreSupplier(name), Serdes.Bytes(), Serdes.ByteArray())
+                .withCachingDisabled()
+                .withLoggingEnabled(changelog));
+        return in.processValues(() -> new DedupProcessor<>(name, task, eventId), Named.as(name), name);
+    }
+
+    private static final class DedupProcessor<K, V> implements FixedKeyProcessor<K, V, V> {
+        private final String storeName;
+        private final String task;
+        private final EventId<K, V> eventId;
+        private FixedKeyProcessorContext<K, V> context;
+        private KeyValueStore<Bytes, byte[]> store;
+
+        DedupProcessor(String storeName, String task, EventId<K, V> eventId) {
+            this.storeName = storeName;
+            this.task = task;
+            this.eventId = eventId;
+        }
+
+        @Override
+        public void init(FixedKeyProcessorContext<K, V> context) {
+            this.context = context;
+            this.store = context.getStateStore(storeName);
+        }
+
+        @Override
+        public void process(FixedKeyRecord<K, V> record) {
+            String topic = context.recordMetadata().map(RecordMetadata::topic).orElse(null);
+            byte[] id = record.value() != null ? eventId.of(topic, record.key(), record.value()) : null;
+            if (id != null) {
+                Bytes key = Bytes.wrap(id);
+                if (store.get(key) != null) {
+                    METRICS.recordDropped(task, topic, "duplicate");
+                    return;
+                }
+                store.put(key, ByteBuffer.allocate(Long.BYTES).putLong(context.currentSystemTimeMs()).array());
+            }
+            context.forward(record);
+        }
+    }
+
+    private final class BloomStoreSupplier implements KeyValueBytesStoreSupplier {
+        private final String name;
+
+        BloomStoreSupplier(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public KeyValueStore<Bytes, byte[]> get() {
+            return new BloomStore(name, new RotatingBloomFilter(segments, windowMs, expectedPerWindow, fpp));
+        }
+
+        @Override
+        public String metricsScope() {
+            return "bloom";
+        }
+    }
+
+    /**
+     * Set-membership view of a {@link RotatingBloomFilter}: put adds the key at the wall-clock time in
+     * the value, get answers a non-null marker when the key may be present. Nothing can be listed
+     * or removed. In-memory; the changelog is replayed into it on every start.
+     */
+    private static final class BloomStore implements KeyValueStore<Bytes, byte[]> {
+        private final String name;
+        private final RotatingBloomFilter filter;
+        private final Position position = Position.emptyPosition();
+        private volatile boolean open;
+
+        BloomStore(String name, RotatingBloomFilter filter) {
+            this.name = name;
+            this.filter = filter;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Deprecated
+        @Override
+        public void init(ProcessorContext context, StateStore root) {
+            context.register(root, this::restore);
+            open = true;
+        }
+
+        @Override
+        public void init(StateStoreContext context, StateStore root) {
+            context.register(root, this::restore);
+            open = true;
+        }
+
+        private void restore(byte[] key, byte[] value) {
+            if (key != null && value != null) {
+                filter.add(key, ByteBuffer.wrap(value).getLong());
+            }
+        }
+
+        @Override
+        public void put(Bytes key, byte[] value) {
+            if (value == null) {
+                throw new UnsupportedOperationException(name + " cannot delete");
+            }
+            filter.add(key.get(), ByteBuffer.wrap(value).getLong());
+        }
+
+        @Override
+        public byte[] putIfAbsent(Bytes key, byte[] value) {
+            byte[] seen = get(key);
+            if (seen == null) put(key, value);
+            return seen;
+        }
+
+        @Override
+        public void putAll(List<KeyValue<Bytes, byte[]>> entries) {
+            for (KeyValue<Bytes, byte[]> e : entries) put(e.key, e.value);
+        }
+
+        @Override
+        public byte[] delete(Bytes key) {
+            throw new UnsupportedOperationException(name + " cannot delete");
+        }
+
+        @Override
+        public byte[] get(Bytes key) {
+            return filter.mightContain(key.get()) ? SEEN : null;
+        }
+
+        @Override
+        public KeyValueIterator<Bytes, byte[]> range(Bytes from, Bytes to) {
+            throw new UnsupportedOperationException(name + " cannot be iterated");
+        }
+
+        @Override
+        public KeyValueIterator<Bytes, byte[]> all() {
+            throw new UnsupportedOperationException(name + " cannot be iterated");
+        }
+
+        @Override
+        public long approximateNumEntries() {
+            return filter.inserted();
+        }
+
+        @Override
+        public Position getPosition() {
+            return position;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public boolean persistent() {
+            return false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package et.gov.lakehouse.govaggregator.common;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/** Serde decorator feeding per-topic bytes and (de)serialization time into {@link PipelineMetrics}. */
+public final class InstrumentedSerde {
+    private InstrumentedSerde() {}
+
+    /** Returns the serde itself when metrics are disabled. */
+    public static <T> Serde<T> wrap(Serde<T> serde) {
+        PipelineMetrics metrics = PipelineMetrics.global();
+        if (!metrics.enabled()) return serde;
+        return Serdes.serdeFrom(new TimedSerializer<>(serde.serializer(), metrics), new TimedDeserializer<>(serde.deserializer(), metrics));
+    }
+
+    private static final class TimedSerializer<T> implements Serializer<T> {
+        private final Serializer<T> inner;
+        private final PipelineMetrics metrics;
+
+        TimedSerializer(Serializer<T> inner, PipelineMetrics metrics) {
+            this.inner = inner;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void configure(Map<String, ?> configs, boolean isKey) {
+            inner.configure(configs, isKey);
+        }
+
+        @Override
+        public byte[] serialize(String topic, T data) {
+            long start = System.nanoTime();
+            byte[] out = inner.serialize(topic, data);
+            record(topic, out, start);
+            return out;
+        }
+
+        @Override
+        public byte[] serialize(String topic, Headers headers, T data) {
+            long start = System.nanoTime();
+            byte[] out = inner.serialize(topic, headers, data);
+            record(topic, out, start);
+            return out;
+        }
+
+        private void record(String topic, byte[] out, long start) {
+            metrics.recordSerde(topic, true, out == null ? 0 : out.length, System.nanoTime() - start);
+        }
+
+        @Override
+        public void close() {
+            inner.close();
+        }
+    }
+
+    private static final class TimedDeserializer<T> implements Deserializer<T> {
+        private final Deserializer<T> inner;
+        private final PipelineMetrics metrics;
+
+        TimedDeserializer(Deserializer<T> inner, PipelineMetrics metrics) {
+            this.inner = inner;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void configure(Map<String, ?> configs, boolean isKey) {
+            inner.configure(configs, isKey);
+        }
+
+        @Override
+        public T deserialize(String topic, byte[] data) {
+            long start = System.nanoTime();
+            T out = inner.deserialize(topic, data);
+            metrics.recordSerde(topic, false, data == null ? 0 : data.length, System.nanoTime() - start);
+            return out;
+        }
+
+        @Override
+        public T deserialize(String topic, Headers headers, byte[] data) {
+            long start = System.nanoTime();
+            T out = inner.deserialize(topic, headers, data);
+            metrics.recordSerde(topic, false, data == null ? 0 : data.length, System.nanoTime() - start);
+            return out;
+        }
+
+        @Override
+        public void close() {
+            inner.close();
+        }
+    }
+}
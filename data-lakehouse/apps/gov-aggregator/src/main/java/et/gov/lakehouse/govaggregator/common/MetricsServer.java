@@ -0,0 +1,48 @@
+package et.gov.lakehouse.govaggregator.common;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.kafka.streams.KafkaStreams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/** GET /metrics in the Prometheus text format on METRICS_PORT (disabled when unset). */
+public final class MetricsServer {
+    private MetricsServer() {}
+
+    /** Binds the client's metrics and starts the endpoint; returns null when METRICS_PORT is unset. */
+    public static HttpServer startIfConfigured(String app, KafkaStreams streams) {
+        if (!PipelineMetrics.global().enabled()) return null;
+        PipelineMetrics.global().bind(streams);
+        return startIfConfigured(app);
+    }
+
+    /** Starts the endpoint only; bind plain clients with {@link PipelineMetrics#bind(java.util.function.Supplier)}. */
+    public static HttpServer startIfConfigured(String app) {
+        PipelineMetrics metrics = PipelineMetrics.global();
+        if (!metrics.enabled()) return null;
+
+        int port = Integer.parseInt(PipelineMetrics.configuredPort().trim());
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+            server.createContext("/metrics", ex -> {
+                try (ex) {
+                    byte[] body = metrics.scrape().getBytes(StandardCharsets.UTF_8);
+                    ex.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                    ex.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = ex.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+            });
+            server.start();
+            System.out.println("[" + app + "] metrics on :" + port + "/metrics");
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start metrics endpoint on port " + port, e);
+        }
+    }
+}
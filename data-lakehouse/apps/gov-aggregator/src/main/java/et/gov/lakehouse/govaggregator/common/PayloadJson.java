@@ -0,0 +1,128 @@
+package et.gov.lakehouse.govaggregator.common;
+
+import java.util.Arrays;
+
+/**
+ * Flat JSON object writer for the AggregatedRecord payload string.
+ *
+ * One char buffer per thread is reused across records, so a payload costs a single String copy; string
+ * values are escaped per RFC 8259 (quotes in company names / routes no longer break the JSON) and
+ * non-finite doubles are written as null. Usage: {@code PayloadJson.begin().field(..).field(..).end()}.
+ */
+public final class PayloadJson {
+
+    private static final ThreadLocal<PayloadJson> LOCAL = ThreadLocal.withInitial(PayloadJson::new);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    /** Buffers grown past this by an odd record are dropped rather than kept per thread. */
+    private static final int MAX_RETAINED = 16 * 1024;
+
+    private char[] buf = new char[256];
+    private int n;
+
+    private PayloadJson() {}
+
+    public static PayloadJson begin() {
+        PayloadJson w = LOCAL.get();
+        w.n = 0;
+        w.buf[w.n++] = '{';
+        return w;
+    }
+
+    public PayloadJson field(String name, String value) {
+        name(name);
+        if (value == null) {
+            raw("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    public PayloadJson field(String name, double value) {
+        name(name);
+        raw(Double.isFinite(value) ? Double.toString(value) : "null");
+        return this;
+    }
+
+    public PayloadJson field(String name, long value) {
+        name(name);
+        raw(Long.toString(value));
+        return this;
+    }
+
+    public String end() {
+        ensure(1);
+        buf[n++] = '}';
+        String json = new String(buf, 0, n);
+        if (buf.length > MAX_RETAINED) {
+            buf = new char[256];
+        }
+        return json;
+    }
+
+    /** Field names are code constants (plain identifiers) and are written unescaped. */
+    private void name(String name) {
+        ensure(name.length() + 4);
+        if (n > 1) buf[n++] = ',';
+        buf[n++] = '"';
+        name.getChars(0, name.length(), buf, n);
+        n += name.length();
+        buf[n++] = '"';
+        buf[n++] = ':';
+    }
+
+    private void raw(String s) {
+        ensure(s.length());
+        s.getChars(0, s.length(), buf, n);
+        n += s.length();
+    }
+
+    /** Copies the value in bulk; only a value that needs escaping is rewritten char by char. */
+    private void string(String s) {
+        int len = s.length();
+        ensure(len * 6 + 2);
+        char[] out = buf;
+        out[n++] = '"';
+        int start = n;
+        s.getChars(0, len, out, start);
+        int i = start;
+        int end = start + len;
+        while (i < end && !needsEscape(out[i])) i++;
+        n = i;
+        for (int j = i - start; j < len; j++) {
+            char c = s.charAt(j);
+            if (!needsEscape(c)) {
+                out[n++] = c;
+                continue;
+            }
+            out[n++] = '\\';
+            switch (c) {
+                case '"' -> out[n++] = '"';
+                case '\\' -> out[n++] = '\\';
+                case '\n' -> out[n++] = 'n';
+                case '\r' -> out[n++] = 'r';
+                case '\t' -> out[n++] = 't';
+                case '\b' -> out[n++] = 'b';
+                case '\f' -> out[n++] = 'f';
+                default -> {
+                    out[n++] = 'u';
+                    out[n++] = '0';
+                    out[n++] = '0';
+                    out[n++] = HEX[c >> 4];
+                    out[n++] = HEX[c & 0xF];
+                }
+            }
+        }
+        out[n++] = '"';
+    }
+
+    private static boolean needsEscape(char c) {
+        return c < 0x20 || c == '"' || c == '\\';
+    }
+
+    private void ensure(int extra) {
+        if (n + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, n + extra));
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package et.gov.lakehouse.govaggregator.common;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.kstream.ValueMapper;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide counters/histograms for both apps, rendered in the Prometheus text format.
+ *
+ * Enabled by METRICS_PORT (see {@link MetricsServer}); when it is unset every record* call is a
+ * cheap no-op and {@link #timed} hands back the mapper unchanged. Label sets are small and bounded
+ * (task, table or source, topic), so series are kept in plain concurrent maps.
+ */
+public final class PipelineMetrics {
+
+    private static final String PORT = System.getProperty("metrics.port", System.getenv().getOrDefault("METRICS_PORT", ""));
+
+    private static final PipelineMetrics GLOBAL = new PipelineMetrics(!PORT.isBlank());
+
+    /** Seconds; spans a cached projection (~µs) up to a registry round-trip. */
+    private static final double[] LATENCY_BUCKETS = {
+            0.00001, 0.00005, 0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.05, 0.1, 0.5, 1
+    };
+    private static final String[] LE = Arrays.stream(LATENCY_BUCKETS)
+            .mapToObj(b -> BigDecimal.valueOf(b).toPlainString())
+            .toArray(String[]::new);
+
+    private final boolean enabled;
+    /** task -> table -> series; two lookups and no allocation per record. */
+    private final Map<String, Map<String, TaskSeries>> tasks = new ConcurrentHashMap<>();
+    /** topic -> [serialize, deserialize]. */
+    private final Map<String, SerdeSeries[]> serdes = new ConcurrentHashMap<>();
+    private final List<Supplier<Map<MetricName, ? extends Metric>>> clients = new ArrayList<>();
+    /** table -> [active 0/1, rows, rows/s] of its current or last Debezium snapshot. */
+    private final Map<String, double[]> snapshots = new ConcurrentHashMap<>();
+    /** app -> [stream threads, consumer lag, scale-ups, scale-downs] of its StreamThreadScaler. */
+    private final Map<String, long[]> scaling = new ConcurrentHashMap<>();
+    /** rate topic -> wall-clock millis its feed last applied a rate (or started). */
+    private final Map<String, Long> fxRates = new ConcurrentHashMap<>();
+
+    private PipelineMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static PipelineMetrics global() {
+        return GLOBAL;
+    }
+
+    static String configuredPort() {
+        return PORT;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /** One record handled by a task for a table (ESW) or source (ministry feed). */
+    public void recordProcessed(String task, String table, long nanos) {
+        if (!enabled) return;
+        TaskSeries t = task(task, table);
+        t.records.increment();
+        t.latency.observe(nanos);
+    }
+
+    /** A record filtered out before the sink, e.g. reason=null_after for deletes / tombstones. */
+    public void recordDropped(String task, String table, String reason) {
+        if (!enabled) return;
+        task(task, table).dropped.computeIfAbsent(reason, r -> new LongAdder()).increment();
+    }
+
+    /** One value (de)serialization of {@code bytes} bytes. */
+    public void recordSerde(String topic, boolean serialize, int bytes, long nanos) {
+        if (!enabled) return;
+        SerdeSeries[] pair = serdes.get(topic);
+        if (pair == null) {
+            pair = serdes.computeIfAbsent(topic, t -> new SerdeSeries[] {
+                    new SerdeSeries(labels("topic", t, "op", "serialize")),
+                    new SerdeSeries(labels("topic", t, "op", "deserialize"))
+            });
+        }
+        SerdeSeries s = pair[serialize ? 0 : 1];
+        s.bytes.add(bytes);
+        s.latency.observe(nanos);
+    }
+
+    /** Snapshot phase of a table started (true) or completed (false). */
+    public void snapshotActive(String table, boolean active) {
+        if (!enabled) return;
+        snapshots.computeIfAbsent(table, t -> new double[3])[0] = active ? 1 : 0;
+    }
+
+    /** Rows of the table's snapshot so far and the recent rows/s; updated on every progress report. */
+    public void snapshotProgress(String table, long rows, long rowsPerSecond) {
+        if (!enabled) return;
+        double[] s = snapshots.computeIfAbsent(table, t -> new double[3]);
+        s[1] = rows;
+        s[2] = rowsPerSecond;
+    }
+
+    /** Last sample of the thread scaler: live stream threads and summed consumer lag. */
+    public void streamThreads(String app, int threads, long lag) {
+        if (!enabled) return;
+        long[] s = scaling.computeIfAbsent(app, a -> new long[4]);
+        s[0] = threads;
+        s[1] = lag;
+    }
+
+    /** One thread added (up) or removed by the scaler. */
+    public void recordScaling(String app, boolean up) {
+        if (!enabled) return;
+        scaling.computeIfAbsent(app, a -> new long[4])[up ? 2 : 3]++;
+    }
+
+    /** The rate feed of {@code topic} applied at least one rate just now (also called once at start). */
+    public void fxRatesUpdated(String topic) {
+        if (!enabled) return;
+        fxRates.put(topic, System.currentTimeMillis());
+    }
+
+    private TaskSeries task(String task, String table) {
+        Map<String, TaskSeries> byTable = tasks.computeIfAbsent(task, t -> new ConcurrentHashMap<>());
+        TaskSeries s = byTable.get(table);
+        return s != null ? s : byTable.computeIfAbsent(table, t -> new TaskSeries(labels("task", task, "table", t)));
+    }
+
+    /** Exports the client's metrics (threads, tasks, consumer, producer, custom sensors) on every scrape. */
+    public void bind(KafkaStreams kafkaStreams) {
+        bind(kafkaStreams::metrics);
+    }
+
+    /** Same for a plain consumer / producer ({@code client::metrics}). */
+    public synchronized void bind(Supplier<Map<MetricName, ? extends Metric>> clientMetrics) {
+        clients.add(clientMetrics);
+    }
+
+    /** Wraps a per-record mapping so it is counted and timed as (task, table). */
+    public static <V, R> ValueMapper<V, R> timed(String task, String table, ValueMapper<V, R> mapper) {
+        if (!GLOBAL.enabled) return mapper;
+        return value -> {
+            long start = System.nanoTime();
+            R out = mapper.apply(value);
+            GLOBAL.recordProcessed(task, table, System.nanoTime() - start);
+            return out;
+        };
+    }
+
+    public String scrape() {
+        StringBuilder sb = new StringBuilder(16 * 1024);
+        List<TaskSeries> taskSeries = new ArrayList<>();
+        tasks.values().forEach(byTable -> taskSeries.addAll(byTable.values()));
+        List<SerdeSeries> serdeSeries = new ArrayList<>();
+        serdes.values().forEach(pair -> serdeSeries.addAll(List.of(pair)));
+
+        header(sb, "gov_records_processed_total", "Records processed per task and table/source.", "counter");
+        for (TaskSeries t : taskSeries) {
+            sample(sb, "gov_records_processed_total", t.labels, t.records.sum());
+        }
+        header(sb, "gov_records_dropped_total", "Records filtered out before the sink.", "counter");
+        for (TaskSeries t : taskSeries) {
+            for (Map.Entry<String, LongAdder> d : t.dropped.entrySet()) {
+                sample(sb, "gov_records_dropped_total", t.labels + "," + labels("reason", d.getKey()), d.getValue().sum());
+            }
+        }
+        header(sb, "gov_process_seconds", "Per-record processing latency per task and table/source.", "histogram");
+        for (TaskSeries t : taskSeries) {
+            t.latency.write(sb, "gov_process_seconds", t.labels);
+        }
+        header(sb, "gov_serde_bytes_total", "Value bytes (de)serialized per topic.", "counter");
+        for (SerdeSeries s : serdeSeries) {
+            sample(sb, "gov_serde_bytes_total", s.labels, s.bytes.sum());
+        }
+        header(sb, "gov_serde_seconds", "Time spent in value (de)serialization per topic.", "histogram");
+        for (SerdeSeries s : serdeSeries) {
+            s.latency.write(sb, "gov_serde_seconds", s.labels);
+        }
+        snapshotGauges(sb);
+        scalingSeries(sb);
+        fxRateAge(sb);
+        kafkaClients(sb);
+        return sb.toString();
+    }
+
+    private void snapshotGauges(StringBuilder sb) {
+        if (snapshots.isEmpty()) return;
+        String[][] gauges = {
+                {"gov_snapshot_active", "1 while the table is in its Debezium snapshot (op=r) phase."},
+                {"gov_snapshot_rows", "Rows of the table's current or last snapshot."},
+                {"gov_snapshot_rows_per_second", "Snapshot throughput over the last progress interval."}
+        };
+        for (int i = 0; i < gauges.length; i++) {
+            header(sb, gauges[i][0], gauges[i][1], "gauge");
+            for (Map.Entry<String, double[]> e : snapshots.entrySet()) {
+                sample(sb, gauges[i][0], labels("table", e.getKey()), (long) e.getValue()[i]);
+            }
+        }
+    }
+
+    private void scalingSeries(StringBuilder sb) {
+        if (scaling.isEmpty()) return;
+        header(sb, "gov_stream_threads", "Live stream threads as last sampled by the thread scaler.", "gauge");
+        scaling.forEach((app, s) -> sample(sb, "gov_stream_threads", labels("app", app), s[0]));
+        header(sb, "gov_consumer_lag", "Summed consumer lag of the stream threads as last sampled by the thread scaler.", "gauge");
+        scaling.forEach((app, s) -> sample(sb, "gov_consumer_lag", labels("app", app), s[1]));
+        header(sb, "gov_stream_thread_scaling_total", "Stream threads added (up) or removed (down) by the thread scaler.", "counter");
+        scaling.forEach((app, s) -> {
+            sample(sb, "gov_stream_thread_scaling_total", labels("app", app, "direction", "up"), s[2]);
+            sample(sb, "gov_stream_thread_scaling_total", labels("app", app, "direction", "down"), s[3]);
+        });
+    }
+
+    private void fxRateAge(StringBuilder sb) {
+        if (fxRates.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        header(sb, "gov_fx_rate_age_seconds", "Seconds since the rate feed last applied a rate (or started).", "gauge");
+        fxRates.forEach((topic, at) -> sample(sb, "gov_fx_rate_age_seconds", labels("topic", topic), (now - at) / 1000));
+    }
+
+    private static void header(StringBuilder sb, String name, String help, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, Object value) {
+        sb.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    /** kafka_<group>_<name>{tags} gauges; one TYPE line per family, non-numeric metrics skipped. */
+    private synchronized void kafkaClients(StringBuilder sb) {
+        Map<String, List<String>> families = new TreeMap<>();
+        for (Supplier<Map<MetricName, ? extends Metric>> client : clients) {
+            for (Map.Entry<MetricName, ? extends Metric> e : client.get().entrySet()) {
+                Object v = e.getValue().metricValue();
+                if (!(v instanceof Number n) || !Double.isFinite(n.doubleValue())) continue;
+
+                MetricName mn = e.getKey();
+                String family = sanitize("kafka_" + mn.group().replace("-metrics", "") + "_" + mn.name());
+                StringBuilder line = new StringBuilder(family).append('{');
+                boolean first = true;
+                for (Map.Entry<String, String> tag : new TreeMap<>(mn.tags()).entrySet()) {
+                    if (!first) line.append(',');
+                    line.append(sanitize(tag.getKey())).append("=\"").append(escape(tag.getValue())).append('"');
+                    first = false;
+                }
+                line.append("} ").append(n.doubleValue());
+                families.computeIfAbsent(family, k -> new ArrayList<>()).add(line.toString());
+            }
+        }
+        for (Map.Entry<String, List<String>> f : families.entrySet()) {
+            sb.append("# TYPE ").append(f.getKey()).append(" gauge\n");
+            for (String line : f.getValue()) {
+                sb.append(line).append('\n');
+            }
+        }
+    }
+
+    private static String labels(String... kv) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < kv.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(kv[i]).append("=\"").append(escape(kv[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static final class TaskSeries {
+        final String labels;
+        final LongAdder records = new LongAdder();
+        final Histogram latency = new Histogram();
+        final Map<String, LongAdder> dropped = new ConcurrentHashMap<>();
+
+        TaskSeries(String labels) {
+            this.labels = labels;
+        }
+    }
+
+    private static final class SerdeSeries {
+        final String labels;
+        final LongAdder bytes = new LongAdder();
+        final Histogram latency = new Histogram();
+
+        SerdeSeries(String labels) {
+            this.labels = labels;
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
+    private static String escape(String v) {
+        if (v == null) return "";
+        return v.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Histogram {
+        final LongAdder[] buckets = new LongAdder[LATENCY_BUCKETS.length + 1];
+        final DoubleAdder sum = new DoubleAdder();
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void observe(long nanos) {
+            double seconds = nanos / 1e9;
+            int i = 0;
+            while (i < LATENCY_BUCKETS.length && seconds > LATENCY_BUCKETS[i]) i++;
+            buckets[i].increment();
+            sum.add(seconds);
+        }
+
+        void write(StringBuilder sb, String name, String labels) {
+            long cumulative = 0;
+            for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+                cumulative += buckets[i].sum();
+                sb.append(name).append("_bucket{").append(labels).append(",le=\"").append(LE[i])
+                        .append("\"} ").append(cumulative).append('\n');
+            }
+            cumulative += buckets[LATENCY_BUCKETS.length].sum();
+            sb.append(name).append("_bucket{").append(labels).append(",le=\"+Inf\"} ").append(cumulative).append('\n');
+            sb.append(name).append("_sum{").append(labels).append("} ").append(sum.sum()).append('\n');
+            sb.append(name).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package et.gov.lakehouse.govaggregator.common;
+
+import java.util.Arrays;
+
+/**
+ * Bloom filter over the last {@code segments} generations of ids. Inserts go to the newest
+ * generation; a lookup checks all of them. A new generation starts when the newest one is
+ * {@code windowMs} old or holds {@code expectedPerSegment} ids, and the oldest one is dropped, so
+ * memory is fixed and the false-positive rate stays near {@code fpp} times the generation count,
+ * however fast ids arrive; under load the remembered span shrinks instead.
+ *
+ * Rotation depends only on the order and timestamps of the inserts, so replaying the same inserts
+ * (a changelog restore) rebuilds the same generations. Not thread-safe; one per store.
+ */
+final class RotatingBloomFilter {
+
+    private final long windowMs;
+    private final long expectedPerSegment;
+    private final int bits;
+    private final int hashes;
+    private final long[][] segments;
+
+    /** Index of the newest generation in {@link #segments}. */
+    private int current;
+    private long currentStart = Long.MIN_VALUE;
+    private long currentCount;
+    private long inserted;
+
+    RotatingBloomFilter(int segments, long windowMs, long expectedPerSegment, double fpp) {
+        if (segments < 1 || windowMs <= 0 || expectedPerSegment <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Bloom filter needs segments >= 1, window > 0, expected > 0 and 0 < fpp < 1");
+        }
+        // m = -n ln p / (ln 2)^2, k = m / n ln 2
+        double m = -expectedPerSegment * Math.log(fpp) / (Math.log(2) * Math.log(2));
+        if (m > Integer.MAX_VALUE - 63) {
+            throw new IllegalArgumentException("Bloom filter segment of " + (long) m + " bits is too large; lower the expected count or raise the fpp");
+        }
+        this.bits = (int) ((Math.max(64, (long) Math.ceil(m)) + 63) & ~63L);
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedPerSegment * Math.log(2)));
+        this.windowMs = windowMs;
+        this.expectedPerSegment = expectedPerSegment;
+        this.segments = new long[segments][bits >>> 6];
+    }
+
+    /** Whether {@code id} may have been added within the remembered span; false is definite. */
+    boolean mightContain(byte[] id) {
+        long h1 = hash(id);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (long[] segment : segments) {
+            if (contains(segment, h1, h2)) return true;
+        }
+        return false;
+    }
+
+    /** Adds {@code id} seen at wall-clock {@code timestamp}, rotating first when the newest generation is full or old. */
+    void add(byte[] id, long timestamp) {
+        if (currentStart == Long.MIN_VALUE) {
+            currentStart = timestamp;
+        } else if (currentCount >= expectedPerSegment || timestamp - currentStart >= windowMs) {
+            current = (current + 1) % segments.length;
+            Arrays.fill(segments[current], 0L);
+            currentStart = timestamp;
+            currentCount = 0;
+        }
+        long h1 = hash(id);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        long[] segment = segments[current];
+        for (int i = 0; i < hashes; i++) {
+            int bit = index(h1, h2, i);
+            segment[bit >>> 6] |= 1L << bit;
+        }
+        currentCount++;
+        inserted++;
+    }
+
+    /** Ids added since creation, including rotated-out ones. */
+    long inserted() {
+        return inserted;
+    }
+
+    /** Heap taken by the bit arrays. */
+    long sizeInBytes() {
+        return (long) segments.length * (bits >>> 3);
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    private boolean contains(long[] segment, long h1, long h2) {
+        for (int i = 0; i < hashes; i++) {
+            int bit = index(h1, h2, i);
+            if ((segment[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /** Kirsch-Mitzenmacher: the i-th probe is h1 + i * h2. */
+    private int index(long h1, long h2, int i) {
+        return (int) Long.remainderUnsigned(h1 + i * h2, bits);
+    }
+
+    /** 64-bit FNV-1a finished with the murmur3 fmix64 avalanche. */
+    private static long hash(byte[] id) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : id) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb53fe1a85ec5L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,323 @@
+package et.gov.lakehouse.govaggregator.common;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.apicurio.registry.rest.client.RegistryClient;
+import io.apicurio.registry.rest.client.RegistryClientFactory;
+import io.apicurio.registry.rest.v2.beans.ArtifactMetaData;
+import io.apicurio.registry.rest.v2.beans.ArtifactReference;
+import org.apache.avro.Schema;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local copy of the registry state the serdes need, shared by every serde of one registry URL.
+ *
+ * Schema content is immutable per contentId, so once an id has been seen it is never fetched again:
+ * {@link #client()} wraps the Apicurio RegistryClient and answers getContentById / getContentByGlobalId
+ * and auto-register createArtifact calls from memory. New entries are written through to
+ * SCHEMA_CACHE_DIR (one file each) and loaded back at startup, so a restart, or a registry outage,
+ * costs no round-trip for ids already known. "Latest" lookups still go to the registry and only
+ * fall back to the last answer when it fails.
+ */
+public final class SchemaRegistryCache {
+
+    private static final String CACHE_DIR = System.getProperty("schema.cache.dir",
+            System.getenv().getOrDefault("SCHEMA_CACHE_DIR", "schema-cache"));
+    private static final long WARMUP_TIMEOUT_MS = Long.parseLong(System.getProperty("schema.warmup.timeout.ms",
+            System.getenv().getOrDefault("SCHEMA_WARMUP_TIMEOUT_MS", "15000")));
+
+    private static final Map<String, SchemaRegistryCache> BY_URL = new ConcurrentHashMap<>();
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final TypeReference<List<ArtifactReference>> REFS = new TypeReference<>() {};
+
+    private final RegistryClient delegate;
+    private final RegistryClient client;
+    private final Path dir;
+
+    private final Map<Long, String> contentById = new ConcurrentHashMap<>();
+    private final Map<Long, String> contentByGlobalId = new ConcurrentHashMap<>();
+    private final Map<Long, Schema> schemaById = new ConcurrentHashMap<>();
+    /** sha256(group, artifactId, content) -> create/lookup answer. */
+    private final Map<String, ArtifactMetaData> registered = new ConcurrentHashMap<>();
+    /** "content-<id>" / "global-<id>" -> schema references (usually empty). */
+    private final Map<String, List<ArtifactReference>> references = new ConcurrentHashMap<>();
+    /** group/artifactId -> last "latest" answer, used only when the registry is unreachable. */
+    private final Map<String, ArtifactMetaData> latest = new ConcurrentHashMap<>();
+
+    private SchemaRegistryCache(RegistryClient delegate, Path dir) {
+        this.delegate = delegate;
+        this.dir = dir;
+        this.client = (RegistryClient) Proxy.newProxyInstance(
+                RegistryClient.class.getClassLoader(), new Class<?>[] {RegistryClient.class}, new Handler());
+        load();
+    }
+
+    /** Cache for a registry URL (one per process), snapshot dir from SCHEMA_CACHE_DIR (blank = memory only). */
+    public static SchemaRegistryCache forUrl(String registryUrl) {
+        return BY_URL.computeIfAbsent(registryUrl, url -> new SchemaRegistryCache(
+                RegistryClientFactory.create(url),
+                CACHE_DIR.isBlank() ? null : Path.of(CACHE_DIR, dirName(url))));
+    }
+
+    /** Cache in front of an existing client; {@code dir} may be null for memory only. */
+    public static SchemaRegistryCache of(RegistryClient delegate, Path dir) {
+        return new SchemaRegistryCache(delegate, dir);
+    }
+
+    /** The caching RegistryClient to hand to Apicurio serializers/deserializers. */
+    public RegistryClient client() {
+        return client;
+    }
+
+    /** Parsed writer schema for a contentId, or null if it has not been seen yet. */
+    public Schema schema(long contentId) {
+        Schema s = schemaById.get(contentId);
+        if (s == null) {
+            String content = contentById.get(contentId);
+            if (content == null) return null;
+            s = new Schema.Parser().parse(content);
+            schemaById.put(contentId, s);
+        }
+        return s;
+    }
+
+    public int size() {
+        return contentById.size();
+    }
+
+    /**
+     * Fetches the latest "<topic>-value" schema of every topic in parallel so the first records do not
+     * queue behind registry calls. Bounded by SCHEMA_WARMUP_TIMEOUT_MS; failures are logged, not fatal.
+     */
+    public void warmUp(String groupId, Collection<String> topics) {
+        if (topics.isEmpty()) return;
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(8, topics.size()), r -> {
+            Thread t = new Thread(r, "schema-warmup");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger warmed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (String topic : topics) {
+            futures.add(pool.submit(() -> {
+                ArtifactMetaData md = client.getArtifactMetaData(groupId, topic + "-value");
+                if (md.getContentId() != null && schema(fetchContent(md.getContentId())) != null) {
+                    warmed.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_TIMEOUT_MS);
+        for (Future<?> f : futures) {
+            try {
+                f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                f.cancel(true);
+            }
+        }
+        System.out.println("[schema-cache] warm-up group=" + groupId + " " + warmed.get() + "/" + topics.size()
+                + " topics in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms; "
+                + size() + " schemas cached");
+    }
+
+    private long fetchContent(long contentId) {
+        if (!contentById.containsKey(contentId)) {
+            try (InputStream in = delegate.getContentById(contentId)) {
+                putContent(contentById, "content", contentId, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return contentId;
+    }
+
+    private final class Handler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            String name = m.getName();
+            int n = args == null ? 0 : args.length;
+
+            if (name.equals("getContentById") && n == 1) {
+                return content(contentById, "content", (Long) args[0], m, args);
+            }
+            if (name.equals("getContentByGlobalId") && (n == 1 || (n == 3 && !Boolean.TRUE.equals(args[1]) && !Boolean.TRUE.equals(args[2])))) {
+                return content(contentByGlobalId, "global", (Long) args[0], m, args);
+            }
+            if ((name.equals("getArtifactReferencesByContentId") || name.equals("getArtifactReferencesByGlobalId")) && n == 1) {
+                return references(name.endsWith("ContentId") ? "content" : "global", (Long) args[0], m, args);
+            }
+            if (name.equals("createArtifact")) {
+                for (int i = 2; i < n; i++) {
+                    if (args[i] instanceof InputStream) return create(m, args, i);
+                }
+            }
+            if (name.equals("getArtifactMetaData") && n == 2) {
+                String key = args[0] + "/" + args[1];
+                try {
+                    ArtifactMetaData md = (ArtifactMetaData) call(m, args);
+                    latest.put(key, md);
+                    return md;
+                } catch (RuntimeException e) {
+                    ArtifactMetaData cached = latest.get(key);
+                    if (cached == null) throw e;
+                    System.out.println("[schema-cache] registry unavailable, using cached latest for " + key + ": " + e);
+                    return cached;
+                }
+            }
+            return call(m, args);
+        }
+
+        private InputStream content(Map<Long, String> map, String kind, Long id, Method m, Object[] args) throws Throwable {
+            String content = map.get(id);
+            if (content == null) {
+                try (InputStream in = (InputStream) call(m, args)) {
+                    content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                putContent(map, kind, id, content);
+            }
+            return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<ArtifactReference> references(String kind, Long id, Method m, Object[] args) throws Throwable {
+            String key = kind + "-" + id;
+            List<ArtifactReference> refs = references.get(key);
+            if (refs == null) {
+                refs = (List<ArtifactReference>) call(m, args);
+                if (references.putIfAbsent(key, refs) == null) {
+                    write("refs-" + key + ".json", JSON.writeValueAsBytes(refs));
+                }
+            }
+            return refs;
+        }
+
+        /** Auto-register: same group + artifact + content always maps to the same ids, so answer locally. */
+        private ArtifactMetaData create(Method m, Object[] args, int contentArg) throws Throwable {
+            byte[] content = ((InputStream) args[contentArg]).readAllBytes();
+            String key = sha256(args[0] + "\n" + args[1] + "\n", content);
+            ArtifactMetaData md = registered.get(key);
+            if (md != null) return md;
+
+            Object[] replay = args.clone();
+            replay[contentArg] = new ByteArrayInputStream(content);
+            md = (ArtifactMetaData) call(m, replay);
+            registered.put(key, md);
+            write("artifact-" + key + ".json", JSON.writeValueAsBytes(md));
+            if (md.getContentId() != null) {
+                putContent(contentById, "content", md.getContentId(), new String(content, StandardCharsets.UTF_8));
+            }
+            return md;
+        }
+
+        private Object call(Method m, Object[] args) throws Throwable {
+            try {
+                return m.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private void putContent(Map<Long, String> map, String kind, long id, String content) {
+        if (map.putIfAbsent(id, content) == null) {
+            write(kind + "-" + id + ".avsc", content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void load() {
+        if (dir == null || !Files.isDirectory(dir)) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                try {
+                    if (name.startsWith("content-") && name.endsWith(".avsc")) {
+                        contentById.put(idOf(name, "content-"), Files.readString(f));
+                    } else if (name.startsWith("global-") && name.endsWith(".avsc")) {
+                        contentByGlobalId.put(idOf(name, "global-"), Files.readString(f));
+                    } else if (name.startsWith("refs-") && name.endsWith(".json")) {
+                        references.put(name.substring(5, name.length() - 5), JSON.readValue(f.toFile(), REFS));
+                    } else if (name.startsWith("artifact-") && name.endsWith(".json")) {
+                        registered.put(name.substring(9, name.length() - 5), JSON.readValue(f.toFile(), ArtifactMetaData.class));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("[schema-cache] skipping unreadable snapshot file " + f + ": " + e);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("[schema-cache] cannot read snapshot " + dir + ": " + e);
+        }
+        System.out.println("[schema-cache] loaded " + contentById.size() + " schemas, " + registered.size()
+                + " registrations from " + dir);
+    }
+
+    /** Best-effort write-through (tmp file + rename); the in-memory entry is authoritative either way. */
+    private void write(String file, byte[] bytes) {
+        if (dir == null) return;
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, file, ".tmp");
+            Files.write(tmp, bytes);
+            try {
+                Files.move(tmp, dir.resolve(file), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, dir.resolve(file), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.out.println("[schema-cache] cannot write " + file + " to " + dir + ": " + e);
+        }
+    }
+
+    private static long idOf(String fileName, String prefix) {
+        return Long.parseLong(fileName.substring(prefix.length(), fileName.length() - ".avsc".length()));
+    }
+
+    private static String dirName(String url) {
+        return sha256(url, new byte[0]).substring(0, 16);
+    }
+
+    private static String sha256(String prefix, byte[] content) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(prefix.getBytes(StandardCharsets.UTF_8));
+            md.update(content);
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
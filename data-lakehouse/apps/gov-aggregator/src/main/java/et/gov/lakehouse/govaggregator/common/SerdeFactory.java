@@ -1,8 +1,8 @@
 package et.gov.lakehouse.govaggregator.common;
 
+import io.apicurio.registry.rest.client.RegistryClient;
 import io.apicurio.registry.serde.avro.AvroKafkaDeserializer;
 import io.apicurio.registry.serde.avro.AvroKafkaSerializer;
-import io.apicurio.registry.serde.avro.AvroSerde;
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
 
@@ -25,6 +25,7 @@ public final class SerdeFactory {
     private static final String USE_ID            = "apicurio.registry.use-id";
     private static final String ID_HANDLER        = "apicurio.registry.id-handler";
     private static final String HEADERS_ENABLED   = "apicurio.registry.headers.enabled";
+    private static final String SPECIFIC_READER   = "apicurio.registry.use-specific-avro-reader";
 
     // This stack uses Apicurio's Confluent compatibility mode with Legacy4ByteIdHandler + contentId.
     // The 4-byte schema id in the Kafka message is the Apicurio *contentId*.
@@ -57,6 +58,11 @@ public final class SerdeFactory {
         return cfg;
     }
 
+    /** Every serde of a registry shares one {@link SchemaRegistryCache}-backed client. */
+    private static RegistryClient registryClient(String registryUrl) {
+        return SchemaRegistryCache.forUrl(registryUrl).client();
+    }
+
     /** Alias used by your App.java */
     public static Serde<String> stringSerde() {
         return Serdes.String();
@@ -73,25 +79,37 @@ public final class SerdeFactory {
      * with confluent-compat framing.
      */
     public static <T> Serde<T> avroSerde(String registryUrl, String groupId, boolean asConfluent) {
-        AvroSerde<T> serde = new AvroSerde<>();
-        serde.configure(baseConfig(registryUrl, groupId, asConfluent), false);
-        return serde;
+        Map<String, Object> cfg = baseConfig(registryUrl, groupId, asConfluent);
+        AvroKafkaSerializer<T> ser = new AvroKafkaSerializer<>(registryClient(registryUrl));
+        AvroKafkaDeserializer<T> de = new AvroKafkaDeserializer<>(registryClient(registryUrl));
+        ser.configure(cfg, false);
+        de.configure(cfg, false);
+        return Serdes.serdeFrom(ser, de);
     }
 
-    /** Overload to match existing call sites that pass a Class<T>. */
-    public static <T> Serde<T> avroSerde(Class<T> ignored, String registryUrl, String groupId) {
-        return avroSerde(registryUrl, groupId);
+    /**
+     * Serde for a generated SpecificRecord class. Without the specific reader the deserializer returns
+     * GenericData.Record, which fails the first typed access (task mappers, aggregators).
+     */
+    public static <T> Serde<T> avroSerde(Class<T> type, String registryUrl, String groupId) {
+        Map<String, Object> cfg = baseConfig(registryUrl, groupId, false);
+        cfg.put(SPECIFIC_READER, true);
+        AvroKafkaSerializer<T> ser = new AvroKafkaSerializer<>(registryClient(registryUrl));
+        AvroKafkaDeserializer<T> de = new AvroKafkaDeserializer<>(registryClient(registryUrl));
+        ser.configure(cfg, false);
+        de.configure(cfg, false);
+        return Serdes.serdeFrom(ser, de);
     }
 
     /** Optional helpers for plain Producer/Consumer (non-Streams). */
     public static AvroKafkaSerializer avroValueSerializer(String registryUrl, String groupId) {
-        AvroKafkaSerializer ser = new AvroKafkaSerializer();
+        AvroKafkaSerializer ser = new AvroKafkaSerializer(registryClient(registryUrl));
         ser.configure(baseConfig(registryUrl, groupId), false);
         return ser;
     }
 
     public static AvroKafkaDeserializer avroValueDeserializer(String registryUrl, String groupId) {
-        AvroKafkaDeserializer de = new AvroKafkaDeserializer();
+        AvroKafkaDeserializer de = new AvroKafkaDeserializer(registryClient(registryUrl));
         de.configure(baseConfig(registryUrl, groupId), false);
         return de;
     }
@@ -0,0 +1,175 @@
+package et.gov.lakehouse.govaggregator.common;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StreamsConfig;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds and removes stream threads of a running {@link KafkaStreams} from its own metrics: summed
+ * records-lag of the main consumers and summed process-rate of the stream threads, sampled every
+ * STREAM_THREADS_SAMPLE_MS.
+ *
+ * A thread is added when the lag stays above STREAM_THREADS_UP_LAG for STREAM_THREADS_UP_SAMPLES
+ * samples and the current threads would need more than STREAM_THREADS_UP_DRAIN_S to work it off; one
+ * is removed when the lag stays below STREAM_THREADS_DOWN_LAG for STREAM_THREADS_DOWN_SAMPLES
+ * samples. The gap between the two thresholds, the sample counts and STREAM_THREADS_COOLDOWN_MS
+ * after every change (which rebalances) keep it from flapping. One thread per decision, always
+ * within STREAM_THREADS_MIN..STREAM_THREADS_MAX; disabled unless MAX is above MIN.
+ */
+public final class StreamThreadScaler implements AutoCloseable {
+
+    private final String app;
+    private final KafkaStreams streams;
+    private final int min;
+    private final int max;
+    private final long upLag;
+    private final long downLag;
+    private final int upSamples;
+    private final int downSamples;
+    private final double upDrainSeconds;
+    private final long cooldownMs;
+    private final long sampleMs;
+    private final ScheduledExecutorService timer;
+
+    private int above;
+    private int below;
+    private long lastChange = Long.MIN_VALUE;
+
+    StreamThreadScaler(String app, KafkaStreams streams, int min, int max, long upLag, long downLag,
+                       int upSamples, int downSamples, double upDrainSeconds, long cooldownMs, long sampleMs) {
+        if (downLag >= upLag) {
+            throw new IllegalStateException("STREAM_THREADS_DOWN_LAG (" + downLag
+                    + ") must be below STREAM_THREADS_UP_LAG (" + upLag + ")");
+        }
+        this.app = app;
+        this.streams = streams;
+        this.min = min;
+        this.max = max;
+        this.upLag = upLag;
+        this.downLag = downLag;
+        this.upSamples = Math.max(1, upSamples);
+        this.downSamples = Math.max(1, downSamples);
+        this.upDrainSeconds = upDrainSeconds;
+        this.cooldownMs = cooldownMs;
+        this.sampleMs = sampleMs;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, app + "-thread-scaler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Scaler for the client built from streamsProps; null when STREAM_THREADS_MAX is not above the minimum. */
+    public static StreamThreadScaler fromEnv(String app, KafkaStreams streams, Properties streamsProps) {
+        int configured = Integer.parseInt(streamsProps.getProperty(StreamsConfig.NUM_STREAM_THREADS_CONFIG, "1"));
+        int min = Integer.parseInt(sysOrEnv("stream.threads.min", "STREAM_THREADS_MIN", String.valueOf(configured)));
+        int max = Integer.parseInt(sysOrEnv("stream.threads.max", "STREAM_THREADS_MAX", String.valueOf(min)));
+        if (max <= min) return null;
+        if (min < 1 || configured < min || configured > max) {
+            throw new IllegalStateException("NUM_STREAM_THREADS (" + configured + ") must be within STREAM_THREADS_MIN ("
+                    + min + ") and STREAM_THREADS_MAX (" + max + "), MIN >= 1");
+        }
+        return new StreamThreadScaler(app, streams, min, max,
+                Long.parseLong(sysOrEnv("stream.threads.up.lag", "STREAM_THREADS_UP_LAG", "50000")),
+                Long.parseLong(sysOrEnv("stream.threads.down.lag", "STREAM_THREADS_DOWN_LAG", "5000")),
+                Integer.parseInt(sysOrEnv("stream.threads.up.samples", "STREAM_THREADS_UP_SAMPLES", "3")),
+                Integer.parseInt(sysOrEnv("stream.threads.down.samples", "STREAM_THREADS_DOWN_SAMPLES", "20")),
+                Double.parseDouble(sysOrEnv("stream.threads.up.drain.s", "STREAM_THREADS_UP_DRAIN_S", "60")),
+                Long.parseLong(sysOrEnv("stream.threads.cooldown.ms", "STREAM_THREADS_COOLDOWN_MS", "120000")),
+                Long.parseLong(sysOrEnv("stream.threads.sample.ms", "STREAM_THREADS_SAMPLE_MS", "15000")));
+    }
+
+    /** Starts sampling; call after {@link KafkaStreams#start()}. */
+    public StreamThreadScaler start() {
+        System.out.println("[" + app + "] stream thread scaling " + min + ".." + max + ": up above lag " + upLag
+                + " x" + upSamples + ", down below " + downLag + " x" + downSamples + ", cooldown " + cooldownMs + " ms");
+        timer.scheduleWithFixedDelay(this::sample, sampleMs, sampleMs, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    private void sample() {
+        try {
+            // Lag and assignments are meaningless mid-rebalance; the next sample decides.
+            if (streams.state() != KafkaStreams.State.RUNNING) return;
+            long lag = 0;
+            double rate = 0;
+            for (Map.Entry<MetricName, ? extends Metric> e : streams.metrics().entrySet()) {
+                MetricName n = e.getKey();
+                if (n.name().equals("records-lag") && n.group().equals("consumer-fetch-manager-metrics")
+                        && n.tags().containsKey("partition") && isMainConsumer(n.tags().get("client-id"))) {
+                    lag += (long) value(e.getValue());
+                } else if (n.name().equals("process-rate") && n.group().equals("stream-thread-metrics")) {
+                    rate += value(e.getValue());
+                }
+            }
+            int threads = streams.metadataForLocalThreads().size();
+            PipelineMetrics.global().streamThreads(app, threads, lag);
+
+            int step = decide(lag, rate, threads, System.currentTimeMillis());
+            if (step > 0) {
+                Optional<String> added = streams.addStreamThread();
+                added.ifPresent(t -> PipelineMetrics.global().recordScaling(app, true));
+                System.out.println("[" + app + "] stream threads " + threads + " -> " + (threads + 1) + ": lag " + lag
+                        + " above " + upLag + ", " + Math.round(rate) + " rec/s" + (added.isPresent() ? "" : " (not added, client not running)"));
+            } else if (step < 0) {
+                Optional<String> removed = streams.removeStreamThread(Duration.ofMillis(Math.max(sampleMs, 30_000)));
+                removed.ifPresent(t -> PipelineMetrics.global().recordScaling(app, false));
+                System.out.println("[" + app + "] stream threads " + threads + " -> " + (threads - 1) + ": lag " + lag
+                        + " below " + downLag + ", " + Math.round(rate) + " rec/s" + (removed.isPresent() ? "" : " (not removed)"));
+            }
+        } catch (RuntimeException e) {
+            System.out.println("[" + app + "] stream thread scaling sample failed: " + e);
+        }
+    }
+
+    /** +1 to add a thread, -1 to remove one, 0 to keep; counts consecutive samples on either side. */
+    int decide(long lag, double processRate, int threads, long nowMs) {
+        above = lag > upLag ? above + 1 : 0;
+        below = lag < downLag ? below + 1 : 0;
+        if (lastChange != Long.MIN_VALUE && nowMs - lastChange < cooldownMs) return 0;
+
+        // No rate yet (threads just started or stalled) counts as "will not drain in time".
+        boolean slowDrain = processRate <= 0 || lag / processRate > upDrainSeconds;
+        int step = 0;
+        if (above >= upSamples && slowDrain && threads < max) step = 1;
+        else if (below >= downSamples && threads > min) step = -1;
+        if (step != 0) {
+            lastChange = nowMs;
+            above = 0;
+            below = 0;
+        }
+        return step;
+    }
+
+    /** The stream threads' main consumers: "<client>-StreamThread-<n>-consumer", not restore or global ones. */
+    private static boolean isMainConsumer(String clientId) {
+        return clientId != null && clientId.endsWith("-consumer")
+                && !clientId.endsWith("-restore-consumer") && !clientId.endsWith("-global-consumer");
+    }
+
+    private static double value(Metric m) {
+        Object v = m.metricValue();
+        return v instanceof Number n && Double.isFinite(n.doubleValue()) ? n.doubleValue() : 0;
+    }
+
+    private static String sysOrEnv(String sysKey, String envKey, String defVal) {
+        String v = System.getProperty(sysKey);
+        if (v != null && !v.isBlank()) return v;
+        v = System.getenv(envKey);
+        return (v != null && !v.isBlank()) ? v : defVal;
+    }
+}
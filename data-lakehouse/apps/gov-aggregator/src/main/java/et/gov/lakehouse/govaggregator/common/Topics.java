@@ -7,5 +7,11 @@ public final class Topics {
     public static final String NBE = System.getProperty("topic.nbe", System.getenv().getOrDefault("TOPIC_NBE","nbe.fx.rates"));
     public static final String MOE = System.getProperty("topic.moe", System.getenv().getOrDefault("TOPIC_MOE","moe.education.stats"));
     public static final String OUT = System.getProperty("topic.out", System.getenv().getOrDefault("TOPIC_OUT","gov.aggregates.enriched"));
+    /** AggregatedRecordV2 (typed payload) output, used when AGGREGATE_PAYLOAD_FORMAT=typed. */
+    public static final String OUT_V2 = System.getProperty("topic.out.v2", System.getenv().getOrDefault("TOPIC_OUT_V2","gov.aggregates.enriched.v2"));
+    /** Gold aggregates (compacted, one entry per window or region); see core/gold/GoldAggregations. */
+    public static final String GOLD_MOR_TAX_DAILY = System.getProperty("topic.gold.mor.tax.daily", System.getenv().getOrDefault("TOPIC_GOLD_MOR_TAX_DAILY","gov.gold.mor.tax.daily"));
+    public static final String GOLD_ECC_COMMODITY_HOURLY = System.getProperty("topic.gold.ecc.commodity.hourly", System.getenv().getOrDefault("TOPIC_GOLD_ECC_COMMODITY_HOURLY","gov.gold.ecc.commodity.hourly"));
+    public static final String GOLD_MOE_REGION = System.getProperty("topic.gold.moe.region", System.getenv().getOrDefault("TOPIC_GOLD_MOE_REGION","gov.gold.moe.region.totals"));
     private Topics() {}
 }
@@ -1,18 +1,33 @@
 package et.gov.lakehouse.govaggregator.core;
 
 import et.gov.lakehouse.govaggregator.avro.*;
+import et.gov.lakehouse.govaggregator.common.DeadLetterQueue;
+import et.gov.lakehouse.govaggregator.common.Deduplicator;
+import et.gov.lakehouse.govaggregator.common.InstrumentedSerde;
+import et.gov.lakehouse.govaggregator.common.MetricsServer;
+import et.gov.lakehouse.govaggregator.common.SchemaRegistryCache;
 import et.gov.lakehouse.govaggregator.common.SerdeFactory;
+import et.gov.lakehouse.govaggregator.common.StreamThreadScaler;
 import et.gov.lakehouse.govaggregator.common.Topics;
+import et.gov.lakehouse.govaggregator.core.gold.EventTimeExtractor;
+import et.gov.lakehouse.govaggregator.core.gold.GoldAggregations;
 import et.gov.lakehouse.govaggregator.source.mor.MorTask;
 import et.gov.lakehouse.govaggregator.source.ecc.EccTask;
 import et.gov.lakehouse.govaggregator.source.motri.MotriTask;
+import et.gov.lakehouse.govaggregator.source.nbe.FxRateFeed;
+import et.gov.lakehouse.govaggregator.source.nbe.FxRateTable;
 import et.gov.lakehouse.govaggregator.source.nbe.NbeTask;
 import et.gov.lakehouse.govaggregator.source.moe.MoeTask;
 
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.streams.*;
 import org.apache.kafka.streams.kstream.*;
+import org.apache.kafka.streams.processor.TimestampExtractor;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.CountDownLatch;
 
@@ -38,6 +53,11 @@ public final class App {
                 sysOrEnv("cache.max.bytes.buffering", "CACHE_MAX_BYTES_BUFFERING", "10485760"));
         p.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG,
                 sysOrEnv("commit.interval.ms", "COMMIT_INTERVAL_MS", "5000"));
+        // Starting thread count; StreamThreadScaler moves it within STREAM_THREADS_MIN..MAX.
+        p.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG,
+                sysOrEnv("num.stream.threads", "NUM_STREAM_THREADS", "1"));
+        // Poison records -> dlq.<topic> instead of a stopped application (common/DeadLetterQueue).
+        DeadLetterQueue.configureStreams(p);
 
         // ---- Apicurio wiring (override via -D or env) ----
         final String registryUrl = sysOrEnv(
@@ -45,53 +65,144 @@ public final class App {
         final String artifactGroupId = sysOrEnv(
                 "apicurio.group.id", "APICURIO_GROUP_ID", "gov-aggregator");
 
-        StreamsBuilder b = new StreamsBuilder();
-
-        // ---- SerDes ----
-        Serde<String> stringSerde = SerdeFactory.stringSerde();
-
-        Serde<AggregatedRecord> outSerde       = SerdeFactory.avroSerde(AggregatedRecord.class, registryUrl, artifactGroupId);
-        Serde<MorTaxPayment> morSerde          = SerdeFactory.avroSerde(MorTaxPayment.class, registryUrl, artifactGroupId);
-        Serde<EccTradePermit> eccSerde         = SerdeFactory.avroSerde(EccTradePermit.class, registryUrl, artifactGroupId);
-        Serde<MotriTransportPermit> motriSerde = SerdeFactory.avroSerde(MotriTransportPermit.class, registryUrl, artifactGroupId);
-        Serde<NbeFxRate> nbeSerde              = SerdeFactory.avroSerde(NbeFxRate.class, registryUrl, artifactGroupId);
-        Serde<MoeEducationStat> moeSerde       = SerdeFactory.avroSerde(MoeEducationStat.class, registryUrl, artifactGroupId);
-
-        // ---- Sources ----
-        KStream<String, MorTaxPayment> mor   = b.stream(Topics.MOR,   Consumed.with(stringSerde, morSerde));
-        KStream<String, EccTradePermit> ecc  = b.stream(Topics.ECC,   Consumed.with(stringSerde, eccSerde));
-        KStream<String, MotriTransportPermit> motri = b.stream(Topics.MOTRI, Consumed.with(stringSerde, motriSerde));
-        KStream<String, NbeFxRate> nbe      = b.stream(Topics.NBE,    Consumed.with(stringSerde, nbeSerde));
-        KStream<String, MoeEducationStat> moe = b.stream(Topics.MOE,  Consumed.with(stringSerde, moeSerde));
-
-        // ---- Per-source transforms ----
-        KStream<String, AggregatedRecord> morAgg    = MorTask.build(mor);
-        KStream<String, AggregatedRecord> eccAgg    = EccTask.build(ecc);
-        KStream<String, AggregatedRecord> motriAgg  = MotriTask.build(motri);
-        KStream<String, AggregatedRecord> nbeAgg    = NbeTask.build(nbe);
-        KStream<String, AggregatedRecord> moeAgg    = MoeTask.build(moe);
-
-        // ---- Union + sink ----
-        KStream<String, AggregatedRecord> unified =
-                morAgg.merge(eccAgg).merge(motriAgg).merge(nbeAgg).merge(moeAgg);
-
-        unified.to(Topics.OUT, Produced.with(stringSerde, outSerde));
+        // "json": AggregatedRecord with a JSON payload string on TOPIC_OUT;
+        // "typed": AggregatedRecordV2 with a per-source payload union on TOPIC_OUT_V2.
+        final String payloadFormat = sysOrEnv(
+                "aggregate.payload.format", "AGGREGATE_PAYLOAD_FORMAT", "json").trim().toLowerCase();
+        if (!payloadFormat.equals("json") && !payloadFormat.equals("typed")) {
+            throw new IllegalStateException("AGGREGATE_PAYLOAD_FORMAT must be json or typed, got: " + payloadFormat);
+        }
+        final boolean typedPayload = payloadFormat.equals("typed");
+        final String outTopic = typedPayload ? Topics.OUT_V2 : Topics.OUT;
+
+        // Gold aggregates (GOLD_AGGREGATES, default on): null when disabled.
+        final GoldAggregations gold = GoldAggregations.fromEnv(registryUrl, artifactGroupId);
+
+        // Replay suppression per source (DEDUP_ENABLED, default off): null when disabled.
+        final Deduplicator dedup = Deduplicator.fromEnv("gov-aggregator", p);
+
+        List<String> warmUpTopics = new ArrayList<>(List.of(Topics.MOR, Topics.ECC, Topics.MOTRI, Topics.NBE, Topics.MOE, outTopic));
+        if (gold != null) warmUpTopics.addAll(GoldAggregations.topics());
+        SchemaRegistryCache.forUrl(registryUrl).warmUp(artifactGroupId, warmUpTopics);
+
+        // ---- NBE rate table (MoR / ECC amounts in ETB); stays empty with FX_ENRICHMENT=false ----
+        final FxRateTable fx = new FxRateTable();
+        final FxRateFeed fxFeed = Boolean.parseBoolean(sysOrEnv("fx.enrichment", "FX_ENRICHMENT", "true"))
+                ? new FxRateFeed(p, Topics.NBE,
+                        InstrumentedSerde.wrap(SerdeFactory.avroSerde(NbeFxRate.class, registryUrl, artifactGroupId)).deserializer(), fx)
+                : null;
+
+        if (gold != null) {
+            GoldAggregations.ensureCompactedTopics(p.getProperty(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG));
+        }
 
         // ---- Bootstrap Streams ----
-        Topology topology = b.build();
-        KafkaStreams streams = new KafkaStreams(topology, p);
+        Topology topology = buildTopology(registryUrl, artifactGroupId, typedPayload, fx, gold, dedup);
+        KafkaStreams streams = new KafkaStreams(topology, p, DeadLetterQueue.clientSupplier());
+
+                // Lag-driven thread count (STREAM_THREADS_MAX above MIN), null otherwise.
+                final StreamThreadScaler scaler = StreamThreadScaler.fromEnv("gov-aggregator", streams, p);
 
                 CountDownLatch latch = new CountDownLatch(1);
                 Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        if (scaler != null) scaler.close();
                         streams.close();
+                        if (fxFeed != null) fxFeed.close();
                         latch.countDown();
                 }));
 
+                // Like a GlobalKTable: load the current rates before the first MoR / ECC record.
+                if (fxFeed != null && !fxFeed.start().awaitLoaded(
+                        Long.parseLong(sysOrEnv("fx.load.timeout.ms", "FX_LOAD_TIMEOUT_MS", "30000")))) {
+                        System.out.println("[gov-aggregator] NBE rates not loaded yet; amounts stay null until they are");
+                }
+
+                MetricsServer.startIfConfigured("gov-aggregator", streams);
                 streams.start();
+                if (scaler != null) scaler.start();
                 try {
                         latch.await();
                 } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
                 }
     }
+
+    /**
+     * Five ministry sources -> per-source mapping -> one union on TOPIC_OUT (json) or TOPIC_OUT_V2 (typed),
+     * plus the gold aggregates when {@code gold} is set. With {@code dedup}, each source first drops
+     * events whose (id, event time) it has already seen. The caller owns config, registry warm-up and
+     * the NBE feed behind {@code fx}; the topology benchmark builds the same graph.
+     */
+    public static Topology buildTopology(String registryUrl, String artifactGroupId, boolean typedPayload,
+                                         FxRateTable fx, GoldAggregations gold, Deduplicator dedup) {
+        final String outTopic = typedPayload ? Topics.OUT_V2 : Topics.OUT;
+        StreamsBuilder b = new StreamsBuilder();
+
+        // ---- SerDes ----
+        Serde<String> stringSerde = SerdeFactory.stringSerde();
+
+        Serde<MorTaxPayment> morSerde          = InstrumentedSerde.wrap(SerdeFactory.avroSerde(MorTaxPayment.class, registryUrl, artifactGroupId));
+        Serde<EccTradePermit> eccSerde         = InstrumentedSerde.wrap(SerdeFactory.avroSerde(EccTradePermit.class, registryUrl, artifactGroupId));
+        Serde<MotriTransportPermit> motriSerde = InstrumentedSerde.wrap(SerdeFactory.avroSerde(MotriTransportPermit.class, registryUrl, artifactGroupId));
+        Serde<NbeFxRate> nbeSerde              = InstrumentedSerde.wrap(SerdeFactory.avroSerde(NbeFxRate.class, registryUrl, artifactGroupId));
+        Serde<MoeEducationStat> moeSerde       = InstrumentedSerde.wrap(SerdeFactory.avroSerde(MoeEducationStat.class, registryUrl, artifactGroupId));
+
+        // ---- Sources ----
+        // The aggregated sources are windowed by event time; null keeps the default (record timestamp).
+        TimestampExtractor eventTime = gold != null ? new EventTimeExtractor() : null;
+        KStream<String, MorTaxPayment> mor   = b.stream(Topics.MOR,   Consumed.with(stringSerde, morSerde).withTimestampExtractor(eventTime));
+        KStream<String, EccTradePermit> ecc  = b.stream(Topics.ECC,   Consumed.with(stringSerde, eccSerde).withTimestampExtractor(eventTime));
+        KStream<String, MotriTransportPermit> motri = b.stream(Topics.MOTRI, Consumed.with(stringSerde, motriSerde));
+        KStream<String, NbeFxRate> nbe      = b.stream(Topics.NBE,    Consumed.with(stringSerde, nbeSerde));
+        KStream<String, MoeEducationStat> moe = b.stream(Topics.MOE,  Consumed.with(stringSerde, moeSerde).withTimestampExtractor(eventTime));
+
+        // ---- Replay suppression (before the union and gold, so both see each event once) ----
+        if (dedup != null) {
+            mor   = dedup.apply(b, mor,   "mor-dedup",   "mor",   (t, k, v) -> eventId(v.getPaymentId(), v.getPaidAt()));
+            ecc   = dedup.apply(b, ecc,   "ecc-dedup",   "ecc",   (t, k, v) -> eventId(v.getPermitId(), v.getIssuedAt()));
+            motri = dedup.apply(b, motri, "motri-dedup", "motri", (t, k, v) -> eventId(v.getPermitNo(), v.getValidUntil()));
+            nbe   = dedup.apply(b, nbe,   "nbe-dedup",   "nbe",   (t, k, v) -> eventId(v.getPair(), v.getAsOf()));
+            moe   = dedup.apply(b, moe,   "moe-dedup",   "moe",   (t, k, v) -> eventId(v.getSchoolId(), v.getReportedAt()));
+        }
+
+        // ---- Per-source transforms + union + sink ----
+        if (typedPayload) {
+            Serde<AggregatedRecordV2> outSerde = InstrumentedSerde.wrap(SerdeFactory.avroSerde(AggregatedRecordV2.class, registryUrl, artifactGroupId));
+
+            KStream<String, AggregatedRecordV2> unified = MorTask.buildTyped(mor, fx)
+                    .merge(EccTask.buildTyped(ecc, fx))
+                    .merge(MotriTask.buildTyped(motri))
+                    .merge(NbeTask.buildTyped(nbe))
+                    .merge(MoeTask.buildTyped(moe));
+
+            unified.peek((k, v) -> DeadLetterQueue.throwIfAsyncFailed()).to(outTopic, Produced.with(stringSerde, outSerde));
+        } else {
+            Serde<AggregatedRecord> outSerde = InstrumentedSerde.wrap(SerdeFactory.avroSerde(AggregatedRecord.class, registryUrl, artifactGroupId));
+
+            KStream<String, AggregatedRecord> morAgg    = MorTask.build(mor, fx);
+            KStream<String, AggregatedRecord> eccAgg    = EccTask.build(ecc, fx);
+            KStream<String, AggregatedRecord> motriAgg  = MotriTask.build(motri);
+            KStream<String, AggregatedRecord> nbeAgg    = NbeTask.build(nbe);
+            KStream<String, AggregatedRecord> moeAgg    = MoeTask.build(moe);
+
+            KStream<String, AggregatedRecord> unified =
+                    morAgg.merge(eccAgg).merge(motriAgg).merge(nbeAgg).merge(moeAgg);
+
+            unified.peek((k, v) -> DeadLetterQueue.throwIfAsyncFailed()).to(outTopic, Produced.with(stringSerde, outSerde));
+        }
+
+        // ---- Gold aggregates ----
+        if (gold != null) {
+            gold.morTaxDaily(mor, morSerde);
+            gold.eccCommodityHourly(ecc, eccSerde);
+            gold.moeRegionTotals(moe, moeSerde);
+        }
+
+        return b.build();
+    }
+
+    /** Source event id: the record's own id plus its event time (a re-issue at a new time is a new event). */
+    private static byte[] eventId(CharSequence id, Instant at) {
+        return (id + "\u0000" + (at != null ? at.toEpochMilli() : "")).getBytes(StandardCharsets.UTF_8);
+    }
 }
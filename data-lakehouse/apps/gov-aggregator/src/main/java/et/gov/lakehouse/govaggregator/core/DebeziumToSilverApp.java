@@ -1,11 +1,21 @@
 package et.gov.lakehouse.govaggregator.core;
 
+import et.gov.lakehouse.govaggregator.common.DeadLetterQueue;
+import et.gov.lakehouse.govaggregator.common.MetricsServer;
+import et.gov.lakehouse.govaggregator.common.SchemaRegistryCache;
+import et.gov.lakehouse.govaggregator.common.StreamThreadScaler;
 import et.gov.lakehouse.govaggregator.core.bronze.BronzeToSilverContext;
-import et.gov.lakehouse.govaggregator.core.bronze.BronzeToSilverPipeline;
 import et.gov.lakehouse.govaggregator.core.bronze.BronzeToSilverTask;
 import et.gov.lakehouse.govaggregator.core.bronze.EswBronzeToSilverTask;
+import et.gov.lakehouse.govaggregator.core.bronze.IcebergSilverRunner;
+import et.gov.lakehouse.govaggregator.core.bronze.KeyOrderedSilverRunner;
+import et.gov.lakehouse.govaggregator.core.bronze.ManifestBronzeToSilverTask;
+import et.gov.lakehouse.govaggregator.core.bronze.SilverLookup;
+import et.gov.lakehouse.govaggregator.core.bronze.SilverRoute;
+import et.gov.lakehouse.govaggregator.core.bronze.TransactionBatchingSilverRunner;
 import org.apache.kafka.streams.KafkaStreams;
 import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
 import org.apache.kafka.streams.Topology;
 import org.apache.kafka.streams.errors.StreamsUncaughtExceptionHandler;
 import java.util.ArrayList;
@@ -25,26 +35,69 @@ public final class DebeziumToSilverApp {
         }
     }
 
+    /** SILVER_RUNTIME=parallel: key-ordered worker lanes on a plain consumer/producer. */
+    private static void runParallel(BronzeToSilverContext ctx) {
+        KeyOrderedSilverRunner runner = new KeyOrderedSilverRunner(ctx);
+        Runtime.getRuntime().addShutdownHook(new Thread(runner::close));
+        MetricsServer.startIfConfigured("debezium-to-silver");
+        try {
+            runner.run();
+        } catch (RuntimeException e) {
+            System.err.println("[debezium-to-silver] Uncaught exception");
+            e.printStackTrace(System.err);
+            System.exit(1);
+        }
+    }
+
+    /** SILVER_RUNTIME=transaction: silver records held per source transaction and sent as one run. */
+    private static void runTransactions(BronzeToSilverContext ctx) {
+        TransactionBatchingSilverRunner runner = new TransactionBatchingSilverRunner(ctx);
+        Runtime.getRuntime().addShutdownHook(new Thread(runner::close));
+        MetricsServer.startIfConfigured("debezium-to-silver");
+        try {
+            runner.run();
+        } catch (RuntimeException e) {
+            System.err.println("[debezium-to-silver] Uncaught exception");
+            e.printStackTrace(System.err);
+            System.exit(1);
+        }
+    }
+
+    /** SILVER_SINK=iceberg: bronze -> Iceberg tables directly, offsets committed after each table commit. */
+    private static void runIceberg(BronzeToSilverContext ctx) {
+        IcebergSilverRunner runner = new IcebergSilverRunner(ctx);
+        Runtime.getRuntime().addShutdownHook(new Thread(runner::close));
+        MetricsServer.startIfConfigured("debezium-to-silver");
+        try {
+            runner.run();
+        } catch (RuntimeException e) {
+            System.err.println("[debezium-to-silver] Uncaught exception");
+            e.printStackTrace(System.err);
+            System.exit(1);
+        }
+    }
+
     public static void main(String[] args) {
         BronzeToSilverContext ctx = BronzeToSilverContext.fromEnv();
         StreamsBuilder b = new StreamsBuilder();
 
         List<BronzeToSilverTask> tasks = new ArrayList<>();
-        tasks.add(new EswBronzeToSilverTask());
+        EswBronzeToSilverTask esw = new EswBronzeToSilverTask();
+        if (esw.coversManifest(ctx)) {
+            tasks.add(esw);
+        } else {
+            tasks.add(new ManifestBronzeToSilverTask());
+        }
 
         if (!ctx.approved) {
             System.out.println("[debezium-to-silver] SILVER_APPROVED is false; refusing to emit silver topics.");
             System.out.println("[debezium-to-silver] Proposed outputs:");
-            for (String inputTopic : ctx.bronzeTopics) {
-                String sourceTable = BronzeToSilverPipeline.deriveSourceTableFromTopic(inputTopic, ctx.silverStripPrefix);
-                String outputTopic = BronzeToSilverPipeline.silverTopicFor(
-                        inputTopic,
-                        ctx.silverTopicPrefix,
-                        ctx.silverStripPrefix,
-                        ctx.silverNameStyle
-                );
-                String icebergTable = BronzeToSilverPipeline.icebergTableFor(ctx.icebergNamespace, sourceTable);
-                System.out.println("  - " + inputTopic + " -> " + outputTopic + " (iceberg table: " + icebergTable + ")");
+            for (SilverRoute route : ctx.manifest.routes()) {
+                System.out.println("  - " + route);
+            }
+            if (ctx.manifest.topicPattern() != null) {
+                System.out.println("  - topics matching " + ctx.manifest.topicPattern().pattern()
+                        + " are routed by the default naming rules");
             }
             System.out.println("[debezium-to-silver] Set SILVER_APPROVED=true after you approve the schema/columns.");
             // Keep container alive (compose restart policy is usually unless-stopped).
@@ -52,13 +105,43 @@ public final class DebeziumToSilverApp {
             return;
         }
 
+        SchemaRegistryCache.forUrl(ctx.registryUrl).warmUp(ctx.bronzeGroupId, ctx.bronzeTopics);
+
+        // Point lookups read the Streams stores (SILVER_LOOKUP_PORT); the other runtimes keep none.
+        SilverLookup lookup = SilverLookup.fromEnv(ctx, tasks.get(0).source());
+        if (lookup != null && (ctx.icebergSink != null || ctx.parallelRuntime || ctx.transactionRuntime)) {
+            System.out.println("[debezium-to-silver] SILVER_LOOKUP_PORT needs the Streams runtime; lookups are off");
+        }
+        if (ctx.dedup != null && (ctx.icebergSink != null || ctx.parallelRuntime || ctx.transactionRuntime)) {
+            System.out.println("[debezium-to-silver] DEDUP_ENABLED needs the Streams runtime with the Kafka sink; dedup is off");
+        }
+
+        if (ctx.icebergSink != null) {
+            runIceberg(ctx);
+            return;
+        }
+        if (ctx.parallelRuntime) {
+            runParallel(ctx);
+            return;
+        }
+        if (ctx.transactionRuntime) {
+            runTransactions(ctx);
+            return;
+        }
+
+        if (tasks.contains(esw)) {
+            esw.ensureDocumentTopics(ctx);
+        }
         for (BronzeToSilverTask task : tasks) {
             System.out.println("[debezium-to-silver] configuring source task: " + task.source());
             task.configure(b, ctx);
         }
 
+        if (lookup != null) {
+            ctx.streamsProps.put(StreamsConfig.APPLICATION_SERVER_CONFIG, lookup.endpoint());
+        }
         Topology topology = b.build();
-        KafkaStreams streams = new KafkaStreams(topology, ctx.streamsProps);
+        KafkaStreams streams = new KafkaStreams(topology, ctx.streamsProps, DeadLetterQueue.clientSupplier());
 
         streams.setStateListener((newState, oldState) ->
                 System.out.println("[debezium-to-silver] state " + oldState + " -> " + newState));
@@ -68,13 +151,21 @@ public final class DebeziumToSilverApp {
             return StreamsUncaughtExceptionHandler.StreamThreadExceptionResponse.SHUTDOWN_APPLICATION;
         });
 
+        // Lag-driven thread count (STREAM_THREADS_MAX above MIN), null otherwise.
+        StreamThreadScaler scaler = StreamThreadScaler.fromEnv("debezium-to-silver", streams, ctx.streamsProps);
+
         CountDownLatch latch = new CountDownLatch(1);
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (scaler != null) scaler.close();
+            if (lookup != null) lookup.close();
             streams.close();
             latch.countDown();
         }));
 
+        MetricsServer.startIfConfigured("debezium-to-silver", streams);
         streams.start();
+        if (scaler != null) scaler.start();
+        if (lookup != null) lookup.start(streams);
         try {
             latch.await();
         } catch (InterruptedException e) {
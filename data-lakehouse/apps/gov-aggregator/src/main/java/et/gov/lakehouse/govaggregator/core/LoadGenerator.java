@@ -0,0 +1,370 @@
+package et.gov.lakehouse.govaggregator.core;
+
+import et.gov.lakehouse.govaggregator.avro.EccTradePermit;
+import et.gov.lakehouse.govaggregator.avro.MoeEducationStat;
+import et.gov.lakehouse.govaggregator.avro.MorTaxPayment;
+import et.gov.lakehouse.govaggregator.avro.MotriTransportPermit;
+import et.gov.lakehouse.govaggregator.avro.NbeFxRate;
+import et.gov.lakehouse.govaggregator.common.SerdeFactory;
+import et.gov.lakehouse.govaggregator.common.Topics;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.avro.specific.SpecificRecord;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator / soak test for {@link App}: produces the five ministry topics at a fixed rate
+ * through {@link SerdeFactory} and reads the output topic back to report achieved throughput and
+ * end-to-end latency percentiles. Run it next to the app against a local broker:
+ *
+ *   java -cp gov-aggregator.jar et.gov.lakehouse.govaggregator.core.LoadGenerator
+ *
+ * Records are stamped (record timestamp and event time) with the time they were scheduled to be
+ * sent, not the time they were, so a generator that falls behind shows up in the latency instead
+ * of hiding it. Latency is output poll time minus that stamp; the app keeps the input timestamp on
+ * the output record. Output records stamped before the run started are ignored.
+ */
+public final class LoadGenerator {
+
+    private static final String[] SOURCES = {"mor", "ecc", "motri", "nbe", "moe"};
+    private static final String[] CURRENCIES = {"ETB", "ETB", "ETB", "USD", "EUR"};
+    private static final String[] COMMODITIES = {"Coffee", "Sesame", "Flowers", "Khat", "Gold", "Leather"};
+    private static final String[] REGIONS = {"Addis Ababa", "Oromia", "Amhara", "Tigray", "Sidama", "Somali"};
+    private static final String[] PAIRS = {"USD/ETB", "EUR/ETB", "GBP/ETB", "CNY/ETB"};
+    private static final double[] PAIR_RATES = {57.1, 61.9, 72.4, 7.9};
+
+    private static String sysOrEnv(String sysKey, String envKey, String defVal) {
+        String v = System.getProperty(sysKey);
+        if (v != null && !v.isBlank()) return v;
+        v = System.getenv(envKey);
+        return (v != null && !v.isBlank()) ? v : defVal;
+    }
+
+    private final String bootstrap;
+    private final double rate;
+    private final int[] weights = new int[SOURCES.length];
+    private final KeySampler keys;
+    private final long durationMs;
+    private final long reportMs;
+    private final long drainMs;
+    private final String outTopic;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong sendErrors = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private volatile long startMs;
+    private volatile boolean producing = true;
+    private volatile boolean consuming = true;
+
+    private LoadGenerator() {
+        this.bootstrap = sysOrEnv("bootstrap.servers", "BOOTSTRAP_SERVERS", "localhost:9092");
+        this.rate = Double.parseDouble(sysOrEnv("loadgen.rate", "LOADGEN_RATE", "1000"));
+        if (!(rate > 0)) throw new IllegalStateException("LOADGEN_RATE must be > 0, got: " + rate);
+        parseMix(sysOrEnv("loadgen.mix", "LOADGEN_MIX", "mor=40,ecc=20,motri=15,nbe=5,moe=20"));
+        this.keys = new KeySampler(
+                Integer.parseInt(sysOrEnv("loadgen.keys", "LOADGEN_KEYS", "10000")),
+                Double.parseDouble(sysOrEnv("loadgen.skew", "LOADGEN_SKEW", "0")));
+        this.durationMs = Long.parseLong(sysOrEnv("loadgen.duration.s", "LOADGEN_DURATION_S", "0")) * 1000;
+        this.reportMs = Long.parseLong(sysOrEnv("loadgen.report.s", "LOADGEN_REPORT_S", "10")) * 1000;
+        this.drainMs = Long.parseLong(sysOrEnv("loadgen.drain.s", "LOADGEN_DRAIN_S", "30")) * 1000;
+        boolean typed = sysOrEnv("aggregate.payload.format", "AGGREGATE_PAYLOAD_FORMAT", "json").trim().equalsIgnoreCase("typed");
+        this.outTopic = typed ? Topics.OUT_V2 : Topics.OUT;
+    }
+
+    /** "kind=weight,..." over mor, ecc, motri, nbe, moe; kinds left out are not produced. */
+    private void parseMix(String mix) {
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split("=");
+            int i = Arrays.asList(SOURCES).indexOf(kv[0].trim());
+            if (kv.length != 2 || i < 0) {
+                throw new IllegalStateException("LOADGEN_MIX entries are <mor|ecc|motri|nbe|moe>=<weight>, got: " + part);
+            }
+            weights[i] = Integer.parseInt(kv[1].trim());
+        }
+        if (Arrays.stream(weights).sum() <= 0) throw new IllegalStateException("LOADGEN_MIX has no positive weight: " + mix);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadGenerator gen = new LoadGenerator();
+        String registryUrl = sysOrEnv("apicurio.url", "APICURIO_URL", "http://localhost:8080/apis/registry/v2");
+        String groupId = sysOrEnv("apicurio.group.id", "APICURIO_GROUP_ID", "gov-aggregator");
+
+        Properties pp = new Properties();
+        pp.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, gen.bootstrap);
+        pp.put(ProducerConfig.CLIENT_ID_CONFIG, "gov-aggregator-loadgen");
+        pp.put(ProducerConfig.ACKS_CONFIG, sysOrEnv("loadgen.acks", "LOADGEN_ACKS", "all"));
+        pp.put(ProducerConfig.LINGER_MS_CONFIG, sysOrEnv("loadgen.linger.ms", "LOADGEN_LINGER_MS", "5"));
+        @SuppressWarnings("unchecked")
+        Serializer<SpecificRecord> values = SerdeFactory.avroValueSerializer(registryUrl, groupId);
+        KafkaProducer<String, SpecificRecord> producer = new KafkaProducer<>(pp, new StringSerializer(), values);
+
+        Properties cp = new Properties();
+        cp.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, gen.bootstrap);
+        cp.put(ConsumerConfig.CLIENT_ID_CONFIG, "gov-aggregator-loadgen-out");
+        cp.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        // Latency needs the timestamp only; the values are never decoded.
+        KafkaConsumer<byte[], byte[]> consumer = new KafkaConsumer<>(cp, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+
+        CountDownLatch done = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            gen.producing = false;
+            gen.consuming = false;
+            consumer.wakeup();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        Thread reader = new Thread(() -> gen.consume(consumer, done), "loadgen-consumer");
+        gen.seekToEnd(consumer);
+        System.out.println("[loadgen] " + gen.rate + " records/s to " + String.join(", ", Topics.MOR, Topics.ECC, Topics.MOTRI, Topics.NBE, Topics.MOE)
+                + " (mix " + Arrays.toString(gen.weights) + ", " + gen.keys + "), reading " + gen.outTopic
+                + (gen.durationMs > 0 ? ", for " + gen.durationMs / 1000 + "s" : ", until stopped"));
+        gen.startMs = System.currentTimeMillis();
+        reader.start();
+        try {
+            gen.produce(producer);
+        } finally {
+            producer.close(Duration.ofSeconds(10));
+        }
+        gen.drain();
+        consumer.wakeup();
+        done.await();
+    }
+
+    /** Schedule-driven send loop: record n is due at start + n / rate. */
+    private void produce(KafkaProducer<String, SpecificRecord> producer) {
+        SplittableRandom rnd = new SplittableRandom(42);
+        long startNanos = System.nanoTime();
+        double nanosPerRecord = 1e9 / rate;
+        int[] current = new int[SOURCES.length];
+        int total = Arrays.stream(weights).sum();
+        for (long n = 0; producing; n++) {
+            long dueNanos = (long) (n * nanosPerRecord);
+            if (durationMs > 0 && dueNanos / 1_000_000 >= durationMs) break;
+            long wait = dueNanos - (System.nanoTime() - startNanos);
+            if (wait > 0) LockSupport.parkNanos(wait);
+            long stamp = startMs + dueNanos / 1_000_000;
+
+            // Smooth weighted round-robin: the configured mix at every scale, no bursts of one source.
+            int pick = 0;
+            for (int i = 0; i < current.length; i++) {
+                current[i] += weights[i];
+                if (current[i] > current[pick]) pick = i;
+            }
+            current[pick] -= total;
+
+            int k = keys.next(rnd);
+            producer.send(record(SOURCES[pick], k, n, stamp, rnd), (md, e) -> {
+                if (e != null && sendErrors.getAndIncrement() == 0) {
+                    System.out.println("[loadgen] send failed (further failures counted only): " + e);
+                }
+            });
+            sent.incrementAndGet();
+        }
+    }
+
+    private ProducerRecord<String, SpecificRecord> record(String source, int k, long n, long stamp, SplittableRandom rnd) {
+        Instant at = Instant.ofEpochMilli(stamp);
+        return switch (source) {
+            case "mor" -> {
+                String tin = String.format("%010d", k);
+                yield new ProducerRecord<>(Topics.MOR, null, stamp, tin, new MorTaxPayment(
+                        "PAY-" + n, tin, Math.round(rnd.nextDouble(50, 500_000) * 100) / 100.0, CURRENCIES[k % CURRENCIES.length], at));
+            }
+            case "ecc" -> {
+                String company = "Exporter " + k + " PLC";
+                yield new ProducerRecord<>(Topics.ECC, null, stamp, company, new EccTradePermit(
+                        "ECC-" + n, company, COMMODITIES[k % COMMODITIES.length], Math.round(rnd.nextDouble(1_000, 2_000_000) * 100) / 100.0, at));
+            }
+            case "motri" -> {
+                String plate = "3-A" + (10_000 + k);
+                yield new ProducerRecord<>(Topics.MOTRI, null, stamp, plate, new MotriTransportPermit(
+                        "TP-" + n, plate, "Addis Ababa - Djibouti", at.plus(Duration.ofDays(30))));
+            }
+            case "nbe" -> {
+                int p = k % PAIRS.length;
+                yield new ProducerRecord<>(Topics.NBE, null, stamp, PAIRS[p], new NbeFxRate(
+                        at, PAIRS[p], PAIR_RATES[p] * (1 + rnd.nextDouble(-0.005, 0.005))));
+            }
+            default -> {
+                String school = "SCH-" + k;
+                yield new ProducerRecord<>(Topics.MOE, null, stamp, school, new MoeEducationStat(
+                        school, REGIONS[k % REGIONS.length], 200 + rnd.nextInt(2_000), 5 + rnd.nextInt(80), at));
+            }
+        };
+    }
+
+    /** Like FxRateFeed: all partitions assigned, no group, starting at the current end. */
+    private void seekToEnd(KafkaConsumer<byte[], byte[]> consumer) {
+        List<TopicPartition> partitions = new ArrayList<>();
+        for (PartitionInfo pi : consumer.partitionsFor(outTopic)) {
+            partitions.add(new TopicPartition(pi.topic(), pi.partition()));
+        }
+        consumer.assign(partitions);
+        consumer.seekToEnd(partitions);
+        partitions.forEach(consumer::position);
+    }
+
+    private void consume(KafkaConsumer<byte[], byte[]> consumer, CountDownLatch done) {
+        LatencyHistogram interval = new LatencyHistogram();
+        LatencyHistogram total = new LatencyHistogram();
+        long lastReport = System.currentTimeMillis();
+        long lastSent = 0;
+        long lastReceived = 0;
+        try {
+            while (consuming) {
+                for (ConsumerRecord<byte[], byte[]> rec : consumer.poll(Duration.ofMillis(200))) {
+                    if (rec.timestamp() < startMs) continue;
+                    long latency = System.currentTimeMillis() - rec.timestamp();
+                    interval.record(latency);
+                    total.record(latency);
+                    received.incrementAndGet();
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastReport >= reportMs) {
+                    long s = sent.get();
+                    long r = received.get();
+                    report("+" + (now - startMs) / 1000 + "s", s - lastSent, r - lastReceived, now - lastReport, interval);
+                    interval.reset();
+                    lastReport = now;
+                    lastSent = s;
+                    lastReceived = r;
+                }
+            }
+        } catch (WakeupException e) {
+            // drain() or shutdown
+        } finally {
+            consumer.close(Duration.ofSeconds(5));
+            report("total", sent.get(), received.get(), System.currentTimeMillis() - startMs, total);
+            done.countDown();
+        }
+    }
+
+    /** After the last send: wait until every record came out, or LOADGEN_DRAIN_S. */
+    private void drain() throws InterruptedException {
+        long until = System.currentTimeMillis() + drainMs;
+        while (consuming && received.get() < sent.get() && System.currentTimeMillis() < until) {
+            Thread.sleep(100);
+        }
+        consuming = false;
+    }
+
+    private void report(String label, long sentCount, long receivedCount, long elapsedMs, LatencyHistogram h) {
+        double secs = Math.max(elapsedMs, 1) / 1000.0;
+        System.out.printf("[loadgen] %s: sent %d (%.0f/s, target %.0f/s), received %d (%.0f/s), send errors %d, e2e ms p50=%d p90=%d p99=%d p99.9=%d max=%d%n",
+                label, sentCount, sentCount / secs, rate, receivedCount, receivedCount / secs, sendErrors.get(),
+                h.percentile(0.50), h.percentile(0.90), h.percentile(0.99), h.percentile(0.999), h.max());
+    }
+
+    /**
+     * Entity ids 0..n-1 (TIN, company, plate, school; NBE pairs modulo the pair count). skew 0 is
+     * uniform, otherwise Zipf with that exponent (1 is the classic hot-key shape): id 0 is the hottest.
+     */
+    private static final class KeySampler {
+        private final int n;
+        private final double skew;
+        private final double[] cdf;
+
+        KeySampler(int n, double skew) {
+            if (n <= 0) throw new IllegalStateException("LOADGEN_KEYS must be > 0, got: " + n);
+            this.n = n;
+            this.skew = skew;
+            if (skew > 0) {
+                cdf = new double[n];
+                double sum = 0;
+                for (int i = 0; i < n; i++) {
+                    sum += 1.0 / Math.pow(i + 1, skew);
+                    cdf[i] = sum;
+                }
+                for (int i = 0; i < n; i++) cdf[i] /= sum;
+            } else {
+                cdf = null;
+            }
+        }
+
+        int next(SplittableRandom rnd) {
+            if (cdf == null) return rnd.nextInt(n);
+            int i = Arrays.binarySearch(cdf, rnd.nextDouble());
+            return Math.min(i >= 0 ? i : -i - 1, n - 1);
+        }
+
+        @Override
+        public String toString() {
+            return n + " keys, " + (cdf == null ? "uniform" : "zipf " + skew);
+        }
+    }
+
+    /**
+     * Millisecond latencies: exact below 1024 ms, then 512 sub-buckets per power of two (under 0.2%
+     * error), so hours of soak fit in a few thousand counters.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB = 512;
+        private final long[] counts = new long[1024 + 54 * SUB];
+        private long count;
+        private long max;
+
+        void record(long ms) {
+            ms = Math.max(ms, 0);
+            counts[index(ms)]++;
+            count++;
+            if (ms > max) max = ms;
+        }
+
+        long percentile(double q) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(lowerBound(i), max);
+            }
+            return max;
+        }
+
+        long max() {
+            return max;
+        }
+
+        void reset() {
+            Arrays.fill(counts, 0);
+            count = 0;
+            max = 0;
+        }
+
+        static int index(long ms) {
+            if (ms < 1024) return (int) ms;
+            int shift = 63 - Long.numberOfLeadingZeros(ms) - 9;
+            return 1024 + (shift - 1) * SUB + (int) ((ms >> shift) - SUB);
+        }
+
+        static long lowerBound(int index) {
+            if (index < 1024) return index;
+            int shift = (index - 1024) / SUB + 1;
+            return ((long) ((index - 1024) % SUB) + SUB) << shift;
+        }
+    }
+}
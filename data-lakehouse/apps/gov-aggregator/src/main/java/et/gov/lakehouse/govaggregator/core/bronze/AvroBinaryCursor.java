@@ -0,0 +1,112 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import org.apache.avro.Schema;
+
+/**
+ * Forward-only reader over an Avro binary buffer that can step over values of a known writer schema
+ * without materializing them.
+ */
+final class AvroBinaryCursor {
+
+    private final byte[] buf;
+    int pos;
+
+    AvroBinaryCursor(byte[] buf, int pos) {
+        this.buf = buf;
+        this.pos = pos;
+    }
+
+    long readLong() {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 63) {
+                throw new IllegalStateException("Malformed Avro varint at offset " + pos);
+            }
+            b = buf[pos++] & 0xff;
+            value |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readIndex() {
+        return (int) readLong();
+    }
+
+    /** Steps over a string/bytes value and returns the offset of its first byte (length = pos - start). */
+    int skipBytes() {
+        long len = readLong();
+        int start = pos;
+        advance(len);
+        return start;
+    }
+
+    void skip(Schema schema) {
+        switch (schema.getType()) {
+            case NULL:
+                return;
+            case BOOLEAN:
+                advance(1);
+                return;
+            case INT:
+            case LONG:
+            case ENUM:
+                readLong();
+                return;
+            case FLOAT:
+                advance(4);
+                return;
+            case DOUBLE:
+                advance(8);
+                return;
+            case STRING:
+            case BYTES:
+                advance(readLong());
+                return;
+            case FIXED:
+                advance(schema.getFixedSize());
+                return;
+            case ARRAY:
+                skipBlocks(schema.getElementType(), false);
+                return;
+            case MAP:
+                skipBlocks(schema.getValueType(), true);
+                return;
+            case UNION:
+                skip(schema.getTypes().get(readIndex()));
+                return;
+            case RECORD:
+                for (Schema.Field f : schema.getFields()) {
+                    skip(f.schema());
+                }
+                return;
+            default:
+                throw new IllegalStateException("Unsupported Avro type: " + schema.getType());
+        }
+    }
+
+    private void skipBlocks(Schema itemSchema, boolean withKeys) {
+        for (long count = readLong(); count != 0; count = readLong()) {
+            if (count < 0) {
+                // Negative block count is followed by the block size in bytes: jump over it.
+                advance(readLong());
+                continue;
+            }
+            for (long i = 0; i < count; i++) {
+                if (withKeys) {
+                    advance(readLong());
+                }
+                skip(itemSchema);
+            }
+        }
+    }
+
+    private void advance(long n) {
+        if (n < 0 || pos + n > buf.length) {
+            throw new IllegalStateException("Avro value overruns buffer at offset " + pos);
+        }
+        pos += (int) n;
+    }
+}
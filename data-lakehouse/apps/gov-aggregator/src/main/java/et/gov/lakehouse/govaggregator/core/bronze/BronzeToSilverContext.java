@@ -1,14 +1,19 @@
 package et.gov.lakehouse.govaggregator.core.bronze;
 
+import et.gov.lakehouse.govaggregator.common.DeadLetterQueue;
+import et.gov.lakehouse.govaggregator.common.Deduplicator;
+import et.gov.lakehouse.govaggregator.common.InstrumentedSerde;
 import et.gov.lakehouse.govaggregator.common.SerdeFactory;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.StreamsConfig;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.stream.Collectors;
 
@@ -19,6 +24,8 @@ public final class BronzeToSilverContext {
 
     public final List<String> bronzeTopics;
 
+    public final SilverManifest manifest;
+
     public final String silverTopicPrefix;
     public final String silverStripPrefix;
     public final String silverNameStyle;
@@ -33,13 +40,41 @@ public final class BronzeToSilverContext {
 
     public final boolean approved;
 
+    /** Byte-level envelope -> silver transcoding instead of full GenericRecord decode/encode. */
+    public final boolean transcode;
+
+    /** Drop op=u events whose compared before/after columns are identical. */
+    public final boolean suppressNoOpUpdates;
+
+    /** Latest-wins coalescing window per key in ms; 0 disables the coalescing stage. */
+    public final long coalesceMs;
+    /** Pending keys that force an early coalescing flush. */
+    public final int coalesceMaxKeys;
+
+    /** DEDUP_ENABLED: drop changes whose source position was already seen; null when disabled. */
+    public final Deduplicator dedup;
+
+    /** SILVER_RUNTIME=parallel: {@link KeyOrderedSilverRunner} instead of Kafka Streams. */
+    public final boolean parallelRuntime;
+    /** Worker lanes of the parallel runtime. */
+    public final int parallelWorkers;
+    /** Records in flight before the parallel runtime pauses the consumer. */
+    public final int parallelMaxInFlight;
+    /** SILVER_RUNTIME=transaction: {@link TransactionBatchingSilverRunner}, one produce run per source transaction. */
+    public final boolean transactionRuntime;
+
+    /** SILVER_SINK=iceberg: write silver straight into Iceberg tables; null for the Kafka sink. */
+    public final IcebergSinkConfig icebergSink;
+
     public final Serde<byte[]> keySerde;
+    public final Serde<byte[]> rawValueSerde;
     public final Serde<GenericRecord> bronzeValueSerde;
     public final Serde<GenericRecord> silverValueSerde;
 
     private BronzeToSilverContext(
             Properties streamsProps,
             List<String> bronzeTopics,
+            SilverManifest manifest,
             String silverTopicPrefix,
             String silverStripPrefix,
             String silverNameStyle,
@@ -49,12 +84,24 @@ public final class BronzeToSilverContext {
             String icebergNamespace,
             String silverRecordNamespace,
             boolean approved,
+            boolean transcode,
+            boolean suppressNoOpUpdates,
+            long coalesceMs,
+            int coalesceMaxKeys,
+            Deduplicator dedup,
+            boolean parallelRuntime,
+            int parallelWorkers,
+            int parallelMaxInFlight,
+            boolean transactionRuntime,
+            IcebergSinkConfig icebergSink,
             Serde<byte[]> keySerde,
+            Serde<byte[]> rawValueSerde,
             Serde<GenericRecord> bronzeValueSerde,
             Serde<GenericRecord> silverValueSerde
     ) {
         this.streamsProps = streamsProps;
         this.bronzeTopics = bronzeTopics;
+        this.manifest = manifest;
         this.silverTopicPrefix = silverTopicPrefix;
         this.silverStripPrefix = silverStripPrefix;
         this.silverNameStyle = silverNameStyle;
@@ -64,11 +111,38 @@ public final class BronzeToSilverContext {
         this.icebergNamespace = icebergNamespace;
         this.silverRecordNamespace = silverRecordNamespace;
         this.approved = approved;
+        this.transcode = transcode;
+        this.suppressNoOpUpdates = suppressNoOpUpdates;
+        this.coalesceMs = coalesceMs;
+        this.coalesceMaxKeys = coalesceMaxKeys;
+        this.dedup = dedup;
+        this.parallelRuntime = parallelRuntime;
+        this.parallelWorkers = parallelWorkers;
+        this.parallelMaxInFlight = parallelMaxInFlight;
+        this.transactionRuntime = transactionRuntime;
+        this.icebergSink = icebergSink;
         this.keySerde = keySerde;
+        this.rawValueSerde = rawValueSerde;
         this.bronzeValueSerde = bronzeValueSerde;
         this.silverValueSerde = silverValueSerde;
     }
 
+    /**
+     * Plain consumer settings for the runtimes that bypass Kafka Streams. The group is the Streams
+     * application.id, so switching SILVER_RUNTIME / SILVER_SINK resumes from the committed offsets.
+     */
+    public Properties consumerProps(String clientIdSuffix) {
+        String appId = streamsProps.getProperty(StreamsConfig.APPLICATION_ID_CONFIG);
+        Properties p = new Properties();
+        p.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, streamsProps.getProperty(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG));
+        p.put(ConsumerConfig.GROUP_ID_CONFIG, appId);
+        p.put(ConsumerConfig.CLIENT_ID_CONFIG, appId + clientIdSuffix);
+        p.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        p.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG,
+                streamsProps.getProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest"));
+        return p;
+    }
+
     public static BronzeToSilverContext fromEnv() {
         Properties p = new Properties();
         p.put(StreamsConfig.APPLICATION_ID_CONFIG,
@@ -78,19 +152,46 @@ public final class BronzeToSilverContext {
         p.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG,
                 sysOrEnv("auto.offset.reset", "AUTO_OFFSET_RESET", "earliest"));
 
-        // Keep it simple: no state stores, no EOS required
+        // Also the parallel runtime's commit interval (5000 ms there when unset).
+        String commitIntervalMs = sysOrEnv("commit.interval.ms", "COMMIT_INTERVAL_MS", "");
+        if (!commitIntervalMs.isBlank()) {
+            p.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, commitIntervalMs);
+        }
+
+        // Starting thread count; StreamThreadScaler moves it within STREAM_THREADS_MIN..MAX.
+        p.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG,
+                sysOrEnv("num.stream.threads", "NUM_STREAM_THREADS", "1"));
+
+        // batch.size only caps a batch; linger.ms still sends it early, so a large cap costs live changes
+        // nothing and lets snapshot loads (op=r at full speed) ship far fewer, larger requests.
+        p.put(StreamsConfig.producerPrefix(ProducerConfig.BATCH_SIZE_CONFIG),
+                sysOrEnv("silver.producer.batch.bytes", "SILVER_PRODUCER_BATCH_BYTES", "262144"));
+
+        // No EOS by default. The coalescing buffer, SilverLookup store and LPCO document tables tolerate
+        // at-least-once replays (silver writes are upserts keyed by the row); the dedup filter does not
+        // and needs exactly_once_v2 (common/Deduplicator).
         p.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG,
                 sysOrEnv("processing.guarantee", "PROCESSING_GUARANTEE", "at_least_once"));
-
-        String bronzeTopicsCsv = sysOrEnv("bronze.topics", "BRONZE_TOPICS", "");
-        List<String> bronzeTopics = parseCsv(bronzeTopicsCsv);
-        if (bronzeTopics.isEmpty()) {
-            throw new IllegalArgumentException("No input topics configured. Set BRONZE_TOPICS=topic1,topic2,...");
-        }
+        // Poison records -> dlq.<topic> instead of a stopped application (common/DeadLetterQueue).
+        DeadLetterQueue.configureStreams(p);
 
         String silverTopicPrefix = sysOrEnv("silver.topic.prefix", "SILVER_TOPIC_PREFIX", "silver.");
         String silverStripPrefix = sysOrEnv("silver.strip.prefix", "SILVER_STRIP_PREFIX", "");
         String silverNameStyle = sysOrEnv("silver.name.style", "SILVER_NAME_STYLE", "full");
+        String icebergNamespace = sysOrEnv("iceberg.namespace", "ICEBERG_NAMESPACE", "silver");
+
+        String bronzeTopicsCsv = sysOrEnv("bronze.topics", "BRONZE_TOPICS", "");
+        SilverManifest manifest = SilverManifest.load(
+                sysOrEnv("silver.manifest", "SILVER_MANIFEST", ""),
+                parseCsv(bronzeTopicsCsv),
+                sysOrEnv("bronze.topic.pattern", "BRONZE_TOPIC_PATTERN", ""),
+                new SilverManifest.Naming(silverTopicPrefix, silverStripPrefix, silverNameStyle, icebergNamespace)
+        );
+        if (manifest.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "No input topics configured. Set BRONZE_TOPICS=topic1,topic2,..., BRONZE_TOPIC_PATTERN or SILVER_MANIFEST");
+        }
+        List<String> bronzeTopics = manifest.topics();
 
         String registryUrl = sysOrEnv("apicurio.registry.url", "APICURIO_URL", "http://apicurio:8080/apis/registry/v2");
 
@@ -106,18 +207,42 @@ public final class BronzeToSilverContext {
                 bronzeGroupId + "-silver"
         );
 
-        String icebergNamespace = sysOrEnv("iceberg.namespace", "ICEBERG_NAMESPACE", "silver");
         String silverRecordNamespace = sysOrEnv("silver.record.namespace", "SILVER_RECORD_NAMESPACE", "silver.oracle_esw");
 
         boolean approved = isTruthy(sysOrEnv("silver.approved", "SILVER_APPROVED", "false"));
+        boolean transcode = isTruthy(sysOrEnv("silver.transcode", "SILVER_TRANSCODE", "false"));
+        boolean suppressNoOpUpdates = isTruthy(sysOrEnv(
+                "silver.suppress.noop.updates", "SILVER_SUPPRESS_NOOP_UPDATES", "false"));
+        long coalesceMs = Long.parseLong(sysOrEnv("silver.coalesce.ms", "SILVER_COALESCE_MS", "0"));
+        int coalesceMaxKeys = Integer.parseInt(sysOrEnv("silver.coalesce.max.keys", "SILVER_COALESCE_MAX_KEYS", "50000"));
+        Deduplicator dedup = Deduplicator.fromEnv("debezium-to-silver", p);
+
+        String runtime = sysOrEnv("silver.runtime", "SILVER_RUNTIME", "streams").trim().toLowerCase();
+        if (!runtime.equals("streams") && !runtime.equals("parallel") && !runtime.equals("transaction")) {
+            throw new IllegalArgumentException("SILVER_RUNTIME must be streams, parallel or transaction, got: " + runtime);
+        }
+        int parallelWorkers = Integer.parseInt(sysOrEnv(
+                "parallel.workers", "PARALLEL_WORKERS", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int parallelMaxInFlight = Integer.parseInt(sysOrEnv("parallel.max.in.flight", "PARALLEL_MAX_IN_FLIGHT", "10000"));
+
+        String sink = sysOrEnv("silver.sink", "SILVER_SINK", "kafka").trim().toLowerCase();
+        if (!sink.equals("kafka") && !sink.equals("iceberg")) {
+            throw new IllegalArgumentException("SILVER_SINK must be kafka or iceberg, got: " + sink);
+        }
+        if (sink.equals("iceberg") && !runtime.equals("streams")) {
+            throw new IllegalArgumentException("SILVER_SINK=iceberg runs its own consumer; leave SILVER_RUNTIME=streams");
+        }
+        IcebergSinkConfig icebergSink = sink.equals("iceberg") ? icebergSinkFromEnv() : null;
 
         Serde<byte[]> keySerde = Serdes.ByteArray();
-        Serde<GenericRecord> bronzeValueSerde = SerdeFactory.avroSerde(registryUrl, bronzeGroupId, true);
-        Serde<GenericRecord> silverValueSerde = SerdeFactory.avroSerde(registryUrl, silverGroupId, true);
+        Serde<byte[]> rawValueSerde = InstrumentedSerde.wrap(Serdes.ByteArray());
+        Serde<GenericRecord> bronzeValueSerde = InstrumentedSerde.wrap(SerdeFactory.avroSerde(registryUrl, bronzeGroupId, true));
+        Serde<GenericRecord> silverValueSerde = InstrumentedSerde.wrap(SerdeFactory.avroSerde(registryUrl, silverGroupId, true));
 
         return new BronzeToSilverContext(
                 p,
                 bronzeTopics,
+                manifest,
                 silverTopicPrefix,
                 silverStripPrefix,
                 silverNameStyle,
@@ -127,12 +252,46 @@ public final class BronzeToSilverContext {
                 icebergNamespace,
                 silverRecordNamespace,
                 approved,
+                transcode,
+                suppressNoOpUpdates,
+                coalesceMs,
+                coalesceMaxKeys,
+                dedup,
+                runtime.equals("parallel"),
+                parallelWorkers,
+                parallelMaxInFlight,
+                runtime.equals("transaction"),
+                icebergSink,
                 keySerde,
+                rawValueSerde,
                 bronzeValueSerde,
                 silverValueSerde
         );
     }
 
+    private static IcebergSinkConfig icebergSinkFromEnv() {
+        Map<String, String> catalogProps = IcebergSinkConfig.loadCatalogProperties(
+                sysOrEnv("iceberg.catalog.properties", "ICEBERG_CATALOG_PROPERTIES", ""));
+        putIfSet(catalogProps, "type", sysOrEnv("iceberg.catalog.type", "ICEBERG_CATALOG_TYPE", ""));
+        putIfSet(catalogProps, "uri", sysOrEnv("iceberg.catalog.uri", "ICEBERG_CATALOG_URI", ""));
+        putIfSet(catalogProps, "warehouse", sysOrEnv("iceberg.catalog.warehouse", "ICEBERG_WAREHOUSE", ""));
+        catalogProps.putIfAbsent("type", "rest");
+
+        return new IcebergSinkConfig(
+                sysOrEnv("iceberg.catalog.name", "ICEBERG_CATALOG_NAME", "iceberg"),
+                catalogProps,
+                Long.parseLong(sysOrEnv("iceberg.commit.interval.ms", "ICEBERG_COMMIT_INTERVAL_MS", "60000")),
+                Long.parseLong(sysOrEnv("iceberg.commit.max.records", "ICEBERG_COMMIT_MAX_RECORDS", "500000")),
+                Long.parseLong(sysOrEnv("iceberg.target.file.bytes", "ICEBERG_TARGET_FILE_BYTES", String.valueOf(128L << 20)))
+        );
+    }
+
+    private static void putIfSet(Map<String, String> props, String key, String value) {
+        if (!value.isBlank()) {
+            props.put(key, value);
+        }
+    }
+
     private static boolean isTruthy(String v) {
         return v != null && ("true".equalsIgnoreCase(v) || "yes".equalsIgnoreCase(v) || "1".equals(v));
     }
@@ -144,7 +303,7 @@ public final class BronzeToSilverContext {
         return (v != null && !v.isBlank()) ? v : defVal;
     }
 
-    private static List<String> parseCsv(String csv) {
+    static List<String> parseCsv(String csv) {
         if (csv == null || csv.isBlank()) return List.of();
         return Arrays.stream(csv.split(","))
                 .map(String::trim)
@@ -1,20 +1,20 @@
 package et.gov.lakehouse.govaggregator.core.bronze;
 
+import org.apache.avro.JsonProperties;
 import org.apache.avro.Schema;
-import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /** Shared transformations for Debezium-envelope Avro -> silver Avro ("after" projection + routing field). */
 public final class BronzeToSilverPipeline {
 
     private BronzeToSilverPipeline() {}
 
-    private static final ConcurrentHashMap<String, Schema> SILVER_SCHEMA_CACHE = new ConcurrentHashMap<>();
+    private static final SilverSchemaCache SILVER_SCHEMA_CACHE = new SilverSchemaCache(Integer.parseInt(
+            System.getProperty("silver.schema.cache.max", System.getenv().getOrDefault("SILVER_SCHEMA_CACHE_MAX", "1024"))));
 
     public static String silverTopicFor(String inputTopic, String silverPrefix, String stripPrefix, String nameStyle) {
         if ("last-segment".equalsIgnoreCase(nameStyle)) {
@@ -31,24 +31,44 @@ public final class BronzeToSilverPipeline {
     }
 
     public static GenericRecord extractAfter(GenericRecord root) {
-        if (root == null) return null;
+        return imageOf(envelopeOf(root), "after");
+    }
+
+    public static GenericRecord extractBefore(GenericRecord root) {
+        return imageOf(envelopeOf(root), "before");
+    }
+
+    /** Debezium "op" code ("c", "u", "d", "r", ...) or null when the envelope carries none. */
+    public static String extractOp(GenericRecord root) {
+        GenericRecord envelope = envelopeOf(root);
+        if (envelope == null || envelope.getSchema().getField("op") == null) {
+            return null;
+        }
+        Object op = envelope.get("op");
+        return op != null ? op.toString() : null;
+    }
+
+    /** The Debezium envelope: the root record itself, or its "payload" when the pipeline wraps it. */
+    public static GenericRecord envelopeOf(GenericRecord root) {
+        if (root == null || root.getSchema() == null) return null;
 
         // Debezium envelope is typically the root record (before/after/op/ts_ms/...)
         // but some pipelines may wrap it as payload.
-        GenericRecord envelope = root;
-        if (root.getSchema() != null && root.getSchema().getField("payload") != null) {
+        if (root.getSchema().getField("payload") != null) {
             Object maybePayload = root.get("payload");
             if (maybePayload instanceof GenericRecord gr) {
-                envelope = gr;
+                return gr;
             }
         }
+        return root;
+    }
 
-        if (envelope.getSchema() == null || envelope.getSchema().getField("after") == null) {
+    private static GenericRecord imageOf(GenericRecord envelope, String field) {
+        if (envelope == null || envelope.getSchema() == null || envelope.getSchema().getField(field) == null) {
             return null;
         }
-
-        Object after = envelope.get("after");
-        return (after instanceof GenericRecord gr) ? gr : null;
+        Object image = envelope.get(field);
+        return (image instanceof GenericRecord gr) ? gr : null;
     }
 
     public static String deriveSourceTableFromTopic(String inputTopic, String stripPrefix) {
@@ -73,38 +93,70 @@ public final class BronzeToSilverPipeline {
         if (after == null) {
             throw new IllegalArgumentException("after record must not be null");
         }
+        return silverSchemaFor(after.getSchema(), outputNamespace, outputName);
+    }
 
-        String cacheKey = outputNamespace + ":" + outputName + ":" + after.getSchema().getFullName();
-        return SILVER_SCHEMA_CACHE.computeIfAbsent(cacheKey, notUsed -> {
-            Schema afterSchema = after.getSchema();
+    public static Schema silverSchemaFor(Schema afterSchema, String outputNamespace, String outputName) {
+        return SILVER_SCHEMA_CACHE.get(afterSchema, outputNamespace, outputName, SilverProjection.NONE,
+                BronzeToSilverPipeline::buildSilverSchema).silver;
+    }
 
-            Schema schema = Schema.createRecord(outputName, null, outputNamespace, false);
-            List<Schema.Field> outFields = new ArrayList<>();
+    /** Silver schema of the route's table, with its column projection applied. */
+    public static Schema silverSchemaFor(GenericRecord after, String outputNamespace, SilverRoute route) {
+        if (after == null) {
+            throw new IllegalArgumentException("after record must not be null");
+        }
+        return silverSchemaFor(after.getSchema(), outputNamespace, route);
+    }
 
-            outFields.add(new Schema.Field("__iceberg_table", Schema.create(Schema.Type.STRING), null, (Object) null));
+    public static Schema silverSchemaFor(Schema afterSchema, String outputNamespace, SilverRoute route) {
+        return SILVER_SCHEMA_CACHE.get(afterSchema, outputNamespace, route.tableName, route.projection,
+                BronzeToSilverPipeline::buildSilverSchema).silver;
+    }
+
+    public static SilverSchemaCache silverSchemaCache() {
+        return SILVER_SCHEMA_CACHE;
+    }
 
-            for (Schema.Field f : afterSchema.getFields()) {
-                String outFieldName = f.name().toLowerCase();
-                Schema.Field outField = new Schema.Field(outFieldName, f.schema(), f.doc(), f.defaultVal());
-                for (Map.Entry<String, Object> e : f.getObjectProps().entrySet()) {
-                    outField.addProp(e.getKey(), e.getValue());
-                }
-                outFields.add(outField);
+    private static Schema buildSilverSchema(Schema afterSchema, String outputNamespace, String outputName,
+                                            SilverProjection projection) {
+        Schema schema = Schema.createRecord(outputName, null, outputNamespace, false);
+        List<Schema.Field> outFields = new ArrayList<>();
+
+        outFields.add(new Schema.Field("__iceberg_table", Schema.create(Schema.Type.STRING), null, (Object) null));
+
+        for (Schema.Field f : afterSchema.getFields()) {
+            if (projection.drops(f.name())) continue;
+            String outFieldName = f.name().toLowerCase();
+            Schema outSchema = projection.columnSchema(f.name(), f.schema());
+            Schema.Field outField = new Schema.Field(outFieldName, outSchema, f.doc(), outSchema == f.schema()
+                    ? f.defaultVal() : convertedDefault(outSchema, f.defaultVal()));
+            for (Map.Entry<String, Object> e : f.getObjectProps().entrySet()) {
+                outField.addProp(e.getKey(), e.getValue());
             }
+            outFields.add(outField);
+        }
+
+        schema.setFields(outFields);
+        schema.addProp("connect.name", outputNamespace + "." + outputName);
+        schema.addProp("connect.version", 1);
+        return schema;
+    }
 
-            schema.setFields(outFields);
-            schema.addProp("connect.name", outputNamespace + "." + outputName);
-            schema.addProp("connect.version", 1);
-            return schema;
-        });
+    /** Only a null default survives a type change (Debezium gives nullable columns that one). */
+    private static Object convertedDefault(Schema outSchema, Object defaultVal) {
+        boolean nullFirst = outSchema.getType() == Schema.Type.UNION
+                && outSchema.getTypes().get(0).getType() == Schema.Type.NULL;
+        return nullFirst && defaultVal == JsonProperties.NULL_VALUE ? JsonProperties.NULL_VALUE : null;
+    }
+
+    public static ProjectionPlan projectionPlanFor(Schema afterSchema, Schema silverSchema) {
+        ProjectionPlan plan = SILVER_SCHEMA_CACHE.planFor(afterSchema, silverSchema);
+        // Silver schemas that did not come from silverSchemaFor are compiled per call.
+        return plan != null ? plan : ProjectionPlan.compile(afterSchema, silverSchema);
     }
 
     public static GenericRecord toSilver(GenericRecord after, Schema silverSchema, String icebergTable) {
-        GenericData.Record out = new GenericData.Record(silverSchema);
-        out.put("__iceberg_table", icebergTable);
-        for (Schema.Field f : after.getSchema().getFields()) {
-            out.put(f.name().toLowerCase(), after.get(f.pos()));
-        }
-        return out;
+        return projectionPlanFor(after.getSchema(), silverSchema).apply(after, icebergTable);
     }
 }
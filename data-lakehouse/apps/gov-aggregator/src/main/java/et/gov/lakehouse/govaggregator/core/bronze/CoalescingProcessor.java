@@ -0,0 +1,153 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.processor.api.RecordMetadata;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latest-wins coalescing of silver records per (table, key) (SILVER_COALESCE_MS > 0).
+ *
+ * Each record overwrites the pending entry for its key in a changelogged store; the store is flushed
+ * downstream every interval (wall clock) or as soon as it holds SILVER_COALESCE_MAX_KEYS entries, so
+ * only the newest image of a hot row per window reaches the silver topic. Tables with
+ * {@code table.<TABLE>.coalesce=false} in the manifest, and partitions in their Debezium snapshot
+ * phase, pass straight through.
+ *
+ * Every record is serialized here, once, for the route's silver topic (so no extra registry subject is
+ * created), and forwarded as those wire bytes for a byte-array sink. Pending values are the same bytes
+ * prefixed with the record timestamp; a flush forwards them without decoding.
+ */
+final class CoalescingProcessor implements Processor<byte[], GenericRecord, byte[], byte[]> {
+
+    /** Manifest option to opt a table out of coalescing. */
+    static final String COALESCE_OPTION = "coalesce";
+
+    private static final byte KEY_SEPARATOR = 0x0;
+
+    private final SilverManifest manifest;
+    private final String storeName;
+    private final long intervalMs;
+    private final int maxKeys;
+    private final Serializer<GenericRecord> serializer;
+
+    private final Map<SilverRoute, byte[]> keyPrefixes = new HashMap<>();
+
+    private ProcessorContext<byte[], byte[]> context;
+    private KeyValueStore<Bytes, byte[]> pending;
+
+    CoalescingProcessor(SilverManifest manifest, BronzeToSilverContext ctx, String storeName) {
+        this.manifest = manifest;
+        this.storeName = storeName;
+        this.intervalMs = ctx.coalesceMs;
+        this.maxKeys = ctx.coalesceMaxKeys;
+        this.serializer = ctx.silverValueSerde.serializer();
+    }
+
+    @Override
+    public void init(ProcessorContext<byte[], byte[]> context) {
+        this.context = context;
+        this.pending = context.getStateStore(storeName);
+        context.schedule(Duration.ofMillis(intervalMs), PunctuationType.WALL_CLOCK_TIME, now -> flush());
+    }
+
+    @Override
+    public void process(Record<byte[], GenericRecord> record) {
+        GenericRecord silver = record.value();
+        if (silver == null) {
+            context.forward(record.withValue(null));
+            return;
+        }
+        SilverRoute route = manifest.routeForIcebergTable(silver.get(0).toString());
+        byte[] wire = serializer.serialize(route.silverTopic, silver);
+        if (record.key() == null || "false".equalsIgnoreCase(route.option(COALESCE_OPTION, "true"))) {
+            context.forward(record.withValue(wire));
+            return;
+        }
+
+        // Snapshot rows are one image per key; buffering them only adds store and changelog writes.
+        // A key that already has a pending image keeps going through the store to stay in order.
+        Bytes storeKey = storeKey(route, record.key());
+        if (SnapshotTracker.enabled() && inSnapshot(route) && pending.get(storeKey) == null) {
+            context.forward(record.withValue(wire));
+            return;
+        }
+
+        byte[] value = ByteBuffer.allocate(Long.BYTES + wire.length).putLong(record.timestamp()).put(wire).array();
+        pending.put(storeKey, value);
+
+        if (pending.approximateNumEntries() >= maxKeys) {
+            flush();
+        }
+    }
+
+    private boolean inSnapshot(SilverRoute route) {
+        int partition = context.recordMetadata().map(RecordMetadata::partition).orElse(-1);
+        return SnapshotTracker.of(route.tableName).partition(partition).active();
+    }
+
+    private Bytes storeKey(SilverRoute route, byte[] key) {
+        byte[] prefix = keyPrefixes.computeIfAbsent(route, r -> {
+            byte[] table = r.icebergTable.getBytes(StandardCharsets.UTF_8);
+            byte[] p = new byte[table.length + 1];
+            System.arraycopy(table, 0, p, 0, table.length);
+            p[table.length] = KEY_SEPARATOR;
+            return p;
+        });
+        byte[] k = new byte[prefix.length + key.length];
+        System.arraycopy(prefix, 0, k, 0, prefix.length);
+        System.arraycopy(key, 0, k, prefix.length, key.length);
+        return Bytes.wrap(k);
+    }
+
+    private void flush() {
+        List<Bytes> emitted = new ArrayList<>();
+        try (KeyValueIterator<Bytes, byte[]> it = pending.all()) {
+            while (it.hasNext()) {
+                KeyValue<Bytes, byte[]> kv = it.next();
+                if (emit(kv.key.get(), kv.value)) {
+                    emitted.add(kv.key);
+                }
+            }
+        }
+        for (Bytes k : emitted) {
+            pending.delete(k);
+        }
+    }
+
+    private boolean emit(byte[] storeKey, byte[] value) {
+        int sep = 0;
+        while (storeKey[sep] != KEY_SEPARATOR) sep++;
+        String icebergTable = new String(storeKey, 0, sep, StandardCharsets.UTF_8);
+        SilverRoute route = manifest.routeForIcebergTable(icebergTable);
+        if (route == null) {
+            // Restored from the changelog for a pattern table not seen since restart; keep it until it is.
+            return false;
+        }
+
+        byte[] key = new byte[storeKey.length - sep - 1];
+        System.arraycopy(storeKey, sep + 1, key, 0, key.length);
+        ByteBuffer buf = ByteBuffer.wrap(value);
+        long timestamp = buf.getLong();
+        byte[] wire = new byte[buf.remaining()];
+        buf.get(wire);
+
+        context.forward(new Record<>(key, wire, timestamp));
+        return true;
+    }
+}
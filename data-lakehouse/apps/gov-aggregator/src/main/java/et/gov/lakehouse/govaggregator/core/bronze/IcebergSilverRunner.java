@@ -0,0 +1,240 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import et.gov.lakehouse.govaggregator.common.DeadLetterQueue;
+import et.gov.lakehouse.govaggregator.common.PipelineMetrics;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.CatalogUtil;
+import org.apache.iceberg.catalog.Catalog;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * debezium-to-silver with SILVER_SINK=iceberg: bronze topics -> Iceberg tables, no silver topics.
+ *
+ * The Kafka path serializes silver records to a topic that the Iceberg Connect sink deserializes again
+ * before writing Parquet. Here the poll thread decodes the Debezium envelope once, applies the same
+ * routing and no-op suppression as {@link ManifestBronzeToSilverTask} and hands the "after" image to an
+ * {@link IcebergSilverWriter} keyed by the route's "__iceberg_table".
+ *
+ * Every ICEBERG_COMMIT_INTERVAL_MS (or ICEBERG_COMMIT_MAX_RECORDS rows) the open files are appended to
+ * their tables, and only once every table commit succeeded are the consumed offsets committed. A crash
+ * in between replays the batch (at-least-once, like the Kafka path); uncommitted files are deleted on a
+ * clean stop and left for orphan-file cleanup otherwise.
+ */
+public final class IcebergSilverRunner implements AutoCloseable {
+
+    private static final PipelineMetrics METRICS = PipelineMetrics.global();
+    private static final String TASK = "iceberg";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(200);
+
+    private final BronzeToSilverContext ctx;
+    private final IcebergSinkConfig config;
+    private final SilverManifest manifest;
+    private final NoOpUpdateFilter noOpFilter;
+    private final Deserializer<GenericRecord> bronze;
+    private final Consumer<byte[], byte[]> consumer;
+    private final Catalog catalog;
+    private final IcebergSilverWriter writer;
+
+    /** Next offset per partition covered by the rows buffered in {@link #writer}. */
+    private final Map<TopicPartition, OffsetAndMetadata> pending = new HashMap<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    /** Projected rows, one per plan; only for routes with a {@link SilverProjection}. */
+    private final Map<ProjectionPlan, GenericData.Record> rows = new IdentityHashMap<>();
+    private volatile boolean running = true;
+    private boolean closing;
+    private long nextCommit;
+
+    public IcebergSilverRunner(BronzeToSilverContext ctx) {
+        this(ctx,
+                new KafkaConsumer<>(ctx.consumerProps("-iceberg-consumer"), new ByteArrayDeserializer(), new ByteArrayDeserializer()),
+                CatalogUtil.buildIcebergCatalog(ctx.icebergSink.catalogName, ctx.icebergSink.catalogProps, new Configuration()));
+    }
+
+    IcebergSilverRunner(BronzeToSilverContext ctx, Consumer<byte[], byte[]> consumer, Catalog catalog) {
+        this.ctx = ctx;
+        this.config = ctx.icebergSink;
+        this.manifest = ctx.manifest;
+        this.noOpFilter = ctx.suppressNoOpUpdates ? new NoOpUpdateFilter() : null;
+        this.bronze = ctx.bronzeValueSerde.deserializer();
+        this.consumer = consumer;
+        this.catalog = catalog;
+        this.writer = new IcebergSilverWriter(catalog, config.targetFileBytes);
+        METRICS.bind(consumer::metrics);
+    }
+
+    /** Polls, writes and commits until {@link #close()}; a write or commit failure is thrown here. */
+    public void run() {
+        System.out.println("[debezium-to-silver] Iceberg sink: " + config);
+        if (ctx.transcode || ctx.coalesceMs > 0) {
+            System.out.println("[debezium-to-silver] SILVER_TRANSCODE / SILVER_COALESCE_MS are ignored by the Iceberg sink");
+        }
+
+        ConsumerRebalanceListener listener = new Rebalance();
+        if (manifest.topicPattern() != null) {
+            consumer.subscribe(manifest.topicPattern(), listener);
+        } else {
+            consumer.subscribe(manifest.topics(), listener);
+        }
+
+        nextCommit = System.currentTimeMillis() + config.commitIntervalMs;
+        boolean clean = false;
+        try {
+            while (running) {
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(POLL_TIMEOUT);
+                for (ConsumerRecord<byte[], byte[]> rec : records) {
+                    process(rec);
+                    pending.put(new TopicPartition(rec.topic(), rec.partition()), new OffsetAndMetadata(rec.offset() + 1));
+                }
+                if (writer.buffered() >= config.commitMaxRecords || System.currentTimeMillis() >= nextCommit) {
+                    commit();
+                }
+            }
+            clean = true;
+        } catch (WakeupException e) {
+            clean = true;
+        } finally {
+            shutdown(clean);
+            stopped.countDown();
+        }
+    }
+
+    /** Stops polling, commits what was written and closes the consumer and catalog. */
+    @Override
+    public void close() {
+        running = false;
+        consumer.wakeup();
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(ConsumerRecord<byte[], byte[]> rec) {
+        SilverRoute route = manifest.resolve(rec.topic());
+        if (route == null) return;
+
+        long start = System.nanoTime();
+        GenericRecord after;
+        Schema silverSchema;
+        GenericRecord row;
+        try {
+            GenericRecord envelope = bronze.deserialize(rec.topic(), rec.value());
+            boolean snapshotRow = SnapshotTracker.enabled()
+                    && SnapshotTracker.of(route.tableName).partition(rec.partition()).observe(SnapshotTracker.markerOf(envelope));
+            if (!snapshotRow && noOpFilter != null && envelope != null && noOpFilter.isNoOpUpdate(route, envelope)) {
+                METRICS.recordDropped(TASK, route.tableName, "noop_update");
+                return;
+            }
+            after = BronzeToSilverPipeline.extractAfter(envelope);
+            if (after == null) {
+                METRICS.recordDropped(TASK, route.tableName, "null_after");
+                return;
+            }
+            silverSchema = BronzeToSilverPipeline.silverSchemaFor(after, ctx.silverRecordNamespace, route);
+            // The writer binds columns by name, so an unprojected "after" goes in as is; otherwise the
+            // silver record (reused per plan, the writer copies it) carries the dropped / converted columns.
+            if (route.projection.isIdentity()) {
+                row = after;
+            } else {
+                ProjectionPlan plan = BronzeToSilverPipeline.projectionPlanFor(after.getSchema(), silverSchema);
+                row = plan.applyInto(after, route.icebergTable, rows.computeIfAbsent(plan, p -> new GenericData.Record(p.target)));
+            }
+        } catch (RuntimeException e) {
+            // Undecodable or unmappable input; Iceberg write failures below are not the record's fault.
+            if (!DeadLetterQueue.onProcessingError(ctx.streamsProps, rec.topic(), rec.partition(), rec.offset(),
+                    rec.key(), rec.value(), e)) {
+                throw e;
+            }
+            return;
+        }
+        try {
+            writer.write(route.icebergTable, silverSchema, row);
+        } catch (IcebergSilverWriter.RowConversionException e) {
+            // A value that does not fit its column is the record's fault; a schema mismatch is not.
+            if (!DeadLetterQueue.onProcessingError(ctx.streamsProps, rec.topic(), rec.partition(), rec.offset(),
+                    rec.key(), rec.value(), e)) {
+                throw e;
+            }
+            return;
+        }
+        METRICS.recordProcessed(TASK, route.tableName, System.nanoTime() - start);
+    }
+
+    /** Iceberg first, offsets second: a failed table commit leaves the offsets where they were. */
+    private void commit() {
+        nextCommit = System.currentTimeMillis() + config.commitIntervalMs;
+        if (pending.isEmpty()) return;
+
+        long start = System.currentTimeMillis();
+        long rows = writer.commit();
+        consumer.commitSync(pending);
+        pending.clear();
+        if (rows > 0) {
+            System.out.println("[debezium-to-silver] Iceberg commit: " + rows + " rows in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    private void shutdown(boolean clean) {
+        closing = true;
+        try {
+            if (clean) {
+                commit();
+            }
+        } catch (RuntimeException e) {
+            System.out.println("[debezium-to-silver] final Iceberg commit failed; the batch is replayed after restart: " + e);
+        } finally {
+            writer.close();
+            consumer.close(Duration.ofSeconds(10));
+            if (catalog instanceof Closeable c) {
+                try {
+                    c.close();
+                } catch (IOException e) {
+                    System.out.println("[debezium-to-silver] closing Iceberg catalog failed: " + e);
+                }
+            }
+        }
+    }
+
+    /** Commits before partitions move so the next owner starts after the last committed Iceberg snapshot. */
+    private final class Rebalance implements ConsumerRebalanceListener {
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            // On close shutdown() commits once for everything.
+            if (partitions.isEmpty() || closing) return;
+            commit();
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        }
+
+        @Override
+        public void onPartitionsLost(Collection<TopicPartition> partitions) {
+            // Rows already buffered for them are still written; their offsets belong to the new owner.
+            pending.keySet().removeAll(partitions);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.iceberg.AppendFiles;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.MetricsConfig;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.avro.AvroSchemaUtil;
+import org.apache.iceberg.catalog.Catalog;
+import org.apache.iceberg.catalog.SupportsNamespaces;
+import org.apache.iceberg.catalog.TableIdentifier;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.data.parquet.GenericParquetWriter;
+import org.apache.iceberg.exceptions.AlreadyExistsException;
+import org.apache.iceberg.io.DataWriter;
+import org.apache.iceberg.io.OutputFile;
+import org.apache.iceberg.parquet.Parquet;
+import org.apache.iceberg.types.Type;
+import org.apache.iceberg.types.Types;
+import org.apache.iceberg.util.DateTimeUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Buffers silver rows per Iceberg table as Parquet data files and appends them in one snapshot per table.
+ *
+ * Rows are Avro records (the Debezium "after" image) matched to table columns by case-insensitive name,
+ * so the silver GenericRecord never has to be built. One reused Iceberg {@link Record} per table is
+ * filled and handed to the columnar Parquet writer; a table's writer rolls to a new file at the target
+ * size. Nothing is visible to readers until {@link #commit()}.
+ *
+ * Tables are created on first use (unpartitioned, all columns optional). A writer schema with columns the
+ * table lacks is merged with unionByNameWith, like the Connect sink's evolve-schema-enabled.
+ * Not thread-safe; owned by the poll thread of {@link IcebergSilverRunner}.
+ */
+public final class IcebergSilverWriter implements AutoCloseable {
+
+    private static final String ROUTE_FIELD = "__iceberg_table";
+    /** Rows between file size checks; length() walks every column's page buffers. */
+    private static final int SIZE_CHECK_ROWS = 1024;
+
+    private final Catalog catalog;
+    private final long targetFileBytes;
+    private final String filePrefix = "silver-" + UUID.randomUUID() + "-";
+    private final Map<String, TableWriter> tables = new LinkedHashMap<>();
+    private long fileCount;
+    private long buffered;
+
+    public IcebergSilverWriter(Catalog catalog, long targetFileBytes) {
+        this.catalog = catalog;
+        this.targetFileBytes = targetFileBytes;
+    }
+
+    /**
+     * Buffers one row for {@code icebergTable} ("namespace.table").
+     *
+     * @param silverSchema the route's silver Avro schema; only read when {@code row}'s schema is new,
+     *                     to create or evolve the table
+     * @throws IllegalStateException when the row schema cannot be written to the table at all (a
+     *                     decimal column with a smaller scale than the source)
+     * @throws RowConversionException when only this row's values do not fit; nothing was buffered
+     */
+    public void write(String icebergTable, org.apache.avro.Schema silverSchema, GenericRecord row) {
+        TableWriter tw = tables.get(icebergTable);
+        if (tw == null) {
+            tw = new TableWriter(loadOrCreate(TableIdentifier.parse(icebergTable), silverSchema));
+            tables.put(icebergTable, tw);
+        }
+        tw.write(silverSchema, row);
+        buffered++;
+    }
+
+    /** Rows written since the last commit. */
+    public long buffered() {
+        return buffered;
+    }
+
+    /** Closes the open files and appends them to their tables; returns the number of rows committed. */
+    public long commit() {
+        for (TableWriter tw : tables.values()) {
+            tw.commit();
+        }
+        long committed = buffered;
+        buffered = 0;
+        return committed;
+    }
+
+    /** Drops uncommitted rows and deletes their files (the offsets were not committed either). */
+    @Override
+    public void close() {
+        for (TableWriter tw : tables.values()) {
+            tw.abort();
+        }
+        tables.clear();
+        buffered = 0;
+    }
+
+    private Table loadOrCreate(TableIdentifier id, org.apache.avro.Schema silverSchema) {
+        if (catalog.tableExists(id)) {
+            return catalog.loadTable(id);
+        }
+        if (catalog instanceof SupportsNamespaces ns && !id.namespace().isEmpty() && !ns.namespaceExists(id.namespace())) {
+            try {
+                ns.createNamespace(id.namespace());
+            } catch (AlreadyExistsException e) {
+                // created concurrently
+            }
+        }
+        try {
+            System.out.println("[debezium-to-silver] creating Iceberg table " + id);
+            return catalog.createTable(id, icebergSchemaOf(silverSchema), PartitionSpec.unpartitioned(),
+                    Map.of(TableProperties.DEFAULT_FILE_FORMAT, "parquet"));
+        } catch (AlreadyExistsException e) {
+            return catalog.loadTable(id);
+        }
+    }
+
+    /** Silver Avro schema -> Iceberg schema without the routing field, every column optional. */
+    static Schema icebergSchemaOf(org.apache.avro.Schema silverSchema) {
+        Schema converted = AvroSchemaUtil.toIceberg(silverSchema);
+        List<Types.NestedField> columns = new ArrayList<>();
+        for (Types.NestedField f : converted.columns()) {
+            if (!f.name().equals(ROUTE_FIELD)) {
+                columns.add(f.asOptional());
+            }
+        }
+        return new Schema(columns);
+    }
+
+    private final class TableWriter {
+        private final Table table;
+        private final Map<org.apache.avro.Schema, Binding> bindings = new IdentityHashMap<>();
+        private final List<DataFile> files = new ArrayList<>();
+        private Record reuse;
+        private DataWriter<Record> current;
+        private int rowsInFile;
+
+        TableWriter(Table table) {
+            this.table = table;
+            this.reuse = org.apache.iceberg.data.GenericRecord.create(table.schema());
+        }
+
+        void write(org.apache.avro.Schema silverSchema, GenericRecord row) {
+            Binding binding = bindings.get(row.getSchema());
+            if (binding == null) {
+                binding = bind(silverSchema, row.getSchema());
+            }
+            binding.fill(row, reuse);
+            if (current == null) {
+                current = newFile();
+            }
+            current.write(reuse);
+            if (++rowsInFile % SIZE_CHECK_ROWS == 0 && current.length() >= targetFileBytes) {
+                roll();
+            }
+        }
+
+        private Binding bind(org.apache.avro.Schema silverSchema, org.apache.avro.Schema rowSchema) {
+            Schema incoming = icebergSchemaOf(silverSchema);
+            boolean missing = false;
+            for (Types.NestedField f : incoming.columns()) {
+                if (table.schema().caseInsensitiveFindField(f.name()) == null) {
+                    missing = true;
+                    break;
+                }
+            }
+            if (missing) {
+                // Files already written keep their field ids and stay valid under the merged schema.
+                roll();
+                table.updateSchema().caseSensitive(false).unionByNameWith(incoming).commit();
+                table.refresh();
+                System.out.println("[debezium-to-silver] evolved Iceberg table " + table.name() + " to " + table.schema().columns().size() + " columns");
+                bindings.clear();
+                reuse = org.apache.iceberg.data.GenericRecord.create(table.schema());
+            }
+            Binding binding = Binding.compile(table.schema().asStruct(), rowSchema);
+            bindings.put(rowSchema, binding);
+            return binding;
+        }
+
+        private DataWriter<Record> newFile() {
+            String name = filePrefix + (fileCount++) + ".parquet";
+            OutputFile out = table.io().newOutputFile(table.locationProvider().newDataLocation(name));
+            try {
+                return Parquet.writeData(out)
+                        .schema(table.schema())
+                        .withSpec(PartitionSpec.unpartitioned())
+                        .setAll(table.properties())
+                        .metricsConfig(MetricsConfig.forTable(table))
+                        .createWriterFunc(GenericParquetWriter::buildWriter)
+                        .overwrite()
+                        .build();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open Parquet file for " + table.name(), e);
+            }
+        }
+
+        private void roll() {
+            if (current == null) return;
+            try {
+                current.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot close Parquet file for " + table.name(), e);
+            }
+            files.add(current.toDataFile());
+            current = null;
+            rowsInFile = 0;
+        }
+
+        void commit() {
+            roll();
+            if (files.isEmpty()) return;
+            AppendFiles append = table.newAppend();
+            for (DataFile f : files) {
+                append.appendFile(f);
+            }
+            append.commit();
+            files.clear();
+        }
+
+        void abort() {
+            try {
+                roll();
+            } catch (UncheckedIOException e) {
+                // the half-written file is orphaned either way
+            }
+            for (DataFile f : files) {
+                table.io().deleteFile(f.path().toString());
+            }
+            files.clear();
+        }
+    }
+
+    /** Avro value -> Iceberg generic value for one column type. */
+    private interface Converter {
+        Object convert(Object value);
+    }
+
+    /** Row field positions and converters per table column, compiled once per (table schema, row schema). */
+    private static final class Binding {
+        private final int[] source;
+        private final String[] names;
+        private final Converter[] converters;
+
+        private Binding(int[] source, String[] names, Converter[] converters) {
+            this.source = source;
+            this.names = names;
+            this.converters = converters;
+        }
+
+        static Binding compile(Types.StructType struct, org.apache.avro.Schema rowSchema) {
+            Map<String, org.apache.avro.Schema.Field> byName = new HashMap<>();
+            for (org.apache.avro.Schema.Field f : rowSchema.getFields()) {
+                byName.put(f.name().toLowerCase(), f);
+            }
+            List<Types.NestedField> columns = struct.fields();
+            int[] source = new int[columns.size()];
+            Converter[] converters = new Converter[columns.size()];
+            String[] names = new String[columns.size()];
+            for (int i = 0; i < columns.size(); i++) {
+                org.apache.avro.Schema.Field f = byName.get(columns.get(i).name().toLowerCase());
+                source[i] = f == null ? -1 : f.pos();
+                names[i] = columns.get(i).name();
+                if (f != null) checkDecimalScale(columns.get(i), nonNull(f.schema()));
+                converters[i] = f == null ? null : converter(columns.get(i).type(), nonNull(f.schema()));
+            }
+            return new Binding(source, names, converters);
+        }
+
+        void fill(GenericRecord row, Record out) {
+            for (int i = 0; i < source.length; i++) {
+                Object v = source[i] < 0 ? null : row.get(source[i]);
+                try {
+                    out.set(i, v == null ? null : converters[i].convert(v));
+                } catch (RowConversionException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    throw new RowConversionException("column " + names[i] + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * A decimal column narrower in scale than its source would have to round every value: the table
+     * was created with another scale (by the Connect sink, or from an older schema) and needs a
+     * migration, so the binding fails instead of each row.
+     */
+    private static void checkDecimalScale(Types.NestedField column, org.apache.avro.Schema avro) {
+        if (column.type().typeId() != Type.TypeID.DECIMAL || !(avro.getObjectProp("scale") instanceof Number n)) return;
+        Types.DecimalType decimal = (Types.DecimalType) column.type();
+        if (n.intValue() > decimal.scale()) {
+            throw new IllegalStateException("Iceberg column " + column.name() + " is " + decimal + " but the silver schema has scale "
+                    + n.intValue() + "; values would be rounded. Migrate the table column to scale " + n.intValue());
+        }
+    }
+
+    /** A row value that does not fit its table column (e.g. a variable-scale decimal with more digits than the column). */
+    static final class RowConversionException extends RuntimeException {
+        RowConversionException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private static org.apache.avro.Schema nonNull(org.apache.avro.Schema s) {
+        if (s.getType() != org.apache.avro.Schema.Type.UNION) return s;
+        org.apache.avro.Schema only = null;
+        for (org.apache.avro.Schema branch : s.getTypes()) {
+            if (branch.getType() == org.apache.avro.Schema.Type.NULL) continue;
+            if (only != null) return s;
+            only = branch;
+        }
+        return only != null ? only : s;
+    }
+
+    private static Converter converter(Type type, org.apache.avro.Schema avro) {
+        switch (type.typeId()) {
+            case STRING:
+                return v -> v instanceof CharSequence ? v : v.toString();
+            case INTEGER:
+                return v -> ((Number) v).intValue();
+            case LONG:
+                return v -> ((Number) v).longValue();
+            case FLOAT:
+                return v -> ((Number) v).floatValue();
+            case DOUBLE:
+                return v -> ((Number) v).doubleValue();
+            case BOOLEAN:
+                return v -> v;
+            case DECIMAL: {
+                int scale = ((Types.DecimalType) type).scale();
+                int sourceScale = avro.getObjectProp("scale") instanceof Number n ? n.intValue() : scale;
+                return v -> {
+                    BigDecimal d;
+                    if (v instanceof BigDecimal bd) {
+                        d = bd;
+                    } else if (v instanceof ByteBuffer bb) {
+                        byte[] bytes = new byte[bb.remaining()];
+                        bb.duplicate().get(bytes);
+                        d = new BigDecimal(new BigInteger(bytes), sourceScale);
+                    } else if (v instanceof GenericFixed fixed) {
+                        d = new BigDecimal(new BigInteger(fixed.bytes()), sourceScale);
+                    } else {
+                        d = new BigDecimal(v.toString());
+                    }
+                    return d.scale() == scale ? d : d.setScale(scale, RoundingMode.UNNECESSARY);
+                };
+            }
+            case DATE:
+                return v -> DateTimeUtil.dateFromDays(((Number) v).intValue());
+            case TIME: {
+                boolean millis = "time-millis".equals(avro.getProp("logicalType"));
+                return v -> DateTimeUtil.timeFromMicros(millis ? ((Number) v).longValue() * 1000 : ((Number) v).longValue());
+            }
+            case TIMESTAMP: {
+                boolean millis = "timestamp-millis".equals(avro.getProp("logicalType"))
+                        || "local-timestamp-millis".equals(avro.getProp("logicalType"));
+                boolean utc = ((Types.TimestampType) type).shouldAdjustToUTC();
+                return v -> {
+                    long micros = millis ? ((Number) v).longValue() * 1000 : ((Number) v).longValue();
+                    return utc ? DateTimeUtil.timestamptzFromMicros(micros) : DateTimeUtil.timestampFromMicros(micros);
+                };
+            }
+            case UUID:
+                return v -> v instanceof UUID ? v : UUID.fromString(v.toString());
+            case FIXED:
+                return v -> v instanceof GenericFixed f ? f.bytes() : v;
+            case BINARY:
+                return v -> v instanceof GenericFixed f ? ByteBuffer.wrap(f.bytes()) : v;
+            case STRUCT: {
+                Types.StructType struct = type.asStructType();
+                Binding nested = Binding.compile(struct, avro);
+                return v -> {
+                    Record r = org.apache.iceberg.data.GenericRecord.create(struct);
+                    nested.fill((GenericRecord) v, r);
+                    return r;
+                };
+            }
+            case LIST: {
+                Types.ListType list = type.asListType();
+                Converter element = converter(list.elementType(), nonNull(avro.getElementType()));
+                return v -> {
+                    List<Object> out = new ArrayList<>();
+                    for (Object e : (Iterable<?>) v) {
+                        out.add(e == null ? null : element.convert(e));
+                    }
+                    return out;
+                };
+            }
+            case MAP: {
+                Types.MapType map = type.asMapType();
+                Converter value = converter(map.valueType(), nonNull(avro.getValueType()));
+                return v -> {
+                    Map<Object, Object> out = new HashMap<>();
+                    for (Map.Entry<?, ?> e : ((Map<?, ?>) v).entrySet()) {
+                        out.put(e.getKey().toString(), e.getValue() == null ? null : value.convert(e.getValue()));
+                    }
+                    return out;
+                };
+            }
+            default:
+                return v -> v;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * SILVER_SINK=iceberg settings: which catalog {@link IcebergSilverRunner} writes to and how often it commits.
+ *
+ * Catalog properties use the plain Iceberg keys (type, uri, warehouse, io-impl, s3.endpoint, ...), i.e.
+ * the Kafka Connect sink's "iceberg.catalog.*" keys without the prefix.
+ */
+public final class IcebergSinkConfig {
+
+    public final String catalogName;
+    public final Map<String, String> catalogProps;
+    /** Upper bound between Iceberg commits (and therefore offset commits). */
+    public final long commitIntervalMs;
+    /** Buffered records that trigger an early commit. */
+    public final long commitMaxRecords;
+    /** Parquet file size at which a table's writer rolls to a new file within one commit. */
+    public final long targetFileBytes;
+
+    public IcebergSinkConfig(
+            String catalogName,
+            Map<String, String> catalogProps,
+            long commitIntervalMs,
+            long commitMaxRecords,
+            long targetFileBytes
+    ) {
+        this.catalogName = catalogName;
+        this.catalogProps = Map.copyOf(catalogProps);
+        this.commitIntervalMs = commitIntervalMs;
+        this.commitMaxRecords = commitMaxRecords;
+        this.targetFileBytes = targetFileBytes;
+    }
+
+    /** Properties file of catalog keys; env/system overrides are applied on top by the caller. */
+    static Map<String, String> loadCatalogProperties(String path) {
+        Map<String, String> props = new HashMap<>();
+        if (path == null || path.isBlank()) {
+            return props;
+        }
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(Path.of(path))) {
+            p.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read Iceberg catalog properties " + path, e);
+        }
+        for (String key : p.stringPropertyNames()) {
+            props.put(key, p.getProperty(key));
+        }
+        return props;
+    }
+
+    @Override
+    public String toString() {
+        return "catalog=" + catalogName + " type=" + catalogProps.getOrDefault("type", "?")
+                + " commitIntervalMs=" + commitIntervalMs + " commitMaxRecords=" + commitMaxRecords;
+    }
+}
@@ -0,0 +1,934 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import et.gov.lakehouse.govaggregator.common.SchemaRegistryCache;
+import et.gov.lakehouse.govaggregator.common.SerdeFactory;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parallel initial load of Oracle tables into their bronze topics, in place of the Debezium initial
+ * snapshot, which reads one table at a time on one connection.
+ *
+ * Each table is cut into BACKFILL_CHUNKS ranges of its leading primary-key column (ROWID ranges with
+ * BACKFILL_SPLIT=rowid) by one NTILE pass; BACKFILL_THREADS connections read the ranges with
+ * BACKFILL_FETCH_SIZE rows per round trip. Every row goes to BACKFILL_TOPIC_PREFIX + table as an op=r
+ * envelope under the connector's JSON key, so it lands on the partition the connector would pick.
+ * The envelope schema is the one registered for "<topic>-value"; when there is none yet it is
+ * derived from the JDBC column types with Debezium's Oracle mapping (decimal.handling.mode=precise,
+ * time.precision.mode=adaptive). The last row of each table carries source.snapshot
+ * last_in_data_collection, like the connector's snapshot.
+ *
+ * On Oracle every range reads AS OF one SCN, so all tables form one consistent image, and a
+ * successful run writes BACKFILL_HANDOFF_FILE: the Kafka Connect offset that makes the connector
+ * start log mining at the oldest transaction still open at that SCN. Any other JDBC database (a
+ * local stand-in) is read without flashback and gets no hand-off.
+ */
+public final class JdbcSnapshotBackfill {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String DECIMAL = "org.apache.kafka.connect.data.Decimal";
+    private static final String VARIABLE_SCALE_DECIMAL = "io.debezium.data.VariableScaleDecimal";
+    private static final String TIMESTAMP = "io.debezium.time.Timestamp";
+    private static final String MICRO_TIMESTAMP = "io.debezium.time.MicroTimestamp";
+    private static final String NANO_TIMESTAMP = "io.debezium.time.NanoTimestamp";
+    private static final String ZONED_TIMESTAMP = "io.debezium.time.ZonedTimestamp";
+    private static final String DATE = "io.debezium.time.Date";
+    private static final String TIME = "io.debezium.time.Time";
+    private static final String MICRO_TIME = "io.debezium.time.MicroTime";
+    /** Oracle TIMESTAMP WITH TIME ZONE / WITH LOCAL TIME ZONE (oracle.jdbc.OracleTypes). */
+    private static final int ORACLE_TSTZ = -101;
+    private static final int ORACLE_TSLTZ = -102;
+    private static final int ORACLE_BINARY_FLOAT = 100;
+    private static final int ORACLE_BINARY_DOUBLE = 101;
+
+    private static String sysOrEnv(String sysKey, String envKey, String defVal) {
+        String v = System.getProperty(sysKey);
+        if (v != null && !v.isBlank()) return v;
+        v = System.getenv(envKey);
+        return (v != null && !v.isBlank()) ? v : defVal;
+    }
+
+    /** Opens one JDBC connection; every reader thread holds its own. */
+    @FunctionalInterface
+    interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private final ConnectionFactory connections;
+    private final Producer<byte[], byte[]> producer;
+    private final String registryUrl;
+    private final String groupId;
+    private final String dbSchema;
+    private final List<String> tableNames;
+    private final boolean rowidSplit;
+    private final int chunks;
+    private final int threads;
+    private final int fetchSize;
+    private final String topicPrefix;
+    private final String serverName;
+    private final String dbName;
+    private final Long pinnedScn;
+    private final Path handoffFile;
+    private final long reportMs;
+
+    private final List<Connection> opened = Collections.synchronizedList(new ArrayList<>());
+    private final ThreadLocal<Connection> connection = new ThreadLocal<>();
+    private final ThreadLocal<Serializer<GenericRecord>> serializer;
+    private final AtomicReference<Exception> sendError = new AtomicReference<>();
+    private final AtomicInteger tablesLeft = new AtomicInteger();
+    private final AtomicInteger chunksDone = new AtomicInteger();
+    private final LongAdder rows = new LongAdder();
+
+    private boolean oracle;
+    private String quote = "\"";
+    private Long scn;
+
+    JdbcSnapshotBackfill(ConnectionFactory connections, Producer<byte[], byte[]> producer, String registryUrl, String groupId,
+                         String dbSchema, List<String> tableNames, boolean rowidSplit, int chunks, int threads, int fetchSize,
+                         String topicPrefix, String serverName, String dbName, Long pinnedScn, Path handoffFile, long reportMs) {
+        if (tableNames.isEmpty()) {
+            throw new IllegalStateException("BACKFILL_TABLES is empty");
+        }
+        this.connections = connections;
+        this.producer = producer;
+        this.registryUrl = registryUrl;
+        this.groupId = groupId;
+        this.dbSchema = dbSchema;
+        this.tableNames = tableNames;
+        this.rowidSplit = rowidSplit;
+        this.chunks = Math.max(1, chunks);
+        this.threads = Math.max(1, threads);
+        this.fetchSize = fetchSize;
+        this.topicPrefix = topicPrefix;
+        this.serverName = serverName;
+        this.dbName = dbName;
+        this.pinnedScn = pinnedScn;
+        this.handoffFile = handoffFile;
+        this.reportMs = reportMs;
+        this.serializer = ThreadLocal.withInitial(() -> SerdeFactory.<GenericRecord>avroSerde(registryUrl, groupId, true).serializer());
+    }
+
+    public static void main(String[] args) {
+        // Same connection settings as data-lakehouse-ops/OracleProbe.java.
+        String url = sysOrEnv("oracle.url", "ORACLE_URL", "jdbc:oracle:thin:@//host.docker.internal:1521/ESWTEST");
+        String user = sysOrEnv("oracle.user", "ORACLE_USER", "DEBEZIUM");
+        String password = sysOrEnv("oracle.password", "ORACLE_PASSWORD", "debezium_pw");
+
+        Properties pp = new Properties();
+        pp.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, sysOrEnv("bootstrap.servers", "BOOTSTRAP_SERVERS", "localhost:9092"));
+        pp.put(ProducerConfig.CLIENT_ID_CONFIG, "jdbc-backfill");
+        pp.put(ProducerConfig.ACKS_CONFIG, "all");
+        pp.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        pp.put(ProducerConfig.LINGER_MS_CONFIG, sysOrEnv("backfill.linger.ms", "BACKFILL_LINGER_MS", "50"));
+        pp.put(ProducerConfig.BATCH_SIZE_CONFIG, sysOrEnv("backfill.batch.bytes", "BACKFILL_BATCH_BYTES", "524288"));
+        pp.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, sysOrEnv("backfill.compression", "BACKFILL_COMPRESSION", "lz4"));
+        pp.put(ProducerConfig.BUFFER_MEMORY_CONFIG, "134217728");
+
+        String pinned = sysOrEnv("backfill.scn", "BACKFILL_SCN", "");
+        String handoff = sysOrEnv("backfill.handoff.file", "BACKFILL_HANDOFF_FILE", "backfill-handoff.json");
+        int threads = Integer.parseInt(sysOrEnv("backfill.threads", "BACKFILL_THREADS", "8"));
+        boolean ok;
+        try (KafkaProducer<byte[], byte[]> producer = new KafkaProducer<>(pp, new ByteArraySerializer(), new ByteArraySerializer())) {
+            ok = new JdbcSnapshotBackfill(
+                    () -> DriverManager.getConnection(url, user, password),
+                    producer,
+                    sysOrEnv("apicurio.registry.url", "APICURIO_URL", "http://localhost:8080/apis/registry/v2"),
+                    sysOrEnv("apicurio.registry.group.bronze", "BRONZE_APICURIO_GROUP_ID", "oracle-esw"),
+                    sysOrEnv("backfill.schema", "BACKFILL_SCHEMA", "ESW"),
+                    csv(sysOrEnv("backfill.tables", "BACKFILL_TABLES", "")),
+                    sysOrEnv("backfill.split", "BACKFILL_SPLIT", "pk").trim().equalsIgnoreCase("rowid"),
+                    Integer.parseInt(sysOrEnv("backfill.chunks", "BACKFILL_CHUNKS", String.valueOf(4 * threads))),
+                    threads,
+                    Integer.parseInt(sysOrEnv("backfill.fetch.size", "BACKFILL_FETCH_SIZE", "10000")),
+                    sysOrEnv("backfill.topic.prefix", "BACKFILL_TOPIC_PREFIX", "raw-"),
+                    sysOrEnv("backfill.server.name", "BACKFILL_SERVER_NAME", "oracle_esw"),
+                    sysOrEnv("backfill.db.name", "BACKFILL_DB_NAME", "ESWTEST"),
+                    pinned.isEmpty() ? null : Long.valueOf(pinned.trim()),
+                    handoff.isEmpty() ? null : Path.of(handoff),
+                    Long.parseLong(sysOrEnv("backfill.report.s", "BACKFILL_REPORT_S", "10")) * 1000
+            ).run();
+        } catch (Exception e) {
+            System.out.println("[jdbc-backfill] failed: " + e);
+            e.printStackTrace(System.out);
+            ok = false;
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static List<String> csv(String s) {
+        return Arrays.stream(s.split(",")).map(String::trim).filter(t -> !t.isEmpty()).toList();
+    }
+
+    /** Reads every table and waits for every write; true when all rows are acknowledged. */
+    boolean run() throws Exception {
+        long start = System.currentTimeMillis();
+        Long resumeScn = null;
+        List<Table> tables = new ArrayList<>();
+        List<Chunk> work = new ArrayList<>();
+        try (Connection c = connections.open()) {
+            DatabaseMetaData md = c.getMetaData();
+            oracle = md.getDatabaseProductName().toLowerCase().contains("oracle");
+            String q = md.getIdentifierQuoteString();
+            quote = q == null || q.isBlank() ? "" : q.trim();
+            if (oracle) {
+                if (pinnedScn != null) {
+                    scn = pinnedScn;
+                } else {
+                    // Mining must start at or before every transaction open at the read SCN: the oldest
+                    // open one, or the SCN before it was looked up (a transaction that commits in
+                    // between started before that).
+                    long before = currentScn(c);
+                    Long oldestOpen = oldestOpenTransaction(c);
+                    scn = currentScn(c);
+                    resumeScn = oldestOpen != null ? Math.min(before, oldestOpen) : before;
+                }
+                System.out.println("[jdbc-backfill] reading AS OF SCN " + scn
+                        + (resumeScn != null ? "; connector resumes mining at SCN " + resumeScn : "; BACKFILL_SCN is pinned, no hand-off written"));
+            } else {
+                scn = pinnedScn;
+                System.out.println("[jdbc-backfill] " + md.getDatabaseProductName() + " is not Oracle: no flashback "
+                        + "query, so the tables are read as they are, with no SCN hand-off");
+            }
+            for (String name : tableNames) {
+                Table t = table(c, name);
+                List<Object> bounds = bounds(c, t);
+                t.chunksLeft.set(bounds.size() + 1);
+                for (int i = 0; i <= bounds.size(); i++) {
+                    work.add(new Chunk(t, i == 0 ? null : bounds.get(i - 1), i < bounds.size() ? bounds.get(i) : null));
+                }
+                tables.add(t);
+                System.out.println("[jdbc-backfill] " + t.name + " -> " + t.topic + ": " + t.columns.size() + " columns, "
+                        + (bounds.size() + 1) + " chunks by " + (t.splitColumn != null ? t.splitColumn : "none")
+                        + ", schema " + (t.registered ? "registered" : "derived"));
+            }
+        }
+        tablesLeft.set(tables.size());
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "jdbc-backfill");
+            t.setDaemon(true);
+            return t;
+        });
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "jdbc-backfill-report");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicLong lastRows = new AtomicLong();
+        AtomicLong lastAt = new AtomicLong(start);
+        reporter.scheduleAtFixedRate(() -> report(start, work.size(), lastRows, lastAt), reportMs, reportMs, TimeUnit.MILLISECONDS);
+
+        boolean ok = true;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Chunk chunk : work) {
+                futures.add(pool.submit(() -> {
+                    read(chunk);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    if (ok) {
+                        System.out.println("[jdbc-backfill] chunk failed, stopping: " + e.getCause());
+                        e.getCause().printStackTrace(System.out);
+                    }
+                    ok = false;
+                    futures.forEach(other -> other.cancel(true));
+                }
+            }
+            producer.flush();
+        } finally {
+            pool.shutdownNow();
+            reporter.shutdownNow();
+            synchronized (opened) {
+                for (Connection c : opened) {
+                    try {
+                        c.close();
+                    } catch (SQLException ignored) {
+                        // closing
+                    }
+                }
+            }
+        }
+        if (sendError.get() != null) {
+            System.out.println("[jdbc-backfill] write failed: " + sendError.get());
+            ok = false;
+        }
+        report(start, work.size(), lastRows, lastAt);
+        for (Table t : tables) {
+            System.out.println("[jdbc-backfill] " + t.name + ": " + t.rows.sum() + " rows");
+        }
+        if (!ok) {
+            System.out.println("[jdbc-backfill] incomplete; rerun (with BACKFILL_SCN=" + scn + " to read the same image, "
+                    + "BACKFILL_TABLES for the failed tables only). Rows already written are rewritten unchanged.");
+            return false;
+        }
+        if (resumeScn != null && handoffFile != null) {
+            writeHandoff(resumeScn);
+        }
+        System.out.println("[jdbc-backfill] done in " + (System.currentTimeMillis() - start) / 1000 + " s");
+        return true;
+    }
+
+    private synchronized void report(long start, int total, AtomicLong lastRows, AtomicLong lastAt) {
+        long now = rows.sum();
+        long at = System.currentTimeMillis();
+        long prev = lastRows.getAndSet(now);
+        long since = at - lastAt.getAndSet(at);
+        System.out.println("[jdbc-backfill] +" + (at - start) / 1000 + "s: " + now + " rows ("
+                + (now - prev) * 1000 / Math.max(1, since) + "/s), chunks " + chunksDone.get() + "/" + total);
+    }
+
+    /**
+     * Connect offsets API body (PATCH /connectors/&lt;name&gt;/offsets on the stopped connector): the
+     * Debezium Oracle source partition and the SCN to resume mining at.
+     */
+    private void writeHandoff(long resumeScn) throws IOException {
+        ObjectNode body = JSON.createObjectNode();
+        ObjectNode entry = body.putArray("offsets").addObject();
+        entry.putObject("partition").put("server", serverName);
+        entry.putObject("offset").put("scn", String.valueOf(resumeScn));
+        Files.writeString(handoffFile, JSON.writerWithDefaultPrettyPrinter().writeValueAsString(body) + "\n");
+        System.out.println("[jdbc-backfill] hand-off: " + handoffFile.toAbsolutePath() + " (resume SCN " + resumeScn
+                + ", snapshot SCN " + scn + ")");
+    }
+
+    private static long currentScn(Connection c) throws SQLException {
+        try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery("SELECT CURRENT_SCN FROM V$DATABASE")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static Long oldestOpenTransaction(Connection c) throws SQLException {
+        try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery("SELECT MIN(START_SCN) FROM V$TRANSACTION")) {
+            rs.next();
+            long v = rs.getLong(1);
+            return rs.wasNull() ? null : v;
+        }
+    }
+
+    // ---- Table metadata ----
+
+    record Column(String name, int jdbcType, String typeName, int size, int digits, boolean nullable) {}
+
+    record Chunk(Table table, Object lower, Object upper) {}
+
+    static final class Table {
+        final String name;
+        final String topic;
+        final List<Column> columns;
+        final Set<String> keyColumns;
+        final Schema envelope;
+        final boolean registered;
+        /** Leading primary-key column or ROWID; null reads the table as one chunk. */
+        String splitColumn;
+        final AtomicInteger chunksLeft = new AtomicInteger();
+        final LongAdder rows = new LongAdder();
+
+        Table(String name, String topic, List<Column> columns, Set<String> keyColumns, Schema envelope, boolean registered) {
+            this.name = name;
+            this.topic = topic;
+            this.columns = columns;
+            this.keyColumns = keyColumns;
+            this.envelope = envelope;
+            this.registered = registered;
+        }
+    }
+
+    private Table table(Connection c, String requested) throws SQLException {
+        DatabaseMetaData md = c.getMetaData();
+        String name = requested;
+        List<Column> columns = List.of();
+        for (String candidate : new String[]{requested, requested.toUpperCase(), requested.toLowerCase()}) {
+            columns = columns(md, candidate);
+            if (!columns.isEmpty()) {
+                name = candidate;
+                break;
+            }
+        }
+        if (columns.isEmpty()) {
+            throw new IllegalStateException("No columns visible for " + dbSchema + "." + requested);
+        }
+        List<String> pk = new ArrayList<>();
+        try (ResultSet rs = md.getPrimaryKeys(null, dbSchema, name)) {
+            while (rs.next()) pk.add(rs.getString("COLUMN_NAME"));
+        }
+        // Debezium orders key fields by column position, not by constraint position.
+        Set<String> keyColumns = new LinkedHashSet<>();
+        for (Column col : columns) {
+            if (pk.contains(col.name())) keyColumns.add(col.name());
+        }
+
+        String topic = topicPrefix + requested;
+        Schema envelope = registeredEnvelope(topic);
+        boolean registered = envelope != null;
+        if (envelope == null) {
+            envelope = deriveEnvelope(serverName + "." + dbSchema + "." + name, columns, keyColumns);
+        } else {
+            Schema value = valueSchema(envelope);
+            for (Column col : columns) {
+                if (value.getField(col.name()) == null) {
+                    System.out.println("[jdbc-backfill] " + name + "." + col.name() + " is not in the registered schema of "
+                            + topic + "; skipped (restart the connector once to register the new column)");
+                }
+            }
+        }
+        Table t = new Table(name, topic, columns, keyColumns, envelope, registered);
+        if (rowidSplit && oracle) {
+            t.splitColumn = "ROWID";
+        } else if (!keyColumns.isEmpty()) {
+            t.splitColumn = pk.get(0);
+        } else if (oracle) {
+            t.splitColumn = "ROWID";
+        }
+        return t;
+    }
+
+    private List<Column> columns(DatabaseMetaData md, String table) throws SQLException {
+        List<Column> out = new ArrayList<>();
+        try (ResultSet rs = md.getColumns(null, dbSchema, table, null)) {
+            while (rs.next()) {
+                out.add(new Column(rs.getString("COLUMN_NAME"), rs.getInt("DATA_TYPE"), rs.getString("TYPE_NAME"),
+                        rs.getInt("COLUMN_SIZE"), rs.getInt("DECIMAL_DIGITS"),
+                        rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls));
+            }
+        }
+        return out;
+    }
+
+    /** Latest registered "<topic>-value" schema, or null when the connector has not written the topic yet. */
+    private Schema registeredEnvelope(String topic) {
+        try (InputStream in = SchemaRegistryCache.forUrl(registryUrl).client().getLatestArtifact(groupId, topic + "-value")) {
+            return new Schema.Parser().parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ---- Chunking ----
+
+    /** Lower bounds of chunks 2..n in split-column order (one NTILE pass); empty for one chunk. */
+    private List<Object> bounds(Connection c, Table t) throws SQLException {
+        if (chunks <= 1 || t.splitColumn == null) return List.of();
+        boolean rowid = t.splitColumn.equals("ROWID");
+        String key = rowid ? "ROWID" : quoted(t.splitColumn);
+        String sql = "SELECT " + (rowid ? "ROWIDTOCHAR(MIN(k))" : "MIN(k)")
+                + " FROM (SELECT " + key + " k, NTILE(" + chunks + ") OVER (ORDER BY " + key + ") nt FROM " + from(t) + ") b"
+                + " GROUP BY nt ORDER BY nt";
+        List<Object> bounds = new ArrayList<>();
+        try (Statement st = c.createStatement()) {
+            st.setFetchSize(chunks);
+            try (ResultSet rs = st.executeQuery(sql)) {
+                boolean first = true;
+                while (rs.next()) {
+                    Object v = rowid ? rs.getString(1) : rs.getObject(1);
+                    // The first group starts at the minimum: chunk 1 is open below. Ties on a composite
+                    // key's leading column collapse into one bound.
+                    if (!first && v != null && (bounds.isEmpty() || !v.equals(bounds.get(bounds.size() - 1)))) {
+                        bounds.add(v);
+                    }
+                    first = false;
+                }
+            }
+        }
+        return bounds;
+    }
+
+    private String from(Table t) {
+        return quoted(dbSchema) + "." + quoted(t.name) + (oracle && scn != null ? " AS OF SCN " + scn : "");
+    }
+
+    private String quoted(String identifier) {
+        return quote + identifier + quote;
+    }
+
+    private String chunkSql(Chunk chunk) {
+        Table t = chunk.table();
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < t.columns.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(quoted(t.columns.get(i).name()));
+        }
+        sql.append(" FROM ").append(from(t));
+        if (chunk.lower() != null || chunk.upper() != null) {
+            boolean rowid = "ROWID".equals(t.splitColumn);
+            String key = rowid ? "ROWID" : quoted(t.splitColumn);
+            String bind = rowid ? "CHARTOROWID(?)" : "?";
+            sql.append(" WHERE ");
+            if (chunk.lower() != null) sql.append(key).append(" >= ").append(bind);
+            if (chunk.lower() != null && chunk.upper() != null) sql.append(" AND ");
+            if (chunk.upper() != null) sql.append(key).append(" < ").append(bind);
+        }
+        return sql.toString();
+    }
+
+    // ---- Reading ----
+
+    private Connection connection() throws SQLException {
+        Connection c = connection.get();
+        if (c == null) {
+            c = connections.open();
+            c.setReadOnly(true);
+            // Drivers such as PostgreSQL only stream with a fetch size inside a transaction.
+            c.setAutoCommit(false);
+            opened.add(c);
+            connection.set(c);
+        }
+        return c;
+    }
+
+    private void read(Chunk chunk) throws SQLException {
+        Table t = chunk.table();
+        Serializer<GenericRecord> ser = serializer.get();
+        RowReader[] readers = readers(t);
+        try (PreparedStatement st = connection().prepareStatement(chunkSql(chunk))) {
+            st.setFetchSize(fetchSize);
+            int p = 1;
+            for (Object bound : new Object[]{chunk.lower(), chunk.upper()}) {
+                if (bound != null) st.setObject(p++, bound);
+            }
+            try (ResultSet rs = st.executeQuery()) {
+                // Each row is sent one row late, so the table's very last row can still be marked.
+                Row[] rows = {new Row(t, serverName, dbName, scn), new Row(t, serverName, dbName, scn)};
+                int current = 0;
+                boolean pending = false;
+                while (rs.next()) {
+                    if (sendError.get() != null) throw new IllegalStateException("write failed", sendError.get());
+                    if (Thread.currentThread().isInterrupted()) throw new IllegalStateException("cancelled");
+                    rows[current].fill(rs, readers);
+                    if (pending) send(t, rows[current ^ 1], "true", ser);
+                    pending = true;
+                    current ^= 1;
+                }
+                String marker = "true";
+                if (t.chunksLeft.decrementAndGet() == 0) {
+                    marker = tablesLeft.decrementAndGet() == 0 ? "last" : "last_in_data_collection";
+                }
+                if (pending) send(t, rows[current ^ 1], marker, ser);
+            }
+        }
+        connection().commit();
+        chunksDone.incrementAndGet();
+    }
+
+    private void send(Table t, Row row, String snapshotMarker, Serializer<GenericRecord> ser) {
+        row.snapshot(snapshotMarker);
+        byte[] value = ser.serialize(t.topic, row.envelope);
+        producer.send(new ProducerRecord<>(t.topic, null, row.key, value), (md, e) -> {
+            if (e != null) sendError.compareAndSet(null, e);
+        });
+        t.rows.increment();
+        rows.increment();
+    }
+
+    /** Reusable envelope for one table; the serializer copies it out on send. */
+    private static final class Row {
+        final GenericData.Record envelope;
+        final GenericData.Record after;
+        final GenericData.Record source;
+        final int[] positions;
+        final String[] keyNames;
+        final int[] keyPositions;
+        byte[] key;
+
+        Row(Table t, String serverName, String dbName, Long scn) {
+            envelope = new GenericData.Record(t.envelope);
+            Schema value = valueSchema(t.envelope);
+            after = new GenericData.Record(value);
+            Schema sourceSchema = nonNull(t.envelope.getField("source").schema());
+            source = new GenericData.Record(sourceSchema);
+            for (Schema.Field f : sourceSchema.getFields()) {
+                if (f.hasDefaultValue()) source.put(f.pos(), GenericData.get().getDefaultValue(f));
+            }
+            long now = System.currentTimeMillis();
+            put(source, "version", "jdbc-backfill");
+            put(source, "connector", "oracle");
+            put(source, "name", serverName);
+            put(source, "ts_ms", now);
+            put(source, "ts_us", now * 1000);
+            put(source, "ts_ns", now * 1_000_000);
+            put(source, "db", dbName);
+            put(source, "schema", schemaOf(t.envelope));
+            put(source, "table", t.name);
+            if (scn != null) put(source, "scn", String.valueOf(scn));
+
+            for (Schema.Field f : t.envelope.getFields()) {
+                if (f.hasDefaultValue()) envelope.put(f.pos(), GenericData.get().getDefaultValue(f));
+            }
+            put(envelope, "after", after);
+            put(envelope, "source", source);
+            put(envelope, "op", "r");
+            put(envelope, "ts_ms", now);
+            put(envelope, "ts_us", now * 1000);
+            put(envelope, "ts_ns", now * 1_000_000);
+
+            positions = new int[t.columns.size()];
+            List<String> keys = new ArrayList<>();
+            List<Integer> keyPos = new ArrayList<>();
+            for (int i = 0; i < positions.length; i++) {
+                Schema.Field f = value.getField(t.columns.get(i).name());
+                positions[i] = f != null ? f.pos() : -1;
+                if (f != null && t.keyColumns.contains(f.name())) {
+                    keys.add(f.name());
+                    keyPos.add(f.pos());
+                }
+            }
+            keyNames = keys.toArray(new String[0]);
+            keyPositions = keyPos.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        void fill(ResultSet rs, RowReader[] readers) throws SQLException {
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] >= 0) after.put(positions[i], readers[i].read(rs, i + 1));
+            }
+            key = keyNames.length == 0 ? null : keyJson(after, keyNames, keyPositions);
+        }
+
+        void snapshot(String marker) {
+            put(source, "snapshot", marker);
+        }
+
+        private static String schemaOf(Schema envelope) {
+            // <server>.<schema>.<table>
+            String[] parts = envelope.getNamespace() != null ? envelope.getNamespace().split("\\.") : new String[0];
+            return parts.length >= 2 ? parts[parts.length - 2] : "";
+        }
+
+        private static void put(GenericData.Record r, String field, Object v) {
+            Schema.Field f = r.getSchema().getField(field);
+            if (f != null) r.put(f.pos(), v);
+        }
+    }
+
+    /**
+     * The connector's key: JsonConverter with schemas disabled over the key columns, decimals and
+     * bytes as base64. Byte-identical, so the default partitioner picks the same partition.
+     */
+    static byte[] keyJson(GenericRecord after, String[] names, int[] positions) {
+        ObjectNode key = JSON.createObjectNode();
+        for (int i = 0; i < names.length; i++) {
+            Object v = after.get(positions[i]);
+            if (v == null) key.putNull(names[i]);
+            else if (v instanceof CharSequence s) key.put(names[i], s.toString());
+            else if (v instanceof Integer n) key.put(names[i], n);
+            else if (v instanceof Long n) key.put(names[i], n);
+            else if (v instanceof Double n) key.put(names[i], n);
+            else if (v instanceof Float n) key.put(names[i], n);
+            else if (v instanceof Boolean b) key.put(names[i], b);
+            else if (v instanceof ByteBuffer b) key.put(names[i], base64(b));
+            else if (v instanceof GenericRecord vsd) {
+                key.putObject(names[i]).put("scale", (Integer) vsd.get("scale")).put("value", base64((ByteBuffer) vsd.get("value")));
+            } else {
+                key.put(names[i], v.toString());
+            }
+        }
+        try {
+            return JSON.writeValueAsBytes(key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String base64(ByteBuffer b) {
+        ByteBuffer d = b.duplicate();
+        byte[] bytes = new byte[d.remaining()];
+        d.get(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    // ---- Column values ----
+
+    /** JDBC column value in the Avro / Connect representation of its field. */
+    @FunctionalInterface
+    interface RowReader {
+        Object read(ResultSet rs, int i) throws SQLException;
+    }
+
+    private static RowReader[] readers(Table t) {
+        Schema value = valueSchema(t.envelope);
+        RowReader[] readers = new RowReader[t.columns.size()];
+        for (int i = 0; i < readers.length; i++) {
+            Schema.Field f = value.getField(t.columns.get(i).name());
+            readers[i] = f != null ? reader(t.name + "." + f.name(), nonNull(f.schema())) : (rs, c) -> null;
+        }
+        return readers;
+    }
+
+    static RowReader reader(String column, Schema s) {
+        String connect = s.getProp("connect.name");
+        switch (s.getType()) {
+            case STRING:
+                if (ZONED_TIMESTAMP.equals(connect)) {
+                    return (rs, i) -> {
+                        OffsetDateTime v = rs.getObject(i, OffsetDateTime.class);
+                        return v == null ? null : v.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+                    };
+                }
+                return ResultSet::getString;
+            case INT:
+                if (DATE.equals(connect)) {
+                    return (rs, i) -> {
+                        LocalDate v = rs.getObject(i, LocalDate.class);
+                        return v == null ? null : (int) v.toEpochDay();
+                    };
+                }
+                if (TIME.equals(connect)) {
+                    return (rs, i) -> {
+                        LocalTime v = rs.getObject(i, LocalTime.class);
+                        return v == null ? null : (int) (v.toNanoOfDay() / 1_000_000);
+                    };
+                }
+                return (rs, i) -> {
+                    int v = rs.getInt(i);
+                    return rs.wasNull() ? null : v;
+                };
+            case LONG:
+                if (TIMESTAMP.equals(connect) || MICRO_TIMESTAMP.equals(connect) || NANO_TIMESTAMP.equals(connect)) {
+                    // Oracle DATE / TIMESTAMP carry no zone; Debezium encodes the local value as UTC.
+                    long nanosPerUnit = TIMESTAMP.equals(connect) ? 1_000_000 : MICRO_TIMESTAMP.equals(connect) ? 1_000 : 1;
+                    return (rs, i) -> {
+                        LocalDateTime v = rs.getObject(i, LocalDateTime.class);
+                        if (v == null) return null;
+                        long seconds = v.toEpochSecond(ZoneOffset.UTC);
+                        return Math.multiplyExact(seconds, 1_000_000_000L / nanosPerUnit) + v.getNano() / nanosPerUnit;
+                    };
+                }
+                if (MICRO_TIME.equals(connect)) {
+                    return (rs, i) -> {
+                        LocalTime v = rs.getObject(i, LocalTime.class);
+                        return v == null ? null : v.toNanoOfDay() / 1_000;
+                    };
+                }
+                return (rs, i) -> {
+                    long v = rs.getLong(i);
+                    return rs.wasNull() ? null : v;
+                };
+            case BYTES:
+                if (s.getLogicalType() instanceof LogicalTypes.Decimal d) {
+                    int scale = d.getScale();
+                    return (rs, i) -> {
+                        BigDecimal v = rs.getBigDecimal(i);
+                        if (v == null) return null;
+                        try {
+                            return ByteBuffer.wrap(v.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().toByteArray());
+                        } catch (ArithmeticException e) {
+                            throw new IllegalStateException(column + " value " + v + " does not fit scale " + scale, e);
+                        }
+                    };
+                }
+                return (rs, i) -> {
+                    byte[] v = rs.getBytes(i);
+                    return v == null ? null : ByteBuffer.wrap(v);
+                };
+            case RECORD:
+                if (VARIABLE_SCALE_DECIMAL.equals(connect) || VARIABLE_SCALE_DECIMAL.equals(s.getFullName())) {
+                    return (rs, i) -> {
+                        BigDecimal v = rs.getBigDecimal(i);
+                        if (v == null) return null;
+                        GenericData.Record r = new GenericData.Record(s);
+                        r.put("scale", v.scale());
+                        r.put("value", ByteBuffer.wrap(v.unscaledValue().toByteArray()));
+                        return r;
+                    };
+                }
+                break;
+            case DOUBLE:
+                return (rs, i) -> {
+                    double v = rs.getDouble(i);
+                    return rs.wasNull() ? null : v;
+                };
+            case FLOAT:
+                return (rs, i) -> {
+                    float v = rs.getFloat(i);
+                    return rs.wasNull() ? null : v;
+                };
+            case BOOLEAN:
+                return (rs, i) -> {
+                    boolean v = rs.getBoolean(i);
+                    return rs.wasNull() ? null : v;
+                };
+            default:
+                break;
+        }
+        throw new IllegalStateException("Unsupported schema for " + column + ": " + s);
+    }
+
+    // ---- Derived envelope (no schema registered yet) ----
+
+    /** Debezium Oracle envelope for the columns; key columns are required, every other column optional. */
+    static Schema deriveEnvelope(String namespace, List<Column> columns, Set<String> keyColumns) {
+        Schema vsd = SchemaBuilder.record("VariableScaleDecimal").namespace("io.debezium.data")
+                .prop("connect.name", VARIABLE_SCALE_DECIMAL).prop("connect.version", 1)
+                .fields().requiredInt("scale").requiredBytes("value").endRecord();
+        Schema value = SchemaBuilder.record("Value").namespace(namespace).prop("connect.name", namespace + ".Value")
+                .fields().endRecord();
+        List<Schema.Field> fields = new ArrayList<>();
+        for (Column col : columns) {
+            Schema type = columnSchema(col, vsd);
+            boolean optional = col.nullable() && !keyColumns.contains(col.name());
+            fields.add(optional
+                    ? new Schema.Field(col.name(), Schema.createUnion(Schema.create(Schema.Type.NULL), type), null, Schema.Field.NULL_DEFAULT_VALUE)
+                    : new Schema.Field(col.name(), type));
+        }
+        value = Schema.createRecord(value.getName(), null, value.getNamespace(), false, fields);
+        value.addProp("connect.name", namespace + ".Value");
+
+        Schema source = SchemaBuilder.record("Source").namespace("io.debezium.connector.oracle")
+                .prop("connect.name", "io.debezium.connector.oracle.Source").fields()
+                .requiredString("version").requiredString("connector").requiredString("name").requiredLong("ts_ms")
+                .name("snapshot").type(Schema.createUnion(Schema.create(Schema.Type.STRING), Schema.create(Schema.Type.NULL))).withDefault("false")
+                .requiredString("db").optionalString("sequence").requiredString("schema")
+                .requiredString("table").optionalString("txId").optionalString("scn").optionalString("commit_scn")
+                .optionalString("lcr_position").optionalString("rs_id").optionalLong("ssn").optionalInt("redo_thread")
+                .optionalString("user_name")
+                .endRecord();
+        Schema tx = SchemaBuilder.record("block").namespace("event").fields()
+                .requiredString("id").requiredLong("total_order").requiredLong("data_collection_order")
+                .endRecord();
+        return SchemaBuilder.record("Envelope").namespace(namespace).prop("connect.name", namespace + ".Envelope").fields()
+                .name("before").type().optional().type(value)
+                .name("after").type().optional().type(value)
+                .name("source").type(source).noDefault()
+                .requiredString("op")
+                .optionalLong("ts_ms")
+                .name("transaction").type().optional().type(tx)
+                .endRecord();
+    }
+
+    static Schema columnSchema(Column col, Schema variableScaleDecimal) {
+        String typeName = col.typeName() != null ? col.typeName().toUpperCase() : "";
+        switch (col.jdbcType()) {
+            case Types.NUMERIC, Types.DECIMAL -> {
+                // Oracle NUMBER without precision: size 0, scale -127 (or 0).
+                if (col.size() == 0 || col.digits() == -127) return variableScaleDecimal;
+                if (col.digits() > 0) return decimal(col.size(), col.digits());
+                int digits = col.size() - col.digits();
+                if (digits < 10) return Schema.create(Schema.Type.INT);
+                if (digits < 19) return Schema.create(Schema.Type.LONG);
+                return decimal(digits, 0);
+            }
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> {
+                return Schema.create(Schema.Type.INT);
+            }
+            case Types.BIGINT -> {
+                return Schema.create(Schema.Type.LONG);
+            }
+            case Types.FLOAT, Types.DOUBLE, ORACLE_BINARY_DOUBLE -> {
+                return Schema.create(Schema.Type.DOUBLE);
+            }
+            case Types.REAL, ORACLE_BINARY_FLOAT -> {
+                return Schema.create(Schema.Type.FLOAT);
+            }
+            case Types.BOOLEAN, Types.BIT -> {
+                return Schema.create(Schema.Type.BOOLEAN);
+            }
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> {
+                return Schema.create(Schema.Type.BYTES);
+            }
+            case Types.DATE -> {
+                return connect(Schema.Type.INT, DATE);
+            }
+            case Types.TIME -> {
+                return col.digits() <= 3 ? connect(Schema.Type.INT, TIME) : connect(Schema.Type.LONG, MICRO_TIME);
+            }
+            case Types.TIMESTAMP -> {
+                // ojdbc reports Oracle DATE as TIMESTAMP; it has second precision.
+                if (typeName.equals("DATE") || col.digits() <= 3) return connect(Schema.Type.LONG, TIMESTAMP);
+                return connect(Schema.Type.LONG, col.digits() <= 6 ? MICRO_TIMESTAMP : NANO_TIMESTAMP);
+            }
+            case Types.TIMESTAMP_WITH_TIMEZONE, ORACLE_TSTZ, ORACLE_TSLTZ -> {
+                return connect(Schema.Type.STRING, ZONED_TIMESTAMP);
+            }
+            default -> {
+                return Schema.create(Schema.Type.STRING);
+            }
+        }
+    }
+
+    private static Schema decimal(int precision, int scale) {
+        Schema s = LogicalTypes.decimal(precision, scale).addToSchema(Schema.create(Schema.Type.BYTES));
+        s.addProp("connect.name", DECIMAL);
+        s.addProp("connect.version", 1);
+        s.addProp("connect.parameters", Map.of("scale", String.valueOf(scale), "connect.decimal.precision", String.valueOf(precision)));
+        return s;
+    }
+
+    private static Schema connect(Schema.Type type, String name) {
+        Schema s = Schema.create(type);
+        s.addProp("connect.name", name);
+        s.addProp("connect.version", 1);
+        return s;
+    }
+
+    private static Schema valueSchema(Schema envelope) {
+        return nonNull(envelope.getField("after").schema());
+    }
+
+    private static Schema nonNull(Schema s) {
+        if (s.getType() != Schema.Type.UNION) return s;
+        for (Schema branch : s.getTypes()) {
+            if (branch.getType() != Schema.Type.NULL) return branch;
+        }
+        return s;
+    }
+}
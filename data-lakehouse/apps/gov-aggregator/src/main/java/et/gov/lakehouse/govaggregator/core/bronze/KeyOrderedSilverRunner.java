@@ -0,0 +1,436 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import et.gov.lakehouse.govaggregator.common.DeadLetterQueue;
+import et.gov.lakehouse.govaggregator.common.PipelineMetrics;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.streams.StreamsConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Alternative debezium-to-silver runtime (SILVER_RUNTIME=parallel) on a plain consumer and producer.
+ *
+ * Kafka Streams runs one task per input partition, so a hot table with one or two partitions is
+ * projected on one or two threads. Here the poll thread fans records out to PARALLEL_WORKERS lanes
+ * and projection + serialization scale with cores instead. A record's lane is chosen by key hash
+ * (partition when the key is null), so all changes to one row are transformed and sent in offset order.
+ *
+ * A record is complete once its silver write is acknowledged (or it was dropped). Offsets are committed
+ * per partition only up to the lowest incomplete offset ({@link PartitionOffsets}), which keeps the
+ * at-least-once guarantee of the Streams runtime. A partition revoked before its records drain is
+ * closed to the workers, so its queued records are left to the next owner rather than written twice
+ * out of order. The consumer pauses while PARALLEL_MAX_IN_FLIGHT records are outstanding. Routing,
+ * transcoding and no-op suppression are the same as in {@link ManifestBronzeToSilverTask};
+ * SILVER_COALESCE_MS is not applied in this mode.
+ */
+public final class KeyOrderedSilverRunner implements AutoCloseable {
+
+    private static final PipelineMetrics METRICS = PipelineMetrics.global();
+    private static final String TASK = "parallel";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final long DRAIN_TIMEOUT_MS = 30_000;
+    private static final Work STOP = new Work(null, null);
+
+    private final BronzeToSilverContext ctx;
+    private final SilverManifest manifest;
+    private final NoOpUpdateFilter noOpFilter;
+    private final Map<SilverRoute, SilverTranscoder> transcoders = new ConcurrentHashMap<>();
+    private final long commitIntervalMs;
+
+    private final Consumer<byte[], byte[]> consumer;
+    private final Producer<byte[], byte[]> producer;
+    private final Lane[] lanes;
+
+    private final Map<TopicPartition, PartitionOffsets> offsets = new ConcurrentHashMap<>();
+    /** Last committed position per partition; poll thread only. */
+    private final Map<TopicPartition, Long> committed = new HashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean running = true;
+    private boolean paused;
+    private boolean closing;
+
+    public KeyOrderedSilverRunner(BronzeToSilverContext ctx) {
+        this(ctx,
+                new KafkaConsumer<>(ctx.consumerProps("-parallel-consumer"), new ByteArrayDeserializer(), new ByteArrayDeserializer()),
+                new KafkaProducer<>(producerProps(ctx), new ByteArraySerializer(), new ByteArraySerializer()));
+    }
+
+    KeyOrderedSilverRunner(BronzeToSilverContext ctx, Consumer<byte[], byte[]> consumer, Producer<byte[], byte[]> producer) {
+        this.ctx = ctx;
+        this.manifest = ctx.manifest;
+        this.noOpFilter = ctx.suppressNoOpUpdates ? new NoOpUpdateFilter() : null;
+        this.commitIntervalMs = Long.parseLong(ctx.streamsProps.getProperty(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, "5000"));
+        this.consumer = consumer;
+        this.producer = producer;
+        METRICS.bind(consumer::metrics);
+        METRICS.bind(producer::metrics);
+
+        this.lanes = new Lane[ctx.parallelWorkers];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(i);
+        }
+    }
+
+    private static Properties producerProps(BronzeToSilverContext ctx) {
+        String appId = ctx.streamsProps.getProperty(StreamsConfig.APPLICATION_ID_CONFIG);
+        Properties p = new Properties();
+        p.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, ctx.streamsProps.getProperty(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG));
+        p.put(ProducerConfig.CLIENT_ID_CONFIG, appId + "-parallel-producer");
+        // Idempotence keeps per-partition send order across retries, which per-key ordering relies on.
+        p.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        p.put(ProducerConfig.ACKS_CONFIG, "all");
+        p.put(ProducerConfig.LINGER_MS_CONFIG, "20");
+        p.put(ProducerConfig.BATCH_SIZE_CONFIG,
+                ctx.streamsProps.getProperty(StreamsConfig.producerPrefix(ProducerConfig.BATCH_SIZE_CONFIG)));
+        return p;
+    }
+
+    /** Polls and dispatches until {@link #close()}; a worker or send failure is rethrown here. */
+    public void run() {
+        System.out.println("[debezium-to-silver] parallel runtime: " + lanes.length + " workers, max in-flight "
+                + ctx.parallelMaxInFlight + ", transcode=" + ctx.transcode);
+        if (ctx.coalesceMs > 0) {
+            System.out.println("[debezium-to-silver] SILVER_COALESCE_MS is ignored by the parallel runtime");
+        }
+        for (Lane lane : lanes) {
+            lane.thread.start();
+        }
+
+        ConsumerRebalanceListener listener = new Rebalance();
+        if (manifest.topicPattern() != null) {
+            consumer.subscribe(manifest.topicPattern(), listener);
+        } else {
+            consumer.subscribe(manifest.topics(), listener);
+        }
+
+        long nextCommit = System.currentTimeMillis() + commitIntervalMs;
+        try {
+            while (running) {
+                rethrowFailure();
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(POLL_TIMEOUT);
+                for (ConsumerRecord<byte[], byte[]> rec : records) {
+                    dispatch(rec);
+                }
+                applyBackpressure();
+                if (System.currentTimeMillis() >= nextCommit) {
+                    commit(offsets.keySet(), false);
+                    nextCommit = System.currentTimeMillis() + commitIntervalMs;
+                }
+            }
+        } catch (WakeupException e) {
+            // close() or a failure; handled below
+        } finally {
+            shutdown();
+            stopped.countDown();
+        }
+        rethrowFailure();
+    }
+
+    /** Stops polling, drains in-flight records, commits and closes the clients. */
+    @Override
+    public void close() {
+        running = false;
+        consumer.wakeup();
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(ConsumerRecord<byte[], byte[]> rec) {
+        TopicPartition tp = new TopicPartition(rec.topic(), rec.partition());
+        PartitionOffsets po = offsets.computeIfAbsent(tp, t -> new PartitionOffsets());
+        po.add(rec.offset());
+        inFlight.incrementAndGet();
+        lanes[laneOf(rec)].queue.add(new Work(rec, po));
+    }
+
+    private int laneOf(ConsumerRecord<byte[], byte[]> rec) {
+        int h = rec.key() != null ? Arrays.hashCode(rec.key()) : rec.partition();
+        return Math.floorMod(h ^ (h >>> 16), lanes.length);
+    }
+
+    private void applyBackpressure() {
+        int n = inFlight.get();
+        if (n >= ctx.parallelMaxInFlight) {
+            // Re-applied every loop so partitions assigned while paused are paused too.
+            consumer.pause(consumer.assignment());
+            paused = true;
+        } else if (paused && n <= ctx.parallelMaxInFlight / 2) {
+            consumer.resume(consumer.paused());
+            paused = false;
+        }
+    }
+
+    private void process(Work work) {
+        ConsumerRecord<byte[], byte[]> rec = work.record;
+        SilverRoute route = manifest.resolve(rec.topic());
+        if (route == null) {
+            complete(work);
+            return;
+        }
+
+        long start = System.nanoTime();
+        byte[] silver;
+        try {
+            silver = transcoders.computeIfAbsent(route, r -> ctx.transcode
+                    ? new SilverTranscoder(ctx, r, noOpFilter)
+                    : SilverTranscoder.decodeOnly(ctx, r, noOpFilter)).transcode(rec.value(), rec.partition());
+        } catch (RuntimeException e) {
+            if (!DeadLetterQueue.onProcessingError(ctx.streamsProps, rec.topic(), rec.partition(), rec.offset(),
+                    rec.key(), rec.value(), e)) {
+                throw e;
+            }
+            complete(work);
+            return;
+        }
+        if (silver == SilverTranscoder.SUPPRESSED) {
+            METRICS.recordDropped(TASK, route.tableName, "noop_update");
+            complete(work);
+        } else if (silver == null) {
+            METRICS.recordDropped(TASK, route.tableName, "null_after");
+            complete(work);
+        } else {
+            METRICS.recordProcessed(TASK, route.tableName, System.nanoTime() - start);
+            producer.send(new ProducerRecord<>(route.silverTopic, rec.key(), silver), (md, e) -> {
+                if (e != null) {
+                    fail(e);
+                } else {
+                    complete(work);
+                }
+            });
+        }
+    }
+
+    private void complete(Work work) {
+        work.offsets.complete(work.record.offset());
+        inFlight.decrementAndGet();
+    }
+
+    private void fail(Throwable e) {
+        if (failure.compareAndSet(null, e)) {
+            System.err.println("[debezium-to-silver] parallel runtime failed: " + e);
+            consumer.wakeup();
+        }
+    }
+
+    private void rethrowFailure() {
+        Throwable e = failure.get();
+        if (e != null) {
+            throw new IllegalStateException("Parallel bronze->silver runtime failed", e);
+        }
+    }
+
+    /** Commits the lowest incomplete offset of each partition that moved since the last commit. */
+    private void commit(Collection<TopicPartition> partitions, boolean sync) {
+        Map<TopicPartition, OffsetAndMetadata> toCommit = new HashMap<>();
+        for (TopicPartition tp : partitions) {
+            PartitionOffsets po = offsets.get(tp);
+            long position = po == null ? -1 : po.committable();
+            Long last = committed.get(tp);
+            if (position >= 0 && (last == null || last != position)) {
+                toCommit.put(tp, new OffsetAndMetadata(position));
+            }
+        }
+        if (toCommit.isEmpty()) return;
+
+        if (sync) {
+            consumer.commitSync(toCommit);
+            toCommit.forEach((tp, om) -> committed.put(tp, om.offset()));
+        } else {
+            consumer.commitAsync(toCommit, (done, e) -> {
+                if (e != null) {
+                    System.out.println("[debezium-to-silver] offset commit failed (retried next interval): " + e);
+                } else {
+                    done.forEach((tp, om) -> committed.put(tp, om.offset()));
+                }
+            });
+        }
+    }
+
+    /** Waits (bounded) until the given partitions have nothing in flight; flushes the producer meanwhile. */
+    private boolean awaitDrained(Collection<TopicPartition> partitions) {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        while (failure.get() == null && System.currentTimeMillis() < deadline) {
+            producer.flush();
+            boolean drained = true;
+            for (TopicPartition tp : partitions) {
+                PartitionOffsets po = offsets.get(tp);
+                if (po != null && po.pending() > 0) {
+                    drained = false;
+                    break;
+                }
+            }
+            if (drained) return true;
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void shutdown() {
+        if (!awaitDrained(new ArrayList<>(offsets.keySet()))) {
+            System.out.println("[debezium-to-silver] stopping with " + inFlight.get()
+                    + " records in flight; they are reprocessed after restart");
+        }
+        try {
+            commit(offsets.keySet(), true);
+        } catch (RuntimeException e) {
+            System.out.println("[debezium-to-silver] final offset commit failed: " + e);
+        }
+        for (Lane lane : lanes) {
+            lane.queue.add(STOP);
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closing = true;
+        consumer.close(Duration.ofSeconds(10));
+        producer.close(Duration.ofSeconds(10));
+    }
+
+    /** Finishes (and commits) revoked partitions so the next owner starts after the last silver write. */
+    private final class Rebalance implements ConsumerRebalanceListener {
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            // On close the offsets were already committed by shutdown().
+            if (partitions.isEmpty() || closing) return;
+            if (!awaitDrained(partitions)) {
+                // Queued records of these partitions are dropped, not written after the next owner
+                // has resumed from the committed offset; it reprocesses them in order.
+                System.out.println("[debezium-to-silver] revoking " + partitions + " with records still in flight; "
+                        + "they are left to the next owner");
+                try {
+                    for (TopicPartition tp : partitions) {
+                        PartitionOffsets po = offsets.get(tp);
+                        if (po != null && !po.revoke(DRAIN_TIMEOUT_MS)) {
+                            fail(new IllegalStateException("worker still writing to revoked partition " + tp));
+                            return;
+                        }
+                    }
+                    producer.flush();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fail(e);
+                    return;
+                }
+            }
+            try {
+                commit(partitions, true);
+            } catch (RuntimeException e) {
+                System.out.println("[debezium-to-silver] commit on revoke failed: " + e);
+            }
+            forget(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        }
+
+        @Override
+        public void onPartitionsLost(Collection<TopicPartition> partitions) {
+            // Already owned elsewhere: stop queued records without waiting for the ones in progress.
+            for (TopicPartition tp : partitions) {
+                PartitionOffsets po = offsets.get(tp);
+                if (po != null) {
+                    try {
+                        po.revoke(0);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+            forget(partitions);
+        }
+
+        private void forget(Collection<TopicPartition> partitions) {
+            for (TopicPartition tp : partitions) {
+                offsets.remove(tp);
+                committed.remove(tp);
+            }
+        }
+    }
+
+    /** One worker thread; records of a key always land on the same lane, in poll order. */
+    private final class Lane implements Runnable {
+        final BlockingQueue<Work> queue = new LinkedBlockingQueue<>();
+        final Thread thread;
+
+        Lane(int index) {
+            this.thread = new Thread(this, "silver-lane-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Work work = queue.take();
+                    if (work == STOP) return;
+                    if (failure.get() != null) continue;
+                    if (!work.offsets.enter()) {
+                        // Partition revoked while queued.
+                        inFlight.decrementAndGet();
+                        continue;
+                    }
+                    try {
+                        process(work);
+                    } finally {
+                        work.offsets.exit();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+    }
+
+    private static final class Work {
+        final ConsumerRecord<byte[], byte[]> record;
+        final PartitionOffsets offsets;
+
+        Work(ConsumerRecord<byte[], byte[]> record, PartitionOffsets offsets) {
+            this.record = record;
+            this.offsets = offsets;
+        }
+    }
+}
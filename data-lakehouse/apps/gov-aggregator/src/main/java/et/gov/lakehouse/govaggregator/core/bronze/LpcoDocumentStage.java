@@ -0,0 +1,365 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Named;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.TableJoined;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Optional LPCO document stage of {@link EswBronzeToSilverTask} (SILVER_LPCO_DOCUMENT=true): keeps one
+ * denormalized document per LPCO on SILVER_LPCO_DOCUMENT_TOPIC so dashboards stop re-joining
+ * TB_CB_LPCO with its child tables in Trino.
+ *
+ * Reads the silver topics this app writes, so it works the same on the decode and transcode paths:
+ * <ul>
+ *   <li>TB_CB_LPCO, keyed by (lpco_no, lpco_sn);</li>
+ *   <li>TB_CB_LPCO_CMDT and TB_CB_LPCO_CSTMS, each grouped into one row set per (lpco_no, lpco_sn)
+ *       and joined on that key;</li>
+ *   <li>TB_CB_LPCO_MPNG with its TB_CB_LPCO_ATTCH_DOC rows (by lpco_mpng_id), grouped per lpco_cd
+ *       and reached from the LPCO row by a foreign-key join on lpco_cd.</li>
+ * </ul>
+ * Every input is a materialized KTable, so a change re-joins only the documents it touches. A store of
+ * document hashes drops results equal to the last emitted one (no-op updates, unchanged re-joins).
+ * Silver carries no deletes (op=d has no after image); ESW soft-deletes with DEL_YN, which the
+ * document keeps.
+ */
+final class LpcoDocumentStage {
+
+    private static final String LPCO = "TB_CB_LPCO";
+    private static final String CMDT = "TB_CB_LPCO_CMDT";
+    private static final String CSTMS = "TB_CB_LPCO_CSTMS";
+    private static final String MPNG = "TB_CB_LPCO_MPNG";
+    private static final String ATTCH_DOC = "TB_CB_LPCO_ATTCH_DOC";
+    private static final List<String> TABLES = List.of(LPCO, CMDT, CSTMS, MPNG, ATTCH_DOC);
+
+    private static final String DOCUMENT_TABLE = "LPCO_DOCUMENT";
+    private static final String KEY_SEP = "|";
+    private static final String HASH_STORE = "lpco-doc-hashes";
+
+    private static final Serde<String> STRINGS = Serdes.String();
+    private static final Serde<String[]> PARTS = Serdes.serdeFrom(
+            (topic, parts) -> encodeParts(parts), (topic, bytes) -> decodeParts(bytes));
+
+    private final BronzeToSilverContext ctx;
+    private final String topic;
+    private final String icebergTable;
+    private final Schema documentSchema;
+    private final Map<String, String> silverTopics = new TreeMap<>();
+
+    private LpcoDocumentStage(BronzeToSilverContext ctx, SilverManifest esw) {
+        this.ctx = ctx;
+        this.topic = sysOrEnv("silver.lpco.document.topic", "SILVER_LPCO_DOCUMENT_TOPIC", ctx.silverTopicPrefix + DOCUMENT_TABLE);
+        this.icebergTable = BronzeToSilverPipeline.icebergTableFor(ctx.icebergNamespace, DOCUMENT_TABLE);
+        this.documentSchema = SchemaBuilder.record(DOCUMENT_TABLE).namespace(ctx.silverRecordNamespace).fields()
+                .requiredString("__iceberg_table")
+                .requiredString("lpco_no")
+                .requiredString("lpco_sn")
+                .optionalString("lpco_cd")
+                .requiredString("document")
+                .endRecord();
+        for (String table : TABLES) {
+            SilverRoute route = esw.resolve("raw-" + table);
+            if (route != null) silverTopics.put(table, route.silverTopic);
+        }
+    }
+
+    static boolean enabled() {
+        return Boolean.parseBoolean(sysOrEnv("silver.lpco.document", "SILVER_LPCO_DOCUMENT", "false"));
+    }
+
+    /** Null when SILVER_LPCO_DOCUMENT is off or a table of the document is missing from the manifest. */
+    static LpcoDocumentStage fromEnv(BronzeToSilverContext ctx, SilverManifest esw) {
+        if (!enabled()) return null;
+        LpcoDocumentStage stage = new LpcoDocumentStage(ctx, esw);
+        if (stage.silverTopics.size() < TABLES.size()) {
+            System.out.println("[debezium-to-silver] SILVER_LPCO_DOCUMENT needs " + TABLES
+                    + " in the manifest, found " + stage.silverTopics.keySet() + "; LPCO documents are off");
+            return null;
+        }
+        return stage;
+    }
+
+    void configure(StreamsBuilder builder) {
+        builder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(HASH_STORE), STRINGS, Serdes.Long()));
+
+        // (lpco_no|lpco_sn) -> [lpco_cd, row json]
+        KTable<String, String[]> lpco = silver(builder, LPCO)
+                .map((k, v) -> KeyValue.pair(parentKey(v), new String[]{SilverJson.text(v, "lpco_cd"), SilverJson.row(v)}),
+                        Named.as("lpco-doc-lpco-by-key"))
+                .toTable(Named.as("lpco-doc-lpco"), table("lpco-doc-lpco-store"));
+
+        KTable<String, String[]> cmdt = rowSets(builder, CMDT, "cmdt", v -> parentKey(v));
+        KTable<String, String[]> cstms = rowSets(builder, CSTMS, "cstms", v -> parentKey(v));
+
+        // lpco_mpng_id -> [lpco_cd, mpng json with its "attch_doc" array]
+        KTable<String, String[]> attchDocs = rowSets(builder, ATTCH_DOC, "attch-doc", v -> SilverJson.text(v, "lpco_mpng_id"));
+        KTable<String, String[]> mpng = silver(builder, MPNG)
+                .map((k, v) -> KeyValue.pair(SilverJson.text(v, "lpco_mpng_id"), new String[]{SilverJson.text(v, "lpco_cd"), SilverJson.row(v)}),
+                        Named.as("lpco-doc-mpng-by-id"))
+                .toTable(Named.as("lpco-doc-mpng"), table("lpco-doc-mpng-store"))
+                .leftJoin(attchDocs, (m, docs) -> new String[]{m[0], withArray(m[1], "attch_doc", docs)},
+                        Named.as("lpco-doc-mpng-attch-doc"), table("lpco-doc-mpng-attch-doc-store"));
+        // lpco_cd -> MPNG row set; a mapping without lpco_cd belongs to no document.
+        KTable<String, String[]> mpngByCode = mpng
+                .filter((id, m) -> m[0] != null, Named.as("lpco-doc-mpng-with-code"))
+                .groupBy((id, m) -> KeyValue.pair(m[0], new String[]{id, m[1]}),
+                        Grouped.with("lpco-doc-mpng-by-code", STRINGS, PARTS))
+                .aggregate(() -> new String[0], LpcoDocumentStage::addRow, LpcoDocumentStage::removeRow,
+                        Named.as("lpco-doc-mpng-set"), table("lpco-doc-mpng-set-store"));
+
+        // [lpco_cd, {"lpco":..,"cmdt":[..],"cstms":[..]}] then the "mpng" array through lpco_cd.
+        lpco.leftJoin(cmdt, (l, c) -> new String[]{l[0], "{\"lpco\":" + l[1] + ",\"cmdt\":" + jsonArray(c)},
+                        Named.as("lpco-doc-join-cmdt"))
+                .leftJoin(cstms, (l, c) -> new String[]{l[0], l[1] + ",\"cstms\":" + jsonArray(c)},
+                        // The foreign-key join hashes its left side, so that side needs a serde (and a store).
+                        Named.as("lpco-doc-join-cstms"), table("lpco-doc-join-cstms-store"))
+                // A null lpco_cd joins nothing: the document gets an empty "mpng" array.
+                .leftJoin(mpngByCode, l -> l[0],
+                        (l, m) -> new String[]{l[0], l[1] + ",\"mpng\":" + jsonArray(m) + "}"},
+                        TableJoined.as("lpco-doc-join-mpng"))
+                .toStream(Named.as("lpco-doc-changes"))
+                .processValues(() -> new ChangedDocuments(documentSchema, icebergTable), Named.as(HASH_STORE), HASH_STORE)
+                .to(topic, Produced.with(STRINGS, ctx.silverValueSerde));
+        System.out.println("[debezium-to-silver] LPCO documents: " + silverTopics.values() + " -> " + topic);
+    }
+
+    /** Child rows keyed by their parent: parent key -> [child key, row json, child key, row json, ...]. */
+    private KTable<String, String[]> rowSets(StreamsBuilder builder, String table, String name,
+                                             Function<GenericRecord, String> parent) {
+        return silver(builder, table)
+                .mapValues((k, v) -> new String[]{parent.apply(v), SilverJson.row(v)}, Named.as("lpco-doc-" + name + "-rows"))
+                .toTable(Named.as("lpco-doc-" + name), Materialized.<byte[], String[], KeyValueStore<Bytes, byte[]>>as(
+                        "lpco-doc-" + name + "-store").withKeySerde(ctx.keySerde).withValueSerde(PARTS))
+                .groupBy((k, v) -> KeyValue.pair(nullToEmpty(v[0]), new String[]{new String(k, StandardCharsets.UTF_8), v[1]}),
+                        Grouped.with("lpco-doc-" + name + "-by-parent", STRINGS, PARTS))
+                .aggregate(() -> new String[0], LpcoDocumentStage::addRow, LpcoDocumentStage::removeRow,
+                        Named.as("lpco-doc-" + name + "-set"), table("lpco-doc-" + name + "-set-store"));
+    }
+
+    private KStream<byte[], GenericRecord> silver(StreamsBuilder builder, String table) {
+        return builder.stream(silverTopics.get(table), Consumed.with(ctx.keySerde, ctx.silverValueSerde)
+                        .withName("lpco-doc-source-" + table.toLowerCase()))
+                .filter((k, v) -> v != null, Named.as("lpco-doc-" + table.toLowerCase() + "-present"));
+    }
+
+    private static Materialized<String, String[], KeyValueStore<Bytes, byte[]>> table(String store) {
+        return Materialized.<String, String[], KeyValueStore<Bytes, byte[]>>as(store).withKeySerde(STRINGS).withValueSerde(PARTS);
+    }
+
+    /**
+     * Creates the silver input topics (Streams stops on a missing source topic, and the silver ones only
+     * appear with their first record) and the compacted document topic. Existing topics are left alone.
+     */
+    static void ensureTopics(BronzeToSilverContext ctx, SilverManifest esw) {
+        LpcoDocumentStage stage = fromEnv(ctx, esw);
+        if (stage == null) return;
+        List<NewTopic> topics = new ArrayList<>();
+        for (String t : stage.silverTopics.values()) {
+            topics.add(new NewTopic(t, Optional.empty(), Optional.empty()));
+        }
+        topics.add(new NewTopic(stage.topic, Optional.empty(), Optional.empty())
+                .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT)));
+        String bootstrap = ctx.streamsProps.getProperty(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG);
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap))) {
+            for (Map.Entry<String, KafkaFuture<Void>> e : admin.createTopics(topics).values().entrySet()) {
+                try {
+                    e.getValue().get(30, TimeUnit.SECONDS);
+                    System.out.println("[debezium-to-silver] created topic " + e.getKey());
+                } catch (ExecutionException ex) {
+                    if (!(ex.getCause() instanceof TopicExistsException)) {
+                        System.out.println("[debezium-to-silver] could not create topic " + e.getKey() + ": " + ex.getCause());
+                    }
+                } catch (TimeoutException ex) {
+                    System.out.println("[debezium-to-silver] timed out creating topic " + e.getKey());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Forwards a document only when it differs from the last one emitted for its key. */
+    private static final class ChangedDocuments implements FixedKeyProcessor<String, String[], GenericRecord> {
+        private final Schema schema;
+        private final String icebergTable;
+        private FixedKeyProcessorContext<String, GenericRecord> context;
+        private KeyValueStore<String, Long> hashes;
+
+        ChangedDocuments(Schema schema, String icebergTable) {
+            this.schema = schema;
+            this.icebergTable = icebergTable;
+        }
+
+        @Override
+        public void init(FixedKeyProcessorContext<String, GenericRecord> context) {
+            this.context = context;
+            this.hashes = context.getStateStore(HASH_STORE);
+        }
+
+        @Override
+        public void process(FixedKeyRecord<String, String[]> record) {
+            String[] doc = record.value();
+            if (doc == null) {
+                if (hashes.delete(record.key()) != null) context.forward(record.withValue(null));
+                return;
+            }
+            long hash = fnv64(doc[1]);
+            Long previous = hashes.get(record.key());
+            if (previous != null && previous == hash) return;
+            hashes.put(record.key(), hash);
+
+            int sep = record.key().indexOf(KEY_SEP);
+            GenericRecord out = new GenericData.Record(schema);
+            out.put("__iceberg_table", icebergTable);
+            out.put("lpco_no", sep >= 0 ? record.key().substring(0, sep) : record.key());
+            out.put("lpco_sn", sep >= 0 ? record.key().substring(sep + 1) : "");
+            out.put("lpco_cd", doc[0]);
+            out.put("document", doc[1]);
+            context.forward(record.withValue(out));
+        }
+    }
+
+    private static String parentKey(GenericRecord row) {
+        return nullToEmpty(SilverJson.text(row, "lpco_no")) + KEY_SEP + nullToEmpty(SilverJson.text(row, "lpco_sn"));
+    }
+
+    private static String nullToEmpty(String s) {
+        return s != null ? s : "";
+    }
+
+    // ---- row sets: sorted [key, json, key, json, ...], so equal sets encode equally ----
+
+    private static String[] addRow(String parent, String[] row, String[] set) {
+        TreeMap<String, String> rows = toMap(set);
+        rows.put(row[0], row[1]);
+        return toParts(rows);
+    }
+
+    private static String[] removeRow(String parent, String[] row, String[] set) {
+        TreeMap<String, String> rows = toMap(set);
+        rows.remove(row[0]);
+        return toParts(rows);
+    }
+
+    private static TreeMap<String, String> toMap(String[] set) {
+        TreeMap<String, String> rows = new TreeMap<>();
+        for (int i = 0; i + 1 < set.length; i += 2) rows.put(set[i], set[i + 1]);
+        return rows;
+    }
+
+    private static String[] toParts(TreeMap<String, String> rows) {
+        String[] parts = new String[rows.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, String> e : rows.entrySet()) {
+            parts[i++] = e.getKey();
+            parts[i++] = e.getValue();
+        }
+        return parts;
+    }
+
+    private static String jsonArray(String[] set) {
+        if (set == null || set.length == 0) return "[]";
+        StringBuilder sb = new StringBuilder().append('[');
+        for (int i = 1; i < set.length; i += 2) {
+            if (i > 1) sb.append(',');
+            sb.append(set[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    /** Appends {@code ,"name":[...]} inside a row object. */
+    private static String withArray(String rowJson, String name, String[] set) {
+        return rowJson.substring(0, rowJson.length() - 1) + (rowJson.length() > 2 ? "," : "")
+                + '"' + name + "\":" + jsonArray(set) + '}';
+    }
+
+    private static long fnv64(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // ---- String[] serde for the internal tables: count, then length-prefixed UTF-8 (-1 = null) ----
+
+    private static byte[] encodeParts(String[] parts) {
+        if (parts == null) return null;
+        byte[][] encoded = new byte[parts.length][];
+        int size = 4;
+        for (int i = 0; i < parts.length; i++) {
+            encoded[i] = parts[i] != null ? parts[i].getBytes(StandardCharsets.UTF_8) : null;
+            size += 4 + (encoded[i] != null ? encoded[i].length : 0);
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size).putInt(parts.length);
+        for (byte[] b : encoded) {
+            if (b == null) {
+                buf.putInt(-1);
+            } else {
+                buf.putInt(b.length).put(b);
+            }
+        }
+        return buf.array();
+    }
+
+    private static String[] decodeParts(byte[] bytes) {
+        if (bytes == null) return null;
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        String[] parts = new String[buf.getInt()];
+        for (int i = 0; i < parts.length; i++) {
+            int len = buf.getInt();
+            if (len >= 0) {
+                parts[i] = new String(bytes, buf.position(), len, StandardCharsets.UTF_8);
+                buf.position(buf.position() + len);
+            }
+        }
+        return parts;
+    }
+
+    private static String sysOrEnv(String sysKey, String envKey, String defVal) {
+        String v = System.getProperty(sysKey);
+        if (v != null && !v.isBlank()) return v;
+        v = System.getenv(envKey);
+        return (v != null && !v.isBlank()) ? v : defVal;
+    }
+}
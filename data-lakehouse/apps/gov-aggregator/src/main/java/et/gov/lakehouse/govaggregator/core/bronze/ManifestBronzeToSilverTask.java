@@ -0,0 +1,440 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import et.gov.lakehouse.govaggregator.common.DeadLetterQueue;
+import et.gov.lakehouse.govaggregator.common.Deduplicator;
+import et.gov.lakehouse.govaggregator.common.PipelineMetrics;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Named;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.processor.api.RecordMetadata;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Generic manifest-driven bronze -> silver wiring.
+ *
+ * All manifest topics (or the topic pattern) are read by ONE source node, so Kafka Streams builds a
+ * single sub-topology whatever the table count. Each record is routed by its input topic to the
+ * precomputed {@link SilverRoute}; the sink picks the silver topic from the record's
+ * "__iceberg_table" value, the same field the Iceberg sink routes on.
+ *
+ * With SILVER_COALESCE_MS set, a {@link CoalescingProcessor} sits between router and sink and only
+ * the latest image per key and window is emitted. With SILVER_LOOKUP_PORT set, the last silver value per
+ * table and key is also kept in a persistent store for {@link SilverLookup}. With DEDUP_ENABLED, a
+ * {@link Deduplicator} ahead of the router drops changes whose table, key, op and Debezium source
+ * position (SCN / LSN fields) were already seen, i.e. the bronze records replayed after a restart.
+ *
+ * Debezium snapshot rows (op=r) take a bulk path while their table is in its snapshot phase
+ * ({@link SnapshotTracker}): no no-op check, no coalescing, reused output records.
+ *
+ * Bronze values are read as bytes and decoded by the first processor. A record whose envelope cannot
+ * be decoded goes to {@link DeadLetterQueue#onDeserializationError}; one that cannot be mapped
+ * (extractAfter / toSilver / transcode throws) to {@link DeadLetterQueue#onProcessingError}. Either
+ * way the dead letter holds the original bytes, and the record is skipped instead of killing the
+ * stream thread.
+ */
+public final class ManifestBronzeToSilverTask implements BronzeToSilverTask {
+
+    private static final PipelineMetrics METRICS = PipelineMetrics.global();
+
+    /**
+     * Envelope "source" fields that pin a change to its place in the database log: Oracle
+     * (scn, commit_scn, rs_id, ssn), SQL Server (change_lsn, commit_lsn, event_serial_no),
+     * PostgreSQL (lsn, txId) and MySQL (file, pos, row). Whichever are present form the position.
+     */
+    private static final String[] SOURCE_POSITION_FIELDS = {
+            "scn", "commit_scn", "rs_id", "ssn", "change_lsn", "commit_lsn", "event_serial_no", "lsn", "txId", "file", "pos", "row"};
+
+    private final String source;
+    private final SilverManifest manifest;
+
+    /** Wires every route of the context manifest. */
+    public ManifestBronzeToSilverTask() {
+        this("manifest", null);
+    }
+
+    public ManifestBronzeToSilverTask(String source, SilverManifest manifest) {
+        this.source = source;
+        this.manifest = manifest;
+    }
+
+    @Override
+    public String source() {
+        return source;
+    }
+
+    @Override
+    public void configure(StreamsBuilder builder, BronzeToSilverContext ctx) {
+        SilverManifest m = manifest != null ? manifest : ctx.manifest;
+        if (m.isEmpty()) {
+            return;
+        }
+
+        if (ctx.transcode && ctx.coalesceMs <= 0 && ctx.dedup == null) {
+            configureTranscoded(builder, ctx, m);
+            return;
+        }
+        if (ctx.transcode) {
+            System.out.println("[debezium-to-silver] " + (ctx.coalesceMs > 0 ? "SILVER_COALESCE_MS" : "DEDUP_ENABLED")
+                    + " is set; " + source + " uses the decode path, not transcoding");
+        }
+
+        // Decoded in the topology, not by the source serde, so a record that fails later still has its
+        // original bytes for the dead letter.
+        KStream<byte[], Bronze> bronze = stream(builder, m, Consumed.with(ctx.keySerde, ctx.rawValueSerde))
+                .processValues(() -> new DecodingProcessor(ctx.bronzeValueSerde.deserializer()), Named.as(source + "-silver-decoder"));
+        if (ctx.dedup != null) {
+            // Snapshot rows bypass dedup (null id) to keep the bulk path; a replayed one rewrites the same image.
+            bronze = ctx.dedup.apply(builder, bronze, source + "-silver-dedup", source,
+                    (topic, key, value) -> isSnapshotRow(value.envelope()) ? null : sourcePositionId(m, topic, key, value.envelope()));
+        }
+        KStream<byte[], GenericRecord> routed = bronze
+                .processValues(() -> new RoutingProcessor(source, m, ctx.silverRecordNamespace, noOpFilter(ctx)),
+                        Named.as(source + "-silver-router"));
+        if (ctx.coalesceMs <= 0 && !SilverLookup.enabled()) {
+            routed.to((key, silver, rc) -> m.routeForIcebergTable(silver.get(0).toString()).silverTopic,
+                    Produced.with(ctx.keySerde, ctx.silverValueSerde));
+            return;
+        }
+
+        // The coalescing buffer and the lookup store keep wire bytes: serialize once and sink those bytes.
+        // The route is read back from them (after coalescing the input topic is gone).
+        KStream<byte[], byte[]> encoded;
+        if (ctx.coalesceMs > 0) {
+            encoded = coalesce(builder, ctx, m, routed);
+        } else {
+            Serializer<GenericRecord> serializer = ctx.silverValueSerde.serializer();
+            encoded = routed.mapValues(
+                    silver -> serializer.serialize(m.routeForIcebergTable(silver.get(0).toString()).silverTopic, silver),
+                    Named.as(source + "-silver-encoder"));
+        }
+        if (SilverLookup.enabled()) {
+            encoded = latest(builder, encoded, (bytes, topic) -> m.routeForIcebergTable(SilverTranscoder.icebergTableOf(bytes)),
+                    (route, bytes) -> bytes);
+        }
+        encoded.to((key, bytes, rc) -> m.routeForIcebergTable(SilverTranscoder.icebergTableOf(bytes)).silverTopic,
+                Produced.with(ctx.keySerde, ctx.rawValueSerde));
+    }
+
+    private KStream<byte[], byte[]> coalesce(
+            StreamsBuilder builder,
+            BronzeToSilverContext ctx,
+            SilverManifest m,
+            KStream<byte[], GenericRecord> silver
+    ) {
+        String storeName = source + "-silver-coalesce";
+        builder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.inMemoryKeyValueStore(storeName), Serdes.Bytes(), Serdes.ByteArray()));
+        return silver.process(() -> new CoalescingProcessor(m, ctx, storeName), Named.as(storeName), storeName);
+    }
+
+    /** Keeps the last silver value per (table, key) in the {@link SilverLookup} store. */
+    private <V> KStream<byte[], V> latest(
+            StreamsBuilder builder,
+            KStream<byte[], V> silver,
+            BiFunction<V, String, SilverRoute> routeOf,
+            BiFunction<SilverRoute, V, byte[]> bytesOf
+    ) {
+        String storeName = SilverLookup.storeName(source);
+        builder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(storeName), Serdes.Bytes(), Serdes.ByteArray()));
+        return silver.processValues(() -> new LatestValueProcessor<>(storeName, routeOf, bytesOf), Named.as(storeName), storeName);
+    }
+
+    private void configureTranscoded(StreamsBuilder builder, BronzeToSilverContext ctx, SilverManifest m) {
+        Map<SilverRoute, SilverTranscoder> transcoders = new ConcurrentHashMap<>();
+        NoOpUpdateFilter noOpFilter = noOpFilter(ctx);
+        KStream<byte[], byte[]> transcoded = stream(builder, m, Consumed.with(ctx.keySerde, ctx.rawValueSerde))
+                .processValues(() -> new TranscodingProcessor(source, m, ctx, noOpFilter, transcoders),
+                        Named.as(source + "-silver-transcoder"));
+        if (SilverLookup.enabled()) {
+            transcoded = latest(builder, transcoded, (bytes, topic) -> m.resolve(topic), (route, bytes) -> bytes);
+        }
+        transcoded.to((key, silver, rc) -> m.resolve(rc.topic()).silverTopic,
+                        Produced.with(ctx.keySerde, ctx.rawValueSerde));
+    }
+
+    private static <V> KStream<byte[], V> stream(StreamsBuilder builder, SilverManifest m, Consumed<byte[], V> consumed) {
+        if (m.topicPattern() != null) {
+            return builder.stream(m.topicPattern(), consumed);
+        }
+        return builder.stream(m.topics(), consumed);
+    }
+
+    /** Whether the routing step will count the envelope as a snapshot row; no tracker side effects. */
+    private static boolean isSnapshotRow(GenericRecord envelope) {
+        return SnapshotTracker.enabled() && SnapshotTracker.markerOf(envelope) > SnapshotTracker.NONE;
+    }
+
+    /**
+     * Table, op, source position and bronze key of a Debezium change; null (not deduplicated) for
+     * unrouted topics and envelopes without any {@link #SOURCE_POSITION_FIELDS}.
+     */
+    static byte[] sourcePositionId(SilverManifest m, String topic, byte[] key, GenericRecord envelope) {
+        SilverRoute route = topic != null ? m.resolve(topic) : null;
+        Schema.Field sourceField = envelope.getSchema().getField("source");
+        if (route == null || sourceField == null || !(envelope.get(sourceField.pos()) instanceof GenericRecord src)) {
+            return null;
+        }
+        StringBuilder position = new StringBuilder();
+        for (String name : SOURCE_POSITION_FIELDS) {
+            Schema.Field f = src.getSchema().getField(name);
+            Object v = f != null ? src.get(f.pos()) : null;
+            if (v != null) position.append(name).append('=').append(v).append(';');
+        }
+        if (position.length() == 0) {
+            return null;
+        }
+        Object op = envelope.getSchema().getField("op") != null ? envelope.get("op") : null;
+        ByteArrayOutputStream id = new ByteArrayOutputStream(64 + (key != null ? key.length : 0));
+        id.writeBytes((route.tableName + '\u0000' + op + '\u0000' + position + '\u0000').getBytes(StandardCharsets.UTF_8));
+        if (key != null) id.writeBytes(key);
+        return id.toByteArray();
+    }
+
+    private static String topicOf(FixedKeyProcessorContext<?, ?> context) {
+        return context.recordMetadata().map(RecordMetadata::topic).orElse(null);
+    }
+
+    private static int partitionOf(FixedKeyProcessorContext<?, ?> context) {
+        return context.recordMetadata().map(RecordMetadata::partition).orElse(-1);
+    }
+
+    /** Dead-letters the current record (PROCESSING_ERROR_HANDLER) or rethrows the failure. */
+    private static void onError(FixedKeyProcessorContext<?, ?> context, byte[] key, byte[] value, RuntimeException e) {
+        RecordMetadata md = context.recordMetadata().orElse(null);
+        boolean skipped = md != null && DeadLetterQueue.onProcessingError(context.appConfigs(),
+                md.topic(), md.partition(), md.offset(), key, value, e);
+        if (!skipped) throw e;
+    }
+
+    /** A bronze value with the envelope decoded from it; the bytes are kept for the dead letter. */
+    record Bronze(byte[] bytes, GenericRecord envelope) {}
+
+    /** Decodes the bronze envelope; undecodable values are handled as deserialization errors. */
+    private static final class DecodingProcessor implements FixedKeyProcessor<byte[], byte[], Bronze> {
+        private final Deserializer<GenericRecord> deserializer;
+        private FixedKeyProcessorContext<byte[], Bronze> context;
+
+        DecodingProcessor(Deserializer<GenericRecord> deserializer) {
+            this.deserializer = deserializer;
+        }
+
+        @Override
+        public void init(FixedKeyProcessorContext<byte[], Bronze> context) {
+            this.context = context;
+        }
+
+        @Override
+        public void process(FixedKeyRecord<byte[], byte[]> record) {
+            if (record.value() == null) {
+                context.forward(record.withValue(null));
+                return;
+            }
+            GenericRecord envelope;
+            try {
+                envelope = deserializer.deserialize(topicOf(context), record.headers(), record.value());
+            } catch (RuntimeException e) {
+                RecordMetadata md = context.recordMetadata().orElse(null);
+                boolean skipped = md != null && DeadLetterQueue.onDeserializationError(context.appConfigs(),
+                        md.topic(), md.partition(), md.offset(), record.key(), record.value(), record.headers(), e);
+                if (!skipped) throw e;
+                return;
+            }
+            context.forward(record.withValue(new Bronze(record.value(), envelope)));
+        }
+    }
+
+    private static NoOpUpdateFilter noOpFilter(BronzeToSilverContext ctx) {
+        return ctx.suppressNoOpUpdates ? new NoOpUpdateFilter() : null;
+    }
+
+    /**
+     * Per-table "noop-suppressed" rate/total sensor (group stream-silver-metrics, visible over JMX
+     * and in KafkaStreams#metrics()); created on first use because pattern routes appear lazily.
+     */
+    private static Sensor noOpSensor(FixedKeyProcessorContext<?, ?> context, Map<SilverRoute, Sensor> sensors, SilverRoute route) {
+        Sensor sensor = sensors.get(route);
+        if (sensor == null) {
+            sensor = context.metrics().addRateTotalSensor(
+                    "silver", route.tableName, "noop-suppressed", Sensor.RecordingLevel.INFO,
+                    "table", route.tableName);
+            sensors.put(route, sensor);
+        }
+        return sensor;
+    }
+
+    /** Debezium envelope -> silver record for whichever table the input topic belongs to. */
+    private static final class RoutingProcessor implements FixedKeyProcessor<byte[], Bronze, GenericRecord> {
+        private final String task;
+        private final SilverManifest manifest;
+        private final String outputNamespace;
+        private final NoOpUpdateFilter noOpFilter;
+        private final Map<SilverRoute, Sensor> noOpSensors = new HashMap<>();
+        /** Output records reused for snapshot rows, one per plan; the sink serializes before the next one. */
+        private final Map<ProjectionPlan, GenericData.Record> snapshotRecords = new IdentityHashMap<>();
+        private FixedKeyProcessorContext<byte[], GenericRecord> context;
+
+        RoutingProcessor(String task, SilverManifest manifest, String outputNamespace, NoOpUpdateFilter noOpFilter) {
+            this.task = task;
+            this.manifest = manifest;
+            this.outputNamespace = outputNamespace;
+            this.noOpFilter = noOpFilter;
+        }
+
+        @Override
+        public void init(FixedKeyProcessorContext<byte[], GenericRecord> context) {
+            this.context = context;
+        }
+
+        @Override
+        public void process(FixedKeyRecord<byte[], Bronze> record) {
+            DeadLetterQueue.throwIfAsyncFailed();
+            Bronze bronze = record.value();
+            try {
+                route(record, bronze != null ? bronze.envelope() : null);
+            } catch (RuntimeException e) {
+                onError(context, record.key(), bronze != null ? bronze.bytes() : null, e);
+            }
+        }
+
+        private void route(FixedKeyRecord<byte[], Bronze> record, GenericRecord envelope) {
+            SilverRoute route = manifest.resolve(topicOf(context));
+            if (route == null) return;
+
+            long start = System.nanoTime();
+            boolean snapshotRow = SnapshotTracker.enabled()
+                    && SnapshotTracker.of(route.tableName).partition(partitionOf(context)).observe(SnapshotTracker.markerOf(envelope));
+            if (!snapshotRow && noOpFilter != null && noOpFilter.isNoOpUpdate(route, envelope)) {
+                noOpSensor(context, noOpSensors, route).record();
+                METRICS.recordDropped(task, route.tableName, "noop_update");
+                return;
+            }
+
+            GenericRecord after = BronzeToSilverPipeline.extractAfter(envelope);
+            if (after == null) {
+                METRICS.recordDropped(task, route.tableName, "null_after");
+                return;
+            }
+
+            Schema schema = BronzeToSilverPipeline.silverSchemaFor(after, outputNamespace, route);
+            GenericRecord silver;
+            if (snapshotRow) {
+                ProjectionPlan plan = BronzeToSilverPipeline.projectionPlanFor(after.getSchema(), schema);
+                silver = plan.applyInto(after, route.icebergTable,
+                        snapshotRecords.computeIfAbsent(plan, p -> new GenericData.Record(p.target)));
+            } else {
+                silver = BronzeToSilverPipeline.toSilver(after, schema, route.icebergTable);
+            }
+            METRICS.recordProcessed(task, route.tableName, System.nanoTime() - start);
+            context.forward(record.withValue(silver));
+        }
+    }
+
+    /** Puts each silver value into the lookup store under (table, key) and forwards it unchanged. */
+    private static final class LatestValueProcessor<V> implements FixedKeyProcessor<byte[], V, V> {
+        private final String storeName;
+        private final BiFunction<V, String, SilverRoute> routeOf;
+        private final BiFunction<SilverRoute, V, byte[]> bytesOf;
+        private FixedKeyProcessorContext<byte[], V> context;
+        private KeyValueStore<Bytes, byte[]> store;
+
+        LatestValueProcessor(String storeName, BiFunction<V, String, SilverRoute> routeOf, BiFunction<SilverRoute, V, byte[]> bytesOf) {
+            this.storeName = storeName;
+            this.routeOf = routeOf;
+            this.bytesOf = bytesOf;
+        }
+
+        @Override
+        public void init(FixedKeyProcessorContext<byte[], V> context) {
+            this.context = context;
+            this.store = context.getStateStore(storeName);
+        }
+
+        @Override
+        public void process(FixedKeyRecord<byte[], V> record) {
+            SilverRoute route = routeOf.apply(record.value(), topicOf(context));
+            if (route != null && record.key() != null) {
+                store.put(SilverLookup.storeKey(route.tableName, record.key()), bytesOf.apply(route, record.value()));
+            }
+            context.forward(record);
+        }
+    }
+
+    /** Byte-level variant (SILVER_TRANSCODE=true); one {@link SilverTranscoder} per route. */
+    private static final class TranscodingProcessor implements FixedKeyProcessor<byte[], byte[], byte[]> {
+        private final String task;
+        private final SilverManifest manifest;
+        private final BronzeToSilverContext ctx;
+        private final NoOpUpdateFilter noOpFilter;
+        private final Map<SilverRoute, SilverTranscoder> transcoders;
+        private final Map<SilverRoute, Sensor> noOpSensors = new HashMap<>();
+        private FixedKeyProcessorContext<byte[], byte[]> context;
+
+        TranscodingProcessor(
+                String task,
+                SilverManifest manifest,
+                BronzeToSilverContext ctx,
+                NoOpUpdateFilter noOpFilter,
+                Map<SilverRoute, SilverTranscoder> transcoders
+        ) {
+            this.task = task;
+            this.manifest = manifest;
+            this.ctx = ctx;
+            this.noOpFilter = noOpFilter;
+            this.transcoders = transcoders;
+        }
+
+        @Override
+        public void init(FixedKeyProcessorContext<byte[], byte[]> context) {
+            this.context = context;
+        }
+
+        @Override
+        public void process(FixedKeyRecord<byte[], byte[]> record) {
+            DeadLetterQueue.throwIfAsyncFailed();
+            SilverRoute route = manifest.resolve(topicOf(context));
+            if (route == null) return;
+
+            long start = System.nanoTime();
+            SilverTranscoder transcoder = transcoders.computeIfAbsent(route, r -> new SilverTranscoder(ctx, r, noOpFilter));
+            byte[] silver;
+            try {
+                silver = transcoder.transcode(record.value(), partitionOf(context));
+            } catch (RuntimeException e) {
+                onError(context, record.key(), record.value(), e);
+                return;
+            }
+            if (silver == SilverTranscoder.SUPPRESSED) {
+                noOpSensor(context, noOpSensors, route).record();
+                METRICS.recordDropped(task, route.tableName, "noop_update");
+            } else if (silver == null) {
+                METRICS.recordDropped(task, route.tableName, "null_after");
+            } else {
+                METRICS.recordProcessed(task, route.tableName, System.nanoTime() - start);
+                context.forward(record.withValue(silver));
+            }
+        }
+    }
+}
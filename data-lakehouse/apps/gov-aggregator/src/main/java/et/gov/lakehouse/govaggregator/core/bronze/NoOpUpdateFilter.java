@@ -0,0 +1,113 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drops Debezium updates (op=u) whose projected before and after images are identical.
+ *
+ * The compared columns come from the manifest option {@code table.<TABLE>.compare-columns}
+ * (Debezium column names, case-insensitive); without it every column silver carries is compared, so
+ * an update touching only {@code drop-columns} columns is a no-op too. Positions are resolved once per
+ * writer schema, so the per-record check is an indexed equals loop.
+ */
+public final class NoOpUpdateFilter {
+
+    /** Manifest option listing the columns whose change makes an update worth emitting. */
+    public static final String COMPARE_COLUMNS_OPTION = "compare-columns";
+
+    private final Map<SilverRoute, Columns> columns = new ConcurrentHashMap<>();
+
+    public boolean isNoOpUpdate(SilverRoute route, GenericRecord root) {
+        GenericRecord envelope = BronzeToSilverPipeline.envelopeOf(root);
+        if (envelope == null || !isUpdate(envelope)) {
+            return false;
+        }
+
+        GenericRecord after = BronzeToSilverPipeline.extractAfter(envelope);
+        GenericRecord before = BronzeToSilverPipeline.extractBefore(envelope);
+        if (after == null || before == null || before.getSchema() != after.getSchema()) {
+            return false;
+        }
+
+        int[] positions = positionsFor(route, after.getSchema());
+        for (int pos : positions) {
+            if (!Objects.equals(before.get(pos), after.get(pos))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** True when the table has an explicit column subset rather than whole-image comparison. */
+    public static boolean hasColumnSubset(SilverRoute route) {
+        return !route.optionList(COMPARE_COLUMNS_OPTION).isEmpty();
+    }
+
+    /** True when the check needs decoded images: a column subset, or columns the projection drops. */
+    public static boolean needsDecode(SilverRoute route) {
+        return hasColumnSubset(route) || route.projection.dropsAny();
+    }
+
+    private static boolean isUpdate(GenericRecord envelope) {
+        Schema.Field opField = envelope.getSchema().getField("op");
+        if (opField == null) return false;
+        Object op = envelope.get(opField.pos());
+        return op instanceof CharSequence cs && cs.length() == 1 && cs.charAt(0) == 'u';
+    }
+
+    private int[] positionsFor(SilverRoute route, Schema writer) {
+        Columns c = columns.get(route);
+        if (c == null || c.writer != writer) {
+            c = new Columns(writer, resolve(route, writer));
+            columns.put(route, c);
+        }
+        return c.positions;
+    }
+
+    private static int[] resolve(SilverRoute route, Schema writer) {
+        List<String> wanted = route.optionList(COMPARE_COLUMNS_OPTION);
+        if (wanted.isEmpty()) {
+            return kept(route, writer);
+        }
+
+        List<Integer> positions = new ArrayList<>();
+        for (String name : wanted) {
+            for (Schema.Field f : writer.getFields()) {
+                if (f.name().equalsIgnoreCase(name)) {
+                    positions.add(f.pos());
+                }
+            }
+        }
+        if (positions.isEmpty()) {
+            System.out.println("[debezium-to-silver] none of " + COMPARE_COLUMNS_OPTION + "=" + wanted
+                    + " exist in " + writer.getFullName() + " for " + route.tableName + "; comparing all columns");
+            return kept(route, writer);
+        }
+        return positions.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /** Positions of the columns silver carries (all but the projection's dropped ones). */
+    private static int[] kept(SilverRoute route, Schema writer) {
+        return writer.getFields().stream()
+                .filter(f -> !route.projection.drops(f.name()))
+                .mapToInt(Schema.Field::pos)
+                .toArray();
+    }
+
+    private static final class Columns {
+        final Schema writer;
+        final int[] positions;
+
+        Columns(Schema writer, int[] positions) {
+            this.writer = writer;
+            this.positions = positions;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+/**
+ * In-flight offsets of one partition for {@link KeyOrderedSilverRunner}.
+ *
+ * Offsets are added in poll order (strictly increasing) and completed in any order by the workers;
+ * {@link #committable()} is the lowest offset not yet completed, so a commit never skips a record
+ * that is still being processed. Kept as two parallel ring buffers (no boxing, O(log n) complete).
+ *
+ * Once the partition is revoked ({@link #revoke}) workers must not write anything more for it: the
+ * next owner resumes from the committed offset, and a late write would reorder that key's images.
+ * Workers bracket each record with {@link #enter()} / {@link #exit()}.
+ */
+final class PartitionOffsets {
+
+    private long[] offsets = new long[64];
+    private boolean[] done = new boolean[64];
+    private int head;
+    private int size;
+    /** Offset after the last one added; the commit position once everything is done. */
+    private long next = -1;
+    private boolean revoked;
+    /** Workers between enter() and exit(). */
+    private int active;
+
+    synchronized void add(long offset) {
+        if (size == offsets.length) grow();
+        int tail = (head + size) & (offsets.length - 1);
+        offsets[tail] = offset;
+        done[tail] = false;
+        size++;
+        next = offset + 1;
+    }
+
+    synchronized void complete(long offset) {
+        int lo = 0;
+        int hi = size - 1;
+        int mask = offsets.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long v = offsets[(head + mid) & mask];
+            if (v < offset) {
+                lo = mid + 1;
+            } else if (v > offset) {
+                hi = mid - 1;
+            } else {
+                done[(head + mid) & mask] = true;
+                break;
+            }
+        }
+        while (size > 0 && done[head]) {
+            head = (head + 1) & mask;
+            size--;
+        }
+    }
+
+    /** Offset to commit (everything below it is done), or -1 before the first record. */
+    synchronized long committable() {
+        return size == 0 ? next : offsets[head];
+    }
+
+    synchronized int pending() {
+        return size;
+    }
+
+    /** False once revoked: the worker drops the record instead of processing it. */
+    synchronized boolean enter() {
+        if (revoked) return false;
+        active++;
+        return true;
+    }
+
+    synchronized void exit() {
+        if (--active == 0) notifyAll();
+    }
+
+    /** Stops further records and waits up to {@code timeoutMs} for workers still inside; false on timeout. */
+    synchronized boolean revoke(long timeoutMs) throws InterruptedException {
+        revoked = true;
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (active > 0) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return false;
+            wait(left);
+        }
+        return true;
+    }
+
+    private void grow() {
+        int n = offsets.length;
+        long[] o = new long[n * 2];
+        boolean[] d = new boolean[n * 2];
+        for (int i = 0; i < size; i++) {
+            o[i] = offsets[(head + i) & (n - 1)];
+            d[i] = done[(head + i) & (n - 1)];
+        }
+        offsets = o;
+        done = d;
+        head = 0;
+    }
+}
@@ -0,0 +1,135 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.util.List;
+
+/**
+ * Compiled "after" -> silver field mapping for one (writer schema, silver schema) pair.
+ *
+ * Name matching (lowercasing) happens once in {@link #compile}; {@link #apply} is an indexed copy,
+ * plus a {@link SilverProjection.ValueConverter} for columns whose silver type differs.
+ */
+public final class ProjectionPlan {
+
+    final Schema source;
+    final Schema target;
+
+    /** sourcePos -> targetPos, or -1 when the silver schema does not carry that column. */
+    private final int[] targetPos;
+
+    /** sourcePos -> value conversion, null entries copy as is; null when no column converts. */
+    private final SilverProjection.ValueConverter[] converters;
+
+    private final int routePos;
+
+    private ProjectionPlan(Schema source, Schema target, int[] targetPos,
+                           SilverProjection.ValueConverter[] converters, int routePos) {
+        this.source = source;
+        this.target = target;
+        this.targetPos = targetPos;
+        this.converters = converters;
+        this.routePos = routePos;
+    }
+
+    public static ProjectionPlan compile(Schema source, Schema target) {
+        List<Schema.Field> srcFields = source.getFields();
+        int[] targetPos = new int[srcFields.size()];
+        SilverProjection.ValueConverter[] converters = new SilverProjection.ValueConverter[srcFields.size()];
+        boolean converting = false;
+
+        for (Schema.Field f : srcFields) {
+            String outName = f.name().toLowerCase();
+            Schema.Field outField = target.getField(outName);
+            if (outField == null) {
+                targetPos[f.pos()] = -1;
+            } else {
+                targetPos[f.pos()] = outField.pos();
+                converters[f.pos()] = SilverProjection.converter(f.schema(), outField.schema());
+                converting |= converters[f.pos()] != null;
+            }
+        }
+
+        Schema.Field route = target.getField("__iceberg_table");
+        int routePos = route != null ? route.pos() : -1;
+        return new ProjectionPlan(source, target, targetPos, converting ? converters : null, routePos);
+    }
+
+    /** Copies the mapped columns of {@code after} into a fresh silver record. */
+    public GenericRecord apply(GenericRecord after, String icebergTable) {
+        return applyInto(after, icebergTable, new GenericData.Record(target));
+    }
+
+    /**
+     * Same, overwriting {@code out} (a record of {@link #target} only ever filled by this plan, so unmapped
+     * fields stay null). For callers that hand the record on and are done with it before the next call.
+     */
+    public GenericRecord applyInto(GenericRecord after, String icebergTable, GenericData.Record out) {
+        if (routePos >= 0) {
+            out.put(routePos, icebergTable);
+        }
+        int[] map = targetPos;
+        SilverProjection.ValueConverter[] conv = converters;
+        if (conv == null) {
+            for (int i = 0; i < map.length; i++) {
+                int pos = map[i];
+                if (pos >= 0) {
+                    out.put(pos, after.get(i));
+                }
+            }
+            return out;
+        }
+        for (int i = 0; i < map.length; i++) {
+            int pos = map[i];
+            if (pos >= 0) {
+                Object v = after.get(i);
+                out.put(pos, v == null || conv[i] == null ? v : conv[i].convert(v));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * True when every writer column lands, in order, right behind a leading routing field with the
+     * same field schema, i.e. the silver binary encoding is the routing string followed by the
+     * untouched "after" bytes.
+     */
+    public boolean isBytePassthrough() {
+        List<Schema.Field> outFields = target.getFields();
+        if (routePos != 0 || targetPos.length + 1 != outFields.size()) {
+            return false;
+        }
+        List<Schema.Field> srcFields = source.getFields();
+        for (int i = 0; i < targetPos.length; i++) {
+            if (targetPos[i] != i + 1 || !srcFields.get(i).schema().equals(outFields.get(i + 1).schema())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writer columns kept by a byte-level copy: the silver encoding is the routing string followed by
+     * the kept columns' bytes, unchanged and in writer order (columns dropped by the projection are
+     * skipped). Null when a column is converted, reordered or missing from the writer.
+     */
+    public boolean[] byteSubset() {
+        List<Schema.Field> outFields = target.getFields();
+        if (routePos != 0 || converters != null) {
+            return null;
+        }
+        List<Schema.Field> srcFields = source.getFields();
+        boolean[] kept = new boolean[targetPos.length];
+        int next = 1;
+        for (int i = 0; i < targetPos.length; i++) {
+            if (targetPos[i] < 0) continue;
+            if (targetPos[i] != next++ || !srcFields.get(i).schema().equals(outFields.get(targetPos[i]).schema())) {
+                return null;
+            }
+            kept[i] = true;
+        }
+        return next == outFields.size() ? kept : null;
+    }
+}
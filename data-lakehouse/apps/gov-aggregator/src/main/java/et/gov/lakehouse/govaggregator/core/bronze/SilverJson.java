@@ -0,0 +1,112 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import org.apache.avro.LogicalType;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Silver rows as JSON, for {@link LpcoDocumentStage} documents and {@link SilverLookup} answers: one
+ * object per row with the silver column names, the routing field left out. Decimals (fixed and
+ * Debezium's VariableScaleDecimal) are written as plain numbers, other bytes as Base64 strings.
+ */
+final class SilverJson {
+
+    private SilverJson() {
+    }
+
+    static String row(GenericRecord row) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append('{');
+        boolean first = true;
+        for (Schema.Field f : row.getSchema().getFields()) {
+            if (f.name().equals("__iceberg_table")) continue;
+            if (!first) sb.append(',');
+            first = false;
+            string(sb, f.name());
+            sb.append(':');
+            appendValue(sb, row.get(f.pos()), f.schema(), true);
+        }
+        return sb.append('}').toString();
+    }
+
+    /** A column's value as plain text (no quotes), or null when the column is absent or null. */
+    static String text(GenericRecord row, String column) {
+        if (row.getSchema().getField(column) == null) return null;
+        Object v = row.get(column);
+        if (v == null) return null;
+        StringBuilder sb = new StringBuilder();
+        appendValue(sb, v, row.getSchema().getField(column).schema(), false);
+        return sb.toString();
+    }
+
+    /** Appends {@code s} as a quoted, escaped JSON string. */
+    static void string(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static void appendValue(StringBuilder sb, Object v, Schema schema, boolean json) {
+        if (v == null) {
+            sb.append(json ? "null" : "");
+            return;
+        }
+        Schema s = nonNull(schema);
+        if (v instanceof CharSequence cs) {
+            if (json) string(sb, cs.toString()); else sb.append(cs);
+        } else if (v instanceof Integer || v instanceof Long || v instanceof Boolean) {
+            sb.append(v);
+        } else if (v instanceof Float || v instanceof Double) {
+            double d = ((Number) v).doubleValue();
+            sb.append(Double.isFinite(d) ? Double.toString(d) : json ? "null" : "");
+        } else if (v instanceof ByteBuffer bb) {
+            LogicalType lt = s.getLogicalType();
+            byte[] bytes = new byte[bb.remaining()];
+            bb.duplicate().get(bytes);
+            if (lt instanceof LogicalTypes.Decimal dec) {
+                sb.append(new BigDecimal(new BigInteger(bytes), dec.getScale()).toPlainString());
+            } else if (json) {
+                string(sb, Base64.getEncoder().encodeToString(bytes));
+            } else {
+                sb.append(Base64.getEncoder().encodeToString(bytes));
+            }
+        } else if (v instanceof GenericRecord r && r.getSchema().getField("scale") != null && r.getSchema().getField("value") != null) {
+            // io.debezium.data.VariableScaleDecimal
+            ByteBuffer bb = (ByteBuffer) r.get("value");
+            byte[] bytes = new byte[bb.remaining()];
+            bb.duplicate().get(bytes);
+            sb.append(new BigDecimal(new BigInteger(bytes), (Integer) r.get("scale")).toPlainString());
+        } else if (json) {
+            string(sb, v.toString());
+        } else {
+            sb.append(v);
+        }
+    }
+
+    private static Schema nonNull(Schema schema) {
+        if (schema.getType() != Schema.Type.UNION) return schema;
+        for (Schema s : schema.getTypes()) {
+            if (s.getType() != Schema.Type.NULL) return s;
+        }
+        return schema;
+    }
+}
@@ -0,0 +1,318 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsMetadata;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Point lookups of the latest silver row per key (SILVER_LOOKUP_PORT), served from the Streams runtime's
+ * local state instead of a Trino query over Iceberg.
+ *
+ * {@link ManifestBronzeToSilverTask} keeps the last silver value of every (table, bronze key) in one
+ * persistent store, in the task of the key's bronze partition. This class serves it over HTTP:
+ * <ul>
+ *   <li>{@code GET /silver/<TABLE>?key=<bronze key JSON>}: one row, 404 when the key was never seen;</li>
+ *   <li>{@code POST /silver/<TABLE>} with one bronze key per line: one result line per key, in order.</li>
+ * </ul>
+ * A result line is {@code {"key":"<key>","row":{..}|null}} with the silver column names. The owner of a
+ * key is found through interactive-query metadata (partition = murmur2 of the key, as the connector's
+ * producer chose it); keys owned by another instance are forwarded to its application.server in one
+ * request per instance. While the group rebalances, or a store restores, the answer is 503.
+ */
+public final class SilverLookup implements AutoCloseable {
+
+    private static final String PATH = "/silver/";
+    /** Marks a forwarded request, which must be answered locally (no second hop). */
+    private static final String FORWARDED = "X-Silver-Lookup-Forwarded";
+    private static final Duration FORWARD_TIMEOUT = Duration.ofSeconds(5);
+
+    private final BronzeToSilverContext ctx;
+    private final String storeName;
+    private final int port;
+    private final HostInfo self;
+    private final int maxKeys;
+    private final int threads;
+    private final Deserializer<GenericRecord> silver;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(FORWARD_TIMEOUT).build();
+
+    private KafkaStreams streams;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private SilverLookup(BronzeToSilverContext ctx, String source, int port, String host) {
+        this.ctx = ctx;
+        this.storeName = storeName(source);
+        this.port = port;
+        this.self = new HostInfo(host, port);
+        this.maxKeys = Integer.parseInt(sysOrEnv("silver.lookup.max.keys", "SILVER_LOOKUP_MAX_KEYS", "1000"));
+        this.threads = Integer.parseInt(sysOrEnv("silver.lookup.threads", "SILVER_LOOKUP_THREADS", "4"));
+        this.silver = ctx.silverValueSerde.deserializer();
+    }
+
+    static boolean enabled() {
+        return !sysOrEnv("silver.lookup.port", "SILVER_LOOKUP_PORT", "").isBlank();
+    }
+
+    /** Latest-row store of a {@link ManifestBronzeToSilverTask} source. */
+    static String storeName(String source) {
+        return source + "-silver-latest";
+    }
+
+    /** Store key: table name, a zero byte, then the bronze key bytes. */
+    static Bytes storeKey(String table, byte[] bronzeKey) {
+        byte[] t = table.getBytes(StandardCharsets.UTF_8);
+        byte[] k = new byte[t.length + 1 + bronzeKey.length];
+        System.arraycopy(t, 0, k, 0, t.length);
+        System.arraycopy(bronzeKey, 0, k, t.length + 1, bronzeKey.length);
+        return Bytes.wrap(k);
+    }
+
+    /** Null when SILVER_LOOKUP_PORT is unset. */
+    public static SilverLookup fromEnv(BronzeToSilverContext ctx, String source) {
+        if (!enabled()) return null;
+        int port = Integer.parseInt(sysOrEnv("silver.lookup.port", "SILVER_LOOKUP_PORT", "").trim());
+        String host = sysOrEnv("silver.lookup.host", "SILVER_LOOKUP_HOST", "");
+        if (host.isBlank()) {
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                host = "localhost";
+            }
+        }
+        return new SilverLookup(ctx, source, port, host);
+    }
+
+    /** The application.server this instance advertises to the group. */
+    public String endpoint() {
+        return self.host() + ":" + self.port();
+    }
+
+    public void start(KafkaStreams streams) {
+        this.streams = streams;
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start silver lookup on port " + port, e);
+        }
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext(PATH, ex -> {
+            try (ex) {
+                try {
+                    handle(ex);
+                } catch (Unavailable | InvalidStateStoreException e) {
+                    // Not running yet, rebalancing, or a store still restoring.
+                    ex.getResponseHeaders().set("Retry-After", "1");
+                    respond(ex, 503, e.getMessage() + "\n", false);
+                } catch (RuntimeException e) {
+                    respond(ex, 500, e + "\n", false);
+                }
+            }
+        });
+        server.start();
+        System.out.println("[debezium-to-silver] silver lookup on :" + port + PATH + "<TABLE> (advertised as " + endpoint() + ")");
+    }
+
+    @Override
+    public void close() {
+        if (server != null) server.stop(0);
+        if (executor != null) executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        String table = ex.getRequestURI().getPath().substring(PATH.length());
+        SilverRoute route = routeFor(table);
+        if (route == null) {
+            respond(ex, 404, "unknown table " + table + "\n", false);
+            return;
+        }
+        boolean forwarded = ex.getRequestHeaders().containsKey(FORWARDED);
+
+        if ("GET".equals(ex.getRequestMethod())) {
+            String key = queryParam(ex.getRequestURI().getRawQuery(), "key");
+            if (key == null) {
+                respond(ex, 400, "missing ?key=<bronze key JSON>\n", false);
+                return;
+            }
+            String[] line = lookup(route, List.of(key), forwarded);
+            respond(ex, line[0].endsWith(",\"row\":null}") ? 404 : 200, line[0] + "\n", true);
+        } else if ("POST".equals(ex.getRequestMethod())) {
+            List<String> keys = new ArrayList<>();
+            for (String k : new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (!k.isBlank()) keys.add(k.strip());
+            }
+            if (keys.size() > maxKeys) {
+                respond(ex, 413, keys.size() + " keys, at most " + maxKeys + " per request\n", false);
+                return;
+            }
+            respond(ex, 200, String.join("\n", lookup(route, keys, forwarded)) + (keys.isEmpty() ? "" : "\n"), true);
+        } else {
+            respond(ex, 405, "GET or POST\n", false);
+        }
+    }
+
+    private SilverRoute routeFor(String table) {
+        for (SilverRoute route : ctx.manifest.routes()) {
+            if (route.tableName.equalsIgnoreCase(table)) return route;
+        }
+        return null;
+    }
+
+    /** One result line per key; local keys from the store, the rest from their owners. */
+    private String[] lookup(SilverRoute route, List<String> keys, boolean forwarded) {
+        Integer partitions = partitionCounts().get(route.bronzeTopic);
+        if (partitions == null) {
+            throw new Unavailable("no partitions of " + route.bronzeTopic + " assigned yet");
+        }
+
+        String[] out = new String[keys.size()];
+        Map<HostInfo, List<Integer>> remote = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] key = keys.get(i).getBytes(StandardCharsets.UTF_8);
+            int partition = Utils.toPositive(Utils.murmur2(key)) % partitions;
+            Bytes storeKey = storeKey(route.tableName, key);
+            KeyQueryMetadata md = streams.queryMetadataForKey(storeName, storeKey, (topic, k, v, n) -> partition);
+            if (md == null || md == KeyQueryMetadata.NOT_AVAILABLE || md.activeHost() == null) {
+                throw new Unavailable("owner of " + route.tableName + " partition " + partition + " unknown (rebalancing)");
+            }
+            if (md.activeHost().equals(self)) {
+                out[i] = line(keys.get(i), localGet(route, partition, storeKey));
+            } else if (forwarded) {
+                throw new Unavailable(route.tableName + " partition " + partition + " moved to " + md.activeHost());
+            } else {
+                remote.computeIfAbsent(md.activeHost(), h -> new ArrayList<>()).add(i);
+            }
+        }
+        for (Map.Entry<HostInfo, List<Integer>> e : remote.entrySet()) {
+            List<String> subset = new ArrayList<>();
+            for (int i : e.getValue()) subset.add(keys.get(i));
+            String[] lines = forward(e.getKey(), route.tableName, subset);
+            for (int j = 0; j < lines.length; j++) {
+                out[e.getValue().get(j)] = lines[j];
+            }
+        }
+        return out;
+    }
+
+    private String localGet(SilverRoute route, int partition, Bytes storeKey) {
+        byte[] value;
+        try {
+            ReadOnlyKeyValueStore<Bytes, byte[]> store = streams.store(StoreQueryParameters
+                    .fromNameAndType(storeName, QueryableStoreTypes.<Bytes, byte[]>keyValueStore())
+                    .withPartition(partition));
+            value = store.get(storeKey);
+        } catch (InvalidStateStoreException e) {
+            throw new Unavailable(route.tableName + " partition " + partition + " is not queryable: " + e.getMessage());
+        }
+        return value == null ? null : SilverJson.row(silver.deserialize(route.silverTopic, value));
+    }
+
+    private String[] forward(HostInfo host, String table, List<String> keys) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://" + host.host() + ":" + host.port() + PATH
+                        + URLEncoder.encode(table, StandardCharsets.UTF_8)))
+                .timeout(FORWARD_TIMEOUT)
+                .header(FORWARDED, "1")
+                .POST(HttpRequest.BodyPublishers.ofString(String.join("\n", keys)))
+                .build();
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new Unavailable("lookup on " + host + " failed: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Unavailable("interrupted");
+        }
+        String[] lines = response.body().isEmpty() ? new String[0] : response.body().split("\n");
+        if (response.statusCode() != 200 || lines.length != keys.size()) {
+            throw new Unavailable("lookup on " + host + " answered " + response.statusCode());
+        }
+        return lines;
+    }
+
+    /** Partitions per source topic, from the assignment of the whole group. */
+    private Map<String, Integer> partitionCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (StreamsMetadata md : streams.metadataForAllStreamsClients()) {
+            for (TopicPartition tp : md.topicPartitions()) {
+                counts.merge(tp.topic(), tp.partition() + 1, Math::max);
+            }
+        }
+        return counts;
+    }
+
+    private static String line(String key, String rowJson) {
+        StringBuilder sb = new StringBuilder(32 + key.length() + (rowJson == null ? 4 : rowJson.length()));
+        sb.append("{\"key\":");
+        SilverJson.string(sb, key);
+        return sb.append(",\"row\":").append(rowJson == null ? "null" : rowJson).append('}').toString();
+    }
+
+    private static String queryParam(String rawQuery, String name) {
+        if (rawQuery == null) return null;
+        for (String kv : rawQuery.split("&")) {
+            int eq = kv.indexOf('=');
+            if (eq > 0 && kv.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(kv.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange ex, int status, String body, boolean ndjson) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", ndjson ? "application/x-ndjson; charset=utf-8" : "text/plain; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /** Answered with 503 + Retry-After: ownership is moving or a store is restoring. */
+    private static final class Unavailable extends RuntimeException {
+        Unavailable(String message) {
+            super(message);
+        }
+    }
+
+    private static String sysOrEnv(String sysKey, String envKey, String defVal) {
+        String v = System.getProperty(sysKey);
+        if (v != null && !v.isBlank()) return v;
+        v = System.getenv(envKey);
+        return (v != null && !v.isBlank()) ? v : defVal;
+    }
+}
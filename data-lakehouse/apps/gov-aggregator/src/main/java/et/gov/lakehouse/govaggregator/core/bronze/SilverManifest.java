@@ -0,0 +1,172 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Table manifest for bronze -> silver: which bronze topics to read and where each one goes.
+ *
+ * Source is either a properties file (SILVER_MANIFEST) or the env (BRONZE_TOPICS / BRONZE_TOPIC_PATTERN).
+ * File format:
+ * <pre>
+ * topics=raw-TB_CB_LPCO,raw-TB_CB_LPCO_CMDT
+ * topic.pattern=raw-.*
+ * table.TB_CB_LPCO.silver-topic=silver.oracle_esw.TB_CB_LPCO
+ * table.TB_CB_LPCO.iceberg-table=silver.tb_cb_lpco
+ * table.TB_CB_LPCO.compare-columns=LPCO_STAT_CD,APRV_DT
+ * table.TB_CB_LPCO.drop-columns=FRST_REGST_ID   (column projection, see SilverProjection)
+ * </pre>
+ * Table names default to the topic minus SILVER_STRIP_PREFIX / "raw-"; silver topic and Iceberg table
+ * default to the SILVER_TOPIC_PREFIX / ICEBERG_NAMESPACE naming rules. Topics matched only by the
+ * pattern get their route derived on first sight.
+ */
+public final class SilverManifest {
+
+    private static final String TABLE_PREFIX = "table.";
+
+    private final Map<String, SilverRoute> byTopic = new ConcurrentHashMap<>();
+    private final Map<String, SilverRoute> byIcebergTable = new ConcurrentHashMap<>();
+    private final List<String> topics;
+    private final Pattern topicPattern;
+
+    private final Naming naming;
+    private final Map<String, Map<String, String>> tableOptions;
+
+    private SilverManifest(List<String> topics, Pattern topicPattern, Naming naming, Map<String, Map<String, String>> tableOptions) {
+        this.topics = List.copyOf(topics);
+        this.topicPattern = topicPattern;
+        this.naming = naming;
+        this.tableOptions = tableOptions;
+        for (String t : this.topics) {
+            resolve(t);
+        }
+    }
+
+    /** Loads the manifest file when given, otherwise builds one from the explicit topic list / pattern. */
+    public static SilverManifest load(String manifestPath, List<String> envTopics, String envPattern, Naming naming) {
+        if (manifestPath == null || manifestPath.isBlank()) {
+            return new SilverManifest(envTopics, compile(envPattern), naming, Map.of());
+        }
+
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(Path.of(manifestPath))) {
+            p.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read silver manifest " + manifestPath, e);
+        }
+
+        List<String> topics = new ArrayList<>(BronzeToSilverContext.parseCsv(p.getProperty("topics")));
+        String pattern = p.getProperty("topic.pattern", envPattern);
+
+        Map<String, Map<String, String>> tableOptions = new HashMap<>();
+        for (String key : p.stringPropertyNames()) {
+            if (!key.startsWith(TABLE_PREFIX)) continue;
+            String rest = key.substring(TABLE_PREFIX.length());
+            int dot = rest.indexOf('.');
+            if (dot <= 0 || dot == rest.length() - 1) {
+                throw new IllegalArgumentException("Bad manifest key '" + key + "'; expected table.<TABLE>.<option>");
+            }
+            tableOptions.computeIfAbsent(rest.substring(0, dot), t -> new HashMap<>())
+                    .put(rest.substring(dot + 1), p.getProperty(key));
+        }
+        return new SilverManifest(topics, compile(pattern), naming, tableOptions);
+    }
+
+    /** Subset of this manifest limited to the given topics (pattern routing is not carried over). */
+    public SilverManifest select(Collection<String> wanted) {
+        List<String> kept = new ArrayList<>();
+        for (String t : topics) {
+            if (wanted.contains(t)) kept.add(t);
+        }
+        return new SilverManifest(kept, null, naming, tableOptions);
+    }
+
+    /** Route for a bronze topic, or null if the manifest does not cover it. */
+    public SilverRoute resolve(String bronzeTopic) {
+        if (bronzeTopic == null) return null;
+        SilverRoute route = byTopic.get(bronzeTopic);
+        if (route != null) return route;
+
+        if (!topics.contains(bronzeTopic) && (topicPattern == null || !topicPattern.matcher(bronzeTopic).matches())) {
+            return null;
+        }
+        return byTopic.computeIfAbsent(bronzeTopic, this::newRoute);
+    }
+
+    /** Route that produced a silver record, looked up by its "__iceberg_table" value. */
+    public SilverRoute routeForIcebergTable(String icebergTable) {
+        return byIcebergTable.get(icebergTable);
+    }
+
+    private SilverRoute newRoute(String bronzeTopic) {
+        String tableName = BronzeToSilverPipeline.deriveSourceTableFromTopic(bronzeTopic, naming.stripPrefix);
+        Map<String, String> options = tableOptions.getOrDefault(tableName, Map.of());
+
+        String silverTopic = options.getOrDefault("silver-topic", BronzeToSilverPipeline.silverTopicFor(
+                bronzeTopic, naming.silverTopicPrefix, naming.stripPrefix, naming.nameStyle));
+        String icebergTable = options.getOrDefault("iceberg-table",
+                BronzeToSilverPipeline.icebergTableFor(naming.icebergNamespace, tableName));
+
+        SilverRoute route = new SilverRoute(bronzeTopic, tableName, silverTopic, icebergTable, options);
+        SilverRoute clash = byIcebergTable.putIfAbsent(route.icebergTable, route);
+        if (clash != null) {
+            throw new IllegalStateException("Topics " + clash.bronzeTopic + " and " + bronzeTopic
+                    + " both route to iceberg table " + route.icebergTable);
+        }
+        return route;
+    }
+
+    public List<String> topics() {
+        return topics;
+    }
+
+    /** Pattern subscription, or null when only the explicit topic list is read. */
+    public Pattern topicPattern() {
+        return topicPattern;
+    }
+
+    public boolean isEmpty() {
+        return topics.isEmpty() && topicPattern == null;
+    }
+
+    /** Routes known so far (all explicit topics plus pattern topics already seen). */
+    public Collection<SilverRoute> routes() {
+        Map<String, SilverRoute> ordered = new LinkedHashMap<>();
+        for (String t : topics) {
+            ordered.put(t, byTopic.get(t));
+        }
+        ordered.putAll(byTopic);
+        return ordered.values();
+    }
+
+    private static Pattern compile(String pattern) {
+        return (pattern == null || pattern.isBlank()) ? null : Pattern.compile(pattern.trim());
+    }
+
+    /** Default naming rules applied when a table has no explicit silver-topic / iceberg-table. */
+    public static final class Naming {
+        final String silverTopicPrefix;
+        final String stripPrefix;
+        final String nameStyle;
+        final String icebergNamespace;
+
+        public Naming(String silverTopicPrefix, String stripPrefix, String nameStyle, String icebergNamespace) {
+            this.silverTopicPrefix = silverTopicPrefix;
+            this.stripPrefix = stripPrefix;
+            this.nameStyle = nameStyle;
+            this.icebergNamespace = icebergNamespace;
+        }
+    }
+}
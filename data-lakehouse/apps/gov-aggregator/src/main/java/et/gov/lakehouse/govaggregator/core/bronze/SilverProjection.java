@@ -0,0 +1,256 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Per-table column projection applied when the silver schema is built, from the manifest options
+ * (table.&lt;TABLE&gt;.&lt;option&gt;):
+ * <pre>
+ * drop-columns=FRST_REGST_ID,LAST_MODFR_ID      not carried into silver
+ * narrow-numbers=true                           scale-0 decimals -> int (precision <= 9) / long (<= 18)
+ * column-types=LPCO_SN:long,APFM_REFNO_SN:int   explicit narrowing, also for VariableScaleDecimal
+ * normalize-timestamps=true                     io.debezium.time.Timestamp / MicroTimestamp / NanoTimestamp
+ *                                               -> long timestamp-micros
+ * </pre>
+ * The two switches default to SILVER_NARROW_NUMBERS / SILVER_NORMALIZE_TIMESTAMPS. A narrowed value
+ * that does not fit (fraction, overflow) fails the record, which then goes to the dead-letter queue.
+ */
+public final class SilverProjection {
+
+    public static final String DROP_COLUMNS_OPTION = "drop-columns";
+    public static final String NARROW_NUMBERS_OPTION = "narrow-numbers";
+    public static final String COLUMN_TYPES_OPTION = "column-types";
+    public static final String NORMALIZE_TIMESTAMPS_OPTION = "normalize-timestamps";
+
+    private static final boolean NARROW_NUMBERS_DEFAULT = Boolean.parseBoolean(
+            System.getProperty("silver.narrow.numbers", System.getenv().getOrDefault("SILVER_NARROW_NUMBERS", "false")));
+    private static final boolean NORMALIZE_TIMESTAMPS_DEFAULT = Boolean.parseBoolean(
+            System.getProperty("silver.normalize.timestamps", System.getenv().getOrDefault("SILVER_NORMALIZE_TIMESTAMPS", "false")));
+
+    private static final String DEBEZIUM_TIMESTAMP = "io.debezium.time.Timestamp";
+    private static final String DEBEZIUM_MICRO_TIMESTAMP = "io.debezium.time.MicroTimestamp";
+    private static final String DEBEZIUM_NANO_TIMESTAMP = "io.debezium.time.NanoTimestamp";
+    private static final String VARIABLE_SCALE_DECIMAL = "io.debezium.data.VariableScaleDecimal";
+
+    /** Every column, every type as written. */
+    public static final SilverProjection NONE = new SilverProjection(Set.of(), Map.of(), false, false);
+
+    /** Lowercased column names. */
+    private final Set<String> dropped;
+    /** Lowercased column name -> INT or LONG. */
+    private final Map<String, Schema.Type> columnTypes;
+    private final boolean narrowNumbers;
+    private final boolean normalizeTimestamps;
+
+    private SilverProjection(Set<String> dropped, Map<String, Schema.Type> columnTypes,
+                             boolean narrowNumbers, boolean normalizeTimestamps) {
+        this.dropped = dropped;
+        this.columnTypes = columnTypes;
+        this.narrowNumbers = narrowNumbers;
+        this.normalizeTimestamps = normalizeTimestamps;
+    }
+
+    static SilverProjection of(SilverRoute route) {
+        Set<String> dropped = new HashSet<>();
+        for (String c : route.optionList(DROP_COLUMNS_OPTION)) {
+            dropped.add(c.toLowerCase());
+        }
+        Map<String, Schema.Type> columnTypes = new HashMap<>();
+        for (String spec : route.optionList(COLUMN_TYPES_OPTION)) {
+            int colon = spec.indexOf(':');
+            String type = colon > 0 ? spec.substring(colon + 1).trim().toLowerCase() : "";
+            if (!type.equals("int") && !type.equals("long")) {
+                throw new IllegalArgumentException("Bad " + COLUMN_TYPES_OPTION + " entry '" + spec + "' for table "
+                        + route.tableName + "; expected <COLUMN>:int or <COLUMN>:long");
+            }
+            columnTypes.put(spec.substring(0, colon).trim().toLowerCase(), type.equals("int") ? Schema.Type.INT : Schema.Type.LONG);
+        }
+        boolean narrow = Boolean.parseBoolean(route.option(NARROW_NUMBERS_OPTION, String.valueOf(NARROW_NUMBERS_DEFAULT)));
+        boolean timestamps = Boolean.parseBoolean(route.option(NORMALIZE_TIMESTAMPS_OPTION, String.valueOf(NORMALIZE_TIMESTAMPS_DEFAULT)));
+        if (dropped.isEmpty() && columnTypes.isEmpty() && !narrow && !timestamps) {
+            return NONE;
+        }
+        return new SilverProjection(Set.copyOf(dropped), Map.copyOf(columnTypes), narrow, timestamps);
+    }
+
+    public boolean isIdentity() {
+        return this.equals(NONE);
+    }
+
+    public boolean dropsAny() {
+        return !dropped.isEmpty();
+    }
+
+    public boolean drops(String column) {
+        return dropped.contains(column.toLowerCase());
+    }
+
+    /** Silver schema of a kept column: {@code source} itself, or its narrowed / normalized form. */
+    public Schema columnSchema(String column, Schema source) {
+        if (source.getType() != Schema.Type.UNION) {
+            return mapped(column, source);
+        }
+        List<Schema> branches = source.getTypes();
+        List<Schema> out = new ArrayList<>(branches.size());
+        boolean changed = false;
+        for (Schema b : branches) {
+            Schema m = b.getType() == Schema.Type.NULL ? b : mapped(column, b);
+            changed |= m != b;
+            out.add(m);
+        }
+        return changed ? Schema.createUnion(out) : source;
+    }
+
+    private Schema mapped(String column, Schema s) {
+        Schema.Type forced = columnTypes.get(column.toLowerCase());
+        if (forced != null && isNumeric(s)) {
+            return s.getType() == forced && s.getLogicalType() == null ? s : Schema.create(forced);
+        }
+        if (narrowNumbers && isDecimal(s) && scaleOf(s) == 0) {
+            int precision = intProp(s, "precision", Integer.MAX_VALUE);
+            if (precision <= 9) return Schema.create(Schema.Type.INT);
+            if (precision <= 18) return Schema.create(Schema.Type.LONG);
+        }
+        if (normalizeTimestamps && s.getType() == Schema.Type.LONG && timestampUnit(s) != 0) {
+            return LogicalTypes.timestampMicros().addToSchema(Schema.create(Schema.Type.LONG));
+        }
+        return s;
+    }
+
+    /** Value conversion from a writer column to its silver form, or null when the value is copied as is. */
+    public static ValueConverter converter(Schema source, Schema target) {
+        Schema s = nonNull(source);
+        Schema t = nonNull(target);
+        if (s.equals(t)) return null;
+
+        if (t.getType() == Schema.Type.LONG && t.getLogicalType() instanceof LogicalTypes.TimestampMicros) {
+            long unit = timestampUnit(s);
+            if (unit == 1_000) return v -> Math.multiplyExact(((Number) v).longValue(), 1_000L);
+            if (unit == 1_000_000) return v -> v;
+            if (unit == 1_000_000_000) return v -> Math.floorDiv(((Number) v).longValue(), 1_000L);
+            return null;
+        }
+        if (t.getType() != Schema.Type.INT && t.getType() != Schema.Type.LONG) return null;
+        boolean toInt = t.getType() == Schema.Type.INT;
+
+        if (isDecimal(s)) {
+            int scale = scaleOf(s);
+            return v -> exact(decimal(v, scale), toInt);
+        }
+        if (isVariableScaleDecimal(s)) {
+            return v -> {
+                GenericRecord r = (GenericRecord) v;
+                return exact(decimal(r.get("value"), ((Number) r.get("scale")).intValue()), toInt);
+            };
+        }
+        if (s.getType() == Schema.Type.INT || s.getType() == Schema.Type.LONG) {
+            return toInt ? v -> Math.toIntExact(((Number) v).longValue()) : v -> ((Number) v).longValue();
+        }
+        return null;
+    }
+
+    private static Object exact(BigDecimal d, boolean toInt) {
+        // ArithmeticException for a fraction or an out-of-range value.
+        return toInt ? (Object) d.intValueExact() : (Object) d.longValueExact();
+    }
+
+    private static BigDecimal decimal(Object v, int scale) {
+        if (v instanceof BigDecimal bd) return bd;
+        byte[] bytes;
+        if (v instanceof ByteBuffer bb) {
+            bytes = new byte[bb.remaining()];
+            bb.duplicate().get(bytes);
+        } else if (v instanceof GenericFixed f) {
+            bytes = f.bytes();
+        } else {
+            return new BigDecimal(v.toString());
+        }
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    private static boolean isNumeric(Schema s) {
+        return s.getType() == Schema.Type.INT || s.getType() == Schema.Type.LONG || isDecimal(s) || isVariableScaleDecimal(s);
+    }
+
+    private static boolean isDecimal(Schema s) {
+        return (s.getType() == Schema.Type.BYTES || s.getType() == Schema.Type.FIXED)
+                && "decimal".equals(s.getProp("logicalType"));
+    }
+
+    private static boolean isVariableScaleDecimal(Schema s) {
+        return s.getType() == Schema.Type.RECORD
+                && (VARIABLE_SCALE_DECIMAL.equals(s.getFullName()) || VARIABLE_SCALE_DECIMAL.equals(s.getProp("connect.name")))
+                && s.getField("scale") != null && s.getField("value") != null;
+    }
+
+    /** Ticks per second of a Debezium epoch timestamp column, 0 for anything else. */
+    private static long timestampUnit(Schema s) {
+        if (s.getType() != Schema.Type.LONG) return 0;
+        String name = s.getProp("connect.name");
+        if (DEBEZIUM_TIMESTAMP.equals(name)) return 1_000;
+        if (DEBEZIUM_MICRO_TIMESTAMP.equals(name)) return 1_000_000;
+        if (DEBEZIUM_NANO_TIMESTAMP.equals(name)) return 1_000_000_000;
+        return 0;
+    }
+
+    private static int scaleOf(Schema s) {
+        return intProp(s, "scale", 0);
+    }
+
+    private static int intProp(Schema s, String name, int defVal) {
+        Object v = s.getObjectProp(name);
+        if (v instanceof Number n) return n.intValue();
+        if (v instanceof String str && !str.isBlank()) return Integer.parseInt(str.trim());
+        return defVal;
+    }
+
+    private static Schema nonNull(Schema s) {
+        if (s.getType() != Schema.Type.UNION) return s;
+        Schema only = null;
+        for (Schema b : s.getTypes()) {
+            if (b.getType() == Schema.Type.NULL) continue;
+            if (only != null) return s;
+            only = b;
+        }
+        return only != null ? only : s;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SilverProjection p)) return false;
+        return narrowNumbers == p.narrowNumbers && normalizeTimestamps == p.normalizeTimestamps
+                && dropped.equals(p.dropped) && columnTypes.equals(p.columnTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dropped, columnTypes, narrowNumbers, normalizeTimestamps);
+    }
+
+    @Override
+    public String toString() {
+        return "SilverProjection{drop=" + dropped + ", types=" + columnTypes + ", narrowNumbers=" + narrowNumbers
+                + ", normalizeTimestamps=" + normalizeTimestamps + "}";
+    }
+
+    /** One column value, never null, to its silver form. */
+    @FunctionalInterface
+    public interface ValueConverter {
+        Object convert(Object value);
+    }
+}
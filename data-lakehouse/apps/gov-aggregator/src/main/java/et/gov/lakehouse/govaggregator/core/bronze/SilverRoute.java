@@ -0,0 +1,42 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import java.util.List;
+import java.util.Map;
+
+/** Precomputed bronze topic -> silver topic / Iceberg table routing for one source table. */
+public final class SilverRoute {
+
+    public final String bronzeTopic;
+    public final String tableName;
+    public final String silverTopic;
+    public final String icebergTable;
+
+    /** Columns dropped / narrowed on the way to silver (manifest options, see {@link SilverProjection}). */
+    public final SilverProjection projection;
+
+    /** Per-table manifest options ("table.<TABLE>.<option>=..."), keyed by option name. */
+    private final Map<String, String> options;
+
+    SilverRoute(String bronzeTopic, String tableName, String silverTopic, String icebergTable, Map<String, String> options) {
+        this.bronzeTopic = bronzeTopic;
+        this.tableName = tableName;
+        this.silverTopic = silverTopic;
+        this.icebergTable = icebergTable.intern();
+        this.options = Map.copyOf(options);
+        this.projection = SilverProjection.of(this);
+    }
+
+    public String option(String name, String defVal) {
+        String v = options.get(name);
+        return (v != null && !v.isBlank()) ? v.trim() : defVal;
+    }
+
+    public List<String> optionList(String name) {
+        return BronzeToSilverContext.parseCsv(options.get(name));
+    }
+
+    @Override
+    public String toString() {
+        return bronzeTopic + " -> " + silverTopic + " (iceberg table: " + icebergTable + ")";
+    }
+}
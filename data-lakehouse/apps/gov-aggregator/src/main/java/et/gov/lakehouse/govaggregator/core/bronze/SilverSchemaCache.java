@@ -0,0 +1,236 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded writer-schema -> silver-schema cache.
+ *
+ * Steady state is one lookup in a copy-on-write IdentityHashMap keyed by the writer Schema instance.
+ * On an identity miss the writer's 64-bit fingerprint decides whether an existing silver schema can
+ * be reused (same schema, different instance) or a new one must be built (the table evolved). The
+ * fingerprint covers the full schema JSON, not the Parsing Canonical Form, which drops logical types,
+ * precision, scale and connect.* props: a NUMBER(10,2) -> NUMBER(12,4) change must not reuse a plan
+ * built for the old scale. Fingerprint entries are evicted in LRU order once maxEntries is exceeded;
+ * the instance map holds at most WRITERS_PER_ENTRY * maxEntries writers and is reset beyond that.
+ */
+public final class SilverSchemaCache {
+
+    /** Writer instances remembered per fingerprint entry before the identity map is reset. */
+    static final int WRITERS_PER_ENTRY = 4;
+
+    private final int maxEntries;
+
+    /** Read without locking; replaced wholesale under the lock. */
+    private volatile IdentityHashMap<Schema, Entry[]> byWriter = new IdentityHashMap<>();
+
+    /** Guarded by this. */
+    private final HashMap<Key, Entry> byFingerprint = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder fingerprintHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SilverSchemaCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be >= 1");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /** Entry for (writer, namespace, name, projection), building the silver schema with {@code factory} if needed. */
+    public Entry get(Schema writer, String outputNamespace, String outputName, SilverProjection projection, SchemaFactory factory) {
+        Entry[] candidates = byWriter.get(writer);
+        if (candidates != null) {
+            for (Entry e : candidates) {
+                if (e.matches(outputNamespace, outputName, projection)) {
+                    hits.increment();
+                    e.lastAccess = System.nanoTime();
+                    return e;
+                }
+            }
+        }
+        return load(writer, outputNamespace, outputName, projection, factory);
+    }
+
+    /** Compiled plan for a silver schema previously handed out for this writer instance, else null. */
+    public ProjectionPlan planFor(Schema writer, Schema silver) {
+        Entry[] candidates = byWriter.get(writer);
+        if (candidates != null) {
+            for (Entry e : candidates) {
+                if (e.silver == silver) return e.plan;
+            }
+        }
+        return null;
+    }
+
+    private synchronized Entry load(Schema writer, String outputNamespace, String outputName, SilverProjection projection,
+                                    SchemaFactory factory) {
+        // Another thread may have published it while we waited for the lock.
+        Entry[] candidates = byWriter.get(writer);
+        if (candidates != null) {
+            for (Entry e : candidates) {
+                if (e.matches(outputNamespace, outputName, projection)) {
+                    hits.increment();
+                    return e;
+                }
+            }
+        }
+
+        Key key = new Key(fingerprint(writer), outputNamespace, outputName, projection);
+        Entry entry = byFingerprint.get(key);
+        if (entry != null) {
+            fingerprintHits.increment();
+        } else {
+            misses.increment();
+            Schema silver = factory.build(writer, outputNamespace, outputName, projection);
+            entry = new Entry(key, silver, ProjectionPlan.compile(writer, silver));
+            byFingerprint.put(key, entry);
+        }
+        entry.lastAccess = System.nanoTime();
+
+        evictOverflow();
+        // Deserializers may hand out a new instance per lookup; past the bound start over, and the
+        // writers still in use come back through a fingerprint hit.
+        IdentityHashMap<Schema, Entry[]> next = byWriter.size() >= (long) WRITERS_PER_ENTRY * maxEntries
+                ? new IdentityHashMap<>() : new IdentityHashMap<>(byWriter);
+        Entry[] existing = next.get(writer);
+        if (existing == null) {
+            next.put(writer, new Entry[] { entry });
+        } else {
+            Entry[] grown = Arrays.copyOf(existing, existing.length + 1);
+            grown[existing.length] = entry;
+            next.put(writer, grown);
+        }
+        byWriter = next;
+        return entry;
+    }
+
+    /** Fingerprint of the full schema JSON, props and logical types included. */
+    static long fingerprint(Schema writer) {
+        return SchemaNormalization.fingerprint64(writer.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void evictOverflow() {
+        if (byFingerprint.size() <= maxEntries) return;
+
+        // Hits are lock-free, so recency is the access time they record rather than map order.
+        List<Entry> ranked = new ArrayList<>(byFingerprint.values());
+        ranked.sort((a, b) -> Long.compare(a.lastAccess, b.lastAccess));
+        for (int i = 0; i < ranked.size() - maxEntries; i++) {
+            byFingerprint.remove(ranked.get(i).key);
+            evictions.increment();
+        }
+
+        IdentityHashMap<Schema, Entry[]> next = new IdentityHashMap<>();
+        for (Map.Entry<Schema, Entry[]> w : byWriter.entrySet()) {
+            Entry[] live = Arrays.stream(w.getValue())
+                    .filter(e -> byFingerprint.get(e.key) == e)
+                    .toArray(Entry[]::new);
+            if (live.length > 0) next.put(w.getKey(), live);
+        }
+        byWriter = next;
+    }
+
+    public synchronized int size() {
+        return byFingerprint.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long fingerprintHits() {
+        return fingerprintHits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public synchronized void clear() {
+        byFingerprint.clear();
+        byWriter = new IdentityHashMap<>();
+    }
+
+    @Override
+    public String toString() {
+        return "SilverSchemaCache{size=" + size() + ", hits=" + hits() + ", fingerprintHits=" + fingerprintHits()
+                + ", misses=" + misses() + ", evictions=" + evictions() + "}";
+    }
+
+    /** Builds the silver schema for a writer schema; pass a static method reference so hits allocate nothing. */
+    @FunctionalInterface
+    public interface SchemaFactory {
+        Schema build(Schema writer, String outputNamespace, String outputName, SilverProjection projection);
+    }
+
+    /** One silver schema plus its compiled projection; shared by all writer instances with the same fingerprint. */
+    public static final class Entry {
+        final Key key;
+        public final Schema silver;
+        public final ProjectionPlan plan;
+        // Written racily by lock-free hits; only used to rank eviction candidates.
+        long lastAccess;
+
+        private Entry(Key key, Schema silver, ProjectionPlan plan) {
+            this.key = key;
+            this.silver = silver;
+            this.plan = plan;
+        }
+
+        public long fingerprint() {
+            return key.fingerprint;
+        }
+
+        boolean matches(String outputNamespace, String outputName, SilverProjection projection) {
+            // Routes hold their projection, so a hit compares instances; equals covers the rest.
+            return Objects.equals(key.outputName, outputName) && Objects.equals(key.outputNamespace, outputNamespace)
+                    && (key.projection == projection || key.projection.equals(projection));
+        }
+    }
+
+    private static final class Key {
+        final long fingerprint;
+        final String outputNamespace;
+        final String outputName;
+        final SilverProjection projection;
+
+        Key(long fingerprint, String outputNamespace, String outputName, SilverProjection projection) {
+            this.fingerprint = fingerprint;
+            this.outputNamespace = outputNamespace;
+            this.outputName = outputName;
+            this.projection = projection;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return fingerprint == k.fingerprint
+                    && Objects.equals(outputNamespace, k.outputNamespace)
+                    && Objects.equals(outputName, k.outputName)
+                    && projection.equals(k.projection);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fingerprint, outputNamespace, outputName, projection);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Byte-level bronze -> silver path for one table (opt-in via SILVER_TRANSCODE=true).
+ *
+ * A Debezium envelope framed as magic byte + 4-byte contentId is read only as far as the end of its
+ * "after" branch; the silver message is then the silver frame header, the "__iceberg_table" string
+ * and the "after" bytes copied verbatim. This is valid because silverSchemaFor keeps every "after"
+ * field schema and order, which {@link ProjectionPlan#isBytePassthrough()} double-checks. A table
+ * whose {@link SilverProjection} only drops columns copies the byte ranges of the kept columns
+ * ({@link ProjectionPlan#byteSubset()}); narrowed or normalized columns need the decode path.
+ *
+ * The first record of every writer schema goes through the regular decode/encode path; that
+ * serialization supplies the silver header (registry id) and is compared byte-for-byte with the
+ * transcoded form before the fast path is trusted. Anything else falls back to the decode path.
+ *
+ * With no-op update suppression on, an envelope whose before and after images are byte-identical is
+ * reported as {@link #SUPPRESSED}; tables with a compare-columns subset or drop-columns are always
+ * decoded, since their no-op check ignores some columns.
+ */
+public final class SilverTranscoder {
+
+    /** Returned (by identity) for an update that changed none of the compared columns. */
+    public static final byte[] SUPPRESSED = new byte[0];
+
+    private static final byte MAGIC_BYTE = 0x0;
+    private static final int FRAME_HEADER_LENGTH = 5;
+
+    private final SilverRoute route;
+    private final String outputNamespace;
+    private final NoOpUpdateFilter noOpFilter;
+    private final boolean decodeOnly;
+    /** Null when SILVER_SNAPSHOT_FAST_PATH=false. */
+    private final SnapshotTracker tracker;
+
+    private final Deserializer<GenericRecord> bronzeDeserializer;
+    private final Serializer<GenericRecord> silverSerializer;
+
+    private final ConcurrentHashMap<Integer, Layout> layouts = new ConcurrentHashMap<>();
+    private volatile Layout lastLayout;
+
+    /** @param noOpFilter null when no-op update suppression is off */
+    public SilverTranscoder(BronzeToSilverContext ctx, SilverRoute route, NoOpUpdateFilter noOpFilter) {
+        this(ctx, route, noOpFilter, noOpFilter != null && NoOpUpdateFilter.needsDecode(route));
+    }
+
+    /** Same bytes-in/bytes-out contract, always through the decode/encode path (SILVER_TRANSCODE=false). */
+    public static SilverTranscoder decodeOnly(BronzeToSilverContext ctx, SilverRoute route, NoOpUpdateFilter noOpFilter) {
+        return new SilverTranscoder(ctx, route, noOpFilter, true);
+    }
+
+    private SilverTranscoder(BronzeToSilverContext ctx, SilverRoute route, NoOpUpdateFilter noOpFilter, boolean decodeOnly) {
+        this.route = route;
+        this.outputNamespace = ctx.silverRecordNamespace;
+        this.noOpFilter = noOpFilter;
+        this.decodeOnly = decodeOnly;
+        this.tracker = SnapshotTracker.enabled() ? SnapshotTracker.of(route.tableName) : null;
+        this.bronzeDeserializer = ctx.bronzeValueSerde.deserializer();
+        this.silverSerializer = ctx.silverValueSerde.serializer();
+    }
+
+    /**
+     * Returns the framed silver value, null when the envelope has no "after" image, or
+     * {@link #SUPPRESSED} for a suppressed no-op update.
+     *
+     * @param partition bronze partition, for its {@link SnapshotTracker} phase
+     */
+    public byte[] transcode(byte[] bronze, int partition) {
+        if (bronze == null) return null;
+        SnapshotTracker.Partition snapshot = tracker != null ? tracker.partition(partition) : null;
+        if (decodeOnly || bronze.length < FRAME_HEADER_LENGTH || bronze[0] != MAGIC_BYTE) {
+            return decodePath(bronze, snapshot);
+        }
+
+        int contentId = readInt(bronze, 1);
+        Layout layout = lastLayout;
+        if (layout == null || layout.contentId != contentId) {
+            layout = layouts.get(contentId);
+            if (layout == null) {
+                return compileAndEmit(contentId, bronze, snapshot);
+            }
+            lastLayout = layout;
+        }
+
+        if (layout.prefix == null) {
+            return decodePath(bronze, snapshot);
+        }
+        return layout.transcode(bronze, noOpFilter != null, snapshot);
+    }
+
+    private byte[] compileAndEmit(int contentId, byte[] bronze, SnapshotTracker.Partition snapshot) {
+        GenericRecord root = bronzeDeserializer.deserialize(route.bronzeTopic, bronze);
+        boolean snapshotRow = snapshot != null && snapshot.observe(SnapshotTracker.markerOf(root));
+        GenericRecord after = BronzeToSilverPipeline.extractAfter(root);
+        if (after == null) {
+            // Nothing to learn the silver header from yet; compile on the next "after" image.
+            return null;
+        }
+
+        Schema silverSchema = BronzeToSilverPipeline.silverSchemaFor(after, outputNamespace, route);
+        byte[] silver = silverSerializer.serialize(
+                route.silverTopic,
+                BronzeToSilverPipeline.toSilver(after, silverSchema, route.icebergTable)
+        );
+
+        Layout layout = Layout.compile(contentId, root.getSchema(), silverSchema, silver, route.icebergTable);
+        if (layout.prefix != null && !Arrays.equals(layout.transcode(bronze, false, null), silver)) {
+            layout = Layout.fallback(contentId);
+        }
+        if (layout.prefix == null) {
+            System.out.println("[debezium-to-silver] transcoding disabled for " + route.bronzeTopic
+                    + " contentId=" + contentId + "; using decode path");
+        }
+
+        layouts.put(contentId, layout);
+        lastLayout = layout;
+        if (!snapshotRow && noOpFilter != null && noOpFilter.isNoOpUpdate(route, root)) {
+            return SUPPRESSED;
+        }
+        return silver;
+    }
+
+    private byte[] decodePath(byte[] bronze, SnapshotTracker.Partition snapshot) {
+        GenericRecord root = bronzeDeserializer.deserialize(route.bronzeTopic, bronze);
+        boolean snapshotRow = snapshot != null && snapshot.observe(SnapshotTracker.markerOf(root));
+        if (!snapshotRow && noOpFilter != null && noOpFilter.isNoOpUpdate(route, root)) {
+            return SUPPRESSED;
+        }
+        GenericRecord after = BronzeToSilverPipeline.extractAfter(root);
+        if (after == null) return null;
+        Schema silverSchema = BronzeToSilverPipeline.silverSchemaFor(after, outputNamespace, route);
+        return silverSerializer.serialize(
+                route.silverTopic,
+                BronzeToSilverPipeline.toSilver(after, silverSchema, route.icebergTable)
+        );
+    }
+
+    /**
+     * The routing field (__iceberg_table) of a framed silver value. It is the first field of every
+     * silver schema, so it sits right after the frame header; nothing else is decoded.
+     */
+    static String icebergTableOf(byte[] silver) {
+        AvroBinaryCursor c = new AvroBinaryCursor(silver, FRAME_HEADER_LENGTH);
+        int start = c.skipBytes();
+        return new String(silver, start, c.pos - start, StandardCharsets.UTF_8);
+    }
+
+    private static int readInt(byte[] b, int off) {
+        return ((b[off] & 0xff) << 24) | ((b[off + 1] & 0xff) << 16) | ((b[off + 2] & 0xff) << 8) | (b[off + 3] & 0xff);
+    }
+
+    /** Where "after" sits in one envelope writer schema, plus the precomputed silver prefix. */
+    private static final class Layout {
+        final int contentId;
+        final Schema[] leadingFields;
+        final int beforeIndex;
+        final int afterBranch;
+        final Schema afterSchema;
+        /** Columns of afterSchema to copy, null for all of "after" in one piece. */
+        final Schema[] afterFields;
+        final boolean[] kept;
+        final byte[] prefix;
+        /** Envelope fields after "after" up to "op"; null when op/source.snapshot cannot be read in place. */
+        final Schema[] trailingFields;
+        /** Index into trailingFields of "source", and of "snapshot" within the source record. */
+        final int sourceIndex;
+        final int snapshotIndex;
+
+        private Layout(int contentId, Schema[] leadingFields, int beforeIndex, int afterBranch, Schema afterSchema,
+                       boolean[] kept, byte[] prefix, Schema[] trailingFields, int sourceIndex, int snapshotIndex) {
+            this.contentId = contentId;
+            this.leadingFields = leadingFields;
+            this.beforeIndex = beforeIndex;
+            this.afterBranch = afterBranch;
+            this.afterSchema = afterSchema;
+            this.kept = kept;
+            this.afterFields = kept == null ? null
+                    : afterSchema.getFields().stream().map(Schema.Field::schema).toArray(Schema[]::new);
+            this.prefix = prefix;
+            this.trailingFields = trailingFields;
+            this.sourceIndex = sourceIndex;
+            this.snapshotIndex = snapshotIndex;
+        }
+
+        static Layout fallback(int contentId) {
+            return new Layout(contentId, null, -1, -1, null, null, null, null, -1, -1);
+        }
+
+        static Layout compile(int contentId, Schema envelope, Schema silverSchema, byte[] silverSample, String icebergTable) {
+            Schema.Field afterField = envelope.getField("after");
+            if (afterField == null || silverSample == null || silverSample.length < FRAME_HEADER_LENGTH
+                    || silverSample[0] != MAGIC_BYTE) {
+                return fallback(contentId);
+            }
+
+            int afterBranch = -1;
+            Schema afterSchema = afterField.schema();
+            if (afterSchema.getType() == Schema.Type.UNION) {
+                List<Schema> branches = afterSchema.getTypes();
+                afterSchema = null;
+                for (int i = 0; i < branches.size(); i++) {
+                    if (branches.get(i).getType() == Schema.Type.RECORD) {
+                        afterBranch = i;
+                        afterSchema = branches.get(i);
+                    }
+                }
+            }
+            if (afterSchema == null || afterSchema.getType() != Schema.Type.RECORD) {
+                return fallback(contentId);
+            }
+
+            ProjectionPlan plan = BronzeToSilverPipeline.projectionPlanFor(afterSchema, silverSchema);
+            boolean[] kept = null;
+            if (!plan.isBytePassthrough()) {
+                kept = plan.byteSubset();
+                if (kept == null) {
+                    return fallback(contentId);
+                }
+            }
+
+            Schema[] leading = new Schema[afterField.pos()];
+            for (int i = 0; i < leading.length; i++) {
+                leading[i] = envelope.getFields().get(i).schema();
+            }
+            // "before" is only byte-comparable with "after" when both use the same value schema.
+            Schema.Field beforeField = envelope.getField("before");
+            int beforeIndex = (beforeField != null && beforeField.pos() < leading.length
+                    && beforeField.schema().equals(afterField.schema())) ? beforeField.pos() : -1;
+
+            ByteArrayOutputStream prefix = new ByteArrayOutputStream(FRAME_HEADER_LENGTH + icebergTable.length() + 2);
+            prefix.write(silverSample, 0, FRAME_HEADER_LENGTH);
+            try {
+                BinaryEncoder enc = EncoderFactory.get().directBinaryEncoder(prefix, null);
+                enc.writeString(icebergTable);
+                enc.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // op=r detection: walk source (for source.snapshot) and stop at op, both behind "after".
+            Schema[] trailing = null;
+            int sourceIndex = -1;
+            int snapshotIndex = -1;
+            Schema.Field opField = envelope.getField("op");
+            Schema.Field sourceField = envelope.getField("source");
+            if (opField != null && opField.pos() > afterField.pos()) {
+                trailing = new Schema[opField.pos() - afterField.pos()];
+                for (int i = 0; i < trailing.length; i++) {
+                    trailing[i] = envelope.getFields().get(afterField.pos() + 1 + i).schema();
+                }
+                if (sourceField != null && sourceField.pos() > afterField.pos() && sourceField.pos() < opField.pos()
+                        && sourceField.schema().getType() == Schema.Type.RECORD
+                        && sourceField.schema().getField("snapshot") != null) {
+                    sourceIndex = sourceField.pos() - afterField.pos() - 1;
+                    snapshotIndex = sourceField.schema().getField("snapshot").pos();
+                }
+            }
+            return new Layout(contentId, leading, beforeIndex, afterBranch, afterSchema, kept, prefix.toByteArray(),
+                    trailing, sourceIndex, snapshotIndex);
+        }
+
+        /** {@link SnapshotTracker} marker read from the bytes behind "after" (cursor right after it). */
+        int snapshotMarker(AvroBinaryCursor c, byte[] bronze) {
+            if (trailingFields == null) return SnapshotTracker.NONE;
+            int snapStart = -1;
+            int snapLen = 0;
+            for (int i = 0; i < trailingFields.length - 1; i++) {
+                if (i != sourceIndex) {
+                    c.skip(trailingFields[i]);
+                    continue;
+                }
+                List<Schema.Field> fields = trailingFields[i].getFields();
+                for (int f = 0; f < fields.size(); f++) {
+                    if (f == snapshotIndex) {
+                        snapStart = stringStart(c, fields.get(f).schema());
+                        snapLen = c.pos - snapStart;
+                    } else {
+                        c.skip(fields.get(f).schema());
+                    }
+                }
+            }
+            int opStart = stringStart(c, trailingFields[trailingFields.length - 1]);
+            if (opStart < 0 || c.pos - opStart != 1 || bronze[opStart] != 'r') {
+                return SnapshotTracker.NONE;
+            }
+            return SnapshotTracker.markerOf(snapStart < 0 ? null
+                    : new String(bronze, snapStart, snapLen, StandardCharsets.UTF_8));
+        }
+
+        /** Start of a string or [null, string] value, -1 for null (or any other type, which is skipped). */
+        private static int stringStart(AvroBinaryCursor c, Schema s) {
+            if (s.getType() == Schema.Type.UNION) {
+                s = s.getTypes().get(c.readIndex());
+            }
+            if (s.getType() == Schema.Type.STRING) {
+                return c.skipBytes();
+            }
+            c.skip(s);
+            return -1;
+        }
+
+        /** @param snapshot null to skip op=r detection */
+        byte[] transcode(byte[] bronze, boolean suppressNoOps, SnapshotTracker.Partition snapshot) {
+            AvroBinaryCursor c = new AvroBinaryCursor(bronze, FRAME_HEADER_LENGTH);
+            int beforeStart = -1;
+            int beforeEnd = -1;
+            for (int i = 0; i < leadingFields.length; i++) {
+                if (i == beforeIndex && suppressNoOps) {
+                    beforeStart = c.pos;
+                    c.skip(leadingFields[i]);
+                    beforeEnd = c.pos;
+                } else {
+                    c.skip(leadingFields[i]);
+                }
+            }
+
+            int afterStart = c.pos;
+            if (afterBranch >= 0 && c.readIndex() != afterBranch) {
+                if (snapshot != null) snapshot.observe(SnapshotTracker.NONE);
+                return null;
+            }
+
+            int start = c.pos;
+            // [start, end) byte ranges of the kept columns, adjacent ones merged; null = all of "after".
+            int[] ranges = null;
+            int rangeEnds = 0;
+            if (kept == null) {
+                c.skip(afterSchema);
+            } else {
+                ranges = new int[afterFields.length + 1];
+                for (int f = 0; f < afterFields.length; f++) {
+                    int from = c.pos;
+                    c.skip(afterFields[f]);
+                    if (!kept[f]) continue;
+                    if (rangeEnds > 0 && ranges[rangeEnds - 1] == from) {
+                        ranges[rangeEnds - 1] = c.pos;
+                    } else {
+                        ranges[rangeEnds++] = from;
+                        ranges[rangeEnds++] = c.pos;
+                    }
+                }
+            }
+            int len = c.pos - start;
+
+            // Same union branch + same bytes = unchanged row image (only possible for an update).
+            if (beforeStart >= 0 && Arrays.equals(bronze, beforeStart, beforeEnd, bronze, afterStart, c.pos)) {
+                if (snapshot != null) snapshot.observe(SnapshotTracker.NONE);
+                return SUPPRESSED;
+            }
+            if (snapshot != null) {
+                snapshot.observe(snapshotMarker(c, bronze));
+            }
+
+            if (ranges == null) {
+                byte[] out = new byte[prefix.length + len];
+                System.arraycopy(prefix, 0, out, 0, prefix.length);
+                System.arraycopy(bronze, start, out, prefix.length, len);
+                return out;
+            }
+            int keptLen = 0;
+            for (int r = 0; r < rangeEnds; r += 2) {
+                keptLen += ranges[r + 1] - ranges[r];
+            }
+            byte[] out = new byte[prefix.length + keptLen];
+            System.arraycopy(prefix, 0, out, 0, prefix.length);
+            int off = prefix.length;
+            for (int r = 0; r < rangeEnds; r += 2) {
+                System.arraycopy(bronze, ranges[r], out, off, ranges[r + 1] - ranges[r]);
+                off += ranges[r + 1] - ranges[r];
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import et.gov.lakehouse.govaggregator.common.PipelineMetrics;
+import org.apache.avro.generic.GenericRecord;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Snapshot phase of one silver table (Debezium initial load, op=r), tracked per bronze partition.
+ *
+ * A partition enters the phase with its first snapshot row and leaves it with the row Debezium marks as
+ * the last one of the table (source.snapshot=last / last_in_data_collection) or with its first
+ * non-snapshot change, i.e. once streaming has started there. Tombstones neither start nor end it, and
+ * incremental snapshot rows (source.snapshot=incremental) interleave with live changes and do not count.
+ * While a {@link Partition} is {@link Partition#active()}, the silver tasks skip the per-event extras
+ * (coalescing, fresh output records) for its records.
+ *
+ * The table is in its snapshot phase while any of its partitions is; progress (rows over all partitions)
+ * and throughput are logged every SILVER_SNAPSHOT_REPORT_MS and exported as gov_snapshot_* metrics.
+ * Shared by all stream and worker threads.
+ */
+public final class SnapshotTracker {
+
+    /** Not a snapshot row (live change, incremental snapshot). */
+    public static final int NONE = 0;
+    /** An initial-snapshot row. */
+    public static final int ROW = 1;
+    /** The last snapshot row of the table. */
+    public static final int LAST = 2;
+    /** A tombstone (no envelope); leaves the phase as it is. */
+    public static final int TOMBSTONE = -1;
+
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty(
+            "silver.snapshot.fast.path", System.getenv().getOrDefault("SILVER_SNAPSHOT_FAST_PATH", "true")));
+    private static final long REPORT_MS = Long.parseLong(System.getProperty(
+            "silver.snapshot.report.ms", System.getenv().getOrDefault("SILVER_SNAPSHOT_REPORT_MS", "10000")));
+
+    private static final PipelineMetrics METRICS = PipelineMetrics.global();
+    private static final Map<String, SnapshotTracker> TABLES = new ConcurrentHashMap<>();
+
+    private final String table;
+    private final Map<Integer, Partition> partitions = new ConcurrentHashMap<>();
+    private int activePartitions;
+    private volatile long nextReport;
+    private long startMs;
+    private long lastReportMs;
+    private long lastReportRows;
+
+    private SnapshotTracker(String table) {
+        this.table = table;
+    }
+
+    /** Whether snapshot detection (and with it the bulk path) is on; SILVER_SNAPSHOT_FAST_PATH. */
+    public static boolean enabled() {
+        return ENABLED;
+    }
+
+    public static SnapshotTracker of(String table) {
+        SnapshotTracker t = TABLES.get(table);
+        return t != null ? t : TABLES.computeIfAbsent(table, SnapshotTracker::new);
+    }
+
+    /** The phase of one bronze partition of this table. */
+    public Partition partition(int partition) {
+        Partition p = partitions.get(partition);
+        return p != null ? p : partitions.computeIfAbsent(partition, Partition::new);
+    }
+
+    /** {@link #NONE}, {@link #ROW}, {@link #LAST} or {@link #TOMBSTONE} for a decoded Debezium envelope. */
+    public static int markerOf(GenericRecord root) {
+        GenericRecord envelope = BronzeToSilverPipeline.envelopeOf(root);
+        if (envelope == null) {
+            return TOMBSTONE;
+        }
+        if (!"r".equals(BronzeToSilverPipeline.extractOp(envelope))) {
+            return NONE;
+        }
+        Object source = envelope.getSchema().getField("source") != null ? envelope.get("source") : null;
+        Object snapshot = source instanceof GenericRecord s && s.getSchema().getField("snapshot") != null
+                ? s.get("snapshot") : null;
+        return markerOf(snapshot != null ? snapshot.toString() : null);
+    }
+
+    /** Marker for an op=r record with the given source.snapshot value (null when absent). */
+    static int markerOf(String snapshot) {
+        if (snapshot == null) return ROW;
+        switch (snapshot) {
+            case "last":
+            case "last_in_data_collection":
+                return LAST;
+            case "incremental":
+            case "false":
+                return NONE;
+            default:
+                return ROW;
+        }
+    }
+
+    private long rows() {
+        long total = 0;
+        for (Partition p : partitions.values()) {
+            total += p.rows.sum();
+        }
+        return total;
+    }
+
+    private synchronized void started(Partition p) {
+        if (activePartitions++ > 0) return;
+        startMs = System.currentTimeMillis();
+        lastReportMs = startMs;
+        lastReportRows = rows();
+        nextReport = startMs + REPORT_MS;
+        METRICS.snapshotActive(table, true);
+        System.out.println("[debezium-to-silver] snapshot of " + table + " started (partition " + p.partition
+                + "); using the bulk path");
+    }
+
+    private synchronized void report() {
+        long now = System.currentTimeMillis();
+        if (activePartitions == 0 || now < nextReport) return;
+        long total = rows();
+        long rate = (total - lastReportRows) * 1000 / Math.max(1, now - lastReportMs);
+        METRICS.snapshotProgress(table, total, rate);
+        System.out.println("[debezium-to-silver] snapshot of " + table + ": " + total + " rows, " + rate + " rows/s, "
+                + activePartitions + " partition(s) still in it");
+        lastReportMs = now;
+        lastReportRows = total;
+        nextReport = now + REPORT_MS;
+    }
+
+    private synchronized void finished(Partition p, String why) {
+        if (--activePartitions > 0) {
+            System.out.println("[debezium-to-silver] snapshot of " + table + " partition " + p.partition
+                    + " complete (" + why + "): " + p.rows.sum() + " rows");
+            return;
+        }
+        long total = rows();
+        long elapsed = Math.max(1, System.currentTimeMillis() - startMs);
+        METRICS.snapshotProgress(table, total, total * 1000 / elapsed);
+        METRICS.snapshotActive(table, false);
+        System.out.println("[debezium-to-silver] snapshot of " + table + " complete (" + why + "): " + total
+                + " rows in " + (elapsed / 1000) + " s, " + (total * 1000 / elapsed) + " rows/s; back to the change path");
+    }
+
+    /** Snapshot phase of one bronze partition. */
+    public final class Partition {
+        private final int partition;
+        /** Rows of this partition's current or last snapshot. */
+        private final LongAdder rows = new LongAdder();
+        private volatile boolean active;
+
+        private Partition(int partition) {
+            this.partition = partition;
+        }
+
+        public boolean active() {
+            return active;
+        }
+
+        /** Records one bronze record of this partition; returns whether it belongs to the snapshot phase. */
+        public boolean observe(int marker) {
+            if (marker == TOMBSTONE) {
+                return false;
+            }
+            if (marker == NONE) {
+                if (active) {
+                    finish("first change after the snapshot");
+                }
+                return false;
+            }
+            if (!active) {
+                start();
+            }
+            rows.increment();
+            if (marker == LAST) {
+                finish("last snapshot row");
+            } else if (System.currentTimeMillis() >= nextReport) {
+                report();
+            }
+            return true;
+        }
+
+        private synchronized void start() {
+            if (active) return;
+            rows.reset();
+            active = true;
+            started(this);
+        }
+
+        private synchronized void finish(String why) {
+            if (!active) return;
+            active = false;
+            finished(this, why);
+        }
+    }
+}
@@ -0,0 +1,584 @@
+package et.gov.lakehouse.govaggregator.core.bronze;
+
+import et.gov.lakehouse.govaggregator.common.DeadLetterQueue;
+import et.gov.lakehouse.govaggregator.common.PipelineMetrics;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.StreamsConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * debezium-to-silver with SILVER_RUNTIME=transaction: silver writes grouped by source transaction.
+ *
+ * With {@code provide.transaction.metadata=true} the connector stamps every change with a
+ * {@code transaction} block (id, total_order) and writes BEGIN / END events to SILVER_TX_TOPIC; END
+ * carries the event count per table. This runtime reads that topic next to the bronze topics and holds
+ * each transaction's silver records until END has arrived and every counted change of a consumed table
+ * is in. The transaction is then sent as one contiguous run, in total_order, with headers
+ * {@value #HEADER_TX_ID}, {@value #HEADER_TX_SEQ} and {@value #HEADER_TX_SIZE} (seq == size marks its
+ * last record), so the producer packs it into few large batches and a downstream reader can assemble a
+ * consistent cross-table view. Transactions are released in END (commit) order, which keeps per-key order.
+ *
+ * A transaction still incomplete after SILVER_TX_TIMEOUT_MS, or the oldest one while more than
+ * SILVER_TX_MAX_BUFFERED records are held, is sent as it stands with {@value #HEADER_TX_PARTIAL}=true.
+ * Changes without a transaction block (snapshot reads) pass through in arrival order. Offsets are
+ * committed per partition only up to the lowest record not yet acknowledged ({@link PartitionOffsets}),
+ * END included, so a restart replays open transactions whole. The transaction topic has one partition:
+ * run a single instance. The envelope is decoded for its transaction block, so SILVER_TRANSCODE and
+ * SILVER_COALESCE_MS are not applied in this mode.
+ */
+public final class TransactionBatchingSilverRunner implements AutoCloseable {
+
+    public static final String HEADER_TX_ID = "debezium.tx.id";
+    public static final String HEADER_TX_SEQ = "debezium.tx.seq";
+    public static final String HEADER_TX_SIZE = "debezium.tx.size";
+    public static final String HEADER_TX_PARTIAL = "debezium.tx.partial";
+
+    private static final PipelineMetrics METRICS = PipelineMetrics.global();
+    private static final String TASK = "transaction";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final long DRAIN_TIMEOUT_MS = 30_000;
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.UTF_8);
+
+    private final BronzeToSilverContext ctx;
+    private final SilverManifest manifest;
+    private final NoOpUpdateFilter noOpFilter;
+    private final Deserializer<GenericRecord> bronze;
+    private final Serializer<GenericRecord> silver;
+    private final String txTopic;
+    private final long txTimeoutMs;
+    private final int maxBuffered;
+    private final long commitIntervalMs;
+
+    private final Consumer<byte[], byte[]> consumer;
+    private final Producer<byte[], byte[]> producer;
+
+    /** Every transaction seen but not yet sent, by id. */
+    private final Map<String, Tx> byId = new LinkedHashMap<>();
+    /** Transactions whose END arrived (plus pass-through changes), in commit order. */
+    private final ArrayDeque<Tx> ended = new ArrayDeque<>();
+    /** Whether a data collection named in an END event is one of the consumed tables. */
+    private final Map<String, Boolean> consumed = new HashMap<>();
+    private int buffered;
+    /** Ids of transactions sent incomplete; their stragglers pass through and their END is just acknowledged. */
+    private final Map<String, Boolean> forced = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > 1024;
+        }
+    };
+
+    private final Map<TopicPartition, PartitionOffsets> offsets = new ConcurrentHashMap<>();
+    /** Last committed position per partition; poll thread only. */
+    private final Map<TopicPartition, Long> committed = new HashMap<>();
+    /** Silver records sent but not yet acknowledged. */
+    private final AtomicInteger unacked = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean running = true;
+    private boolean closing;
+
+    public TransactionBatchingSilverRunner(BronzeToSilverContext ctx) {
+        this(ctx,
+                new KafkaConsumer<>(ctx.consumerProps("-tx-consumer"), new ByteArrayDeserializer(), new ByteArrayDeserializer()),
+                new KafkaProducer<>(producerProps(ctx), new ByteArraySerializer(), new ByteArraySerializer()));
+    }
+
+    TransactionBatchingSilverRunner(BronzeToSilverContext ctx, Consumer<byte[], byte[]> consumer, Producer<byte[], byte[]> producer) {
+        this.ctx = ctx;
+        this.manifest = ctx.manifest;
+        this.noOpFilter = ctx.suppressNoOpUpdates ? new NoOpUpdateFilter() : null;
+        this.bronze = ctx.bronzeValueSerde.deserializer();
+        this.silver = ctx.silverValueSerde.serializer();
+        this.txTopic = sysOrEnv("silver.tx.topic", "SILVER_TX_TOPIC", "oracle_esw.transaction");
+        this.txTimeoutMs = Long.parseLong(sysOrEnv("silver.tx.timeout.ms", "SILVER_TX_TIMEOUT_MS", "60000"));
+        this.maxBuffered = Integer.parseInt(sysOrEnv("silver.tx.max.buffered", "SILVER_TX_MAX_BUFFERED", "100000"));
+        this.commitIntervalMs = Long.parseLong(ctx.streamsProps.getProperty(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, "5000"));
+        this.consumer = consumer;
+        this.producer = producer;
+        METRICS.bind(consumer::metrics);
+        METRICS.bind(producer::metrics);
+    }
+
+    private static Properties producerProps(BronzeToSilverContext ctx) {
+        String appId = ctx.streamsProps.getProperty(StreamsConfig.APPLICATION_ID_CONFIG);
+        Properties p = new Properties();
+        p.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, ctx.streamsProps.getProperty(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG));
+        p.put(ProducerConfig.CLIENT_ID_CONFIG, appId + "-tx-producer");
+        // Idempotence keeps a transaction's records in send order across retries.
+        p.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        p.put(ProducerConfig.ACKS_CONFIG, "all");
+        p.put(ProducerConfig.LINGER_MS_CONFIG, "20");
+        p.put(ProducerConfig.BATCH_SIZE_CONFIG,
+                ctx.streamsProps.getProperty(StreamsConfig.producerPrefix(ProducerConfig.BATCH_SIZE_CONFIG)));
+        return p;
+    }
+
+    /** Polls and releases transactions until {@link #close()}; a send failure is rethrown here. */
+    public void run() {
+        System.out.println("[debezium-to-silver] transaction runtime: tx topic " + txTopic + ", timeout "
+                + txTimeoutMs + " ms, max buffered " + maxBuffered);
+        if (ctx.transcode || ctx.coalesceMs > 0) {
+            System.out.println("[debezium-to-silver] SILVER_TRANSCODE / SILVER_COALESCE_MS are ignored by the transaction runtime");
+        }
+
+        ConsumerRebalanceListener listener = new Rebalance();
+        if (manifest.topicPattern() != null) {
+            consumer.subscribe(Pattern.compile(manifest.topicPattern().pattern() + "|" + Pattern.quote(txTopic)), listener);
+        } else {
+            List<String> topics = new ArrayList<>(manifest.topics());
+            topics.add(txTopic);
+            consumer.subscribe(topics, listener);
+        }
+
+        long nextCommit = System.currentTimeMillis() + commitIntervalMs;
+        try {
+            while (running) {
+                rethrowFailure();
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(POLL_TIMEOUT);
+                for (ConsumerRecord<byte[], byte[]> rec : records) {
+                    dispatch(rec);
+                }
+                release(System.currentTimeMillis());
+                if (System.currentTimeMillis() >= nextCommit) {
+                    commit(offsets.keySet(), false);
+                    nextCommit = System.currentTimeMillis() + commitIntervalMs;
+                }
+            }
+        } catch (WakeupException e) {
+            // close() or a failure; handled below
+        } finally {
+            shutdown();
+            stopped.countDown();
+        }
+        rethrowFailure();
+    }
+
+    /** Stops polling, waits for sent transactions, commits and closes the clients; open ones replay. */
+    @Override
+    public void close() {
+        running = false;
+        consumer.wakeup();
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch(ConsumerRecord<byte[], byte[]> rec) {
+        TopicPartition tp = new TopicPartition(rec.topic(), rec.partition());
+        PartitionOffsets po = offsets.computeIfAbsent(tp, t -> new PartitionOffsets());
+        po.add(rec.offset());
+        Change change = new Change(rec, po);
+
+        if (rec.topic().equals(txTopic)) {
+            onTransactionEvent(change);
+            return;
+        }
+        SilverRoute route = manifest.resolve(rec.topic());
+        if (route == null) {
+            change.complete();
+            return;
+        }
+
+        long start = System.nanoTime();
+        GenericRecord root;
+        GenericRecord block;
+        try {
+            root = rec.value() == null ? null : bronze.deserialize(rec.topic(), rec.value());
+            block = transactionOf(root);
+        } catch (RuntimeException e) {
+            if (!DeadLetterQueue.onProcessingError(ctx.streamsProps, rec.topic(), rec.partition(), rec.offset(),
+                    rec.key(), rec.value(), e)) {
+                throw e;
+            }
+            // Undecodable: its transaction is unknown, so that one can only go out on SILVER_TX_TIMEOUT_MS.
+            change.complete();
+            return;
+        }
+        change.route = route;
+        try {
+            change.silver = project(route, root);
+            if (change.silver == null) {
+                METRICS.recordDropped(TASK, route.tableName, "null_after");
+            } else if (change.silver == SilverTranscoder.SUPPRESSED) {
+                METRICS.recordDropped(TASK, route.tableName, "noop_update");
+                change.silver = null;
+            } else {
+                METRICS.recordProcessed(TASK, route.tableName, System.nanoTime() - start);
+            }
+        } catch (RuntimeException e) {
+            if (!DeadLetterQueue.onProcessingError(ctx.streamsProps, rec.topic(), rec.partition(), rec.offset(),
+                    rec.key(), rec.value(), e)) {
+                throw e;
+            }
+            // END still counts the change: keep it as a dropped placeholder so the transaction completes.
+            change.silver = null;
+        }
+
+        if (block == null || forced.containsKey(block.get("id").toString())) {
+            Tx single = new Tx(null, System.currentTimeMillis());
+            single.add(change);
+            single.expected = 1;
+            single.end = change;
+            ended.add(single);
+        } else {
+            change.order = ((Number) block.get("total_order")).longValue();
+            byId.computeIfAbsent(block.get("id").toString(), id -> new Tx(id, System.currentTimeMillis())).add(change);
+        }
+        buffered++;
+    }
+
+    /** BEGIN is only acknowledged; END closes the transaction and is committed once it has been sent. */
+    private void onTransactionEvent(Change change) {
+        ConsumerRecord<byte[], byte[]> rec = change.record;
+        GenericRecord event;
+        try {
+            event = rec.value() == null ? null : bronze.deserialize(rec.topic(), rec.value());
+        } catch (RuntimeException e) {
+            if (!DeadLetterQueue.onProcessingError(ctx.streamsProps, rec.topic(), rec.partition(), rec.offset(),
+                    rec.key(), rec.value(), e)) {
+                throw e;
+            }
+            change.complete();
+            return;
+        }
+        if (event == null || !"END".equals(String.valueOf(event.get("status")))) {
+            change.complete();
+            return;
+        }
+
+        String id = event.get("id").toString();
+        if (forced.remove(id) != null) {
+            change.complete();
+            return;
+        }
+        Tx tx = byId.computeIfAbsent(id, i -> new Tx(i, System.currentTimeMillis()));
+        tx.end = change;
+        tx.expected = expectedChanges(event);
+        ended.add(tx);
+    }
+
+    /** Changes of the consumed tables counted in an END event's data_collections. */
+    private long expectedChanges(GenericRecord end) {
+        Object collections = end.get("data_collections");
+        if (!(collections instanceof Collection<?> list)) {
+            Object total = end.get("event_count");
+            return total instanceof Number n ? n.longValue() : 0;
+        }
+        long n = 0;
+        for (Object o : list) {
+            GenericRecord c = (GenericRecord) o;
+            String name = c.get("data_collection").toString();
+            if (consumed.computeIfAbsent(name, this::isConsumed)) {
+                n += ((Number) c.get("event_count")).longValue();
+            }
+        }
+        return n;
+    }
+
+    /** Data collections are "[db.]schema.table"; a table is consumed when a route carries its name. */
+    private boolean isConsumed(String dataCollection) {
+        if (manifest.topicPattern() != null) return true;
+        String table = dataCollection.substring(dataCollection.lastIndexOf('.') + 1);
+        for (SilverRoute route : manifest.routes()) {
+            if (route.tableName.equalsIgnoreCase(table)) return true;
+        }
+        return false;
+    }
+
+    /** Same projection as the Streams decode path: null without an "after" image, SUPPRESSED for a no-op. */
+    private byte[] project(SilverRoute route, GenericRecord root) {
+        if (root == null) return null;
+        if (noOpFilter != null && noOpFilter.isNoOpUpdate(route, root)) {
+            return SilverTranscoder.SUPPRESSED;
+        }
+        GenericRecord after = BronzeToSilverPipeline.extractAfter(root);
+        if (after == null) return null;
+        Schema silverSchema = BronzeToSilverPipeline.silverSchemaFor(after, ctx.silverRecordNamespace, route);
+        return silver.serialize(route.silverTopic, BronzeToSilverPipeline.toSilver(after, silverSchema, route.icebergTable));
+    }
+
+    private static GenericRecord transactionOf(GenericRecord root) {
+        GenericRecord envelope = BronzeToSilverPipeline.envelopeOf(root);
+        if (envelope == null || envelope.getSchema().getField("transaction") == null) return null;
+        Object block = envelope.get("transaction");
+        return block instanceof GenericRecord gr ? gr : null;
+    }
+
+    /**
+     * Sends complete transactions from the head of the commit order. The head is forced out when it
+     * timed out or the buffer is over its bound; a transaction whose END never came goes out the same way.
+     */
+    private void release(long now) {
+        while (true) {
+            Tx head = ended.peek();
+            if (head != null && head.ready()) {
+                send(ended.poll(), false);
+                continue;
+            }
+            Tx oldest = head != null ? head : oldestOpen();
+            if (oldest == null) return;
+            if (now - oldest.firstSeen < txTimeoutMs && buffered <= maxBuffered) return;
+
+            System.out.println("[debezium-to-silver] sending incomplete transaction " + oldest.id + ": "
+                    + oldest.changes.size() + " of " + (oldest.end == null ? "?" : oldest.expected) + " changes"
+                    + (buffered > maxBuffered ? " (buffer full)" : " (timed out)"));
+            if (oldest == head) {
+                ended.poll();
+            }
+            if (oldest.id != null) {
+                forced.put(oldest.id, Boolean.TRUE);
+            }
+            send(oldest, true);
+        }
+    }
+
+    private Tx oldestOpen() {
+        for (Tx tx : byId.values()) {
+            if (tx.end == null) return tx;
+        }
+        return null;
+    }
+
+    /** One contiguous run of sends in total_order; END is acknowledged after the last of them. */
+    private void send(Tx tx, boolean partial) {
+        if (tx.id != null) {
+            byId.remove(tx.id);
+        }
+        buffered -= tx.changes.size();
+        tx.changes.sort(Comparator.comparingLong(c -> c.order));
+
+        List<Change> out = new ArrayList<>(tx.changes.size());
+        for (Change c : tx.changes) {
+            if (c.silver != null) {
+                out.add(c);
+            } else {
+                c.complete();
+            }
+        }
+        AtomicInteger remaining = new AtomicInteger(out.size());
+        Change end = tx.id != null ? tx.end : null;
+        if (out.isEmpty() && end != null) {
+            end.complete();
+        }
+
+        unacked.addAndGet(out.size());
+        byte[] id = tx.id != null ? tx.id.getBytes(StandardCharsets.UTF_8) : null;
+        byte[] size = String.valueOf(out.size()).getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < out.size(); i++) {
+            Change c = out.get(i);
+            ProducerRecord<byte[], byte[]> pr = new ProducerRecord<>(c.route.silverTopic, c.record.key(), c.silver);
+            if (id != null) {
+                pr.headers().add(HEADER_TX_ID, id);
+                pr.headers().add(HEADER_TX_SEQ, String.valueOf(i + 1).getBytes(StandardCharsets.UTF_8));
+                pr.headers().add(HEADER_TX_SIZE, size);
+                if (partial) pr.headers().add(HEADER_TX_PARTIAL, TRUE);
+            }
+            producer.send(pr, (md, e) -> {
+                if (e != null) {
+                    fail(e);
+                    return;
+                }
+                c.complete();
+                unacked.decrementAndGet();
+                if (remaining.decrementAndGet() == 0 && end != null) {
+                    end.complete();
+                }
+            });
+        }
+    }
+
+    private void fail(Throwable e) {
+        if (failure.compareAndSet(null, e)) {
+            System.err.println("[debezium-to-silver] transaction runtime failed: " + e);
+            consumer.wakeup();
+        }
+    }
+
+    private void rethrowFailure() {
+        Throwable e = failure.get();
+        if (e != null) {
+            throw new IllegalStateException("Transaction bronze->silver runtime failed", e);
+        }
+    }
+
+    /** Commits the lowest unacknowledged offset of each partition that moved since the last commit. */
+    private void commit(Collection<TopicPartition> partitions, boolean sync) {
+        Map<TopicPartition, OffsetAndMetadata> toCommit = new HashMap<>();
+        for (TopicPartition tp : partitions) {
+            PartitionOffsets po = offsets.get(tp);
+            long position = po == null ? -1 : po.committable();
+            Long last = committed.get(tp);
+            if (position >= 0 && (last == null || last != position)) {
+                toCommit.put(tp, new OffsetAndMetadata(position));
+            }
+        }
+        if (toCommit.isEmpty()) return;
+
+        if (sync) {
+            consumer.commitSync(toCommit);
+            toCommit.forEach((tp, om) -> committed.put(tp, om.offset()));
+        } else {
+            consumer.commitAsync(toCommit, (done, e) -> {
+                if (e != null) {
+                    System.out.println("[debezium-to-silver] offset commit failed (retried next interval): " + e);
+                } else {
+                    done.forEach((tp, om) -> committed.put(tp, om.offset()));
+                }
+            });
+        }
+    }
+
+    /** Flushes the producer until every sent record is acknowledged (bounded). */
+    private boolean awaitSent() {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        while (failure.get() == null && System.currentTimeMillis() < deadline) {
+            producer.flush();
+            if (unacked.get() == 0) return true;
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void shutdown() {
+        if (!awaitSent()) {
+            System.out.println("[debezium-to-silver] stopping with unacknowledged silver writes; they are reprocessed after restart");
+        }
+        if (buffered > 0) {
+            System.out.println("[debezium-to-silver] " + byId.size() + " open transactions (" + buffered
+                    + " changes) are reprocessed after restart");
+        }
+        try {
+            commit(offsets.keySet(), true);
+        } catch (RuntimeException e) {
+            System.out.println("[debezium-to-silver] final offset commit failed: " + e);
+        }
+        closing = true;
+        consumer.close(Duration.ofSeconds(10));
+        producer.close(Duration.ofSeconds(10));
+    }
+
+    /** On revoke everything buffered is sent as it stands, so the next owner starts after it. */
+    private final class Rebalance implements ConsumerRebalanceListener {
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            // On close the offsets were already committed by shutdown().
+            if (partitions.isEmpty() || closing) return;
+            release(Long.MAX_VALUE);
+            if (!awaitSent()) {
+                System.out.println("[debezium-to-silver] revoking " + partitions + " with silver writes still in flight");
+            }
+            try {
+                commit(partitions, true);
+            } catch (RuntimeException e) {
+                System.out.println("[debezium-to-silver] commit on revoke failed: " + e);
+            }
+            forget(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        }
+
+        @Override
+        public void onPartitionsLost(Collection<TopicPartition> partitions) {
+            // Open transactions may span the lost partitions; restart from the committed offsets instead.
+            forget(partitions);
+            fail(new IllegalStateException("Partitions lost with open transactions: " + partitions));
+        }
+
+        private void forget(Collection<TopicPartition> partitions) {
+            for (TopicPartition tp : partitions) {
+                offsets.remove(tp);
+                committed.remove(tp);
+            }
+        }
+    }
+
+    /** One source transaction (or a single change without one) waiting to be sent. */
+    private static final class Tx {
+        final String id;
+        final long firstSeen;
+        final List<Change> changes = new ArrayList<>();
+        /** The END event; null until it arrives. */
+        Change end;
+        long expected;
+
+        Tx(String id, long firstSeen) {
+            this.id = id;
+            this.firstSeen = firstSeen;
+        }
+
+        void add(Change change) {
+            changes.add(change);
+        }
+
+        boolean ready() {
+            return end != null && changes.size() >= expected;
+        }
+    }
+
+    private static final class Change {
+        final ConsumerRecord<byte[], byte[]> record;
+        final PartitionOffsets offsets;
+        SilverRoute route;
+        /** Framed silver value; null when the change is dropped. */
+        byte[] silver;
+        long order;
+
+        Change(ConsumerRecord<byte[], byte[]> record, PartitionOffsets offsets) {
+            this.record = record;
+            this.offsets = offsets;
+        }
+
+        void complete() {
+            offsets.complete(record.offset());
+        }
+    }
+
+    private static String sysOrEnv(String sysKey, String envKey, String defVal) {
+        String v = System.getProperty(sysKey);
+        if (v != null && !v.isBlank()) return v;
+        v = System.getenv(envKey);
+        return (v != null && !v.isBlank()) ? v : defVal;
+    }
+}
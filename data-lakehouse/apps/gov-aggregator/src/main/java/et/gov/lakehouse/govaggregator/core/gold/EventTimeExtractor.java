@@ -0,0 +1,34 @@
+package et.gov.lakehouse.govaggregator.core.gold;
+
+import et.gov.lakehouse.govaggregator.avro.EccTradePermit;
+import et.gov.lakehouse.govaggregator.avro.MoeEducationStat;
+import et.gov.lakehouse.govaggregator.avro.MorTaxPayment;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.streams.processor.TimestampExtractor;
+
+import java.time.Instant;
+
+/**
+ * Windows the gold aggregates by business time (paidAt / issuedAt / reportedAt) instead of the Kafka
+ * record timestamp, so a replayed or late-produced day still lands in its own window. An event time
+ * after the record timestamp cannot be real (the event was produced after it happened) and would
+ * advance stream time and close open windows early; the record timestamp is used then.
+ */
+public final class EventTimeExtractor implements TimestampExtractor {
+
+    @Override
+    public long extract(ConsumerRecord<Object, Object> record, long partitionTime) {
+        long recordTime = record.timestamp() >= 0 ? record.timestamp() : partitionTime;
+        Instant eventTime = eventTime(record.value());
+        if (eventTime == null || eventTime.toEpochMilli() <= 0) return recordTime;
+        long t = eventTime.toEpochMilli();
+        return recordTime >= 0 && t > recordTime ? recordTime : t;
+    }
+
+    private static Instant eventTime(Object value) {
+        if (value instanceof MorTaxPayment v) return v.getPaidAt();
+        if (value instanceof EccTradePermit v) return v.getIssuedAt();
+        if (value instanceof MoeEducationStat v) return v.getReportedAt();
+        return null;
+    }
+}
@@ -0,0 +1,257 @@
+package et.gov.lakehouse.govaggregator.core.gold;
+
+import et.gov.lakehouse.govaggregator.avro.EccCommodityHourly;
+import et.gov.lakehouse.govaggregator.avro.EccTradePermit;
+import et.gov.lakehouse.govaggregator.avro.MoeEducationStat;
+import et.gov.lakehouse.govaggregator.avro.MoeRegionTotals;
+import et.gov.lakehouse.govaggregator.avro.MorTaxDaily;
+import et.gov.lakehouse.govaggregator.avro.MorTaxPayment;
+import et.gov.lakehouse.govaggregator.common.InstrumentedSerde;
+import et.gov.lakehouse.govaggregator.common.SerdeFactory;
+import et.gov.lakehouse.govaggregator.common.Topics;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Named;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.Suppressed;
+import org.apache.kafka.streams.kstream.Suppressed.BufferConfig;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.kstream.Window;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.WindowStore;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Dashboard-ready gold aggregates built next to the enriched merge in {@link et.gov.lakehouse.govaggregator.core.App}:
+ * <ul>
+ *   <li>MoR amount per TIN, currency and day -> {@link Topics#GOLD_MOR_TAX_DAILY}</li>
+ *   <li>ECC valueUsd per commodity and hour -> {@link Topics#GOLD_ECC_COMMODITY_HOURLY}</li>
+ *   <li>MoE students / teachers per region (latest report per school) -> {@link Topics#GOLD_MOE_REGION}</li>
+ * </ul>
+ * Windows are tumbling unless GOLD_*_ADVANCE_MS is smaller than the window (hopping) and accept records
+ * up to GOLD_GRACE_MS late. GOLD_EMIT=final emits each window once after it closes; update emits the
+ * running value at most every GOLD_UPDATE_INTERVAL_MS. Output keys identify the window, so the compacted
+ * gold topics keep exactly the latest value per window (or region).
+ */
+public final class GoldAggregations {
+
+    private static final String KEY_SEP = "|";
+
+    private final Serde<String> strings = SerdeFactory.stringSerde();
+    private final Serde<MorTaxDaily> morDailySerde;
+    private final Serde<EccCommodityHourly> eccHourlySerde;
+    private final Serde<MoeRegionTotals> moeRegionSerde;
+
+    private final TimeWindows morWindows;
+    private final TimeWindows eccWindows;
+    private final boolean emitFinal;
+    private final Duration updateInterval;
+    private final long suppressMaxRecords;
+
+    private GoldAggregations(String registryUrl, String groupId) {
+        this.morDailySerde = InstrumentedSerde.wrap(SerdeFactory.avroSerde(MorTaxDaily.class, registryUrl, groupId));
+        this.eccHourlySerde = InstrumentedSerde.wrap(SerdeFactory.avroSerde(EccCommodityHourly.class, registryUrl, groupId));
+        this.moeRegionSerde = InstrumentedSerde.wrap(SerdeFactory.avroSerde(MoeRegionTotals.class, registryUrl, groupId));
+
+        Duration grace = Duration.ofMillis(Long.parseLong(sysOrEnv("gold.grace.ms", "GOLD_GRACE_MS", "600000")));
+        this.morWindows = windows("gold.mor.window.ms", "GOLD_MOR_WINDOW_MS", "86400000",
+                "gold.mor.advance.ms", "GOLD_MOR_ADVANCE_MS", grace);
+        this.eccWindows = windows("gold.ecc.window.ms", "GOLD_ECC_WINDOW_MS", "3600000",
+                "gold.ecc.advance.ms", "GOLD_ECC_ADVANCE_MS", grace);
+
+        String emit = sysOrEnv("gold.emit", "GOLD_EMIT", "final").trim().toLowerCase();
+        if (!emit.equals("final") && !emit.equals("update")) {
+            throw new IllegalStateException("GOLD_EMIT must be final or update, got: " + emit);
+        }
+        this.emitFinal = emit.equals("final");
+        this.updateInterval = Duration.ofMillis(Long.parseLong(sysOrEnv("gold.update.interval.ms", "GOLD_UPDATE_INTERVAL_MS", "60000")));
+        this.suppressMaxRecords = Long.parseLong(sysOrEnv("gold.suppress.max.records", "GOLD_SUPPRESS_MAX_RECORDS", "100000"));
+    }
+
+    /** Null when GOLD_AGGREGATES=false. */
+    public static GoldAggregations fromEnv(String registryUrl, String groupId) {
+        if (!Boolean.parseBoolean(sysOrEnv("gold.aggregates", "GOLD_AGGREGATES", "true"))) return null;
+        return new GoldAggregations(registryUrl, groupId);
+    }
+
+    public static List<String> topics() {
+        return List.of(Topics.GOLD_MOR_TAX_DAILY, Topics.GOLD_ECC_COMMODITY_HOURLY, Topics.GOLD_MOE_REGION);
+    }
+
+    /** MoR payments summed per TIN and currency per window. */
+    public void morTaxDaily(KStream<String, MorTaxPayment> mor, Serde<MorTaxPayment> morSerde) {
+        mor.groupBy((k, v) -> v.getTin() + KEY_SEP + v.getCurrency(), Grouped.with("gold-mor-tax", strings, morSerde))
+                .windowedBy(morWindows)
+                .aggregate(
+                        () -> new MorTaxDaily("", "", Instant.EPOCH, Instant.EPOCH, 0L, 0.0, 0.0, 0.0),
+                        (key, v, agg) -> {
+                            double amount = v.getAmount();
+                            if (agg.getPaymentCount() == 0) {
+                                agg.setTin(v.getTin());
+                                agg.setCurrency(v.getCurrency());
+                                agg.setMinAmount(amount);
+                                agg.setMaxAmount(amount);
+                            } else {
+                                agg.setMinAmount(Math.min(agg.getMinAmount(), amount));
+                                agg.setMaxAmount(Math.max(agg.getMaxAmount(), amount));
+                            }
+                            agg.setPaymentCount(agg.getPaymentCount() + 1);
+                            agg.setTotalAmount(agg.getTotalAmount() + amount);
+                            return agg;
+                        },
+                        Named.as("gold-mor-tax-daily-aggregate"),
+                        Materialized.<String, MorTaxDaily, WindowStore<Bytes, byte[]>>as("gold-mor-tax-daily-store")
+                                .withKeySerde(strings).withValueSerde(morDailySerde))
+                .suppress(windowedEmit("gold-mor-tax-daily-suppress"))
+                .toStream()
+                .map((wk, v) -> {
+                    Window w = wk.window();
+                    v.setWindowStart(Instant.ofEpochMilli(w.start()));
+                    v.setWindowEnd(Instant.ofEpochMilli(w.end()));
+                    return KeyValue.pair(windowKey(wk), v);
+                }, Named.as("gold-mor-tax-daily-key"))
+                .to(Topics.GOLD_MOR_TAX_DAILY, Produced.with(strings, morDailySerde));
+    }
+
+    /** ECC permit value summed per commodity per window. */
+    public void eccCommodityHourly(KStream<String, EccTradePermit> ecc, Serde<EccTradePermit> eccSerde) {
+        ecc.groupBy((k, v) -> v.getCommodity(), Grouped.with("gold-ecc-commodity", strings, eccSerde))
+                .windowedBy(eccWindows)
+                .aggregate(
+                        () -> new EccCommodityHourly("", Instant.EPOCH, Instant.EPOCH, 0L, 0.0, 0.0),
+                        (key, v, agg) -> {
+                            double value = v.getValueUsd();
+                            agg.setMaxValueUsd(agg.getPermitCount() == 0 ? value : Math.max(agg.getMaxValueUsd(), value));
+                            agg.setCommodity(v.getCommodity());
+                            agg.setPermitCount(agg.getPermitCount() + 1);
+                            agg.setTotalValueUsd(agg.getTotalValueUsd() + value);
+                            return agg;
+                        },
+                        Named.as("gold-ecc-commodity-hourly-aggregate"),
+                        Materialized.<String, EccCommodityHourly, WindowStore<Bytes, byte[]>>as("gold-ecc-commodity-hourly-store")
+                                .withKeySerde(strings).withValueSerde(eccHourlySerde))
+                .suppress(windowedEmit("gold-ecc-commodity-hourly-suppress"))
+                .toStream()
+                .map((wk, v) -> {
+                    Window w = wk.window();
+                    v.setWindowStart(Instant.ofEpochMilli(w.start()));
+                    v.setWindowEnd(Instant.ofEpochMilli(w.end()));
+                    return KeyValue.pair(windowKey(wk), v);
+                }, Named.as("gold-ecc-commodity-hourly-key"))
+                .to(Topics.GOLD_ECC_COMMODITY_HOURLY, Produced.with(strings, eccHourlySerde));
+    }
+
+    /**
+     * MoE totals per region over the latest report of every school: a school reporting again replaces
+     * its previous numbers (subtractor) instead of being counted twice. Not windowed; updates are
+     * rate-limited to one per region every GOLD_UPDATE_INTERVAL_MS.
+     */
+    public void moeRegionTotals(KStream<String, MoeEducationStat> moe, Serde<MoeEducationStat> moeSerde) {
+        moe.selectKey((k, v) -> v.getSchoolId(), Named.as("gold-moe-by-school"))
+                .toTable(Named.as("gold-moe-latest-by-school"),
+                        Materialized.<String, MoeEducationStat, KeyValueStore<Bytes, byte[]>>as("gold-moe-school-store")
+                                .withKeySerde(strings).withValueSerde(moeSerde))
+                .groupBy((school, v) -> KeyValue.pair(v.getRegion(), v), Grouped.with("gold-moe-region", strings, moeSerde))
+                .aggregate(
+                        () -> new MoeRegionTotals("", 0L, 0L, 0L, Instant.EPOCH),
+                        (region, v, agg) -> {
+                            agg.setRegion(region);
+                            agg.setSchools(agg.getSchools() + 1);
+                            agg.setStudents(agg.getStudents() + v.getStudents());
+                            agg.setTeachers(agg.getTeachers() + v.getTeachers());
+                            if (v.getReportedAt().isAfter(agg.getLastReportedAt())) {
+                                agg.setLastReportedAt(v.getReportedAt());
+                            }
+                            return agg;
+                        },
+                        (region, v, agg) -> {
+                            agg.setSchools(agg.getSchools() - 1);
+                            agg.setStudents(agg.getStudents() - v.getStudents());
+                            agg.setTeachers(agg.getTeachers() - v.getTeachers());
+                            return agg;
+                        },
+                        Named.as("gold-moe-region-aggregate"),
+                        Materialized.<String, MoeRegionTotals, KeyValueStore<Bytes, byte[]>>as("gold-moe-region-store")
+                                .withKeySerde(strings).withValueSerde(moeRegionSerde))
+                .suppress(Suppressed.untilTimeLimit(updateInterval, BufferConfig.maxRecords(suppressMaxRecords).emitEarlyWhenFull())
+                        .withName("gold-moe-region-suppress"))
+                .toStream()
+                .to(Topics.GOLD_MOE_REGION, Produced.with(strings, moeRegionSerde));
+    }
+
+    /**
+     * Creates the gold topics with cleanup.policy=compact (Streams only creates its internal topics).
+     * Existing topics are left as they are; failures are logged and the broker's auto-creation applies.
+     */
+    public static void ensureCompactedTopics(String bootstrapServers) {
+        List<NewTopic> topics = topics().stream()
+                .map(t -> new NewTopic(t, Optional.empty(), Optional.empty())
+                        .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT)))
+                .toList();
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers))) {
+            for (Map.Entry<String, KafkaFuture<Void>> e : admin.createTopics(topics).values().entrySet()) {
+                try {
+                    e.getValue().get(30, TimeUnit.SECONDS);
+                    System.out.println("[gov-aggregator] created compacted gold topic " + e.getKey());
+                } catch (ExecutionException ex) {
+                    if (!(ex.getCause() instanceof TopicExistsException)) {
+                        System.out.println("[gov-aggregator] could not create gold topic " + e.getKey() + ": " + ex.getCause());
+                    }
+                } catch (TimeoutException ex) {
+                    System.out.println("[gov-aggregator] timed out creating gold topic " + e.getKey());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Suppressed<Windowed> windowedEmit(String name) {
+        Suppressed<Windowed> s = emitFinal
+                ? Suppressed.untilWindowCloses(BufferConfig.unbounded())
+                : Suppressed.untilTimeLimit(updateInterval, BufferConfig.maxRecords(suppressMaxRecords).emitEarlyWhenFull());
+        return s.withName(name);
+    }
+
+    /** "<group key>|<window start ISO-8601>", one compacted entry per window. */
+    private static String windowKey(Windowed<String> wk) {
+        return wk.key() + KEY_SEP + Instant.ofEpochMilli(wk.window().start());
+    }
+
+    private static TimeWindows windows(String sizeKey, String sizeEnv, String sizeDefault,
+                                       String advanceKey, String advanceEnv, Duration grace) {
+        String size = sysOrEnv(sizeKey, sizeEnv, sizeDefault);
+        Duration window = Duration.ofMillis(Long.parseLong(size));
+        Duration advance = Duration.ofMillis(Long.parseLong(sysOrEnv(advanceKey, advanceEnv, size)));
+        TimeWindows w = TimeWindows.ofSizeAndGrace(window, grace);
+        return advance.equals(window) ? w : w.advanceBy(advance);
+    }
+
+    private static String sysOrEnv(String sysKey, String envKey, String defVal) {
+        String v = System.getProperty(sysKey);
+        if (v != null && !v.isBlank()) return v;
+        v = System.getenv(envKey);
+        return (v != null && !v.isBlank()) ? v : defVal;
+    }
+}
@@ -1,13 +1,42 @@
 package et.gov.lakehouse.govaggregator.source.ecc;
 
 import et.gov.lakehouse.govaggregator.avro.AggregatedRecord;
+import et.gov.lakehouse.govaggregator.avro.AggregatedRecordV2;
 import et.gov.lakehouse.govaggregator.avro.EccTradePermit;
+import et.gov.lakehouse.govaggregator.avro.EccPayload;
+import et.gov.lakehouse.govaggregator.common.PayloadJson;
+import et.gov.lakehouse.govaggregator.common.PipelineMetrics;
+import et.gov.lakehouse.govaggregator.source.nbe.FxRateTable;
 import org.apache.kafka.streams.kstream.KStream;
 
 public final class EccTask {
-    public static KStream<String, AggregatedRecord> build(KStream<String, EccTradePermit> in) {
-        return in.mapValues(v -> new AggregatedRecord("ECC","trade_permit", v.getIssuedAt(), v.getPermitId(),
-                "{\"company\":\""+v.getCompanyName()+"\",\"commodity\":\""+v.getCommodity()+"\",\"valueUsd\":"+v.getValueUsd()+"}"));
+    /** valueEtb is valueUsd at the latest NBE USD rate in fx (null until one is known). */
+    public static KStream<String, AggregatedRecord> build(KStream<String, EccTradePermit> in, FxRateTable fx) {
+        return in.mapValues(PipelineMetrics.timed("ecc", "trade_permit", v -> toAggregated(v, fx)));
     }
+
+    /** The per-record mapping applied by {@link #build}. */
+    public static AggregatedRecord toAggregated(EccTradePermit v, FxRateTable fx) {
+        return new AggregatedRecord("ECC","trade_permit", v.getIssuedAt(), v.getPermitId(),
+                PayloadJson.begin()
+                        .field("company", v.getCompanyName())
+                        .field("commodity", v.getCommodity())
+                        .field("valueUsd", v.getValueUsd())
+                        .field("valueEtb", fx.toEtb("USD", v.getValueUsd()))
+                        .end());
+    }
+
+    /** Typed-payload variant (AGGREGATE_PAYLOAD_FORMAT=typed). */
+    public static KStream<String, AggregatedRecordV2> buildTyped(KStream<String, EccTradePermit> in, FxRateTable fx) {
+        return in.mapValues(PipelineMetrics.timed("ecc", "trade_permit", v -> toTyped(v, fx)));
+    }
+
+    /** The per-record mapping applied by {@link #buildTyped}. */
+    public static AggregatedRecordV2 toTyped(EccTradePermit v, FxRateTable fx) {
+        double etb = fx.toEtb("USD", v.getValueUsd());
+        return new AggregatedRecordV2("ECC","trade_permit", v.getIssuedAt(), v.getPermitId(),
+                new EccPayload(v.getCompanyName(), v.getCommodity(), v.getValueUsd(), Double.isFinite(etb) ? etb : null));
+    }
+
     private EccTask() {}
 }
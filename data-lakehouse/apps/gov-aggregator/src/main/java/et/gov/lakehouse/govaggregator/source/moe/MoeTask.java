@@ -1,13 +1,38 @@
 package et.gov.lakehouse.govaggregator.source.moe;
 
 import et.gov.lakehouse.govaggregator.avro.AggregatedRecord;
+import et.gov.lakehouse.govaggregator.avro.AggregatedRecordV2;
 import et.gov.lakehouse.govaggregator.avro.MoeEducationStat;
+import et.gov.lakehouse.govaggregator.avro.MoePayload;
+import et.gov.lakehouse.govaggregator.common.PayloadJson;
+import et.gov.lakehouse.govaggregator.common.PipelineMetrics;
 import org.apache.kafka.streams.kstream.KStream;
 
 public final class MoeTask {
     public static KStream<String, AggregatedRecord> build(KStream<String, MoeEducationStat> in) {
-        return in.mapValues(v -> new AggregatedRecord("MoE","education_stat", v.getReportedAt(), v.getSchoolId(),
-                "{\"region\":\""+v.getRegion()+"\",\"students\":"+v.getStudents()+",\"teachers\":"+v.getTeachers()+"}"));
+        return in.mapValues(PipelineMetrics.timed("moe", "education_stat", MoeTask::toAggregated));
     }
+
+    /** The per-record mapping applied by {@link #build}. */
+    public static AggregatedRecord toAggregated(MoeEducationStat v) {
+        return new AggregatedRecord("MoE","education_stat", v.getReportedAt(), v.getSchoolId(),
+                PayloadJson.begin()
+                        .field("region", v.getRegion())
+                        .field("students", v.getStudents())
+                        .field("teachers", v.getTeachers())
+                        .end());
+    }
+
+    /** Typed-payload variant (AGGREGATE_PAYLOAD_FORMAT=typed). */
+    public static KStream<String, AggregatedRecordV2> buildTyped(KStream<String, MoeEducationStat> in) {
+        return in.mapValues(PipelineMetrics.timed("moe", "education_stat", MoeTask::toTyped));
+    }
+
+    /** The per-record mapping applied by {@link #buildTyped}. */
+    public static AggregatedRecordV2 toTyped(MoeEducationStat v) {
+        return new AggregatedRecordV2("MoE","education_stat", v.getReportedAt(), v.getSchoolId(),
+                new MoePayload(v.getRegion(), v.getStudents(), v.getTeachers()));
+    }
+
     private MoeTask() {}
 }
@@ -1,13 +1,42 @@
 package et.gov.lakehouse.govaggregator.source.mor;
 
 import et.gov.lakehouse.govaggregator.avro.AggregatedRecord;
+import et.gov.lakehouse.govaggregator.avro.AggregatedRecordV2;
 import et.gov.lakehouse.govaggregator.avro.MorTaxPayment;
+import et.gov.lakehouse.govaggregator.avro.MorPayload;
+import et.gov.lakehouse.govaggregator.common.PayloadJson;
+import et.gov.lakehouse.govaggregator.common.PipelineMetrics;
+import et.gov.lakehouse.govaggregator.source.nbe.FxRateTable;
 import org.apache.kafka.streams.kstream.KStream;
 
 public final class MorTask {
-    public static KStream<String, AggregatedRecord> build(KStream<String, MorTaxPayment> in) {
-        return in.mapValues(v -> new AggregatedRecord("MoR","tax_payment", v.getPaidAt(), v.getPaymentId(),
-                "{\"tin\":\""+v.getTin()+"\",\"amount\":"+v.getAmount()+",\"currency\":\""+v.getCurrency()+"\"}"));
+    /** amountEtb is converted with the latest NBE rate in fx (null while the currency has none). */
+    public static KStream<String, AggregatedRecord> build(KStream<String, MorTaxPayment> in, FxRateTable fx) {
+        return in.mapValues(PipelineMetrics.timed("mor", "tax_payment", v -> toAggregated(v, fx)));
     }
+
+    /** The per-record mapping applied by {@link #build}. */
+    public static AggregatedRecord toAggregated(MorTaxPayment v, FxRateTable fx) {
+        return new AggregatedRecord("MoR","tax_payment", v.getPaidAt(), v.getPaymentId(),
+                PayloadJson.begin()
+                        .field("tin", v.getTin())
+                        .field("amount", v.getAmount())
+                        .field("currency", v.getCurrency())
+                        .field("amountEtb", fx.toEtb(v.getCurrency(), v.getAmount()))
+                        .end());
+    }
+
+    /** Typed-payload variant (AGGREGATE_PAYLOAD_FORMAT=typed). */
+    public static KStream<String, AggregatedRecordV2> buildTyped(KStream<String, MorTaxPayment> in, FxRateTable fx) {
+        return in.mapValues(PipelineMetrics.timed("mor", "tax_payment", v -> toTyped(v, fx)));
+    }
+
+    /** The per-record mapping applied by {@link #buildTyped}. */
+    public static AggregatedRecordV2 toTyped(MorTaxPayment v, FxRateTable fx) {
+        double etb = fx.toEtb(v.getCurrency(), v.getAmount());
+        return new AggregatedRecordV2("MoR","tax_payment", v.getPaidAt(), v.getPaymentId(),
+                new MorPayload(v.getTin(), v.getAmount(), v.getCurrency(), Double.isFinite(etb) ? etb : null));
+    }
+
     private MorTask() {}
 }
@@ -1,13 +1,37 @@
 package et.gov.lakehouse.govaggregator.source.motri;
 
 import et.gov.lakehouse.govaggregator.avro.AggregatedRecord;
+import et.gov.lakehouse.govaggregator.avro.AggregatedRecordV2;
 import et.gov.lakehouse.govaggregator.avro.MotriTransportPermit;
+import et.gov.lakehouse.govaggregator.avro.MotriPayload;
+import et.gov.lakehouse.govaggregator.common.PayloadJson;
+import et.gov.lakehouse.govaggregator.common.PipelineMetrics;
 import org.apache.kafka.streams.kstream.KStream;
 
 public final class MotriTask {
     public static KStream<String, AggregatedRecord> build(KStream<String, MotriTransportPermit> in) {
-        return in.mapValues(v -> new AggregatedRecord("MoTRI","transport_permit", v.getValidUntil(), v.getPermitNo(),
-                "{\"plate\":\""+v.getVehiclePlate()+"\",\"route\":\""+v.getRoute()+"\"}"));
+        return in.mapValues(PipelineMetrics.timed("motri", "transport_permit", MotriTask::toAggregated));
     }
+
+    /** The per-record mapping applied by {@link #build}. */
+    public static AggregatedRecord toAggregated(MotriTransportPermit v) {
+        return new AggregatedRecord("MoTRI","transport_permit", v.getValidUntil(), v.getPermitNo(),
+                PayloadJson.begin()
+                        .field("plate", v.getVehiclePlate())
+                        .field("route", v.getRoute())
+                        .end());
+    }
+
+    /** Typed-payload variant (AGGREGATE_PAYLOAD_FORMAT=typed). */
+    public static KStream<String, AggregatedRecordV2> buildTyped(KStream<String, MotriTransportPermit> in) {
+        return in.mapValues(PipelineMetrics.timed("motri", "transport_permit", MotriTask::toTyped));
+    }
+
+    /** The per-record mapping applied by {@link #buildTyped}. */
+    public static AggregatedRecordV2 toTyped(MotriTransportPermit v) {
+        return new AggregatedRecordV2("MoTRI","transport_permit", v.getValidUntil(), v.getPermitNo(),
+                new MotriPayload(v.getVehiclePlate(), v.getRoute()));
+    }
+
     private MotriTask() {}
 }
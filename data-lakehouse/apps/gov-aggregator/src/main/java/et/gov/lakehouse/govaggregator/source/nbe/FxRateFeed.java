@@ -0,0 +1,183 @@
+package et.gov.lakehouse.govaggregator.source.nbe;
+
+import et.gov.lakehouse.govaggregator.avro.NbeFxRate;
+import et.gov.lakehouse.govaggregator.common.DeadLetterQueue;
+import et.gov.lakehouse.govaggregator.common.PipelineMetrics;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps an {@link FxRateTable} current from the NBE topic, like a GlobalKTable: every instance reads
+ * all partitions from the beginning (no consumer group, nothing committed), so MoR and ECC tasks see
+ * every pair whichever partitions Streams assigned them. The topic is also an input of the enriched
+ * merge, and Streams does not allow one topic as both a stream and a global source, hence the own
+ * consumer. {@link #awaitLoaded} blocks until the end offsets seen at startup are read.
+ *
+ * Values are decoded here rather than by the consumer, so an undecodable record goes through
+ * DESERIALIZATION_ERROR_HANDLER (dlq / log) and is skipped; the feed never stops on one. Any other
+ * failure restarts the poll loop from the current position after a backoff (1 s doubling to 60 s).
+ * gov_fx_rate_age_seconds tells how long ago the last rate was applied.
+ */
+public final class FxRateFeed implements AutoCloseable {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final long RETRY_MIN_MS = 1_000;
+    private static final long RETRY_MAX_MS = 60_000;
+    private static final PipelineMetrics METRICS = PipelineMetrics.global();
+
+    private final String topic;
+    private final FxRateTable table;
+    private final Deserializer<NbeFxRate> valueDeserializer;
+    private final Map<?, ?> streamsConfig;
+    private final Consumer<String, byte[]> consumer;
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /** {@code streamsConfig} supplies the bootstrap servers and the dead-letter producer settings. */
+    public FxRateFeed(Map<?, ?> streamsConfig, String topic, Deserializer<NbeFxRate> valueDeserializer, FxRateTable table) {
+        Properties p = new Properties();
+        p.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, String.valueOf(streamsConfig.get(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG)));
+        p.put(ConsumerConfig.CLIENT_ID_CONFIG, "gov-aggregator-fx-rates");
+        p.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        p.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        this.consumer = new KafkaConsumer<>(p, new StringDeserializer(), new ByteArrayDeserializer());
+        this.topic = topic;
+        this.table = table;
+        this.valueDeserializer = valueDeserializer;
+        this.streamsConfig = streamsConfig;
+        this.thread = new Thread(this::run, "nbe-fx-rates");
+        this.thread.setDaemon(true);
+    }
+
+    public FxRateFeed start() {
+        thread.start();
+        return this;
+    }
+
+    /** Waits for the initial load; returns false on timeout (records before that are not converted). */
+    public boolean awaitLoaded(long timeoutMs) {
+        try {
+            return loaded.await(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        closed.countDown();
+        consumer.wakeup();
+        try {
+            thread.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        METRICS.fxRatesUpdated(topic);
+        long backoffMs = RETRY_MIN_MS;
+        Map<TopicPartition, Long> end = null;
+        try {
+            while (running) {
+                try {
+                    if (end == null) {
+                        List<TopicPartition> partitions = new ArrayList<>();
+                        List<PartitionInfo> infos = consumer.partitionsFor(topic);
+                        if (infos == null || infos.isEmpty()) {
+                            throw new IllegalStateException("no partitions found for " + topic);
+                        }
+                        for (PartitionInfo pi : infos) {
+                            partitions.add(new TopicPartition(pi.topic(), pi.partition()));
+                        }
+                        consumer.assign(partitions);
+                        consumer.seekToBeginning(partitions);
+                        end = consumer.endOffsets(partitions);
+                    }
+                    poll(end);
+                    backoffMs = RETRY_MIN_MS;
+                } catch (WakeupException e) {
+                    // close()
+                } catch (RuntimeException e) {
+                    if (!running) break;
+                    // Rediscover the partitions on the next attempt (the topic may not exist yet).
+                    end = null;
+                    System.out.println("[gov-aggregator] NBE rate feed failed, retrying in " + backoffMs
+                            + " ms; rates stay at their last value meanwhile: " + e);
+                    // Do not hold up the boot on a feed that is down; Streams starts with what was loaded.
+                    loaded.countDown();
+                    if (closed.await(backoffMs, TimeUnit.MILLISECONDS)) break;
+                    backoffMs = Math.min(backoffMs * 2, RETRY_MAX_MS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            loaded.countDown();
+            consumer.close(Duration.ofSeconds(5));
+        }
+    }
+
+    private void poll(Map<TopicPartition, Long> end) {
+        boolean updated = false;
+        for (ConsumerRecord<String, byte[]> rec : consumer.poll(POLL_TIMEOUT)) {
+            NbeFxRate v = decode(rec);
+            if (v != null) {
+                table.update(v.getPair(), v.getRate(), v.getAsOf() != null ? v.getAsOf().toEpochMilli() : rec.timestamp());
+                updated = true;
+            }
+        }
+        if (updated) METRICS.fxRatesUpdated(topic);
+        if (loaded.getCount() > 0 && caughtUp(end)) {
+            System.out.println("[gov-aggregator] NBE rate table loaded from " + topic + ": "
+                    + table.size() + " currencies");
+            loaded.countDown();
+        }
+    }
+
+    /** The decoded rate, or null for a tombstone or a record the deserialization handler skipped. */
+    private NbeFxRate decode(ConsumerRecord<String, byte[]> rec) {
+        if (rec.value() == null) return null;
+        try {
+            return valueDeserializer.deserialize(rec.topic(), rec.headers(), rec.value());
+        } catch (RuntimeException e) {
+            byte[] key = rec.key() != null ? rec.key().getBytes(StandardCharsets.UTF_8) : null;
+            if (!DeadLetterQueue.onDeserializationError(streamsConfig, rec.topic(), rec.partition(), rec.offset(),
+                    key, rec.value(), rec.headers(), e)) {
+                // Failing here would only stop the feed; the rate is skipped either way.
+                System.out.println("[gov-aggregator] skipping undecodable NBE rate " + rec.topic() + "-"
+                        + rec.partition() + "@" + rec.offset() + ": " + e);
+                METRICS.recordDropped("nbe-fx", rec.topic(), "deserialization");
+            }
+            return null;
+        }
+    }
+
+    private boolean caughtUp(Map<TopicPartition, Long> end) {
+        for (Map.Entry<TopicPartition, Long> e : end.entrySet()) {
+            if (consumer.position(e.getKey()) < e.getValue()) return false;
+        }
+        return true;
+    }
+}
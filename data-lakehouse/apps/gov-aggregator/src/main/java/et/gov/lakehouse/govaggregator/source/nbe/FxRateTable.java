@@ -0,0 +1,107 @@
+package et.gov.lakehouse.govaggregator.source.nbe;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latest NBE rate to ETB per currency, read by every stream thread and written by {@link FxRateFeed}.
+ *
+ * ISO 4217 codes are three letters, so a currency indexes a flat array directly (26^3 slots, ~140 KB):
+ * a lookup is three charAt calls and one volatile long read, with no hashing, boxing or allocation.
+ * A pair updates its slot only when its asOf is not older than the rate already held, so the table
+ * converges on the latest rate whatever order the NBE partitions are read in.
+ */
+public final class FxRateTable {
+
+    /** Currency the amounts are converted to. */
+    public static final String BASE = "ETB";
+
+    private static final int SLOTS = 26 * 26 * 26;
+    private static final int BASE_INDEX = index(BASE);
+    private static final long NO_RATE = Double.doubleToRawLongBits(Double.NaN);
+
+    /** Double bits of the ETB rate per slot; NaN when unknown. */
+    private final AtomicLongArray rates = new AtomicLongArray(SLOTS);
+    /** asOf (epoch ms) per slot; touched only by the writer. */
+    private final long[] asOf = new long[SLOTS];
+    private volatile int size;
+
+    public FxRateTable() {
+        for (int i = 0; i < SLOTS; i++) {
+            rates.lazySet(i, NO_RATE);
+            asOf[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /** amount in currency converted to ETB; NaN when the currency has no rate yet. */
+    public double toEtb(String currency, double amount) {
+        return amount * rateToEtb(currency);
+    }
+
+    /** ETB per unit of currency (1 for ETB); NaN when unknown. */
+    public double rateToEtb(String currency) {
+        int i = index(currency);
+        if (i < 0) return Double.NaN;
+        if (i == BASE_INDEX) return 1.0;
+        return Double.longBitsToDouble(rates.get(i));
+    }
+
+    /** Currencies with a rate. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Applies one NbeFxRate. Accepts "USD/ETB", "USD-ETB" and "USDETB" (ETB per USD) as well as the
+     * inverse "ETB/USD"; pairs without ETB, non-positive rates and older asOf values are ignored.
+     * Returns whether the table changed. Single writer.
+     */
+    public boolean update(String pair, double rate, long asOfMillis) {
+        if (pair == null || !(rate > 0) || Double.isInfinite(rate)) return false;
+        String p = pair.trim();
+        String base;
+        String quote;
+        if (p.length() == 7 && !Character.isLetter(p.charAt(3))) {
+            base = p.substring(0, 3);
+            quote = p.substring(4);
+        } else if (p.length() == 6) {
+            base = p.substring(0, 3);
+            quote = p.substring(3);
+        } else {
+            return false;
+        }
+
+        int slot;
+        double toEtb;
+        if (index(quote) == BASE_INDEX) {
+            slot = index(base);
+            toEtb = rate;
+        } else if (index(base) == BASE_INDEX) {
+            slot = index(quote);
+            toEtb = 1.0 / rate;
+        } else {
+            return false;
+        }
+        if (slot < 0 || slot == BASE_INDEX || asOfMillis < asOf[slot]) return false;
+
+        if (asOf[slot] == Long.MIN_VALUE) size++;
+        asOf[slot] = asOfMillis;
+        rates.set(slot, Double.doubleToRawLongBits(toEtb));
+        return true;
+    }
+
+    /** Slot of a three-letter code (either case), or -1. */
+    private static int index(String currency) {
+        if (currency == null || currency.length() != 3) return -1;
+        int a = letter(currency.charAt(0));
+        int b = letter(currency.charAt(1));
+        int c = letter(currency.charAt(2));
+        if ((a | b | c) < 0) return -1;
+        return (a * 26 + b) * 26 + c;
+    }
+
+    private static int letter(char ch) {
+        if (ch >= 'A' && ch <= 'Z') return ch - 'A';
+        if (ch >= 'a' && ch <= 'z') return ch - 'a';
+        return -1;
+    }
+}
@@ -1,13 +1,34 @@
 package et.gov.lakehouse.govaggregator.source.nbe;
 
 import et.gov.lakehouse.govaggregator.avro.AggregatedRecord;
+import et.gov.lakehouse.govaggregator.avro.AggregatedRecordV2;
 import et.gov.lakehouse.govaggregator.avro.NbeFxRate;
+import et.gov.lakehouse.govaggregator.avro.NbePayload;
+import et.gov.lakehouse.govaggregator.common.PayloadJson;
+import et.gov.lakehouse.govaggregator.common.PipelineMetrics;
 import org.apache.kafka.streams.kstream.KStream;
 
 public final class NbeTask {
     public static KStream<String, AggregatedRecord> build(KStream<String, NbeFxRate> in) {
-        return in.mapValues(v -> new AggregatedRecord("NBE","fx_rate", v.getAsOf(), v.getPair(),
-                "{\"rate\":"+v.getRate()+"}"));
+        return in.mapValues(PipelineMetrics.timed("nbe", "fx_rate", NbeTask::toAggregated));
     }
+
+    /** The per-record mapping applied by {@link #build}. */
+    public static AggregatedRecord toAggregated(NbeFxRate v) {
+        return new AggregatedRecord("NBE","fx_rate", v.getAsOf(), v.getPair(),
+                PayloadJson.begin().field("rate", v.getRate()).end());
+    }
+
+    /** Typed-payload variant (AGGREGATE_PAYLOAD_FORMAT=typed). */
+    public static KStream<String, AggregatedRecordV2> buildTyped(KStream<String, NbeFxRate> in) {
+        return in.mapValues(PipelineMetrics.timed("nbe", "fx_rate", NbeTask::toTyped));
+    }
+
+    /** The per-record mapping applied by {@link #buildTyped}. */
+    public static AggregatedRecordV2 toTyped(NbeFxRate v) {
+        return new AggregatedRecordV2("NBE","fx_rate", v.getAsOf(), v.getPair(),
+                new NbePayload(v.getRate()));
+    }
+
     private NbeTask() {}
 }